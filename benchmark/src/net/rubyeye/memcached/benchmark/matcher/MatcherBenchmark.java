@@ -0,0 +1,92 @@
+package net.rubyeye.memcached.benchmark.matcher;
+
+import java.nio.ByteBuffer;
+
+import com.google.code.yanf4j.buffer.IoBuffer;
+import com.google.code.yanf4j.util.ByteBufferMatcher;
+import com.google.code.yanf4j.util.ShiftAndByteBufferMatcher;
+import com.google.code.yanf4j.util.ShiftOrByteBufferMatcher;
+import com.google.code.yanf4j.util.SwarByteBufferMatcher;
+
+/**
+ * Compare the "\r\n" matchers by splitting a stats response and a multi-get
+ * response into lines.Usage: MatcherBenchmark [rounds] [matcher class name],
+ * run one matcher per JVM to keep the JIT profile of the others out of the way.
+ * 
+ * @author dennis
+ * 
+ */
+public class MatcherBenchmark {
+
+	static final IoBuffer CRLF = IoBuffer.wrap("\r\n".getBytes());
+
+	public static void main(String[] args) {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		String name = args.length > 1 ? args[1] : null;
+		ByteBuffer stats = statsResponse();
+		ByteBuffer multiGet = multiGetResponse();
+		ByteBufferMatcher[] matchers = { new ShiftAndByteBufferMatcher(CRLF),
+				new ShiftOrByteBufferMatcher(CRLF),
+				new SwarByteBufferMatcher(CRLF) };
+		for (ByteBufferMatcher matcher : matchers) {
+			if (name != null
+					&& !matcher.getClass().getSimpleName().equals(name)) {
+				continue;
+			}
+			// warm up
+			run(matcher, stats, rounds);
+			run(matcher, multiGet, rounds / 10);
+			report(matcher, "stats", stats, rounds);
+			report(matcher, "multi-get", multiGet, rounds / 10);
+		}
+	}
+
+	static void report(ByteBufferMatcher matcher, String name,
+			ByteBuffer buffer, int rounds) {
+		long start = System.nanoTime();
+		long lines = run(matcher, buffer, rounds);
+		long nanos = System.nanoTime() - start;
+		System.out.println(String.format("%-28s %-10s %8.1f MB/s %10d lines",
+				matcher.getClass().getSimpleName(), name,
+				(double) buffer.remaining() * rounds * 1000 / nanos, lines));
+	}
+
+	static long run(ByteBufferMatcher matcher, ByteBuffer buffer, int rounds) {
+		long lines = 0;
+		IoBuffer ioBuffer = IoBuffer.wrap(buffer.duplicate());
+		for (int i = 0; i < rounds; i++) {
+			ioBuffer.position(0);
+			int index;
+			while ((index = matcher.matchFirst(ioBuffer)) >= 0) {
+				ioBuffer.position(index + 2);
+				lines++;
+			}
+		}
+		return lines;
+	}
+
+	static ByteBuffer statsResponse() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 60; i++) {
+			sb.append("STAT stat_item_").append(i).append(' ')
+					.append(i * 7919L).append("\r\n");
+		}
+		sb.append("END\r\n");
+		return ByteBuffer.wrap(sb.toString().getBytes());
+	}
+
+	static ByteBuffer multiGetResponse() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			StringBuilder value = new StringBuilder();
+			while (value.length() < 512) {
+				value.append("value").append(i);
+			}
+			sb.append("VALUE key_").append(i).append(" 0 ")
+					.append(value.length()).append("\r\n").append(value)
+					.append("\r\n");
+		}
+		sb.append("END\r\n");
+		return ByteBuffer.wrap(sb.toString().getBytes());
+	}
+}
@@ -0,0 +1,76 @@
+package net.rubyeye.memcached.benchmark.queue;
+
+import java.util.Queue;
+
+import com.google.code.yanf4j.util.SpscRingQueue;
+import com.google.code.yanf4j.util.SystemUtils;
+
+/**
+ * Compare the queues of commands waiting for responses,one thread offers
+ * commands like the session writer and another polls them like the decoder,the
+ * writer stops when the window of in flight commands is full.Usage:
+ * InflightQueueBenchmark [rounds] [window] [transfer|spsc],run one queue per
+ * JVM to keep the JIT profile of the other out of the way.
+ * 
+ * @author dennis
+ * 
+ */
+public class InflightQueueBenchmark {
+
+	static volatile long consumed;
+
+	public static void main(String[] args) throws Exception {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		int window = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+		String name = args.length > 2 ? args[2] : null;
+		if (name == null || name.equals("transfer")) {
+			// warm up
+			run(newTransferQueue(), rounds / 10, window);
+			report("transfer", newTransferQueue(), rounds, window);
+		}
+		if (name == null || name.equals("spsc")) {
+			run(new SpscRingQueue<Object>(), rounds / 10, window);
+			report("spsc", new SpscRingQueue<Object>(), rounds, window);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	static Queue<Object> newTransferQueue() {
+		return (Queue<Object>) SystemUtils.createTransferQueue();
+	}
+
+	static void report(String name, Queue<Object> queue, int rounds, int window)
+			throws InterruptedException {
+		long start = System.nanoTime();
+		run(queue, rounds, window);
+		long nanos = System.nanoTime() - start;
+		System.out.println(String.format("%-10s window %-6d %10.1f ops/ms %8.1f ns/op",
+				name, window, (double) rounds * 1000000 / nanos,
+				(double) nanos / rounds));
+	}
+
+	static void run(final Queue<Object> queue, final int rounds, int window)
+			throws InterruptedException {
+		final Object command = new Object();
+		consumed = 0;
+		Thread decoder = new Thread() {
+			@Override
+			public void run() {
+				long count = 0;
+				while (count < rounds) {
+					if (queue.poll() != null) {
+						consumed = ++count;
+					}
+				}
+			}
+		};
+		decoder.start();
+		for (long i = 0; i < rounds; i++) {
+			while (i - consumed >= window) {
+				Thread.yield();
+			}
+			queue.offer(command);
+		}
+		decoder.join();
+	}
+}
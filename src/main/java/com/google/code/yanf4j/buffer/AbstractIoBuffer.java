@@ -49,6 +49,9 @@ import java.util.Set;
  * @see IoBufferAllocator
  */
 public abstract class AbstractIoBuffer extends IoBuffer {
+  /** The allocator this buffer reallocates from when it expands or shrinks */
+  private final IoBufferAllocator allocator;
+
   /** Tells if a buffer has been created from an existing buffer */
   private final boolean derived;
 
@@ -86,7 +89,7 @@ public abstract class AbstractIoBuffer extends IoBuffer {
    * @param initialCapacity The initial buffer capacity when created
    */
   protected AbstractIoBuffer(IoBufferAllocator allocator, int initialCapacity) {
-    setAllocator(allocator);
+    this.allocator = allocator;
     this.recapacityAllowed = true;
     this.derived = false;
     this.minimumCapacity = initialCapacity;
@@ -99,7 +102,7 @@ public abstract class AbstractIoBuffer extends IoBuffer {
    * @param parent The buffer we get the properties from
    */
   protected AbstractIoBuffer(AbstractIoBuffer parent) {
-    setAllocator(parent.getAllocator());
+    this.allocator = parent.allocator;
     this.recapacityAllowed = false;
     this.derived = true;
     this.minimumCapacity = parent.minimumCapacity;
@@ -175,7 +178,7 @@ public abstract class AbstractIoBuffer extends IoBuffer {
 
       // // Reallocate.
       ByteBuffer oldBuf = buf();
-      ByteBuffer newBuf = getAllocator().allocateNioBuffer(newCapacity, isDirect());
+      ByteBuffer newBuf = this.allocator.allocateNioBuffer(newCapacity, isDirect());
       oldBuf.clear();
       newBuf.put(oldBuf);
       buf(newBuf);
@@ -323,7 +326,7 @@ public abstract class AbstractIoBuffer extends IoBuffer {
 
     // // Reallocate.
     ByteBuffer oldBuf = buf();
-    ByteBuffer newBuf = getAllocator().allocateNioBuffer(newCapacity, isDirect());
+    ByteBuffer newBuf = this.allocator.allocateNioBuffer(newCapacity, isDirect());
     oldBuf.position(0);
     oldBuf.limit(limit);
     newBuf.put(oldBuf);
@@ -592,7 +595,7 @@ public abstract class AbstractIoBuffer extends IoBuffer {
 
       // // Reallocate.
       ByteBuffer oldBuf = buf();
-      ByteBuffer newBuf = getAllocator().allocateNioBuffer(newCapacity, isDirect());
+      ByteBuffer newBuf = this.allocator.allocateNioBuffer(newCapacity, isDirect());
       newBuf.put(oldBuf);
       buf(newBuf);
 
@@ -154,9 +154,9 @@ public class CachedBufferAllocator implements IoBufferAllocator {
         buf.order(ByteOrder.BIG_ENDIAN);
       } else {
         if (direct) {
-          buf = wrap(ByteBuffer.allocateDirect(actualCapacity));
+          buf = new CachedBuffer(ByteBuffer.allocateDirect(actualCapacity), true);
         } else {
-          buf = wrap(ByteBuffer.allocate(actualCapacity));
+          buf = new CachedBuffer(ByteBuffer.allocate(actualCapacity), true);
         }
       }
     }
@@ -170,18 +170,24 @@ public class CachedBufferAllocator implements IoBufferAllocator {
   }
 
   public IoBuffer wrap(ByteBuffer nioBuffer) {
-    return new CachedBuffer(nioBuffer);
+    return new CachedBuffer(nioBuffer, false);
   }
 
   public void dispose() {}
 
   private class CachedBuffer extends AbstractIoBuffer {
     private final Thread ownerThread;
+    /**
+     * Whether the underlying buffer was allocated by this allocator.Wrapped buffers belong to the
+     * caller and may be shared,so they are never recycled or invalidated by free().
+     */
+    private final boolean pooled;
     private ByteBuffer buf;
 
-    protected CachedBuffer(ByteBuffer buf) {
+    protected CachedBuffer(ByteBuffer buf, boolean pooled) {
       super(CachedBufferAllocator.this, buf.capacity());
       this.ownerThread = Thread.currentThread();
+      this.pooled = pooled;
       this.buf = buf;
       buf.order(ByteOrder.BIG_ENDIAN);
     }
@@ -189,6 +195,7 @@ public class CachedBufferAllocator implements IoBufferAllocator {
     protected CachedBuffer(CachedBuffer parent, ByteBuffer buf) {
       super(parent);
       this.ownerThread = Thread.currentThread();
+      this.pooled = false;
       this.buf = buf;
     }
 
@@ -239,12 +246,16 @@ public class CachedBufferAllocator implements IoBufferAllocator {
 
     @Override
     public void free() {
+      if (!this.pooled) {
+        return;
+      }
       free(this.buf);
       this.buf = null;
     }
 
     private void free(ByteBuffer oldBuf) {
-      if (oldBuf == null || oldBuf.capacity() > CachedBufferAllocator.this.maxCachedBufferSize
+      if (!this.pooled || oldBuf == null
+          || oldBuf.capacity() > CachedBufferAllocator.this.maxCachedBufferSize
           || oldBuf.isReadOnly() || isDerived() || Thread.currentThread() != this.ownerThread) {
         return;
       }
@@ -264,7 +275,7 @@ public class CachedBufferAllocator implements IoBufferAllocator {
       // Restrict the size of the pool to prevent OOM.
       if (CachedBufferAllocator.this.maxPoolSize == 0
           || pool.size() < CachedBufferAllocator.this.maxPoolSize) {
-        pool.offer(new CachedBuffer(oldBuf));
+        pool.offer(new CachedBuffer(oldBuf, true));
       }
     }
   }
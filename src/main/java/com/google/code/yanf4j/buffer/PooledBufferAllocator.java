@@ -0,0 +1,285 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package com.google.code.yanf4j.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A thread-safe {@link IoBufferAllocator} which pools buffers whose capacity is power of 2.Unlike
+ * {@link CachedBufferAllocator},a buffer freed by any thread is returned to the pool,so buffers
+ * allocated by callers and freed by the reactor are reused.
+ * <p>
+ * Every size class has a set of small magazines,a thread allocates from the one selected by its id
+ * and a freed buffer goes back to the magazine of the thread which allocated it,buffers that the
+ * magazine can't hold go to a shared bounded depot,all of them are lock-free.Only
+ * buffers allocated by this allocator and not larger than the max cached buffer size are
+ * recycled,wrapped and derived buffers are left to the GC.A buffer must not be used after
+ * {@link IoBuffer#free()},freeing it again has no effect.
+ * <p>
+ * The allocator is installed by {@link IoBuffer#setAllocator(IoBufferAllocator)},which replaces the
+ * allocator of every IoBuffer in the JVM.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public class PooledBufferAllocator implements IoBufferAllocator {
+  public static final int DEFAULT_MAX_CACHED_BUFFER_SIZE = 16 * 1024;
+  public static final int DEFAULT_MAX_POOL_SIZE = 64;
+  private static final int MAGAZINE_SIZE = 8;
+  private static final int MAX_MAGAZINES = 64;
+
+  private final int maxCachedBufferSize;
+  private final int maxPoolSize;
+  private final int magazineMask;
+  private final Pool[] heapPools;
+  private final Pool[] directPools;
+
+  public PooledBufferAllocator() {
+    this(DEFAULT_MAX_CACHED_BUFFER_SIZE, DEFAULT_MAX_POOL_SIZE);
+  }
+
+  /**
+   * 
+   * @param maxCachedBufferSize max capacity of pooled buffers,larger buffers are not pooled
+   * @param maxPoolSize max number of buffers in the shared depot of every size class
+   */
+  public PooledBufferAllocator(int maxCachedBufferSize, int maxPoolSize) {
+    if (maxCachedBufferSize <= 0) {
+      throw new IllegalArgumentException("maxCachedBufferSize<=0");
+    }
+    if (maxPoolSize < 0) {
+      throw new IllegalArgumentException("maxPoolSize<0");
+    }
+    this.maxCachedBufferSize = Integer.highestOneBit(maxCachedBufferSize);
+    this.maxPoolSize = maxPoolSize;
+    int magazines = Math.min(MAX_MAGAZINES,
+        Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+    this.magazineMask = magazines - 1;
+    int sizeClasses = Integer.numberOfTrailingZeros(this.maxCachedBufferSize) + 1;
+    this.heapPools = new Pool[sizeClasses];
+    this.directPools = new Pool[sizeClasses];
+    for (int i = 0; i < sizeClasses; i++) {
+      this.heapPools[i] = new Pool(magazines, maxPoolSize);
+      this.directPools[i] = new Pool(magazines, maxPoolSize);
+    }
+  }
+
+  public int getMaxCachedBufferSize() {
+    return this.maxCachedBufferSize;
+  }
+
+  public int getMaxPoolSize() {
+    return this.maxPoolSize;
+  }
+
+  public IoBuffer allocate(int requestedCapacity, boolean direct) {
+    int actualCapacity = IoBuffer.normalizeCapacity(requestedCapacity);
+    Pool pool = this.getPool(actualCapacity, direct);
+    int magazine = this.magazine();
+    ByteBuffer buf = null;
+    if (pool != null) {
+      buf = pool.poll(magazine);
+    }
+    if (buf == null) {
+      buf = direct ? ByteBuffer.allocateDirect(actualCapacity)
+          : ByteBuffer.allocate(actualCapacity);
+    } else {
+      buf.clear();
+    }
+    buf.limit(requestedCapacity);
+    return new PooledBuffer(buf, pool != null, magazine);
+  }
+
+  public ByteBuffer allocateNioBuffer(int capacity, boolean direct) {
+    return this.allocate(capacity, direct).buf();
+  }
+
+  public IoBuffer wrap(ByteBuffer nioBuffer) {
+    return new PooledBuffer(nioBuffer, false, 0);
+  }
+
+  public void dispose() {
+    for (int i = 0; i < this.heapPools.length; i++) {
+      this.heapPools[i].clear();
+      this.directPools[i].clear();
+    }
+  }
+
+  private Pool getPool(int capacity, boolean direct) {
+    if (capacity <= 0 || capacity > this.maxCachedBufferSize || Integer.bitCount(capacity) != 1) {
+      return null;
+    }
+    int index = Integer.numberOfTrailingZeros(capacity);
+    return direct ? this.directPools[index] : this.heapPools[index];
+  }
+
+  private int magazine() {
+    return (int) Thread.currentThread().getId() & this.magazineMask;
+  }
+
+  private void recycle(ByteBuffer buf, int magazine) {
+    if (buf.isReadOnly()) {
+      return;
+    }
+    Pool pool = this.getPool(buf.capacity(), buf.isDirect());
+    if (pool != null) {
+      pool.offer(magazine, buf);
+    }
+  }
+
+  /**
+   * Buffers of one size class.
+   */
+  private static final class Pool {
+    private final AtomicReferenceArray<ByteBuffer> magazines;
+    private final Queue<ByteBuffer> depot = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger depotSize = new AtomicInteger();
+    private final int maxDepotSize;
+
+    Pool(int magazines, int maxDepotSize) {
+      this.magazines = new AtomicReferenceArray<ByteBuffer>(magazines * MAGAZINE_SIZE);
+      this.maxDepotSize = maxDepotSize;
+    }
+
+    ByteBuffer poll(int magazine) {
+      int start = magazine * MAGAZINE_SIZE;
+      for (int i = start; i < start + MAGAZINE_SIZE; i++) {
+        ByteBuffer buf = this.magazines.get(i);
+        if (buf != null && this.magazines.compareAndSet(i, buf, null)) {
+          return buf;
+        }
+      }
+      ByteBuffer buf = this.depot.poll();
+      if (buf != null) {
+        this.depotSize.decrementAndGet();
+      }
+      return buf;
+    }
+
+    void offer(int magazine, ByteBuffer buf) {
+      int start = magazine * MAGAZINE_SIZE;
+      for (int i = start; i < start + MAGAZINE_SIZE; i++) {
+        if (this.magazines.get(i) == null && this.magazines.compareAndSet(i, null, buf)) {
+          return;
+        }
+      }
+      // Restrict the size of the depot to prevent OOM.
+      if (this.depotSize.incrementAndGet() <= this.maxDepotSize) {
+        this.depot.offer(buf);
+      } else {
+        this.depotSize.decrementAndGet();
+      }
+    }
+
+    void clear() {
+      for (int i = 0; i < this.magazines.length(); i++) {
+        this.magazines.set(i, null);
+      }
+      while (this.depot.poll() != null) {
+        this.depotSize.decrementAndGet();
+      }
+    }
+  }
+
+  private static final AtomicReferenceFieldUpdater<PooledBuffer, ByteBuffer> BUF_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(PooledBuffer.class, ByteBuffer.class, "buf");
+
+  private final class PooledBuffer extends AbstractIoBuffer {
+    /**
+     * Whether the underlying buffer was allocated from the pool,wrapped buffers belong to the
+     * caller and may be shared.
+     */
+    private final boolean pooled;
+    /**
+     * Magazine of the thread which allocated the buffer.
+     */
+    private final int magazine;
+    volatile ByteBuffer buf;
+
+    protected PooledBuffer(ByteBuffer buf, boolean pooled, int magazine) {
+      super(PooledBufferAllocator.this, buf.capacity());
+      this.pooled = pooled;
+      this.magazine = magazine;
+      this.buf = buf;
+      buf.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    protected PooledBuffer(PooledBuffer parent, ByteBuffer buf) {
+      super(parent);
+      this.pooled = false;
+      this.magazine = 0;
+      this.buf = buf;
+    }
+
+    @Override
+    public ByteBuffer buf() {
+      ByteBuffer buf = this.buf;
+      if (buf == null) {
+        throw new IllegalStateException("Buffer has been freed already.");
+      }
+      return buf;
+    }
+
+    @Override
+    protected void buf(ByteBuffer buf) {
+      ByteBuffer oldBuf = this.buf;
+      this.buf = buf;
+      if (this.pooled && oldBuf != null) {
+        PooledBufferAllocator.this.recycle(oldBuf, this.magazine);
+      }
+    }
+
+    @Override
+    protected IoBuffer duplicate0() {
+      return new PooledBuffer(this, this.buf().duplicate());
+    }
+
+    @Override
+    protected IoBuffer slice0() {
+      return new PooledBuffer(this, this.buf().slice());
+    }
+
+    @Override
+    protected IoBuffer asReadOnlyBuffer0() {
+      return new PooledBuffer(this, this.buf().asReadOnlyBuffer());
+    }
+
+    @Override
+    public byte[] array() {
+      return this.buf().array();
+    }
+
+    @Override
+    public int arrayOffset() {
+      return this.buf().arrayOffset();
+    }
+
+    @Override
+    public boolean hasArray() {
+      return this.buf().hasArray();
+    }
+
+    @Override
+    public void free() {
+      if (!this.pooled) {
+        return;
+      }
+      ByteBuffer oldBuf = this.buf;
+      if (oldBuf != null && BUF_UPDATER.compareAndSet(this, oldBuf, null)) {
+        PooledBufferAllocator.this.recycle(oldBuf, this.magazine);
+      }
+    }
+  }
+}
@@ -10,6 +10,7 @@ package com.google.code.yanf4j.config;
 
 import net.rubyeye.xmemcached.impl.ReconnectRequest;
 import java.util.concurrent.DelayQueue;
+import com.google.code.yanf4j.nio.impl.WriteBudget;
 import com.google.code.yanf4j.util.SystemUtils;
 
 /**
@@ -76,6 +77,36 @@ public class Configuration {
    */
   private long checkSessionTimeoutInterval = 1000L;
 
+  /**
+   * Max microseconds to delay a write for batching it with other writes,0 means no delay
+   */
+  private long writeBatchDelay = 0;
+
+  /**
+   * Max bytes of a write batch
+   */
+  private int writeBatchMaxBytes = 64 * 1024;
+
+  /**
+   * Max messages of a write batch
+   */
+  private int writeBatchMaxMessages = 64;
+
+  /**
+   * Whether to write at once when the session was idle for the delay
+   */
+  private boolean writeBatchAdaptive = true;
+
+  /**
+   * Whether the thread writing to an idle session writes to the channel by itself
+   */
+  private boolean writeThrough = false;
+
+  /**
+   * Budget shared by the write queues of all sessions,null means unbounded
+   */
+  private WriteBudget writeBudget;
+
   public final int getWriteThreadCount() {
     return this.writeThreadCount;
   }
@@ -188,4 +219,61 @@ public class Configuration {
   public int getSelectorPoolSize() {
     return selectorPoolSize;
   }
+
+  public long getWriteBatchDelay() {
+    return this.writeBatchDelay;
+  }
+
+  public void setWriteBatchDelay(long writeBatchDelay) {
+    if (writeBatchDelay < 0) {
+      throw new IllegalArgumentException("writeBatchDelay<0");
+    }
+    this.writeBatchDelay = writeBatchDelay;
+  }
+
+  public int getWriteBatchMaxBytes() {
+    return this.writeBatchMaxBytes;
+  }
+
+  public void setWriteBatchMaxBytes(int writeBatchMaxBytes) {
+    if (writeBatchMaxBytes <= 0) {
+      throw new IllegalArgumentException("writeBatchMaxBytes<=0");
+    }
+    this.writeBatchMaxBytes = writeBatchMaxBytes;
+  }
+
+  public int getWriteBatchMaxMessages() {
+    return this.writeBatchMaxMessages;
+  }
+
+  public void setWriteBatchMaxMessages(int writeBatchMaxMessages) {
+    if (writeBatchMaxMessages <= 0) {
+      throw new IllegalArgumentException("writeBatchMaxMessages<=0");
+    }
+    this.writeBatchMaxMessages = writeBatchMaxMessages;
+  }
+
+  public boolean isWriteBatchAdaptive() {
+    return this.writeBatchAdaptive;
+  }
+
+  public void setWriteBatchAdaptive(boolean writeBatchAdaptive) {
+    this.writeBatchAdaptive = writeBatchAdaptive;
+  }
+
+  public boolean isWriteThrough() {
+    return this.writeThrough;
+  }
+
+  public void setWriteThrough(boolean writeThrough) {
+    this.writeThrough = writeThrough;
+  }
+
+  public WriteBudget getWriteBudget() {
+    return this.writeBudget;
+  }
+
+  public void setWriteBudget(WriteBudget writeBudget) {
+    this.writeBudget = writeBudget;
+  }
 }
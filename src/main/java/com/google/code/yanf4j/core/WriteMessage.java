@@ -16,6 +16,7 @@
  */
 package com.google.code.yanf4j.core;
 
+import java.nio.ByteBuffer;
 import com.google.code.yanf4j.buffer.IoBuffer;
 import com.google.code.yanf4j.core.impl.FutureImpl;
 
@@ -37,6 +38,15 @@ public interface WriteMessage {
 
   public void setWriteBuffer(IoBuffer buffers);
 
+  /**
+   * Buffers to be written by one gathering write instead of the write buffer,the message is written
+   * completely when all of them have no remaining.
+   * 
+   * @return null if the message is written from the write buffer only.
+   * @since 2.4.3
+   */
+  public ByteBuffer[] getWriteBuffers();
+
   public FutureImpl<Boolean> getWriteFuture();
 
 }
@@ -17,8 +17,12 @@
 package com.google.code.yanf4j.core.impl;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
@@ -38,6 +42,7 @@ import com.google.code.yanf4j.core.Session;
 import com.google.code.yanf4j.core.SessionConfig;
 import com.google.code.yanf4j.core.WriteMessage;
 import com.google.code.yanf4j.statistics.Statistics;
+import com.google.code.yanf4j.util.ByteBufferUtils;
 import com.google.code.yanf4j.util.LinkedTransferQueue;
 
 /**
@@ -368,12 +373,45 @@ public abstract class AbstractSession implements Session {
       return;
     }
     WriteMessage message = wrapMessage(packet, null);
-    scheduleWritenBytes.addAndGet(message.getWriteBuffer().remaining());
+    scheduleWritenBytes.addAndGet(remaining(message));
     writeFromUserCode(message);
   }
 
   public abstract void writeFromUserCode(WriteMessage message);
 
+  protected static long remaining(WriteMessage message) {
+    ByteBuffer[] writeBuffers = message.getWriteBuffers();
+    if (writeBuffers != null) {
+      return ByteBufferUtils.remaining(writeBuffers);
+    }
+    return message.getWriteBuffer().remaining();
+  }
+
+  /**
+   * Write a batch of packets in order,subclasses may flush them together instead of scheduling a
+   * write for every packet.
+   * 
+   * @param packets
+   */
+  public void writeAll(Collection<?> packets) {
+    if (closed) {
+      return;
+    }
+    List<WriteMessage> messages = new ArrayList<WriteMessage>(packets.size());
+    for (Object packet : packets) {
+      WriteMessage message = wrapMessage(packet, null);
+      scheduleWritenBytes.addAndGet(remaining(message));
+      messages.add(message);
+    }
+    writeFromUserCode(messages);
+  }
+
+  protected void writeFromUserCode(List<WriteMessage> messages) {
+    for (WriteMessage message : messages) {
+      writeFromUserCode(message);
+    }
+  }
+
   public final boolean isLoopbackConnection() {
     return loopback;
   }
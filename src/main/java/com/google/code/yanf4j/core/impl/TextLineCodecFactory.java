@@ -23,7 +23,7 @@ import com.google.code.yanf4j.buffer.IoBuffer;
 import com.google.code.yanf4j.core.CodecFactory;
 import com.google.code.yanf4j.core.Session;
 import com.google.code.yanf4j.util.ByteBufferMatcher;
-import com.google.code.yanf4j.util.ShiftAndByteBufferMatcher;
+import com.google.code.yanf4j.util.SwarByteBufferMatcher;
 
 /**
  * Text line codec factory
@@ -35,7 +35,7 @@ public class TextLineCodecFactory implements CodecFactory {
 
   public static final IoBuffer SPLIT = IoBuffer.wrap("\r\n".getBytes());
 
-  private static final ByteBufferMatcher SPLIT_PATTERN = new ShiftAndByteBufferMatcher(SPLIT);
+  private static final ByteBufferMatcher SPLIT_PATTERN = new SwarByteBufferMatcher(SPLIT);
 
   public static final String DEFAULT_CHARSET_NAME = "utf-8";
 
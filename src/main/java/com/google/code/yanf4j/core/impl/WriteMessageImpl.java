@@ -16,6 +16,7 @@
  */
 package com.google.code.yanf4j.core.impl;
 
+import java.nio.ByteBuffer;
 import com.google.code.yanf4j.buffer.IoBuffer;
 import com.google.code.yanf4j.core.WriteMessage;
 
@@ -29,7 +30,7 @@ public class WriteMessageImpl implements WriteMessage {
 
   protected Object message;
 
-  protected IoBuffer buffer;
+  protected volatile IoBuffer buffer;
 
   protected FutureImpl<Boolean> writeFuture;
 
@@ -53,15 +54,19 @@ public class WriteMessageImpl implements WriteMessage {
    * 
    * @see com.google.code.yanf4j.nio.IWriteMessage#getBuffers()
    */
-  public synchronized final IoBuffer getWriteBuffer() {
+  public final IoBuffer getWriteBuffer() {
     return this.buffer;
   }
 
-  public synchronized final void setWriteBuffer(IoBuffer buffers) {
+  public final void setWriteBuffer(IoBuffer buffers) {
     this.buffer = buffers;
 
   }
 
+  public ByteBuffer[] getWriteBuffers() {
+    return null;
+  }
+
   public final FutureImpl<Boolean> getWriteFuture() {
     return this.writeFuture;
   }
@@ -5,11 +5,14 @@ import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import com.google.code.yanf4j.buffer.IoBuffer;
 import com.google.code.yanf4j.core.EventType;
 import com.google.code.yanf4j.core.WriteMessage;
@@ -32,6 +35,42 @@ public abstract class AbstractNioSession extends AbstractSession implements NioS
 
   protected SelectorManager selectorManager;
   protected SelectableChannel selectableChannel;
+  protected volatile WriteBatcher writeBatcher;
+  protected volatile boolean writeThrough;
+  private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+  private final Runnable scheduleWriteTask = new Runnable() {
+    public void run() {
+      scheduleWrite();
+    }
+  };
+
+  public final WriteBatcher getWriteBatcher() {
+    return writeBatcher;
+  }
+
+  /**
+   * Set the write batching policy of this session,null to schedule every write at once.
+   * 
+   * @since 2.4.3
+   */
+  public final void setWriteBatcher(WriteBatcher writeBatcher) {
+    this.writeBatcher = writeBatcher;
+  }
+
+  public final boolean isWriteThrough() {
+    return writeThrough;
+  }
+
+  /**
+   * Whether the thread writing a message to an idle session writes it to the channel by itself,
+   * instead of scheduling the reactor.The reactor is scheduled only if the channel can't accept
+   * all the bytes.
+   * 
+   * @since 2.4.3
+   */
+  public final void setWriteThrough(boolean writeThrough) {
+    this.writeThrough = writeThrough;
+  }
 
   public AbstractNioSession(NioSessionConfig sessionConfig) {
     super(sessionConfig);
@@ -137,7 +176,7 @@ public abstract class AbstractNioSession extends AbstractSession implements NioS
             writeLock.unlock();
           }
           // register OP_WRITE event
-          selectorManager.registerSession(this, EventType.ENABLE_WRITE);
+          scheduleWrite();
           break;
         }
       }
@@ -216,6 +255,25 @@ public abstract class AbstractNioSession extends AbstractSession implements NioS
     selectorManager.registerSession(this, EventType.UNREGISTER);
   }
 
+  /**
+   * Schedule the reactor to write this session.Only one event is pending at a time,the ones
+   * scheduled before the reactor handles it are coalesced into it.
+   */
+  protected final void scheduleWrite() {
+    if (writeScheduled.compareAndSet(false, true)) {
+      selectorManager.registerSession(this, EventType.ENABLE_WRITE);
+    }
+  }
+
+  /**
+   * Whether the current thread is the reactor of this session
+   * 
+   * @since 2.4.3
+   */
+  protected final boolean isReactorThread() {
+    return Thread.currentThread() == selectorManager.getReactorFromSession(this);
+  }
+
   @Override
   public void writeFromUserCode(WriteMessage message) {
     if (schduleWriteMessage(message)) {
@@ -224,12 +282,44 @@ public abstract class AbstractNioSession extends AbstractSession implements NioS
     onWrite(null);
   }
 
+  /**
+   * Offer all messages to the write queue,then schedule the reactor only once for them.
+   */
+  @Override
+  protected void writeFromUserCode(List<WriteMessage> messages) {
+    if (messages.isEmpty()) {
+      return;
+    }
+    final boolean wasEmpty = writeThrough && writeQueue.isEmpty();
+    for (WriteMessage message : messages) {
+      boolean offered = writeQueue.offer(message);
+      assert offered;
+    }
+    final Reactor reactor = selectorManager.getReactorFromSession(this);
+    if (Thread.currentThread() != reactor && !wasEmpty) {
+      scheduleWrite();
+    } else {
+      onWrite(null);
+    }
+  }
+
   protected boolean schduleWriteMessage(WriteMessage writeMessage) {
+    final WriteBatcher writeBatcher = this.writeBatcher;
+    // The message may be sent once offered.
+    final long bytes = writeBatcher != null ? remaining(writeMessage) : 0;
+    // Write through only if no message is pending,else the pending ones are being written by
+    // another thread or waiting for the channel to be writable.
+    final boolean wasEmpty = writeThrough && writeQueue.isEmpty();
     boolean offered = writeQueue.offer(writeMessage);
     assert offered;
     final Reactor reactor = selectorManager.getReactorFromSession(this);
     if (Thread.currentThread() != reactor) {
-      selectorManager.registerSession(this, EventType.ENABLE_WRITE);
+      if (writeBatcher == null || writeBatcher.batch(bytes, this.scheduleWriteTask)) {
+        if (wasEmpty) {
+          return false;
+        }
+        scheduleWrite();
+      }
       return true;
     }
     return false;
@@ -304,6 +394,25 @@ public abstract class AbstractNioSession extends AbstractSession implements NioS
     return ((WritableByteChannel) channel).write(buffer.buf());
   }
 
+  /**
+   * Write buffers to channel by one gathering write,without copying them into one buffer.
+   * 
+   * @since 2.4.3
+   */
+  protected final long doRealWrite(SelectableChannel channel, ByteBuffer[] buffers)
+      throws IOException {
+    if (log.isDebugEnabled()) {
+      StringBuffer bufMsg = new StringBuffer("send buffers:\n[\n");
+      for (ByteBuffer buff : buffers) {
+        bufMsg.append(" buffer:position=").append(buff.position()).append(",limit=")
+            .append(buff.limit()).append(",capacity=").append(buff.capacity()).append("\n");
+      }
+      bufMsg.append("]");
+      log.debug(bufMsg.toString());
+    }
+    return ((GatheringByteChannel) channel).write(buffers);
+  }
+
   /**
    * �ɷ�IO�¼�
    */
@@ -324,6 +433,8 @@ public abstract class AbstractNioSession extends AbstractSession implements NioS
         onRead(key);
         break;
       case ENABLE_WRITE:
+        // Clear it before enabling,the messages offered later must schedule again.
+        writeScheduled.set(false);
         enableWrite(selector);
         break;
       case ENABLE_READ:
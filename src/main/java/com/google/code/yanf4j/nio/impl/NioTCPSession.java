@@ -11,6 +11,7 @@ package com.google.code.yanf4j.nio.impl;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SelectableChannel;
@@ -75,12 +76,12 @@ public class NioTCPSession extends AbstractNioSession {
       return this.blockingWrite(this.selectableChannel, message, writeBuffer);
     } else {
       while (true) {
-        long n = this.doRealWrite(this.selectableChannel, writeBuffer);
+        long n = this.doRealWrite(this.selectableChannel, message, writeBuffer);
         if (n > 0) {
           this.statistics.statisticsWrite(n);
           this.scheduleWritenBytes.addAndGet(0 - n);
         }
-        if (writeBuffer == null || !writeBuffer.hasRemaining()) {
+        if (writeBuffer == null || !hasRemaining(message, writeBuffer)) {
           if (message.getWriteFuture() != null) {
             message.getWriteFuture().setResult(Boolean.TRUE);
           }
@@ -95,6 +96,32 @@ public class NioTCPSession extends AbstractNioSession {
 
   }
 
+  /**
+   * Write the message's buffers by one gathering write if it has,else write the write buffer.
+   */
+  private long doRealWrite(SelectableChannel channel, WriteMessage message, IoBuffer writeBuffer)
+      throws IOException {
+    ByteBuffer[] writeBuffers = message.getWriteBuffers();
+    if (writeBuffers != null) {
+      return this.doRealWrite(channel, writeBuffers);
+    }
+    return this.doRealWrite(channel, writeBuffer);
+  }
+
+  private static boolean hasRemaining(WriteMessage message, IoBuffer writeBuffer) {
+    ByteBuffer[] writeBuffers = message.getWriteBuffers();
+    if (writeBuffers != null) {
+      // gathering write fills the buffers in order,so check them from the last one
+      for (int i = writeBuffers.length - 1; i >= 0; i--) {
+        if (writeBuffers[i].hasRemaining()) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return writeBuffer.hasRemaining();
+  }
+
   public InetSocketAddress getRemoteSocketAddress() {
     if (this.remoteAddress == null) {
       this.remoteAddress = (InetSocketAddress) ((SocketChannel) this.selectableChannel).socket()
@@ -120,8 +147,8 @@ public class NioTCPSession extends AbstractNioSession {
     int attempts = 0;
     int bytesProduced = 0;
     try {
-      while (writeBuffer.hasRemaining()) {
-        long len = this.doRealWrite(channel, writeBuffer);
+      while (hasRemaining(message, writeBuffer)) {
+        long len = this.doRealWrite(channel, message, writeBuffer);
         if (len > 0) {
           attempts = 0;
           bytesProduced += len;
@@ -143,7 +170,7 @@ public class NioTCPSession extends AbstractNioSession {
           }
         }
       }
-      if (!writeBuffer.hasRemaining() && message.getWriteFuture() != null) {
+      if (!hasRemaining(message, writeBuffer) && message.getWriteFuture() != null) {
         message.getWriteFuture().setResult(Boolean.TRUE);
       }
     } finally {
@@ -136,8 +136,10 @@ public final class Reactor extends Thread {
     selectorManager.notifyReady();
     while (selectorManager.isStarted() && selector.isOpen()) {
       try {
-        beforeSelect();
+        // Reset it before handling registered events,so that the events registered after them
+        // wake up the selector,and the ones registered before don't wake it up again.
         wakenUp.set(false);
+        beforeSelect();
         long before = -1;
         // Wether to look jvm bug
         if (SystemUtils.isLinuxPlatform() && !SystemUtils.isAfterJava6u4Version()) {
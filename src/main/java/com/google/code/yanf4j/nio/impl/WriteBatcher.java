@@ -0,0 +1,136 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package com.google.code.yanf4j.nio.impl;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import com.google.code.yanf4j.util.WorkerThreadFactory;
+
+/**
+ * Write batching policy of a session.It delays scheduling the reactor for a short time,so that
+ * messages written by different threads at about the same time are sent,and merged by the session,
+ * in one batch.
+ * <p>
+ * The first write to a session without batch in progress starts a batch and returns at once,the
+ * batch is flushed by a shared timer thread when the delay expires,so writing threads are never
+ * parked.Writes in the window only join the batch,the one reaching the max bytes or messages
+ * flushes it at once.In adaptive mode,a write doesn't start a batch if the previous one was issued
+ * more than the delay ago,because no other write is likely to come in time,so idle sessions pay
+ * no delay.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public final class WriteBatcher {
+  private final long delayNanos;
+  private final long maxBytes;
+  private final int maxMessages;
+  private final boolean adaptive;
+  private final AtomicReference<Batch> currentBatch = new AtomicReference<Batch>();
+  private volatile long lastWriteTime = System.nanoTime();
+
+  private static final class TimerHolder {
+    static final ScheduledExecutorService TIMER = Executors
+        .newSingleThreadScheduledExecutor(new WorkerThreadFactory("Xmemcached-WriteBatcher"));
+  }
+
+  private final class Batch implements Runnable {
+    final Runnable flush;
+    final AtomicLong bytes;
+    final AtomicInteger messages = new AtomicInteger(1);
+
+    Batch(long bytes, Runnable flush) {
+      this.bytes = new AtomicLong(bytes);
+      this.flush = flush;
+    }
+
+    public void run() {
+      // The delay expired,flush the batch unless a write reaching a limit has done it.
+      if (WriteBatcher.this.currentBatch.compareAndSet(this, null)) {
+        this.flush.run();
+      }
+    }
+  }
+
+  /**
+   * 
+   * @param delay max delay of a write in microseconds
+   * @param maxBytes max bytes of a batch
+   * @param maxMessages max messages of a batch
+   * @param adaptive whether to skip the delay for a write to an idle session
+   */
+  public WriteBatcher(long delay, long maxBytes, int maxMessages, boolean adaptive) {
+    if (delay <= 0) {
+      throw new IllegalArgumentException("delay<=0");
+    }
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes<=0");
+    }
+    if (maxMessages <= 0) {
+      throw new IllegalArgumentException("maxMessages<=0");
+    }
+    this.delayNanos = delay * 1000L;
+    this.maxBytes = maxBytes;
+    this.maxMessages = maxMessages;
+    this.adaptive = adaptive;
+  }
+
+  /**
+   * Add a message which was offered to the write queue to the batch,never blocks.
+   * 
+   * @param bytes bytes of the message
+   * @param flush schedules the reactor to write the batch,it's run by the timer thread when a
+   *        batch started by this message expires
+   * @return true if the caller must schedule the reactor to write the batch at once
+   */
+  public boolean batch(long bytes, Runnable flush) {
+    final long now = System.nanoTime();
+    final long lastWriteTime = this.lastWriteTime;
+    this.lastWriteTime = now;
+    for (;;) {
+      Batch batch = this.currentBatch.get();
+      if (batch != null) {
+        // Join the batch in progress,the timer or the one reaching a limit flushes it.
+        int batchMessages = batch.messages.incrementAndGet();
+        long batchBytes = batch.bytes.addAndGet(bytes);
+        return (batchMessages >= this.maxMessages || batchBytes >= this.maxBytes)
+            && this.currentBatch.compareAndSet(batch, null);
+      }
+      if (this.adaptive && now - lastWriteTime > this.delayNanos || bytes >= this.maxBytes
+          || this.maxMessages == 1) {
+        return true;
+      }
+      batch = new Batch(bytes, flush);
+      if (this.currentBatch.compareAndSet(null, batch)) {
+        TimerHolder.TIMER.schedule(batch, this.delayNanos, TimeUnit.NANOSECONDS);
+        return false;
+      }
+    }
+  }
+
+  public long getDelay() {
+    return this.delayNanos / 1000L;
+  }
+
+  public long getMaxBytes() {
+    return this.maxBytes;
+  }
+
+  public int getMaxMessages() {
+    return this.maxMessages;
+  }
+
+  public boolean isAdaptive() {
+    return this.adaptive;
+  }
+}
@@ -0,0 +1,348 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package com.google.code.yanf4j.nio.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Budget of the commands and bytes waiting in write queues,the commands written and waiting for
+ * responses count against the count limit too.When a command doesn't fit in the budget it's handled
+ * by the policy:
+ * <ul>
+ * <li>BLOCK,wait until the budget is released or block timeout,then throw an exception.</li>
+ * <li>FAIL_FAST,throw an exception at once.</li>
+ * <li>SHED,drop noreply operations which nobody is waiting for,block the others.</li>
+ * </ul>
+ * The exception is an IllegalStateException,as the one thrown by the noreply operations' flow
+ * control.Limits less than or equal to zero mean unlimited,a command larger than the byte limit is
+ * still accepted when nothing is queued.
+ * <p>
+ * The budget set to the client builder is the client wide one,every connection gets a budget with
+ * the session limits by {@link #newSessionBudget()},which is also counted by the client wide one.
+ * Limits are soft under contention,they may be exceeded by a few concurrent writers.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public class WriteBudget implements WriteBudgetMBean {
+
+  public enum Policy {
+    BLOCK, FAIL_FAST, SHED
+  }
+
+  private final Policy policy;
+  private final long blockTimeout;
+  private final WriteBudget parent;
+
+  private volatile int maxCount;
+  private volatile long maxBytes;
+  private volatile int sessionMaxCount;
+  private volatile long sessionMaxBytes;
+
+  private final AtomicInteger queuedCount = new AtomicInteger();
+  private final AtomicLong queuedBytes = new AtomicLong();
+  private final AtomicInteger inflightCount = new AtomicInteger();
+
+  private final AtomicLong rejectedCount = new AtomicLong();
+  private final AtomicLong shedCount = new AtomicLong();
+  private final AtomicLong blockedCount = new AtomicLong();
+
+  // Writers wait on the root budget,which is released by every session.
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = this.lock.newCondition();
+  private volatile int waiters;
+
+  /**
+   * Create a client wide write budget
+   * 
+   * @param policy policy when the budget is exhausted
+   * @param blockTimeout max milliseconds to block a writer
+   */
+  public WriteBudget(Policy policy, long blockTimeout) {
+    this(policy, blockTimeout, null);
+  }
+
+  private WriteBudget(Policy policy, long blockTimeout, WriteBudget parent) {
+    if (policy == null) {
+      throw new IllegalArgumentException("Null policy");
+    }
+    this.policy = policy;
+    this.blockTimeout = blockTimeout;
+    this.parent = parent;
+  }
+
+  /**
+   * Create the budget of a connection,with the session limits and counted by this budget too.
+   */
+  public WriteBudget newSessionBudget() {
+    WriteBudget budget = new WriteBudget(this.policy, this.blockTimeout, this);
+    budget.maxCount = this.sessionMaxCount;
+    budget.maxBytes = this.sessionMaxBytes;
+    return budget;
+  }
+
+  /**
+   * Acquire the budget of a command before it's queued.
+   * 
+   * @param bytes bytes of the command
+   * @param noreply whether the command is a noreply operation
+   * @param mayBlock false if the caller must not be blocked,such as a reactor thread,the budget is
+   *        acquired regardless of the limits then
+   * @return false if the command should be dropped
+   * @throws InterruptedException
+   * @throws IllegalStateException if the budget is exhausted
+   */
+  public boolean acquire(int bytes, boolean noreply, boolean mayBlock)
+      throws InterruptedException {
+    if (this.tryAcquire(bytes)) {
+      return true;
+    }
+    if (!mayBlock) {
+      this.forceAcquire(bytes);
+      return true;
+    }
+    if (this.policy == Policy.SHED && noreply) {
+      this.onShed();
+      return false;
+    }
+    if (this.policy != Policy.FAIL_FAST && this.await(bytes)) {
+      return true;
+    }
+    this.onRejected();
+    throw new IllegalStateException("Write budget is exhausted,queued=" + this.queuedCount.get()
+        + ",queuedBytes=" + this.queuedBytes.get() + ",inflight=" + this.inflightCount.get()
+        + ",maxCount=" + this.maxCount + ",maxBytes=" + this.maxBytes);
+  }
+
+  /**
+   * Release the budget of a command when it's taken from the write queue.
+   */
+  public void release(int bytes) {
+    this.release0(bytes);
+    if (this.parent != null) {
+      this.parent.release0(bytes);
+    }
+    this.signalWaiters();
+  }
+
+  /**
+   * A command was written and is waiting for response.
+   */
+  public void incrementInflight() {
+    this.inflightCount.incrementAndGet();
+    if (this.parent != null) {
+      this.parent.inflightCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * A command's response was received or it was failed.
+   */
+  public void decrementInflight() {
+    this.inflightCount.decrementAndGet();
+    if (this.parent != null) {
+      this.parent.inflightCount.decrementAndGet();
+    }
+    this.signalWaiters();
+  }
+
+  private boolean tryAcquire(int bytes) {
+    if (!this.tryAcquire0(bytes)) {
+      return false;
+    }
+    if (this.parent != null && !this.parent.tryAcquire0(bytes)) {
+      this.release0(bytes);
+      return false;
+    }
+    return true;
+  }
+
+  private boolean tryAcquire0(int bytes) {
+    final int maxCount = this.maxCount;
+    if (maxCount > 0 && this.queuedCount.get() + this.inflightCount.get() >= maxCount) {
+      return false;
+    }
+    final long maxBytes = this.maxBytes;
+    if (maxBytes > 0) {
+      while (true) {
+        long current = this.queuedBytes.get();
+        if (current > 0 && current + bytes > maxBytes) {
+          return false;
+        }
+        if (this.queuedBytes.compareAndSet(current, current + bytes)) {
+          break;
+        }
+      }
+    } else {
+      this.queuedBytes.addAndGet(bytes);
+    }
+    this.queuedCount.incrementAndGet();
+    return true;
+  }
+
+  private void forceAcquire(int bytes) {
+    this.queuedBytes.addAndGet(bytes);
+    this.queuedCount.incrementAndGet();
+    if (this.parent != null) {
+      this.parent.queuedBytes.addAndGet(bytes);
+      this.parent.queuedCount.incrementAndGet();
+    }
+  }
+
+  private void release0(int bytes) {
+    this.queuedBytes.addAndGet(-bytes);
+    this.queuedCount.decrementAndGet();
+  }
+
+  private WriteBudget root() {
+    return this.parent != null ? this.parent : this;
+  }
+
+  private boolean await(int bytes) throws InterruptedException {
+    this.onBlocked();
+    final WriteBudget root = this.root();
+    long nanos = TimeUnit.MILLISECONDS.toNanos(this.blockTimeout);
+    root.lock.lockInterruptibly();
+    try {
+      // Waiters is increased before trying again,so a release either sees it or is seen by the try.
+      root.waiters++;
+      try {
+        while (!this.tryAcquire(bytes)) {
+          if (nanos <= 0) {
+            return false;
+          }
+          nanos = root.released.awaitNanos(nanos);
+        }
+        return true;
+      } finally {
+        root.waiters--;
+      }
+    } finally {
+      root.lock.unlock();
+    }
+  }
+
+  private void signalWaiters() {
+    final WriteBudget root = this.root();
+    if (root.waiters > 0) {
+      root.lock.lock();
+      try {
+        root.released.signalAll();
+      } finally {
+        root.lock.unlock();
+      }
+    }
+  }
+
+  private void onRejected() {
+    for (WriteBudget budget = this; budget != null; budget = budget.parent) {
+      budget.rejectedCount.incrementAndGet();
+    }
+  }
+
+  private void onShed() {
+    for (WriteBudget budget = this; budget != null; budget = budget.parent) {
+      budget.shedCount.incrementAndGet();
+    }
+  }
+
+  private void onBlocked() {
+    for (WriteBudget budget = this; budget != null; budget = budget.parent) {
+      budget.blockedCount.incrementAndGet();
+    }
+  }
+
+  public final Policy getPolicyType() {
+    return this.policy;
+  }
+
+  public String getPolicy() {
+    return this.policy.name();
+  }
+
+  public final long getBlockTimeout() {
+    return this.blockTimeout;
+  }
+
+  public int getQueuedCount() {
+    return this.queuedCount.get();
+  }
+
+  public long getQueuedBytes() {
+    return this.queuedBytes.get();
+  }
+
+  public int getInflightCount() {
+    return this.inflightCount.get();
+  }
+
+  public int getMaxCount() {
+    return this.maxCount;
+  }
+
+  /**
+   * Set max commands queued or in flight,unlimited by default.
+   */
+  public void setMaxCount(int maxCount) {
+    this.maxCount = maxCount;
+    this.signalWaiters();
+  }
+
+  public long getMaxBytes() {
+    return this.maxBytes;
+  }
+
+  /**
+   * Set max bytes queued,unlimited by default.
+   */
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+    this.signalWaiters();
+  }
+
+  public int getSessionMaxCount() {
+    return this.sessionMaxCount;
+  }
+
+  /**
+   * Set max commands queued or in flight of every connection,unlimited by default.It only applies
+   * to connections created after.
+   */
+  public void setSessionMaxCount(int sessionMaxCount) {
+    this.sessionMaxCount = sessionMaxCount;
+  }
+
+  public long getSessionMaxBytes() {
+    return this.sessionMaxBytes;
+  }
+
+  /**
+   * Set max bytes queued of every connection,unlimited by default.It only applies to connections
+   * created after.
+   */
+  public void setSessionMaxBytes(long sessionMaxBytes) {
+    this.sessionMaxBytes = sessionMaxBytes;
+  }
+
+  public long getRejectedCount() {
+    return this.rejectedCount.get();
+  }
+
+  public long getShedCount() {
+    return this.shedCount.get();
+  }
+
+  public long getBlockedCount() {
+    return this.blockedCount.get();
+  }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package com.google.code.yanf4j.nio.impl;
+
+/**
+ * WriteBudgetMBean,exports the occupancy and limits of a write budget.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public interface WriteBudgetMBean {
+  /**
+   * Commands waiting in write queues
+   */
+  public int getQueuedCount();
+
+  /**
+   * Bytes of commands waiting in write queues
+   */
+  public long getQueuedBytes();
+
+  /**
+   * Commands written and waiting for responses
+   */
+  public int getInflightCount();
+
+  public int getMaxCount();
+
+  public void setMaxCount(int maxCount);
+
+  public long getMaxBytes();
+
+  public void setMaxBytes(long maxBytes);
+
+  public String getPolicy();
+
+  /**
+   * Commands rejected by an exception since created
+   */
+  public long getRejectedCount();
+
+  /**
+   * Noreply commands dropped since created
+   */
+  public long getShedCount();
+
+  /**
+   * Times a writer was blocked since created
+   */
+  public long getBlockedCount();
+}
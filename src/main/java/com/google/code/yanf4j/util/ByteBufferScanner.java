@@ -0,0 +1,129 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package com.google.code.yanf4j.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Word-at-a-time(SWAR) byte scanner,it reads eight bytes per step by ByteBuffer.getLong and finds
+ * the matched byte in the word with bitwise operations instead of comparing byte by byte.All
+ * methods scan the absolute range [from,to) and never change the buffer's position or limit.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public final class ByteBufferScanner {
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+  private ByteBufferScanner() {
+
+  }
+
+  /**
+   * Returns the index of the first byte equals to b in [from,to),or -1 if not found.
+   */
+  public static final int indexOf(ByteBuffer buffer, int from, int to, byte b) {
+    final long pattern = broadcast(b);
+    final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+    int pos = from;
+    for (; pos + 8 <= to; pos += 8) {
+      long bits = zeroBytes(buffer.getLong(pos) ^ pattern);
+      if (bits != 0) {
+        return pos + firstByte(bits, bigEndian);
+      }
+    }
+    for (; pos < to; pos++) {
+      if (buffer.get(pos) == b) {
+        return pos;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the first byte equals to a or b in [from,to),or -1 if not found.
+   */
+  public static final int indexOfAny(ByteBuffer buffer, int from, int to, byte a, byte b) {
+    final long patternA = broadcast(a);
+    final long patternB = broadcast(b);
+    final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+    int pos = from;
+    for (; pos + 8 <= to; pos += 8) {
+      long word = buffer.getLong(pos);
+      long bits = zeroBytes(word ^ patternA) | zeroBytes(word ^ patternB);
+      if (bits != 0) {
+        return pos + firstByte(bits, bigEndian);
+      }
+    }
+    for (; pos < to; pos++) {
+      byte current = buffer.get(pos);
+      if (current == a || current == b) {
+        return pos;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the first "\r\n" in [from,to),or -1 if not found.
+   */
+  public static final int indexOfCRLF(ByteBuffer buffer, int from, int to) {
+    int pos = from;
+    while ((pos = indexOf(buffer, pos, to - 1, (byte) '\r')) >= 0) {
+      if (buffer.get(pos + 1) == '\n') {
+        return pos;
+      }
+      pos++;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the first occurrence of pattern in [from,to),or -1 if not found.
+   */
+  public static final int indexOf(ByteBuffer buffer, int from, int to, byte[] pattern) {
+    if (pattern.length == 0) {
+      throw new IllegalArgumentException("blank pattern");
+    }
+    final int last = to - pattern.length + 1;
+    int pos = from;
+    while ((pos = indexOf(buffer, pos, last, pattern[0])) >= 0) {
+      int i = 1;
+      while (i < pattern.length && buffer.get(pos + i) == pattern[i]) {
+        i++;
+      }
+      if (i == pattern.length) {
+        return pos;
+      }
+      pos++;
+    }
+    return -1;
+  }
+
+  private static long broadcast(byte b) {
+    return (b & 0xFFL) * ONES;
+  }
+
+  /**
+   * Set the high bit of every zero byte in word and clear all other bits.Unlike the well known
+   * (x-0x01..)&~x&0x80.. test,it has no false positives caused by borrows,so the result is right
+   * for both byte orders.
+   */
+  private static long zeroBytes(long word) {
+    return ~((word & LOW_BITS) + LOW_BITS | word | LOW_BITS);
+  }
+
+  private static int firstByte(long bits, boolean bigEndian) {
+    return (bigEndian ? Long.numberOfLeadingZeros(bits) : Long.numberOfTrailingZeros(bits)) >>> 3;
+  }
+
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package com.google.code.yanf4j.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unbounded lock-free queue for one producer thread and one consumer thread at a time,such as the
+ * session writing commands and the reactor decoding their responses.Elements are kept in
+ * power-of-two rings,when a ring is full the producer links a new one,the ring left by the
+ * consumer is recycled,so a queue whose size stays below the ring capacity never allocates.
+ * <p>
+ * The producer and consumer indexes are padded to different cache lines,offer doesn't touch the
+ * consumer's and poll reads the producer's only when it has caught up with it.Producers must be
+ * serialized by the caller,as well as consumers.
+ *
+ * @author dennis
+ * @since 2.4.3
+ */
+public class SpscRingQueue<E> extends AbstractQueue<E> {
+
+  private static final int DEFAULT_CAPACITY = 256;
+
+  private static final class Ring {
+    final Object[] items;
+    volatile Ring next;
+
+    Ring(int capacity) {
+      this.items = new Object[capacity];
+    }
+  }
+
+  /**
+   * An AtomicLong padded to 64 bytes.
+   */
+  @SuppressWarnings("serial")
+  static final class PaddedAtomicLong extends AtomicLong {
+    @SuppressWarnings("unused")
+    public long p1, p2, p3, p4, p5, p6, p7;
+  }
+
+  private final int mask;
+
+  // producer
+  private final PaddedAtomicLong producerIndex = new PaddedAtomicLong();
+  private Ring producerRing;
+
+  // consumer
+  private final PaddedAtomicLong consumerIndex = new PaddedAtomicLong();
+  private Ring consumerRing;
+  private long producerIndexCache;
+
+  private final AtomicReference<Ring> spare = new AtomicReference<Ring>();
+
+  public SpscRingQueue() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param capacity capacity of a ring,rounded up to a power of two
+   */
+  public SpscRingQueue(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity<=0");
+    }
+    int actualCapacity = 1;
+    while (actualCapacity < capacity) {
+      actualCapacity <<= 1;
+    }
+    this.mask = actualCapacity - 1;
+    this.producerRing = this.consumerRing = new Ring(actualCapacity);
+  }
+
+  public boolean offer(E e) {
+    if (e == null) {
+      throw new NullPointerException();
+    }
+    final long index = this.producerIndex.get();
+    final int offset = (int) index & this.mask;
+    if (offset == 0 && index != 0) {
+      Ring ring = this.spare.getAndSet(null);
+      if (ring == null) {
+        ring = new Ring(this.mask + 1);
+      } else {
+        ring.next = null;
+      }
+      this.producerRing.next = ring;
+      this.producerRing = ring;
+    }
+    this.producerRing.items[offset] = e;
+    // publish the element and the ring
+    this.producerIndex.set(index + 1);
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  public E poll() {
+    final long index = this.consumerIndex.get();
+    if (index >= this.producerIndexCache) {
+      this.producerIndexCache = this.producerIndex.get();
+      if (index >= this.producerIndexCache) {
+        return null;
+      }
+    }
+    final int offset = (int) index & this.mask;
+    if (offset == 0 && index != 0) {
+      final Ring consumed = this.consumerRing;
+      this.consumerRing = consumed.next;
+      this.spare.set(consumed);
+    }
+    final Object[] items = this.consumerRing.items;
+    final E e = (E) items[offset];
+    items[offset] = null;
+    this.consumerIndex.set(index + 1);
+    return e;
+  }
+
+  @SuppressWarnings("unchecked")
+  public E peek() {
+    final long index = this.consumerIndex.get();
+    if (index >= this.producerIndexCache) {
+      this.producerIndexCache = this.producerIndex.get();
+      if (index >= this.producerIndexCache) {
+        return null;
+      }
+    }
+    final int offset = (int) index & this.mask;
+    final Ring ring = offset == 0 && index != 0 ? this.consumerRing.next : this.consumerRing;
+    return (E) ring.items[offset];
+  }
+
+  @Override
+  public int size() {
+    // read consumer index first,so the size is never negative
+    final long consumed = this.consumerIndex.get();
+    return (int) Math.min(this.producerIndex.get() - consumed, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.producerIndex.get() == this.consumerIndex.get();
+  }
+
+  /**
+   * Returns an iterator over a copy of the elements,it must be called by the consumer.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Iterator<E> iterator() {
+    final long end = this.producerIndex.get();
+    final List<E> elements = new ArrayList<E>();
+    Ring ring = this.consumerRing;
+    for (long index = this.consumerIndex.get(); index < end; index++) {
+      final int offset = (int) index & this.mask;
+      if (offset == 0 && index != 0) {
+        ring = ring.next;
+      }
+      elements.add((E) ring.items[offset]);
+    }
+    return elements.iterator();
+  }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package com.google.code.yanf4j.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.google.code.yanf4j.buffer.IoBuffer;
+
+/**
+ * ByteBuffer matcher based on word-at-a-time scanning,it finds candidates of the first pattern
+ * byte eight bytes per step by ByteBufferScanner and then compares the rest of the pattern.It is
+ * much faster than the shift-and/shift-or matchers for short patterns such as "\r\n".
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public class SwarByteBufferMatcher implements ByteBufferMatcher {
+
+  private final byte[] pattern;
+
+  public SwarByteBufferMatcher(IoBuffer pat) {
+    if (pat == null || pat.remaining() == 0) {
+      throw new IllegalArgumentException("blank buffer");
+    }
+    this.pattern = new byte[pat.remaining()];
+    for (int i = 0; i < this.pattern.length; i++) {
+      this.pattern[i] = pat.get(pat.position() + i);
+    }
+  }
+
+  public final int matchFirst(IoBuffer buffer) {
+    if (buffer == null) {
+      return -1;
+    }
+    return ByteBufferScanner.indexOf(buffer.buf(), buffer.position(), buffer.limit(),
+        this.pattern);
+  }
+
+  public final List<Integer> matchAll(IoBuffer buffer) {
+    List<Integer> matches = new ArrayList<Integer>();
+    int limit = buffer.limit();
+    int pos = buffer.position();
+    while ((pos = ByteBufferScanner.indexOf(buffer.buf(), pos, limit, this.pattern)) >= 0) {
+      matches.add(pos);
+      pos++;
+    }
+    return matches;
+  }
+
+}
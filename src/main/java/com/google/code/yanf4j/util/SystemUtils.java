@@ -24,6 +24,7 @@ import java.nio.channels.Selector;
 import java.nio.channels.spi.SelectorProvider;
 import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 /**
  * System utils
@@ -143,6 +144,25 @@ public final class SystemUtils {
     }
   }
 
+  /**
+   * Create a single thread scheduler for timeout tasks.Cancelled tasks are removed from the work
+   * queue immediately on JDK7 or later,so cancelling a timeout is cheap.
+   * 
+   * @param prefix thread name prefix
+   * @return
+   */
+  public static final ScheduledThreadPoolExecutor createTimeoutScheduler(String prefix) {
+    ScheduledThreadPoolExecutor scheduler =
+        new ScheduledThreadPoolExecutor(1, new WorkerThreadFactory(prefix));
+    try {
+      ScheduledThreadPoolExecutor.class.getMethod("setRemoveOnCancelPolicy", boolean.class)
+          .invoke(scheduler, true);
+    } catch (Exception e) {
+      // JDK6,cancelled tasks are removed when they are expired.
+    }
+    return scheduler;
+  }
+
   public static Random createRandom() {
     return new Random();
   }
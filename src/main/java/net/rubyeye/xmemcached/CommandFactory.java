@@ -18,6 +18,7 @@ package net.rubyeye.xmemcached;
 
 import java.net.InetSocketAddress;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import net.rubyeye.xmemcached.buffer.BufferAllocator;
 import net.rubyeye.xmemcached.command.Command;
@@ -97,6 +98,21 @@ public interface CommandFactory {
   public <T> Command createGetMultiCommand(Collection<String> keys, CountDownLatch latch,
       CommandType cmdType, Transcoder<T> transcoder);
 
+  /**
+   * Create a command deleting(touching) many keys of one node,the requests of all keys are sent as
+   * quiet(noreply) ones followed by a barrier request,its result is the set of keys which were not
+   * deleted(touched).
+   * 
+   * @param keys
+   * @param latch
+   * @param cmdType DELETE_MANY or TOUCH_MANY
+   * @param exp new expiration time of touched keys
+   * @return
+   * @since 2.4.3
+   */
+  public Command createKeyMultiCommand(List<String> keys, CountDownLatch latch,
+      CommandType cmdType, int exp);
+
   /**
    * create a incr/decr command
    * 
@@ -1,10 +1,7 @@
 package net.rubyeye.xmemcached;
 
-import java.io.UnsupportedEncodingException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.zip.CRC32;
-import net.rubyeye.xmemcached.exception.MemcachedClientException;
 import net.rubyeye.xmemcached.utils.ByteUtils;
 
 /**
@@ -66,7 +63,21 @@ public enum HashAlgorithm {
   /**
    * The Jenkins One-at-a-time hash ,please see http://www.burtleburtle.net/bob/hash/doobs.html
    */
-  ONE_AT_A_TIME;
+  ONE_AT_A_TIME,
+  /**
+   * 32-bit MurmurHash3 (x86_32) of the key's bytes with seed 0,please see
+   * https://github.com/aappleby/smhasher
+   * 
+   * @since 2.4.3
+   */
+  MURMUR3_HASH,
+  /**
+   * Lower 32 bits of the 64-bit xxHash (XXH64) of the key's bytes with seed 0,please see
+   * https://github.com/Cyan4973/xxHash
+   * 
+   * @since 2.4.3
+   */
+  XXHASH64_HASH;
 
   private static final long FNV_64_INIT = 0xcbf29ce484222325L;
   private static final long FNV_64_PRIME = 0x100000001b3L;
@@ -74,22 +85,91 @@ public enum HashAlgorithm {
   private static final long FNV_32_INIT = 2166136261L;
   private static final long FNV_32_PRIME = 16777619;
 
+  private static final byte[] EMPTY_BYTES = new byte[0];
+
   /**
    * Compute the hash for the given key.
    * 
    * @return a positive integer hash
    */
   public long hash(final String k) {
-    long rv = 0;
     switch (this) {
       case NATIVE_HASH:
-        rv = k.hashCode();
-        break;
+        return k.hashCode() & 0xffffffffL;
+      case CRC32_HASH:
+      case ELECTION_HASH:
+      case KETAMA_HASH:
+      case ONE_AT_A_TIME:
+      case MURMUR3_HASH:
+      case XXHASH64_HASH:
+        return this.hash(k.length() == 0 ? EMPTY_BYTES : ByteUtils.getBytes(k));
+      default:
+        return this.hashChars(k);
+    }
+  }
+
+  /**
+   * Compute the hash for the given key's UTF-8 bytes,it's same as {@link #hash(String)} for the
+   * key string,but the algorithms hashing bytes don't encode the key again.
+   * 
+   * @return a positive integer hash
+   * @since 2.4.3
+   */
+  public long hash(final byte[] k) {
+    long rv = 0;
+    switch (this) {
       case CRC32_HASH:
         // return (crc32(shift) >> 16) & 0x7fff;
-        CRC32 crc32 = new CRC32();
-        crc32.update(ByteUtils.getBytes(k));
-        rv = crc32.getValue() >> 16 & 0x7fff;
+        rv = crc32(k) >> 16 & 0x7fff;
+        break;
+      case ELECTION_HASH:
+      case KETAMA_HASH:
+        byte[] bKey = computeMd5(k);
+        rv = (long) (bKey[3] & 0xFF) << 24 | (long) (bKey[2] & 0xFF) << 16
+            | (long) (bKey[1] & 0xFF) << 8 | bKey[0] & 0xFF;
+        break;
+      case ONE_AT_A_TIME:
+        int hash = 0;
+        for (byte bt : k) {
+          hash += (bt & 0xFF);
+          hash += (hash << 10);
+          hash ^= (hash >>> 6);
+        }
+        hash += (hash << 3);
+        hash ^= (hash >>> 11);
+        hash += (hash << 15);
+        rv = hash;
+        break;
+      case MURMUR3_HASH:
+        rv = murmur3(k);
+        break;
+      case XXHASH64_HASH:
+        rv = xxHash64(k);
+        break;
+      default:
+        // The other algorithms hash the key's chars,which are the bytes for ASCII keys.
+        for (byte bt : k) {
+          if (bt < 0) {
+            return this.hashChars(ByteUtils.getString(k));
+          }
+        }
+        return this.hashChars(new AsciiChars(k));
+    }
+    return rv & 0xffffffffL; /* Convert to unsigned 32-bits */
+  }
+
+  private long hashChars(final CharSequence k) {
+    long rv = 0;
+    switch (this) {
+      case NATIVE_HASH: {
+        // same as String.hashCode()
+        int h = 0;
+        int len = k.length();
+        for (int i = 0; i < len; i++) {
+          h = 31 * h + k.charAt(i);
+        }
+        rv = h;
+      }
         break;
       case FNV1_64_HASH: {
         // Thanks to pierre@demartines.com for the pointer
@@ -128,13 +208,6 @@ public enum HashAlgorithm {
         }
       }
         break;
-      case ELECTION_HASH:
-      case KETAMA_HASH:
-        byte[] bKey = computeMd5(k);
-        rv = (long) (bKey[3] & 0xFF) << 24 | (long) (bKey[2] & 0xFF) << 16
-            | (long) (bKey[1] & 0xFF) << 8 | bKey[0] & 0xFF;
-        break;
-
       case MYSQL_HASH:
         int nr2 = 4;
         for (int i = 0; i < k.length(); i++) {
@@ -169,22 +242,6 @@ public enum HashAlgorithm {
           rv = rv ^ (rv << 5) + (rv >> 2) + k.charAt(len - 1);
         }
         break;
-      case ONE_AT_A_TIME:
-        try {
-          int hash = 0;
-          for (byte bt : k.getBytes("utf-8")) {
-            hash += (bt & 0xFF);
-            hash += (hash << 10);
-            hash ^= (hash >>> 6);
-          }
-          hash += (hash << 3);
-          hash ^= (hash >>> 11);
-          hash += (hash << 15);
-          rv = hash;
-        } catch (UnsupportedEncodingException e) {
-          throw new IllegalStateException("Hash function error", e);
-        }
-        break;
       default:
         assert false;
     }
@@ -192,12 +249,201 @@ public enum HashAlgorithm {
     return rv & 0xffffffffL; /* Convert to unsigned 32-bits */
   }
 
+  /**
+   * Chars of an ASCII key's bytes,to hash them without decoding a string.
+   */
+  private static final class AsciiChars implements CharSequence {
+    private final byte[] bytes;
+
+    AsciiChars(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    public int length() {
+      return this.bytes.length;
+    }
+
+    public char charAt(int index) {
+      return (char) this.bytes[index];
+    }
+
+    public CharSequence subSequence(int start, int end) {
+      if (start < 0 || end > this.bytes.length || start > end) {
+        throw new IndexOutOfBoundsException("start=" + start + ",end=" + end);
+      }
+      final char[] chars = new char[end - start];
+      for (int i = start; i < end; i++) {
+        chars[i - start] = (char) this.bytes[i];
+      }
+      return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+      return (String) this.subSequence(0, this.bytes.length);
+    }
+  }
+
+  private static final int[] CRC32_TABLE = new int[256];
+
+  static {
+    for (int n = 0; n < 256; n++) {
+      int c = n;
+      for (int i = 0; i < 8; i++) {
+        c = (c & 1) != 0 ? 0xEDB88320 ^ (c >>> 1) : c >>> 1;
+      }
+      CRC32_TABLE[n] = c;
+    }
+  }
+
+  /**
+   * CRC32 of the bytes,same as java.util.zip.CRC32 without allocating one per key.
+   */
+  static long crc32(final byte[] k) {
+    int crc = 0xFFFFFFFF;
+    for (byte bt : k) {
+      crc = CRC32_TABLE[(crc ^ bt) & 0xFF] ^ (crc >>> 8);
+    }
+    return ~crc & 0xffffffffL;
+  }
+
+  private static int getIntLE(final byte[] b, final int i) {
+    return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16
+        | (b[i + 3] & 0xFF) << 24;
+  }
+
+  private static long getLongLE(final byte[] b, final int i) {
+    return (getIntLE(b, i) & 0xffffffffL) | (long) getIntLE(b, i + 4) << 32;
+  }
+
+  /**
+   * MurmurHash3 x86_32 with seed 0
+   */
+  @SuppressWarnings("fallthrough")
+  static int murmur3(final byte[] k) {
+    final int c1 = 0xcc9e2d51;
+    final int c2 = 0x1b873593;
+    final int len = k.length;
+    final int blocks = len & ~3;
+    int h1 = 0;
+    for (int i = 0; i < blocks; i += 4) {
+      int k1 = getIntLE(k, i);
+      k1 *= c1;
+      k1 = Integer.rotateLeft(k1, 15);
+      k1 *= c2;
+      h1 ^= k1;
+      h1 = Integer.rotateLeft(h1, 13);
+      h1 = h1 * 5 + 0xe6546b64;
+    }
+    int k1 = 0;
+    switch (len & 3) {
+      case 3:
+        k1 ^= (k[blocks + 2] & 0xFF) << 16;
+        // fall through
+      case 2:
+        k1 ^= (k[blocks + 1] & 0xFF) << 8;
+        // fall through
+      case 1:
+        k1 ^= k[blocks] & 0xFF;
+        k1 *= c1;
+        k1 = Integer.rotateLeft(k1, 15);
+        k1 *= c2;
+        h1 ^= k1;
+    }
+    h1 ^= len;
+    h1 ^= h1 >>> 16;
+    h1 *= 0x85ebca6b;
+    h1 ^= h1 >>> 13;
+    h1 *= 0xc2b2ae35;
+    h1 ^= h1 >>> 16;
+    return h1;
+  }
+
+  private static final long XXH_PRIME64_1 = 0x9E3779B185EBCA87L;
+  private static final long XXH_PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long XXH_PRIME64_3 = 0x165667B19E3779F9L;
+  private static final long XXH_PRIME64_4 = 0x85EBCA77C2B2AE63L;
+  private static final long XXH_PRIME64_5 = 0x27D4EB2F165667C5L;
+
+  private static long xxRound(long acc, final long input) {
+    acc += input * XXH_PRIME64_2;
+    acc = Long.rotateLeft(acc, 31);
+    return acc * XXH_PRIME64_1;
+  }
+
+  private static long xxMergeRound(long acc, final long val) {
+    acc ^= xxRound(0, val);
+    return acc * XXH_PRIME64_1 + XXH_PRIME64_4;
+  }
+
+  /**
+   * XXH64 with seed 0
+   */
+  static long xxHash64(final byte[] k) {
+    final int len = k.length;
+    int i = 0;
+    long h64;
+    if (len >= 32) {
+      long v1 = XXH_PRIME64_1 + XXH_PRIME64_2;
+      long v2 = XXH_PRIME64_2;
+      long v3 = 0;
+      long v4 = -XXH_PRIME64_1;
+      final int limit = len - 32;
+      do {
+        v1 = xxRound(v1, getLongLE(k, i));
+        v2 = xxRound(v2, getLongLE(k, i + 8));
+        v3 = xxRound(v3, getLongLE(k, i + 16));
+        v4 = xxRound(v4, getLongLE(k, i + 24));
+        i += 32;
+      } while (i <= limit);
+      h64 = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12)
+          + Long.rotateLeft(v4, 18);
+      h64 = xxMergeRound(h64, v1);
+      h64 = xxMergeRound(h64, v2);
+      h64 = xxMergeRound(h64, v3);
+      h64 = xxMergeRound(h64, v4);
+    } else {
+      h64 = XXH_PRIME64_5;
+    }
+    h64 += len;
+    while (i + 8 <= len) {
+      h64 ^= xxRound(0, getLongLE(k, i));
+      h64 = Long.rotateLeft(h64, 27) * XXH_PRIME64_1 + XXH_PRIME64_4;
+      i += 8;
+    }
+    if (i + 4 <= len) {
+      h64 ^= (getIntLE(k, i) & 0xffffffffL) * XXH_PRIME64_1;
+      h64 = Long.rotateLeft(h64, 23) * XXH_PRIME64_2 + XXH_PRIME64_3;
+      i += 4;
+    }
+    while (i < len) {
+      h64 ^= (k[i] & 0xFF) * XXH_PRIME64_5;
+      h64 = Long.rotateLeft(h64, 11) * XXH_PRIME64_1;
+      i++;
+    }
+    h64 ^= h64 >>> 33;
+    h64 *= XXH_PRIME64_2;
+    h64 ^= h64 >>> 29;
+    h64 *= XXH_PRIME64_3;
+    h64 ^= h64 >>> 32;
+    return h64;
+  }
+
   private static ThreadLocal<MessageDigest> md5Local = new ThreadLocal<MessageDigest>();
 
   /**
    * Get the md5 of the given key.
    */
   public static byte[] computeMd5(String k) {
+    return computeMd5(ByteUtils.getBytes(k));
+  }
+
+  /**
+   * Get the md5 of the given key's bytes.
+   * 
+   * @since 2.4.3
+   */
+  public static byte[] computeMd5(byte[] k) {
     MessageDigest md5 = md5Local.get();
     if (md5 == null) {
       try {
@@ -207,9 +453,7 @@ public enum HashAlgorithm {
         throw new RuntimeException("MD5 not supported", e);
       }
     }
-    md5.reset();
-    md5.update(ByteUtils.getBytes(k));
-    return md5.digest();
+    return md5.digest(k);
   }
 
   // public static void main(String[] args) {
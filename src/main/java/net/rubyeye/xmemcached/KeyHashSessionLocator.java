@@ -0,0 +1,39 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached;
+
+import com.google.code.yanf4j.core.Session;
+
+/**
+ * Session locator which locates sessions by a hash of the key computed up front,so the hash can
+ * be computed once from the key's bytes and carried by the command instead of hashing the key
+ * string again when the command is sent.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public interface KeyHashSessionLocator extends MemcachedSessionLocator {
+  /**
+   * Returns the hash of the key's UTF-8 bytes,it must be same as the hash used by
+   * {@link #getSessionByKey(String)} for the key.
+   * 
+   * @param keyBytes
+   * @return a non-negative hash
+   */
+  public long hashKey(byte[] keyBytes);
+
+  /**
+   * Returns a session by the key and its hash returned by {@link #hashKey(byte[])}.
+   * 
+   * @param key
+   * @param keyHash
+   * @return
+   */
+  public Session getSessionByKey(String key, long keyHash);
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached;
+
+/**
+ * Subscriber of a streaming bulk-get,modelled on reactive streams' Subscriber.Key-value pairs are
+ * emitted as soon as they were decoded,but never more than the demand signalled by
+ * {@link KeyValueSubscription#request(long)}.Methods are called serially,but may be called on the
+ * reactor thread,so please don't do any operations which may block in these methods.
+ * 
+ * @author dennis
+ * 
+ * @param <T>
+ * @since 2.4.3
+ */
+public interface KeyValueSubscriber<T> {
+  /**
+   * Called once before any other method,no keys are fetched until demand is signalled by the
+   * subscription.
+   * 
+   * @param subscription
+   */
+  public void onSubscribe(KeyValueSubscription subscription);
+
+  /**
+   * A key-value pair was fetched.Keys which are not found are never emitted.
+   * 
+   * @param key
+   * @param value
+   */
+  public void onNext(String key, T value);
+
+  /**
+   * The bulk-get failed,no more methods will be called.
+   * 
+   * @param throwable
+   */
+  public void onError(Throwable throwable);
+
+  /**
+   * All keys were fetched,no more methods will be called.
+   */
+  public void onComplete();
+}
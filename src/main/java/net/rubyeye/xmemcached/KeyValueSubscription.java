@@ -0,0 +1,31 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached;
+
+/**
+ * Subscription of a streaming bulk-get,see {@link KeyValueSubscriber}.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public interface KeyValueSubscription {
+  /**
+   * Request n more key-value pairs.Keys are only sent to memcached servers when there is unfilled
+   * demand,so memory is bounded by the demand rather than the number of keys.Long.MAX_VALUE means
+   * unbounded.
+   * 
+   * @param n must be positive
+   */
+  public void request(long n);
+
+  /**
+   * Stop emitting and cancel the commands which are not sent yet.
+   */
+  public void cancel();
+}
@@ -6,12 +6,15 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeoutException;
 import net.rubyeye.xmemcached.auth.AuthInfo;
 import net.rubyeye.xmemcached.buffer.BufferAllocator;
 import net.rubyeye.xmemcached.exception.MemcachedException;
 import net.rubyeye.xmemcached.impl.ReconnectRequest;
 import net.rubyeye.xmemcached.networking.Connector;
+import net.rubyeye.xmemcached.transcoders.CachedData;
 import net.rubyeye.xmemcached.transcoders.Transcoder;
 import net.rubyeye.xmemcached.utils.Protocol;
 
@@ -1487,6 +1490,65 @@ public interface MemcachedClient {
    */
   public void setConnectionPoolSize(int poolSize);
 
+  /**
+   * Set the executor to complete asynchronous operations,including decoding values by
+   * transcoder and notifying MemcachedFuture's listeners.If it is null,they are completed inline
+   * on the reactor thread,which saves a thread switch per operation,but listeners must be cheap.
+   * Default is null.
+   *
+   * @param callbackExecutor
+   * @since 2.4.3
+   */
+  public void setCallbackExecutor(Executor callbackExecutor);
+
+  /**
+   * Returns the executor to complete asynchronous operations,null means completing them inline on
+   * the reactor thread.
+   *
+   * @return
+   * @since 2.4.3
+   */
+  public Executor getCallbackExecutor();
+
+  /**
+   * Set the strategy for synchronous operations to wait for responses.Default is
+   * {@link WaitStrategies#park()},which parks the calling thread at once.
+   *
+   * @param waitStrategy
+   * @since 2.4.3
+   */
+  public void setWaitStrategy(WaitStrategy waitStrategy);
+
+  /**
+   * Returns the strategy for synchronous operations to wait for responses.
+   *
+   * @return
+   * @since 2.4.3
+   */
+  public WaitStrategy getWaitStrategy();
+
+  /**
+   * Do synchronous operations in callable with the wait strategy instead of the client's one.For
+   * example,spin for the latency-sensitive calls only:
+   *
+   * <pre>
+   * final WaitStrategy spin = WaitStrategies.spinThenPark(100, TimeUnit.MICROSECONDS);
+   * memcachedClient.withWaitStrategy(spin, new MemcachedClientCallable&lt;String&gt;() {
+   *   public String call(MemcachedClient client)
+   *       throws MemcachedException, InterruptedException, TimeoutException {
+   *     return client.get(&quot;session&quot;);
+   *   }
+   * });
+   * </pre>
+   *
+   * @param waitStrategy
+   * @param callable
+   * @return
+   * @since 2.4.3
+   */
+  public <T> T withWaitStrategy(WaitStrategy waitStrategy, MemcachedClientCallable<T> callable)
+      throws MemcachedException, InterruptedException, TimeoutException;
+
   /**
    * Whether to enable heart beat
    *
@@ -1744,4 +1806,594 @@ public interface MemcachedClient {
   public <T> T withNamespace(String ns, MemcachedClientCallable<T> callable)
       throws MemcachedException, InterruptedException, TimeoutException;
 
+  /**
+   * Get value by key asynchronously.The returned future is completed when the response was decoded,
+   * or failed with a TimeoutException if no response arrived in timeout milliseconds.No thread is
+   * blocked waiting for the response.
+   *
+   * @param <T>
+   * @param key Key
+   * @param timeout Operation timeout,if the method is not returned in this time,the future is
+   *        failed with TimeoutException
+   * @param transcoder The value's transcoder
+   * @return
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<T> getAsync(final String key, final long timeout,
+      final Transcoder<T> transcoder) throws InterruptedException, MemcachedException;
+
+  /**
+   * Get value by key asynchronously,using default transcoder.
+   *
+   * @see #getAsync(String, long, Transcoder)
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<T> getAsync(final String key, final long timeout)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Get value by key asynchronously,using default transcoder and operation timeout.
+   *
+   * @see #getAsync(String, long, Transcoder)
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<T> getAsync(final String key)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Just like gets,but it is asynchronous.
+   *
+   * @see #gets(String, long, Transcoder)
+   * @see #getAsync(String, long, Transcoder)
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<GetsResponse<T>> getsAsync(final String key, final long timeout,
+      final Transcoder<T> transcoder) throws InterruptedException, MemcachedException;
+
+  /**
+   * Just like gets,but it is asynchronous,using default transcoder and operation timeout.
+   *
+   * @see #getsAsync(String, long, Transcoder)
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<GetsResponse<T>> getsAsync(final String key)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Bulk get items asynchronously.Keys are grouped by memcached node,the future is completed when
+   * all nodes' responses were decoded.
+   *
+   * @param <T>
+   * @param keyCollections key collection
+   * @param timeout opTimeout
+   * @param transcoder Value transcoder
+   * @return the future of a map of key to value,or null if keyCollections is empty
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<Map<String, T>> getMultiAsync(final Collection<String> keyCollections,
+      final long timeout, final Transcoder<T> transcoder)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Bulk get items asynchronously,using default transcoder.
+   *
+   * @see #getMultiAsync(Collection, long, Transcoder)
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<Map<String, T>> getMultiAsync(final Collection<String> keyCollections,
+      final long timeout) throws InterruptedException, MemcachedException;
+
+  /**
+   * Bulk get items asynchronously,using default transcoder and operation timeout.
+   *
+   * @see #getMultiAsync(Collection, long, Transcoder)
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<Map<String, T>> getMultiAsync(final Collection<String> keyCollections)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Streaming bulk get.Key-value pairs are emitted to the subscriber as soon as they were decoded
+   * rather than after all memcached nodes responded,and keys are only sent to memcached when the
+   * subscriber has unfilled demand,so memory is bounded by the demand.
+   *
+   * @param <T>
+   * @param keyCollections key collection
+   * @param timeout operation timeout of every command sent to memcached nodes
+   * @param transcoder Value transcoder
+   * @param subscriber
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public <T> void getMultiStream(final Collection<String> keyCollections, final long timeout,
+      final Transcoder<T> transcoder, final KeyValueSubscriber<T> subscriber)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Streaming bulk get,using default transcoder and operation timeout.
+   *
+   * @see #getMultiStream(Collection, long, Transcoder, KeyValueSubscriber)
+   * @since 2.4.3
+   */
+  public <T> void getMultiStream(final Collection<String> keyCollections,
+      final KeyValueSubscriber<T> subscriber) throws InterruptedException, MemcachedException;
+
+  /**
+   * Get the raw bytes of a value into the sink as they arrive,rather than copying the whole value
+   * into a byte array and decoding it by a transcoder,it's useful for large values.The bytes are
+   * written as they were stored,so a value stored by a transcoder may be compressed or serialized,
+   * the flags passed to {@link ValueSink#begin(int, long, int)} tell it.If the operation is timeout
+   * the sink is not written any more,but it may be still writing when the TimeoutException is
+   * thrown.
+   *
+   * @param key
+   * @param timeout operation timeout
+   * @param sink value sink,see {@link ValueSinks}
+   * @return true if the value was found and written to the sink
+   * @throws TimeoutException
+   * @throws InterruptedException
+   * @throws MemcachedException if the sink threw an exception or memcached returned an error
+   * @since 2.4.3
+   */
+  public boolean getStream(final String key, final long timeout, final ValueSink sink)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Get the raw bytes of a value into the sink with default operation timeout.
+   *
+   * @see #getStream(String, long, ValueSink)
+   * @since 2.4.3
+   */
+  public boolean getStream(final String key, final ValueSink sink)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Get a value by a key already encoded in bytes,the key is sent as it is,without the key
+   * provider,key sanitizing and namespace,and the value is returned as the flags and bytes stored
+   * without a transcoder.The key is hashed once from the bytes if the session locator is a
+   * {@link KeyHashSessionLocator}.
+   *
+   * @param key the key's bytes,they must be UTF-8 bytes to locate the same node as the string key
+   * @param timeout operation timeout
+   * @return the value's flags,bytes and cas,null if it is not found
+   * @throws TimeoutException
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public CachedData getRaw(final byte[] key, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Get a value by a key already encoded in bytes with default operation timeout.
+   *
+   * @see #getRaw(byte[], long)
+   * @since 2.4.3
+   */
+  public CachedData getRaw(final byte[] key)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Set a value by a key already encoded in bytes,the value's flags and bytes are stored as they
+   * are without a transcoder,see {@link #getRaw(byte[], long)}.
+   *
+   * @param key the key's bytes
+   * @param exp expiration time in seconds
+   * @param value the value's flags and bytes,for example new CachedData(0, bytes)
+   * @param timeout operation timeout
+   * @return true if the value was stored
+   * @throws TimeoutException
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public boolean setRaw(final byte[] key, final int exp, final CachedData value,
+      final long timeout) throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Set a value by a key already encoded in bytes with default operation timeout.
+   *
+   * @see #setRaw(byte[], int, CachedData, long)
+   * @since 2.4.3
+   */
+  public boolean setRaw(final byte[] key, final int exp, final CachedData value)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Delete a value by a key already encoded in bytes,see {@link #getRaw(byte[], long)}.
+   *
+   * @param key the key's bytes
+   * @param timeout operation timeout
+   * @return true if the value was deleted
+   * @throws TimeoutException
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public boolean deleteRaw(final byte[] key, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Delete a value by a key already encoded in bytes with default operation timeout.
+   *
+   * @see #deleteRaw(byte[], long)
+   * @since 2.4.3
+   */
+  public boolean deleteRaw(final byte[] key)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Create a pipeline to queue heterogeneous operations and send them in one batch per memcached
+   * node.
+   *
+   * @see MemcachedPipeline
+   * @return a new pipeline
+   * @since 2.4.3
+   */
+  public MemcachedPipeline pipeline();
+
+  /**
+   * Store many key-value items in one batch.Items are grouped by memcached node and every node's
+   * commands are written together;on binary protocol consecutive commands are sent as quiet
+   * commands(SETQ) followed by a normal one,so only failures are responded.
+   *
+   * @param <T>
+   * @param items key-value items to store
+   * @param exp An expiration time, in seconds. Can be up to 30 days. After 30 days, is treated as a
+   *        unix timestamp of an exact date.
+   * @param transcoder value transcoder
+   * @param timeout operation timeout of the whole batch,in milliseconds
+   * @return keys which were not stored,empty if all items were stored.
+   * @throws TimeoutException
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public <T> Set<String> setMulti(Map<String, T> items, int exp, Transcoder<T> transcoder,
+      long timeout) throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Store many key-value items in one batch,using default transcoder and operation timeout.
+   *
+   * @see #setMulti(Map, int, Transcoder, long)
+   * @since 2.4.3
+   */
+  public <T> Set<String> setMulti(Map<String, T> items, int exp)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Add many key-value items in one batch,an item is only added when its key does not exist.
+   *
+   * @see #setMulti(Map, int, Transcoder, long)
+   * @return keys which were not added,empty if all items were added.
+   * @since 2.4.3
+   */
+  public <T> Set<String> addMulti(Map<String, T> items, int exp, Transcoder<T> transcoder,
+      long timeout) throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Add many key-value items in one batch,using default transcoder and operation timeout.
+   *
+   * @see #addMulti(Map, int, Transcoder, long)
+   * @since 2.4.3
+   */
+  public <T> Set<String> addMulti(Map<String, T> items, int exp)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Replace many key-value items in one batch,an item is only replaced when its key exists.
+   *
+   * @see #setMulti(Map, int, Transcoder, long)
+   * @return keys which were not replaced,empty if all items were replaced.
+   * @since 2.4.3
+   */
+  public <T> Set<String> replaceMulti(Map<String, T> items, int exp, Transcoder<T> transcoder,
+      long timeout) throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Replace many key-value items in one batch,using default transcoder and operation timeout.
+   *
+   * @see #replaceMulti(Map, int, Transcoder, long)
+   * @since 2.4.3
+   */
+  public <T> Set<String> replaceMulti(Map<String, T> items, int exp)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Delete many keys in one batch.Keys are grouped by memcached node and every node's keys are sent
+   * as quiet deletes followed by a barrier:DELETEQ and NOOP on binary protocol,so only failures are
+   * responded;noreply deletes and version on text protocol,which doesn't respond failures of
+   * noreply commands,so the keys which were not found are unknown.
+   *
+   * @param keys keys to delete
+   * @param timeout operation timeout of the whole batch,in milliseconds
+   * @return keys which were not deleted(not found or failed),empty if all keys were deleted.On text
+   *         protocol only the keys of nodes responding an error are returned.
+   * @throws TimeoutException
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public Set<String> deleteMulti(Collection<String> keys, long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Delete many keys in one batch,using default operation timeout.
+   *
+   * @see #deleteMulti(Collection, long)
+   * @since 2.4.3
+   */
+  public Set<String> deleteMulti(Collection<String> keys)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Set a new expiration time for many keys in one batch.Keys are grouped by memcached node and
+   * every node's keys are sent followed by a barrier:TOUCH and NOOP on binary protocol,which has no
+   * quiet touch;noreply touches and version on text protocol,which doesn't respond failures of
+   * noreply commands,so the keys which were not found are unknown.
+   *
+   * @param keys keys to touch
+   * @param exp New expiration time, in seconds. Can be up to 30 days. After 30 days, is treated as
+   *        a unix timestamp of an exact date.
+   * @param timeout operation timeout of the whole batch,in milliseconds
+   * @return keys which were not touched(not found or failed),empty if all keys were touched.On
+   *         text protocol only the keys of nodes responding an error are returned.
+   * @throws TimeoutException
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public Set<String> touchMulti(Collection<String> keys, int exp, long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Set a new expiration time for many keys in one batch,using default operation timeout.
+   *
+   * @see #touchMulti(Collection, int, long)
+   * @since 2.4.3
+   */
+  public Set<String> touchMulti(Collection<String> keys, int exp)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Increment many counters in one batch.Keys are grouped by memcached node and every node's
+   * commands are written together.A counter which does not exist is initialized to initValue.
+   *
+   * @param deltas counter keys and their increments
+   * @param initValue initial value if the counter does not exist
+   * @param exp An expiration time of the initialized counters, in seconds.
+   * @param timeout operation timeout of the whole batch,in milliseconds
+   * @return the new values of the counters,in the iteration order of the deltas map.
+   * @throws TimeoutException
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public long[] incrMulti(Map<String, Long> deltas, long initValue, int exp, long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Increment many counters in one batch,using default operation timeout and never expire.
+   *
+   * @see #incrMulti(Map, long, int, long)
+   * @since 2.4.3
+   */
+  public long[] incrMulti(Map<String, Long> deltas, long initValue)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Decrement many counters in one batch.
+   *
+   * @see #incrMulti(Map, long, int, long)
+   * @return the new values of the counters,in the iteration order of the deltas map.
+   * @since 2.4.3
+   */
+  public long[] decrMulti(Map<String, Long> deltas, long initValue, int exp, long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Decrement many counters in one batch,using default operation timeout and never expire.
+   *
+   * @see #decrMulti(Map, long, int, long)
+   * @since 2.4.3
+   */
+  public long[] decrMulti(Map<String, Long> deltas, long initValue)
+      throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Store key-value item to memcached asynchronously.
+   *
+   * @param <T>
+   * @param key stored key
+   * @param exp An expiration time, in seconds. Can be up to 30 days. After 30 days, is treated as a
+   *        unix timestamp of an exact date.
+   * @param value stored data
+   * @param transcoder transocder
+   * @param timeout operation timeout,in milliseconds
+   * @return the future of boolean result
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<Boolean> setAsync(final String key, final int exp, final T value,
+      final Transcoder<T> transcoder, final long timeout)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Store key-value item to memcached asynchronously,using default transcoder and operation
+   * timeout.
+   *
+   * @see #setAsync(String, int, Object, Transcoder, long)
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Boolean> setAsync(final String key, final int exp, final Object value)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Add key-value item to memcached asynchronously, success only when the key is not exists in
+   * memcached.
+   *
+   * @see #setAsync(String, int, Object, Transcoder, long)
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<Boolean> addAsync(final String key, final int exp, final T value,
+      final Transcoder<T> transcoder, final long timeout)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Add key-value item to memcached asynchronously,using default transcoder and operation timeout.
+   *
+   * @see #addAsync(String, int, Object, Transcoder, long)
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Boolean> addAsync(final String key, final int exp, final Object value)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Replace the key's data item in memcached asynchronously,success only when the key's data item
+   * is exists in memcached.
+   *
+   * @see #setAsync(String, int, Object, Transcoder, long)
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<Boolean> replaceAsync(final String key, final int exp, final T value,
+      final Transcoder<T> transcoder, final long timeout)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Replace the key's data item in memcached asynchronously,using default transcoder and operation
+   * timeout.
+   *
+   * @see #replaceAsync(String, int, Object, Transcoder, long)
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Boolean> replaceAsync(final String key, final int exp, final Object value)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Cas is a check and set operation which means "store this data but only if no one else has
+   * updated since I last fetched it." This method is asynchronous,the future's result is false if
+   * the cas value was changed.
+   *
+   * @param <T>
+   * @param key
+   * @param exp
+   * @param value
+   * @param transcoder
+   * @param timeout
+   * @param cas
+   * @return
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public <T> MemcachedFuture<Boolean> casAsync(final String key, final int exp, final T value,
+      final Transcoder<T> transcoder, final long timeout, final long cas)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Asynchronous cas,using default transcoder and operation timeout.
+   *
+   * @see #casAsync(String, int, Object, Transcoder, long, long)
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Boolean> casAsync(final String key, final int exp, final Object value,
+      final long cas) throws InterruptedException, MemcachedException;
+
+  /**
+   * Delete key's data item from memcached asynchronously.
+   *
+   * @param key
+   * @param opTimeout Operation timeout
+   * @return the future of boolean result
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Boolean> deleteAsync(final String key, long opTimeout)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Delete key's data item from memcached asynchronously,using default operation timeout.
+   *
+   * @see #deleteAsync(String, long)
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Boolean> deleteAsync(final String key)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Set a new expiration time for an existing item asynchronously.
+   *
+   * @param key item's key
+   * @param exp New expiration time, in seconds. Can be up to 30 days. After 30 days, is treated as
+   *        a unix timestamp of an exact date.
+   * @param opTimeout operation timeout
+   * @return the future of boolean result
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Boolean> touchAsync(final String key, int exp, long opTimeout)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * Set a new expiration time for an existing item asynchronously,using default operation timeout.
+   *
+   * @see #touchAsync(String, int, long)
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Boolean> touchAsync(final String key, int exp)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * "incr" asynchronously.If the key is not exists,it will be added with initValue(the add is also
+   * asynchronous on text protocol).
+   *
+   * @param key
+   * @param delta
+   * @param initValue the initial value to be added when value is not found
+   * @param timeout operation timeout
+   * @param exp the initial vlaue expire time, in seconds. Can be up to 30 days. After 30 days, is
+   *        treated as a unix timestamp of an exact date.
+   * @return the future of the incremented value
+   * @throws InterruptedException
+   * @throws MemcachedException
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Long> incrAsync(final String key, final long delta, final long initValue,
+      long timeout, int exp) throws InterruptedException, MemcachedException;
+
+  /**
+   * "incr" asynchronously,using default operation timeout and 0 as expire time.
+   *
+   * @see #incrAsync(String, long, long, long, int)
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Long> incrAsync(final String key, final long delta, final long initValue)
+      throws InterruptedException, MemcachedException;
+
+  /**
+   * "decr" asynchronously.
+   *
+   * @see #incrAsync(String, long, long, long, int)
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Long> decrAsync(final String key, final long delta, final long initValue,
+      long timeout, int exp) throws InterruptedException, MemcachedException;
+
+  /**
+   * "decr" asynchronously,using default operation timeout and 0 as expire time.
+   *
+   * @see #incrAsync(String, long, long, long, int)
+   * @since 2.4.3
+   */
+  public MemcachedFuture<Long> decrAsync(final String key, final long delta, final long initValue)
+      throws InterruptedException, MemcachedException;
+
 }
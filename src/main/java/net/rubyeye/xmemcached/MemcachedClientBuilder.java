@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import net.rubyeye.xmemcached.auth.AuthInfo;
 import net.rubyeye.xmemcached.buffer.BufferAllocator;
 import net.rubyeye.xmemcached.transcoders.Transcoder;
@@ -278,4 +279,33 @@ public interface MemcachedClientBuilder {
    */
   public long getOpTimeout();
 
+  /**
+   * Set the executor to complete asynchronous operations,null means completing them inline on the
+   * reactor thread.
+   * 
+   * @see MemcachedClient#setCallbackExecutor(Executor)
+   * @param callbackExecutor
+   * @since 2.4.3
+   */
+  public void setCallbackExecutor(Executor callbackExecutor);
+
+  /**
+   * Use a dedicated thread pool with threadCount threads to complete asynchronous operations,it is
+   * ignored if an executor is set by {@link #setCallbackExecutor(Executor)}.Default is zero,which
+   * means completing them inline on the reactor thread.
+   * 
+   * @param threadCount
+   * @since 2.4.3
+   */
+  public void setCallbackThreadCount(int threadCount);
+
+  /**
+   * Set the strategy for synchronous operations to wait for responses.
+   * 
+   * @see MemcachedClient#setWaitStrategy(WaitStrategy)
+   * @param waitStrategy
+   * @since 2.4.3
+   */
+  public void setWaitStrategy(WaitStrategy waitStrategy);
+
 }
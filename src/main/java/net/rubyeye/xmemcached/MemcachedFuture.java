@@ -0,0 +1,53 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached;
+
+import java.util.concurrent.Future;
+
+/**
+ * Result of an asynchronous operation.Besides the blocking methods of {@link Future},listeners
+ * could be added to be notified when the operation is completed,so callers never have to park a
+ * thread on the response.
+ * 
+ * @author dennis
+ * 
+ * @param <T>
+ * @since 2.4.3
+ */
+public interface MemcachedFuture<T> extends Future<T> {
+
+  /**
+   * Add a listener which will be notified when this future is completed.If it was completed
+   * already,the listener is notified immediately in the calling thread.
+   * 
+   * @param listener
+   */
+  public void addListener(MemcachedFutureListener<T> listener);
+
+  /**
+   * Returns true if the operation was completed successfully.
+   * 
+   * @return
+   */
+  public boolean isSuccess();
+
+  /**
+   * Returns the cause of failure,null if the operation is not completed or completed successfully.
+   * 
+   * @return
+   */
+  public Throwable getCause();
+
+  /**
+   * Returns the result without waiting,null if the operation is not completed.
+   * 
+   * @return
+   */
+  public T getNow();
+}
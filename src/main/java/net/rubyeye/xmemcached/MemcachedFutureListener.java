@@ -0,0 +1,27 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached;
+
+/**
+ * Listener of {@link MemcachedFuture}.Please don't do any operations which may block in the
+ * callback method.
+ * 
+ * @author dennis
+ * 
+ * @param <T>
+ * @since 2.4.3
+ */
+public interface MemcachedFutureListener<T> {
+  /**
+   * The future was completed,successfully or not.
+   * 
+   * @param future
+   */
+  public void onComplete(MemcachedFuture<T> future);
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached;
+
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import net.rubyeye.xmemcached.exception.MemcachedException;
+import net.rubyeye.xmemcached.transcoders.Transcoder;
+
+/**
+ * A batch of heterogeneous operations.Operations are queued by the application and sent when
+ * {@link #execute()} is called:they are grouped by memcached node,and every node's operations are
+ * written together,so the client wakes up the reactor once per node instead of once per
+ * operation.Consecutive gets and binary sets to the same node are still merged by the optimizer.
+ * <p>
+ * Keys are processed(namespace,sanitizing) when the pipeline is executed.A pipeline is not
+ * thread-safe,and it is cleared after executing,so it can be reused.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public interface MemcachedPipeline {
+
+  /**
+   * Queue a get operation,its result is the value or null if the key is missing.
+   */
+  public MemcachedPipeline get(String key);
+
+  public <T> MemcachedPipeline get(String key, Transcoder<T> transcoder);
+
+  /**
+   * Queue a gets operation,its result is a {@link GetsResponse} or null if the key is missing.
+   */
+  public MemcachedPipeline gets(String key);
+
+  public <T> MemcachedPipeline gets(String key, Transcoder<T> transcoder);
+
+  /**
+   * Queue a set operation,its result is a Boolean.
+   */
+  public MemcachedPipeline set(String key, int exp, Object value);
+
+  public <T> MemcachedPipeline set(String key, int exp, T value, Transcoder<T> transcoder);
+
+  /**
+   * Queue an add operation,its result is a Boolean.
+   */
+  public MemcachedPipeline add(String key, int exp, Object value);
+
+  public <T> MemcachedPipeline add(String key, int exp, T value, Transcoder<T> transcoder);
+
+  /**
+   * Queue a replace operation,its result is a Boolean.
+   */
+  public MemcachedPipeline replace(String key, int exp, Object value);
+
+  public <T> MemcachedPipeline replace(String key, int exp, T value, Transcoder<T> transcoder);
+
+  /**
+   * Queue a cas operation,its result is a Boolean.
+   */
+  public MemcachedPipeline cas(String key, int exp, Object value, long cas);
+
+  public <T> MemcachedPipeline cas(String key, int exp, T value, Transcoder<T> transcoder,
+      long cas);
+
+  /**
+   * Queue a delete operation,its result is a Boolean.
+   */
+  public MemcachedPipeline delete(String key);
+
+  /**
+   * Queue a touch operation,its result is a Boolean.
+   */
+  public MemcachedPipeline touch(String key, int exp);
+
+  /**
+   * Queue an incr operation,its result is the Long value after incrementing,or the init value if
+   * the key was missing.
+   */
+  public MemcachedPipeline incr(String key, long delta, long initValue);
+
+  /**
+   * Queue a decr operation,its result is the Long value after decrementing,or the init value if
+   * the key was missing.
+   */
+  public MemcachedPipeline decr(String key, long delta, long initValue);
+
+  /**
+   * Returns the number of queued operations.
+   */
+  public int size();
+
+  /**
+   * Send all queued operations and wait for them,using the client's operation timeout.
+   * 
+   * @return results in the order the operations were queued
+   * @see #execute(long)
+   */
+  public List<Object> execute() throws TimeoutException, InterruptedException, MemcachedException;
+
+  /**
+   * Send all queued operations and wait for them.
+   * 
+   * @param timeout timeout in milliseconds for the whole batch
+   * @return results in the order the operations were queued
+   * @throws TimeoutException
+   * @throws InterruptedException
+   * @throws MemcachedException if any operation failed
+   */
+  public List<Object> execute(long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException;
+}
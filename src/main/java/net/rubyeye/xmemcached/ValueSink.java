@@ -0,0 +1,42 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Sink of a value's raw bytes,they are written to it as they arrive from memcached instead of
+ * being copied into a byte array first,see
+ * {@link MemcachedClient#getStream(String, long, ValueSink)}.Methods may be called on the reactor
+ * thread,so please don't do any operations which may block for long in these methods.
+ * {@link ValueSinks} has sinks for output streams,channels and buffers.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public interface ValueSink {
+  /**
+   * Called once before any bytes of the value are written.
+   * 
+   * @param flags the flags stored along with the value
+   * @param cas the cas unique of the value
+   * @param length the length of the value in bytes
+   * @throws IOException to skip the value
+   */
+  public void begin(int flags, long cas, int length) throws IOException;
+
+  /**
+   * Write all the remaining bytes of the chunk,the chunk is only valid during the call.
+   * 
+   * @param chunk
+   * @throws IOException to skip the rest of the value
+   */
+  public void write(ByteBuffer chunk) throws IOException;
+}
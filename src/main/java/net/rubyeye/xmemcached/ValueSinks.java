@@ -0,0 +1,93 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Value sinks for common destinations
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public final class ValueSinks {
+
+  private ValueSinks() {
+
+  }
+
+  /**
+   * A sink writing the value to the output stream,the stream is not closed.
+   */
+  public static ValueSink fromOutputStream(final OutputStream out) {
+    return new ValueSink() {
+      private byte[] bytes;
+
+      public void begin(int flags, long cas, int length) {
+
+      }
+
+      public void write(ByteBuffer chunk) throws IOException {
+        if (chunk.hasArray()) {
+          out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+          chunk.position(chunk.limit());
+        } else {
+          if (this.bytes == null) {
+            this.bytes = new byte[Math.min(chunk.remaining(), 8192)];
+          }
+          while (chunk.hasRemaining()) {
+            int length = Math.min(chunk.remaining(), this.bytes.length);
+            chunk.get(this.bytes, 0, length);
+            out.write(this.bytes, 0, length);
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * A sink writing the value to the channel,the channel must be in blocking mode and it is not
+   * closed.
+   */
+  public static ValueSink fromChannel(final WritableByteChannel channel) {
+    return new ValueSink() {
+      public void begin(int flags, long cas, int length) {
+
+      }
+
+      public void write(ByteBuffer chunk) throws IOException {
+        while (chunk.hasRemaining()) {
+          channel.write(chunk);
+        }
+      }
+    };
+  }
+
+  /**
+   * A sink putting the value into the buffer,the value is skipped and an exception is thrown by
+   * the get if it's longer than the buffer's remaining.
+   */
+  public static ValueSink fromByteBuffer(final ByteBuffer buffer) {
+    return new ValueSink() {
+      public void begin(int flags, long cas, int length) throws IOException {
+        if (length > buffer.remaining()) {
+          throw new IOException("Value length " + length + " is larger than buffer remaining "
+              + buffer.remaining());
+        }
+      }
+
+      public void write(ByteBuffer chunk) {
+        buffer.put(chunk);
+      }
+    };
+  }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached;
+
+import java.util.concurrent.TimeUnit;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.impl.SpinWaitStrategy;
+
+/**
+ * Wait strategies for synchronous operations
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public final class WaitStrategies {
+
+  private WaitStrategies() {
+
+  }
+
+  private static final WaitStrategy PARK = new WaitStrategy() {
+    public boolean await(Command command, long timeout, TimeUnit unit)
+        throws InterruptedException {
+      return command.await(timeout, unit);
+    }
+  };
+
+  /**
+   * Park the calling thread until the command is completed,it's the default strategy.
+   */
+  public static WaitStrategy park() {
+    return PARK;
+  }
+
+  /**
+   * Busy spin for spinTime at most,then park until the command is completed.It burns a cpu while
+   * spinning,so spinTime should be close to the round trip time to memcached.
+   */
+  public static SpinWaitStrategy spinThenPark(long spinTime, TimeUnit unit) {
+    return new SpinWaitStrategy(unit.toNanos(spinTime), false);
+  }
+
+  /**
+   * Yield the cpu for yieldTime at most,then park until the command is completed.It's kinder to
+   * other threads than {@link #spinThenPark(long, TimeUnit)} when there are more busy threads than
+   * cpus.
+   */
+  public static SpinWaitStrategy yieldThenPark(long yieldTime, TimeUnit unit) {
+    return new SpinWaitStrategy(unit.toNanos(yieldTime), true);
+  }
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached;
+
+import java.util.concurrent.TimeUnit;
+import net.rubyeye.xmemcached.command.Command;
+
+/**
+ * Strategy for synchronous operations to wait for the response of a command.The default one parks
+ * the calling thread at once,{@link WaitStrategies} has strategies spinning or yielding for a while
+ * before parking,which avoid the wake-up cost when the server responds within a few microseconds.
+ * 
+ * @see MemcachedClient#setWaitStrategy(WaitStrategy)
+ * @see MemcachedClient#withWaitStrategy(WaitStrategy, MemcachedClientCallable)
+ * @author dennis
+ * @since 2.4.3
+ */
+public interface WaitStrategy {
+  /**
+   * Wait for the command to be completed,it's called by the thread which sent the command.
+   * 
+   * @param command
+   * @param timeout
+   * @param unit
+   * @return true if the command is completed,false if timeout
+   * @throws InterruptedException
+   */
+  public boolean await(Command command, long timeout, TimeUnit unit) throws InterruptedException;
+}
@@ -24,21 +24,34 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import net.rubyeye.xmemcached.auth.AuthInfo;
 import net.rubyeye.xmemcached.buffer.BufferAllocator;
 import net.rubyeye.xmemcached.buffer.SimpleBufferAllocator;
 import net.rubyeye.xmemcached.codec.MemcachedCodecFactory;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.MapReturnValueAware;
+import net.rubyeye.xmemcached.command.OperationListener;
+import net.rubyeye.xmemcached.command.ReturnValueListener;
 import net.rubyeye.xmemcached.command.ServerAddressAware;
 import net.rubyeye.xmemcached.command.TextCommandFactory;
+import net.rubyeye.xmemcached.command.ValueSinkAware;
 import net.rubyeye.xmemcached.exception.MemcachedException;
 import net.rubyeye.xmemcached.exception.NoValueException;
 import net.rubyeye.xmemcached.impl.ArrayMemcachedSessionLocator;
@@ -47,16 +60,20 @@ import net.rubyeye.xmemcached.impl.DefaultKeyProvider;
 import net.rubyeye.xmemcached.impl.KeyIteratorImpl;
 import net.rubyeye.xmemcached.impl.MemcachedClientStateListenerAdapter;
 import net.rubyeye.xmemcached.impl.MemcachedConnector;
+import net.rubyeye.xmemcached.impl.MemcachedFutureImpl;
 import net.rubyeye.xmemcached.impl.MemcachedHandler;
 import net.rubyeye.xmemcached.impl.MemcachedTCPSession;
 import net.rubyeye.xmemcached.impl.ReconnectRequest;
+import net.rubyeye.xmemcached.impl.SpinWaitStrategyMBean;
 import net.rubyeye.xmemcached.monitor.Constants;
 import net.rubyeye.xmemcached.monitor.MemcachedClientNameHolder;
 import net.rubyeye.xmemcached.monitor.XMemcachedMbeanServer;
 import net.rubyeye.xmemcached.networking.Connector;
 import net.rubyeye.xmemcached.networking.MemcachedSession;
 import net.rubyeye.xmemcached.transcoders.CachedData;
+import net.rubyeye.xmemcached.transcoders.CachedDataTranscoder;
 import net.rubyeye.xmemcached.transcoders.SerializingTranscoder;
+import net.rubyeye.xmemcached.transcoders.StringTranscoder;
 import net.rubyeye.xmemcached.transcoders.Transcoder;
 import net.rubyeye.xmemcached.utils.AddrUtil;
 import net.rubyeye.xmemcached.utils.ByteUtils;
@@ -64,10 +81,14 @@ import net.rubyeye.xmemcached.utils.InetSocketAddressWrapper;
 import net.rubyeye.xmemcached.utils.Protocol;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.google.code.yanf4j.buffer.IoBuffer;
+import com.google.code.yanf4j.buffer.PooledBufferAllocator;
 import com.google.code.yanf4j.config.Configuration;
 import com.google.code.yanf4j.core.Session;
 import com.google.code.yanf4j.core.SocketOption;
+import com.google.code.yanf4j.core.impl.PoolDispatcher;
 import com.google.code.yanf4j.util.SystemUtils;
+import com.google.code.yanf4j.util.WorkerThreadFactory;
 
 /**
  * Memcached Client for connecting to memcached server and do operations.
@@ -78,6 +99,22 @@ import com.google.code.yanf4j.util.SystemUtils;
 public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient {
 
   private static final Logger log = LoggerFactory.getLogger(XMemcachedClient.class);
+
+  private static final StringTranscoder COUNTER_TRANSCODER = new StringTranscoder();
+
+  static {
+    boolean directBuffer =
+        Boolean.valueOf(System.getProperty(Constants.XMEMCACHED_DIRECT_BUFFER_ENABLE, "false"));
+    if (directBuffer
+        || Boolean.valueOf(System.getProperty(Constants.XMEMCACHED_BUFFER_POOL_ENABLE, "false"))) {
+      // Command buffers are allocated from size-class pools and returned to them after sent.
+      IoBuffer.setAllocator(new PooledBufferAllocator());
+    }
+    if (directBuffer) {
+      // Socket I/O doesn't copy direct buffers through temporary direct buffers.
+      IoBuffer.setUseDirectBuffer(true);
+    }
+  }
   protected MemcachedSessionLocator sessionLocator;
   private volatile boolean shutdown;
   protected MemcachedConnector connector;
@@ -110,11 +147,27 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
   // key provider for pre-processing keys before sending them to memcached
   // added by dennis,2012-07-14
   private KeyProvider keyProvider = DefaultKeyProvider.INSTANCE;
+
+  private volatile ScheduledExecutorService asyncTimeoutScheduler;
+
+  private volatile Executor callbackExecutor;
+
+  private ExecutorService callbackThreadPool;
+
+  private volatile WaitStrategy waitStrategy = WaitStrategies.park();
+  private volatile String waitStrategyMBeanName;
   /**
    * namespace thread local.
    */
   public static final ThreadLocal<String> NAMESPACE_LOCAL = new ThreadLocal<String>();
 
+  /**
+   * wait strategy thread local,overrides the client's wait strategy in
+   * {@link #withWaitStrategy(WaitStrategy, MemcachedClientCallable)}.
+   */
+  private static final ThreadLocal<WaitStrategy> WAIT_STRATEGY_LOCAL =
+      new ThreadLocal<WaitStrategy>();
+
   /*
    * (non-Javadoc)
    *
@@ -153,6 +206,55 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     }
   }
 
+  public <T> T withWaitStrategy(WaitStrategy waitStrategy, MemcachedClientCallable<T> callable)
+      throws MemcachedException, InterruptedException, TimeoutException {
+    if (waitStrategy == null) {
+      throw new IllegalArgumentException("Null wait strategy");
+    }
+    WaitStrategy previous = WAIT_STRATEGY_LOCAL.get();
+    WAIT_STRATEGY_LOCAL.set(waitStrategy);
+    try {
+      return callable.call(this);
+    } finally {
+      if (previous != null) {
+        WAIT_STRATEGY_LOCAL.set(previous);
+      } else {
+        WAIT_STRATEGY_LOCAL.remove();
+      }
+    }
+  }
+
+  public WaitStrategy getWaitStrategy() {
+    return this.waitStrategy;
+  }
+
+  public void setWaitStrategy(WaitStrategy waitStrategy) {
+    if (waitStrategy == null) {
+      throw new IllegalArgumentException("Null wait strategy");
+    }
+    this.waitStrategy = waitStrategy;
+    this.unregisterWaitStrategyMBean();
+    if (waitStrategy instanceof SpinWaitStrategyMBean) {
+      final String mbeanName =
+          this.getClass().getPackage().getName() + ":type=WaitStrategy-" + this.name;
+      XMemcachedMbeanServer.getInstance().registMBean(waitStrategy, mbeanName);
+      this.waitStrategyMBeanName = mbeanName;
+    }
+  }
+
+  private void unregisterWaitStrategyMBean() {
+    final String mbeanName = this.waitStrategyMBeanName;
+    if (mbeanName != null) {
+      this.waitStrategyMBeanName = null;
+      XMemcachedMbeanServer.getInstance().unregistMBean(mbeanName);
+    }
+  }
+
+  private WaitStrategy currentWaitStrategy() {
+    WaitStrategy result = WAIT_STRATEGY_LOCAL.get();
+    return result != null ? result : this.waitStrategy;
+  }
+
   public void endWithNamespace() {
     NAMESPACE_LOCAL.remove();
   }
@@ -318,6 +420,39 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     return this.connector.send(cmd);
   }
 
+  /**
+   * Send a command to a single key,the key is hashed from the bytes already encoded,so the session
+   * locator doesn't hash the key string again.
+   */
+  private Session sendKeyCommand(final Command cmd) throws MemcachedException {
+    return this.sendCommand(this.hashKey(cmd));
+  }
+
+  /**
+   * Compute the hash of the command's key by the session locator if it supports it.
+   */
+  private Command hashKey(final Command command) {
+    if (command.getKeyHash() < 0 && command.getKeyBytes() != null) {
+      command.setKeyHash(this.connector.hashKey(command.getKeyBytes()));
+    }
+    return command;
+  }
+
+  /**
+   * Send a batch of commands to single keys,commands to the same session are written together.
+   *
+   * @return the sessions which the commands were sent to,in the same order as the commands.
+   */
+  protected final List<Session> sendCommands(final List<Command> cmds) throws MemcachedException {
+    if (this.shutdown) {
+      throw new MemcachedException("Xmemcached is stopped");
+    }
+    for (Command cmd : cmds) {
+      this.hashKey(cmd);
+    }
+    return this.connector.send(cmds);
+  }
+
   /**
    * XMemcached constructor,default weight is 1
    *
@@ -595,8 +730,7 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
       throws InterruptedException, TimeoutException, MemcachedException {
     final Command command =
         this.commandFactory.createGetCommand(key, keyBytes, cmdType, this.transcoder);
-    this.latchWait(command, timeout, this.sendCommand(command));
-    command.getIoBuffer().free(); // free buffer
+    this.latchWait(command, timeout, this.sendKeyCommand(command));
     this.checkException(command);
     CachedData data = (CachedData) command.getResult();
     if (data == null) {
@@ -1175,7 +1309,6 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
       throws MemcachedException, InterruptedException, TimeoutException {
     final Map<String, T> result = new HashMap<String, T>(commands.size());
     for (Command getCmd : commands) {
-      getCmd.getIoBuffer().free();
       this.checkException(getCmd);
       Map<String, CachedData> map = (Map<String, CachedData>) getCmd.getResult();
       if (cmdType == CommandType.GET_MANY) {
@@ -1781,10 +1914,9 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     ByteUtils.checkKey(keyBytes);
     final Command command =
         this.commandFactory.createDeleteCommand(key, keyBytes, time, cas, noreply);
-    final Session session = this.sendCommand(command);
+    final Session session = this.sendKeyCommand(command);
     if (!command.isNoreply()) {
       this.latchWait(command, opTimeout, session);
-      command.getIoBuffer().free();
       this.checkException(command);
       if (command.getResult() == null) {
         throw new MemcachedException("Operation fail,may be caused by networking or timeout");
@@ -1810,11 +1942,8 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     key = this.preProcessKey(key);
     final byte[] keyBytes = ByteUtils.getBytes(key);
     ByteUtils.checkKey(keyBytes);
-    CountDownLatch latch = new CountDownLatch(1);
-    final Command command =
-        this.commandFactory.createTouchCommand(key, keyBytes, latch, exp, false);
-    this.latchWait(command, opTimeout, this.sendCommand(command));
-    command.getIoBuffer().free();
+    final Command command = this.commandFactory.createTouchCommand(key, keyBytes, null, exp, false);
+    this.latchWait(command, opTimeout, this.sendKeyCommand(command));
     this.checkException(command);
     if (command.getResult() == null) {
       throw new MemcachedException("Operation fail,may be caused by networking or timeout");
@@ -1833,11 +1962,9 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     key = this.preProcessKey(key);
     final byte[] keyBytes = ByteUtils.getBytes(key);
     ByteUtils.checkKey(keyBytes);
-    CountDownLatch latch = new CountDownLatch(1);
     final Command command =
-        this.commandFactory.createGetAndTouchCommand(key, keyBytes, latch, newExp, false);
-    this.latchWait(command, opTimeout, this.sendCommand(command));
-    command.getIoBuffer().free();
+        this.commandFactory.createGetAndTouchCommand(key, keyBytes, null, newExp, false);
+    this.latchWait(command, opTimeout, this.sendKeyCommand(command));
     this.checkException(command);
     CachedData data = (CachedData) command.getResult();
     if (data == null) {
@@ -2249,6 +2376,13 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     this.connector.quitAllSessions();
     this.connector.stop();
     this.memcachedHandler.stop();
+    if (this.asyncTimeoutScheduler != null) {
+      this.asyncTimeoutScheduler.shutdown();
+    }
+    if (this.callbackThreadPool != null) {
+      this.callbackThreadPool.shutdown();
+    }
+    this.unregisterWaitStrategyMBean();
     XMemcachedMbeanServer.getInstance().shutdown();
     if (AddrUtil.isEnableShutDownHook() && !this.isHutdownHookCalled) {
       try {
@@ -2266,10 +2400,9 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     ByteUtils.checkKey(keyBytes);
     final Command command = this.commandFactory.createIncrDecrCommand(key, keyBytes, delta,
         initValue, exp, cmdType, noreply);
-    final Session session = this.sendCommand(command);
+    final Session session = this.sendKeyCommand(command);
     if (!command.isNoreply()) {
       this.latchWait(command, operationTimeout, session);
-      command.getIoBuffer().free();
       this.checkException(command);
       if (command.getResult() == null) {
         throw new MemcachedException("Operation fail,may be caused by networking or timeout");
@@ -2340,10 +2473,9 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
   private final <T> boolean sendStoreCommand(Command command, long timeout)
       throws InterruptedException, TimeoutException, MemcachedException {
 
-    final Session session = this.sendCommand(command);
+    final Session session = this.sendKeyCommand(command);
     if (!command.isNoreply()) {
       this.latchWait(command, timeout, session);
-      command.getIoBuffer().free();
       this.checkException(command);
       if (command.getResult() == null) {
         throw new MemcachedException("Operation fail,may be caused by networking or timeout");
@@ -2354,31 +2486,1568 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     return (Boolean) command.getResult();
   }
 
-  private static final String CONTINUOUS_TIMEOUT_COUNTER = "ContinuousTimeouts";
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getAsync(java.lang.String, long,
+   * net.rubyeye.xmemcached.transcoders.Transcoder)
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> MemcachedFuture<T> getAsync(final String key, final long timeout,
+      final Transcoder<T> transcoder) throws InterruptedException, MemcachedException {
+    return (MemcachedFuture<T>) this.getAsync0(key, timeout, CommandType.GET_ONE, transcoder);
+  }
 
-  protected void latchWait(final Command cmd, final long timeout, final Session session)
-      throws InterruptedException, TimeoutException {
-    if (cmd.getLatch().await(timeout, TimeUnit.MILLISECONDS)) {
-      AtomicInteger counter = this.getContinuousTimeoutCounter(session);
-      // reset counter.
-      if (counter.get() > 0) {
-        counter.set(0);
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getAsync(java.lang.String, long)
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> MemcachedFuture<T> getAsync(final String key, final long timeout)
+      throws InterruptedException, MemcachedException {
+    return this.getAsync(key, timeout, this.transcoder);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getAsync(java.lang.String)
+   */
+  public final <T> MemcachedFuture<T> getAsync(final String key)
+      throws InterruptedException, MemcachedException {
+    return this.getAsync(key, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getsAsync(java.lang.String, long,
+   * net.rubyeye.xmemcached.transcoders.Transcoder)
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> MemcachedFuture<GetsResponse<T>> getsAsync(final String key,
+      final long timeout, final Transcoder<T> transcoder)
+      throws InterruptedException, MemcachedException {
+    return (MemcachedFuture<GetsResponse<T>>) this.getAsync0(key, timeout, CommandType.GETS_ONE,
+        transcoder);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getsAsync(java.lang.String)
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> MemcachedFuture<GetsResponse<T>> getsAsync(final String key)
+      throws InterruptedException, MemcachedException {
+    return this.getsAsync(key, this.opTimeout, this.transcoder);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> MemcachedFuture<?> getAsync0(String key, final long timeout,
+      final CommandType cmdType, Transcoder<T> transcoder)
+      throws InterruptedException, MemcachedException {
+    key = this.preProcessKey(key);
+    byte[] keyBytes = ByteUtils.getBytes(key);
+    ByteUtils.checkKey(keyBytes);
+    if (transcoder == null) {
+      transcoder = this.transcoder;
+    }
+    final Transcoder<T> valueTranscoder = transcoder;
+    final Command command =
+        this.commandFactory.createGetCommand(key, keyBytes, cmdType, this.transcoder);
+    final MemcachedFutureImpl<Object> future = new MemcachedFutureImpl<Object>();
+    this.sendAsyncCommand(command, timeout, new AsyncOperationListener<Object>(future) {
+      @Override
+      protected void complete(Command cmd) {
+        CachedData data = (CachedData) cmd.getResult();
+        if (data == null) {
+          this.future.setResult(null);
+        } else if (cmdType == CommandType.GETS_ONE) {
+          this.future.setResult(new GetsResponse<T>(data.getCas(), valueTranscoder.decode(data)));
+        } else {
+          this.future.setResult(valueTranscoder.decode(data));
+        }
       }
+    });
+    return future;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getMultiAsync(java.util.Collection, long,
+   * net.rubyeye.xmemcached.transcoders.Transcoder)
+   */
+  public final <T> MemcachedFuture<Map<String, T>> getMultiAsync(
+      final Collection<String> keyCollections, final long timeout, final Transcoder<T> transcoder)
+      throws InterruptedException, MemcachedException {
+    final MemcachedFutureImpl<Map<String, T>> future = new MemcachedFutureImpl<Map<String, T>>();
+    if (keyCollections == null || keyCollections.size() == 0) {
+      future.setResult(null);
+      return future;
+    }
+    Collection<String> keys = new ArrayList<String>(keyCollections.size());
+    for (String key : keyCollections) {
+      keys.add(this.preProcessKey(key));
+    }
+    final Collection<List<String>> catalogKeys;
+    if (this.connector.getSessionSet().size() <= 1) {
+      catalogKeys = new ArrayList<List<String>>(1);
+      catalogKeys.add(new ArrayList<String>(keys));
     } else {
-      cmd.cancel();
-      AtomicInteger counter = this.getContinuousTimeoutCounter(session);
-      if (counter.incrementAndGet() > this.timeoutExceptionThreshold) {
-        log.warn(session + " exceeded continuous timeout threshold,we will close it.");
-        try {
-          // reset counter.
-          counter.set(0);
-          session.close();
-        } catch (Exception e) {
-          // ignore it.
+      catalogKeys = this.catalogKeys(keys);
+    }
+    final List<Command> commands = new ArrayList<Command>(catalogKeys.size());
+    for (List<String> catalogKeyCollection : catalogKeys) {
+      commands.add(this.commandFactory.createGetMultiCommand(catalogKeyCollection,
+          new CountDownLatch(1), CommandType.GET_MANY, transcoder));
+    }
+    future.setCommands(commands);
+    final AtomicInteger remaining = new AtomicInteger(commands.size());
+    for (Command command : commands) {
+      command.setOperationListener(new AsyncOperationListener<Map<String, T>>(future) {
+        @Override
+        protected void complete(Command cmd)
+            throws MemcachedException, InterruptedException, TimeoutException {
+          if (remaining.decrementAndGet() == 0) {
+            this.future.setResult(XMemcachedClient.this.reduceResult(CommandType.GET_MANY,
+                transcoder, commands));
+          }
         }
+      }, this.callbackExecutor);
+      try {
+        this.sendCommand(command);
+      } catch (MemcachedException e) {
+        future.setFailure(e);
+        future.cancelCommands();
+        return future;
+      }
+    }
+    this.scheduleAsyncTimeout(future, timeout, null);
+    return future;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getMultiAsync(java.util.Collection, long)
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> MemcachedFuture<Map<String, T>> getMultiAsync(
+      final Collection<String> keyCollections, final long timeout)
+      throws InterruptedException, MemcachedException {
+    return this.getMultiAsync(keyCollections, timeout, this.transcoder);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getMultiAsync(java.util.Collection)
+   */
+  public final <T> MemcachedFuture<Map<String, T>> getMultiAsync(
+      final Collection<String> keyCollections) throws InterruptedException, MemcachedException {
+    return this.getMultiAsync(keyCollections, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getMultiStream(java.util.Collection, long,
+   * net.rubyeye.xmemcached.transcoders.Transcoder, net.rubyeye.xmemcached.KeyValueSubscriber)
+   */
+  public final <T> void getMultiStream(final Collection<String> keyCollections,
+      final long timeout, final Transcoder<T> transcoder, final KeyValueSubscriber<T> subscriber)
+      throws InterruptedException, MemcachedException {
+    if (subscriber == null) {
+      throw new NullPointerException("Null subscriber");
+    }
+    Queue<String> keys = new LinkedList<String>();
+    if (keyCollections != null) {
+      for (String key : keyCollections) {
+        keys.add(this.preProcessKey(key));
+      }
+    }
+    @SuppressWarnings("unchecked")
+    final Transcoder<T> streamTranscoder = transcoder == null ? this.transcoder : transcoder;
+    GetMultiStream<T> stream = new GetMultiStream<T>(keys, timeout, streamTranscoder, subscriber);
+    subscriber.onSubscribe(stream);
+    stream.drain();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getMultiStream(java.util.Collection,
+   * net.rubyeye.xmemcached.KeyValueSubscriber)
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> void getMultiStream(final Collection<String> keyCollections,
+      final KeyValueSubscriber<T> subscriber) throws InterruptedException, MemcachedException {
+    this.getMultiStream(keyCollections, this.opTimeout, this.transcoder, subscriber);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getStream(java.lang.String, long,
+   * net.rubyeye.xmemcached.ValueSink)
+   */
+  public final boolean getStream(String key, final long timeout, final ValueSink sink)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    if (sink == null) {
+      throw new IllegalArgumentException("Null value sink");
+    }
+    key = this.preProcessKey(key);
+    final byte[] keyBytes = ByteUtils.getBytes(key);
+    ByteUtils.checkKey(keyBytes);
+    final Command command =
+        this.commandFactory.createGetCommand(key, keyBytes, CommandType.GET_ONE, this.transcoder);
+    ((ValueSinkAware) command).setValueSink(sink);
+    this.latchWait(command, timeout, this.sendKeyCommand(command));
+    this.checkException(command);
+    return command.getResult() != null;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getStream(java.lang.String,
+   * net.rubyeye.xmemcached.ValueSink)
+   */
+  public final boolean getStream(final String key, final ValueSink sink)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.getStream(key, this.opTimeout, sink);
+  }
+
+  /**
+   * Check the raw key and create its string for the command,the raw key is not processed by the
+   * key provider or namespace.
+   */
+  private String rawKeyString(final byte[] key) {
+    if (key == null || key.length == 0) {
+      throw new IllegalArgumentException("Key must not be blank");
+    }
+    ByteUtils.checkKey(key);
+    return ByteUtils.getString(key);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getRaw(byte[], long)
+   */
+  public final CachedData getRaw(final byte[] key, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    final Command command = this.commandFactory.createGetCommand(this.rawKeyString(key), key,
+        CommandType.GET_ONE, this.transcoder);
+    this.latchWait(command, timeout, this.sendKeyCommand(command));
+    this.checkException(command);
+    return (CachedData) command.getResult();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getRaw(byte[])
+   */
+  public final CachedData getRaw(final byte[] key)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.getRaw(key, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#setRaw(byte[], int,
+   * net.rubyeye.xmemcached.transcoders.CachedData, long)
+   */
+  public final boolean setRaw(final byte[] key, final int exp, final CachedData value,
+      final long timeout) throws TimeoutException, InterruptedException, MemcachedException {
+    if (value == null) {
+      throw new IllegalArgumentException("Null value");
+    }
+    return this.sendStoreCommand(this.commandFactory.createSetCommand(this.rawKeyString(key), key,
+        exp, value, false, CachedDataTranscoder.INSTANCE), timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#setRaw(byte[], int,
+   * net.rubyeye.xmemcached.transcoders.CachedData)
+   */
+  public final boolean setRaw(final byte[] key, final int exp, final CachedData value)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.setRaw(key, exp, value, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#deleteRaw(byte[], long)
+   */
+  public final boolean deleteRaw(final byte[] key, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    final Command command =
+        this.commandFactory.createDeleteCommand(this.rawKeyString(key), key, 0, 0, false);
+    this.latchWait(command, timeout, this.sendKeyCommand(command));
+    this.checkException(command);
+    if (command.getResult() == null) {
+      throw new MemcachedException("Operation fail,may be caused by networking or timeout");
+    }
+    return (Boolean) command.getResult();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#deleteRaw(byte[])
+   */
+  public final boolean deleteRaw(final byte[] key)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.deleteRaw(key, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#pipeline()
+   */
+  public MemcachedPipeline pipeline() {
+    return new Pipeline();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#setMulti(java.util.Map, int,
+   * net.rubyeye.xmemcached.transcoders.Transcoder, long)
+   */
+  public final <T> Set<String> setMulti(final Map<String, T> items, final int exp,
+      final Transcoder<T> transcoder, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.storeMulti(CommandType.SET, items, exp, transcoder, timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#setMulti(java.util.Map, int)
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> Set<String> setMulti(final Map<String, T> items, final int exp)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.setMulti(items, exp, this.transcoder, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#addMulti(java.util.Map, int,
+   * net.rubyeye.xmemcached.transcoders.Transcoder, long)
+   */
+  public final <T> Set<String> addMulti(final Map<String, T> items, final int exp,
+      final Transcoder<T> transcoder, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.storeMulti(CommandType.ADD, items, exp, transcoder, timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#addMulti(java.util.Map, int)
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> Set<String> addMulti(final Map<String, T> items, final int exp)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.addMulti(items, exp, this.transcoder, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#replaceMulti(java.util.Map, int,
+   * net.rubyeye.xmemcached.transcoders.Transcoder, long)
+   */
+  public final <T> Set<String> replaceMulti(final Map<String, T> items, final int exp,
+      final Transcoder<T> transcoder, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.storeMulti(CommandType.REPLACE, items, exp, transcoder, timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#replaceMulti(java.util.Map, int)
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> Set<String> replaceMulti(final Map<String, T> items, final int exp)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.replaceMulti(items, exp, this.transcoder, this.opTimeout);
+  }
+
+  /**
+   * Send store commands of all items in one batch and wait for them.Failed items,including the
+   * ones failed with a server error,are reported by returning their keys instead of throwing an
+   * exception.
+   */
+  private <T> Set<String> storeMulti(final CommandType cmdType, final Map<String, T> items,
+      final int exp, final Transcoder<T> transcoder, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    if (items == null) {
+      throw new IllegalArgumentException("Null items");
+    }
+    if (items.isEmpty()) {
+      return new HashSet<String>();
+    }
+    final List<String> keys = new ArrayList<String>(items.size());
+    final List<Command> commands = new ArrayList<Command>(items.size());
+    for (Map.Entry<String, T> entry : items.entrySet()) {
+      final String key = this.preProcessKey(entry.getKey());
+      final T value = entry.getValue();
+      final byte[] keyBytes = this.checkStoreArguments(key, exp, value);
+      Command command;
+      switch (cmdType) {
+        case ADD:
+          command =
+              this.commandFactory.createAddCommand(key, keyBytes, exp, value, false, transcoder);
+          break;
+        case REPLACE:
+          command = this.commandFactory.createReplaceCommand(key, keyBytes, exp, value, false,
+              transcoder);
+          break;
+        default:
+          command =
+              this.commandFactory.createSetCommand(key, keyBytes, exp, value, false, transcoder);
+          break;
+      }
+      keys.add(entry.getKey());
+      commands.add(command);
+    }
+    return this.sendMulti(keys, commands, timeout);
+  }
+
+  /**
+   * Send boolean result commands in one batch and wait for them,returns keys of the commands
+   * which were failed or returned false.
+   */
+  private Set<String> sendMulti(final List<String> keys, final List<Command> commands,
+      final long timeout) throws TimeoutException, InterruptedException, MemcachedException {
+    final Set<String> failedKeys = new HashSet<String>();
+    this.latchWait(commands, this.sendCommands(commands), timeout);
+    for (int i = 0; i < commands.size(); i++) {
+      final Command command = commands.get(i);
+      if (command.getException() != null || !Boolean.TRUE.equals(command.getResult())) {
+        failedKeys.add(keys.get(i));
+      }
+    }
+    return failedKeys;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#deleteMulti(java.util.Collection, long)
+   */
+  public final Set<String> deleteMulti(final Collection<String> keys, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.keyMulti(CommandType.DELETE_MANY, keys, 0, timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#deleteMulti(java.util.Collection)
+   */
+  public final Set<String> deleteMulti(final Collection<String> keys)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.deleteMulti(keys, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#touchMulti(java.util.Collection, int, long)
+   */
+  public final Set<String> touchMulti(final Collection<String> keys, final int exp,
+      final long timeout) throws TimeoutException, InterruptedException, MemcachedException {
+    return this.keyMulti(CommandType.TOUCH_MANY, keys, exp, timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#touchMulti(java.util.Collection, int)
+   */
+  public final Set<String> touchMulti(final Collection<String> keys, final int exp)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.touchMulti(keys, exp, this.opTimeout);
+  }
+
+  /**
+   * Delete(touch) keys of every node by one command,which sends the requests of all its keys as
+   * quiet ones followed by a barrier,and wait for them.
+   */
+  @SuppressWarnings("unchecked")
+  private Set<String> keyMulti(final CommandType cmdType, final Collection<String> keys,
+      final int exp, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    if (keys == null) {
+      throw new IllegalArgumentException("Null keys");
+    }
+    if (keys.isEmpty()) {
+      return new HashSet<String>();
+    }
+    final Map<String, String> originalKeys = new HashMap<String, String>(keys.size());
+    for (String originalKey : keys) {
+      final String key = this.preProcessKey(originalKey);
+      ByteUtils.checkKey(ByteUtils.getBytes(key));
+      originalKeys.put(key, originalKey);
+    }
+    final List<List<String>> catalogKeys;
+    if (this.connector.getSessionSet().size() <= 1) {
+      catalogKeys = new ArrayList<List<String>>(1);
+      catalogKeys.add(new ArrayList<String>(originalKeys.keySet()));
+    } else {
+      catalogKeys = new ArrayList<List<String>>(this.catalogKeys(originalKeys.keySet()));
+    }
+    final List<Command> commands = new ArrayList<Command>(catalogKeys.size());
+    for (List<String> catalogKeyList : catalogKeys) {
+      commands.add(this.commandFactory.createKeyMultiCommand(catalogKeyList, null, cmdType, exp));
+    }
+    this.latchWait(commands, this.sendCommands(commands), timeout);
+    final Set<String> failedKeys = new HashSet<String>();
+    for (int i = 0; i < commands.size(); i++) {
+      final Command command = commands.get(i);
+      // An error can't be told which key it is of,all keys of the node are failed.
+      final Collection<String> failed = command.getException() != null ? catalogKeys.get(i)
+          : (Set<String>) command.getResult();
+      for (String key : failed) {
+        failedKeys.add(originalKeys.get(key));
+      }
+    }
+    return failedKeys;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#incrMulti(java.util.Map, long, int, long)
+   */
+  public final long[] incrMulti(final Map<String, Long> deltas, final long initValue,
+      final int exp, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.incrOrDecrMulti(CommandType.INCR, deltas, initValue, exp, timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#incrMulti(java.util.Map, long)
+   */
+  public final long[] incrMulti(final Map<String, Long> deltas, final long initValue)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.incrMulti(deltas, initValue, 0, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#decrMulti(java.util.Map, long, int, long)
+   */
+  public final long[] decrMulti(final Map<String, Long> deltas, final long initValue,
+      final int exp, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.incrOrDecrMulti(CommandType.DECR, deltas, initValue, exp, timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#decrMulti(java.util.Map, long)
+   */
+  public final long[] decrMulti(final Map<String, Long> deltas, final long initValue)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    return this.decrMulti(deltas, initValue, 0, this.opTimeout);
+  }
+
+  /**
+   * Send incr or decr commands of all counters in one batch and wait for them.Text protocol
+   * responds NOT_FOUND for the absent counters,they are initialized by one addMulti batch,and the
+   * ones lost the race are retried one by one like incr/decr.
+   */
+  @SuppressWarnings("unchecked")
+  private long[] incrOrDecrMulti(final CommandType cmdType, final Map<String, Long> deltas,
+      final long initValue, final int exp, final long timeout)
+      throws TimeoutException, InterruptedException, MemcachedException {
+    if (deltas == null) {
+      throw new IllegalArgumentException("Null deltas");
+    }
+    final long[] results = new long[deltas.size()];
+    if (deltas.isEmpty()) {
+      return results;
+    }
+    final List<Command> commands = new ArrayList<Command>(deltas.size());
+    for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+      final String key = this.preProcessKey(entry.getKey());
+      final byte[] keyBytes = ByteUtils.getBytes(key);
+      ByteUtils.checkKey(keyBytes);
+      commands.add(this.commandFactory.createIncrDecrCommand(key, keyBytes, entry.getValue(),
+          initValue, exp, cmdType, false));
+    }
+    this.latchWait(commands, this.sendCommands(commands), timeout);
+    Map<String, String> absentCounters = null;
+    int i = 0;
+    for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+      final Command command = commands.get(i);
+      this.checkException(command);
+      final Object result = command.getResult();
+      if (result == null) {
+        throw new MemcachedException("Operation fail,may be caused by networking or timeout");
+      }
+      if (result instanceof Long) {
+        results[i] = (Long) result;
+      } else if ("NOT_FOUND".equals(result)) {
+        if (absentCounters == null) {
+          absentCounters = new HashMap<String, String>();
+        }
+        absentCounters.put(entry.getKey(), String.valueOf(initValue));
+        results[i] = initValue;
+      } else {
+        throw new MemcachedException(
+            "Unknown result type for incr/decr:" + result.getClass() + ",result=" + result);
+      }
+      i++;
+    }
+    if (absentCounters != null) {
+      // counters are stored as raw decimal strings,whatever the client's transcoder is.
+      final Set<String> notAdded =
+          this.storeMulti(CommandType.ADD, absentCounters, exp, COUNTER_TRANSCODER, timeout);
+      i = 0;
+      for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+        if (notAdded.contains(entry.getKey())) {
+          results[i] = this.sendIncrOrDecrCommand(commands.get(i).getKey(), entry.getValue(),
+              initValue, cmdType, false, timeout, exp);
+        }
+        i++;
+      }
+    }
+    return results;
+  }
+
+  /**
+   * A streaming bulk-get.Decoded values are queued by the reactor and emitted to the subscriber by
+   * drain(),which is serialized by the wip counter.Keys are sent to memcached only when the demand
+   * is greater than the number of queued values plus the keys in flight.
+   *
+   * @author dennis
+   *
+   * @param <T>
+   */
+  private final class GetMultiStream<T> implements KeyValueSubscription, ReturnValueListener,
+      Runnable {
+    private final Queue<String> pendingKeys;
+    private final long timeout;
+    private final Transcoder<T> transcoder;
+    private final KeyValueSubscriber<T> subscriber;
+    private final Queue<Object[]> values = new ConcurrentLinkedQueue<Object[]>();
+    private final AtomicInteger queuedValues = new AtomicInteger();
+    private final AtomicInteger inflightKeys = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final Map<Command, MemcachedFutureImpl<Object>> inflightCommands =
+        new ConcurrentHashMap<Command, MemcachedFutureImpl<Object>>();
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    public GetMultiStream(Queue<String> pendingKeys, long timeout, Transcoder<T> transcoder,
+        KeyValueSubscriber<T> subscriber) {
+      super();
+      this.pendingKeys = pendingKeys;
+      this.timeout = timeout;
+      this.transcoder = transcoder;
+      this.subscriber = subscriber;
+    }
+
+    public void request(long n) {
+      if (n <= 0) {
+        this.onError(new IllegalArgumentException("request must be positive,but was " + n));
+      } else {
+        for (;;) {
+          long r = this.requested.get();
+          long u = r + n;
+          if (u < 0) {
+            u = Long.MAX_VALUE;
+          }
+          if (this.requested.compareAndSet(r, u)) {
+            break;
+          }
+        }
+      }
+      this.scheduleDrain();
+    }
+
+    public void cancel() {
+      this.cancelled = true;
+      for (MemcachedFutureImpl<Object> future : this.inflightCommands.values()) {
+        future.cancel(true);
+      }
+    }
+
+    public void onReturnValue(String key, CachedData value) {
+      this.values.offer(new Object[] {key, value});
+      this.queuedValues.incrementAndGet();
+      this.scheduleDrain();
+    }
+
+    private void onCommandComplete(Command command, int keyCount) {
+      MemcachedFutureImpl<Object> future = this.inflightCommands.remove(command);
+      if (command.getException() != null) {
+        this.onError(command.getException());
+      }
+      if (future != null) {
+        future.setResult(null);
+      }
+      this.inflightKeys.addAndGet(-keyCount);
+      this.scheduleDrain();
+    }
+
+    private void onError(Throwable t) {
+      if (this.error == null) {
+        this.error = t;
+      }
+      this.scheduleDrain();
+    }
+
+    public void run() {
+      this.drain();
+    }
+
+    private void scheduleDrain() {
+      Executor executor = XMemcachedClient.this.callbackExecutor;
+      if (executor != null) {
+        try {
+          executor.execute(this);
+          return;
+        } catch (RejectedExecutionException e) {
+          // drain it in current thread.
+        }
+      }
+      this.drain();
+    }
+
+    void drain() {
+      if (this.wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      for (;;) {
+        if (this.cancelled) {
+          this.values.clear();
+          return;
+        }
+        long r = this.requested.get();
+        long emitted = 0;
+        Object[] entry;
+        try {
+          while (emitted != r && !this.cancelled && (entry = this.values.poll()) != null) {
+            this.queuedValues.decrementAndGet();
+            String key = XMemcachedClient.this.decodeKey((String) entry[0]);
+            if (key != null) {
+              this.subscriber.onNext(key, this.transcoder.decode((CachedData) entry[1]));
+              emitted++;
+            }
+          }
+        } catch (Throwable t) {
+          this.onError(t);
+        }
+        if (emitted != 0 && r != Long.MAX_VALUE) {
+          this.requested.addAndGet(-emitted);
+        }
+        Throwable t = this.error;
+        if (t != null && !this.cancelled) {
+          this.cancel();
+          this.subscriber.onError(t);
+          return;
+        }
+        if (!this.cancelled) {
+          long demand =
+              this.requested.get() - this.queuedValues.get() - this.inflightKeys.get();
+          if (demand > 0 && !this.pendingKeys.isEmpty()) {
+            this.sendKeys((int) Math.min(demand, this.pendingKeys.size()));
+            continue;
+          }
+          if (this.pendingKeys.isEmpty() && this.inflightKeys.get() == 0
+              && this.queuedValues.get() == 0) {
+            this.cancelled = true;
+            this.subscriber.onComplete();
+            return;
+          }
+        }
+        missed = this.wip.addAndGet(-missed);
+        if (missed == 0) {
+          break;
+        }
+      }
+    }
+
+    private void sendKeys(int count) {
+      List<String> keys = new ArrayList<String>(count);
+      for (int i = 0; i < count; i++) {
+        keys.add(this.pendingKeys.poll());
+      }
+      Collection<List<String>> catalogKeys;
+      if (XMemcachedClient.this.connector.getSessionSet().size() <= 1) {
+        catalogKeys = new ArrayList<List<String>>(1);
+        catalogKeys.add(keys);
+      } else {
+        catalogKeys = XMemcachedClient.this.catalogKeys(keys);
+      }
+      for (List<String> catalogKeyCollection : catalogKeys) {
+        final int keyCount = catalogKeyCollection.size();
+        Command command = XMemcachedClient.this.commandFactory.createGetMultiCommand(
+            catalogKeyCollection, new CountDownLatch(1), CommandType.GET_MANY, this.transcoder);
+        ((MapReturnValueAware) command).setReturnValueListener(this);
+        command.setOperationListener(new OperationListener() {
+          public void onOperationComplete(Command cmd) {
+            GetMultiStream.this.onCommandComplete(cmd, keyCount);
+          }
+        });
+        MemcachedFutureImpl<Object> future = new MemcachedFutureImpl<Object>();
+        future.setCommand(command);
+        future.addListener(new MemcachedFutureListener<Object>() {
+          public void onComplete(MemcachedFuture<Object> f) {
+            if (!f.isSuccess() && !f.isCancelled()) {
+              GetMultiStream.this.onError(f.getCause());
+            }
+          }
+        });
+        this.inflightKeys.addAndGet(keyCount);
+        this.inflightCommands.put(command, future);
+        try {
+          XMemcachedClient.this.sendCommand(command);
+        } catch (MemcachedException e) {
+          this.inflightCommands.remove(command);
+          this.inflightKeys.addAndGet(-keyCount);
+          this.onError(e);
+          return;
+        }
+        XMemcachedClient.this.scheduleAsyncTimeout(future, this.timeout, null);
+      }
+    }
+  }
+
+  /**
+   * A queued pipeline operation,the command is created when the pipeline is executed.
+   */
+  private static final class PipelineOperation {
+    final CommandType cmdType;
+    final String key;
+    final int exp;
+    final Object value;
+    final Transcoder<?> transcoder;
+    final long cas;
+    final long delta;
+    final long initValue;
+
+    PipelineOperation(CommandType cmdType, String key, int exp, Object value,
+        Transcoder<?> transcoder, long cas, long delta, long initValue) {
+      super();
+      this.cmdType = cmdType;
+      this.key = key;
+      this.exp = exp;
+      this.value = value;
+      this.transcoder = transcoder;
+      this.cas = cas;
+      this.delta = delta;
+      this.initValue = initValue;
+    }
+  }
+
+  /**
+   * Pipeline implementation.All commands are sent by the connector in one batch,which groups them
+   * by session and offers every group to its session's write queue at once.
+   *
+   * @author dennis
+   *
+   */
+  @SuppressWarnings("unchecked")
+  private final class Pipeline implements MemcachedPipeline {
+    private final List<PipelineOperation> operations = new ArrayList<PipelineOperation>();
+
+    private MemcachedPipeline queue(CommandType cmdType, String key, int exp, Object value,
+        Transcoder<?> transcoder, long cas, long delta, long initValue) {
+      if (key == null) {
+        throw new IllegalArgumentException("Key could not be null");
+      }
+      this.operations.add(new PipelineOperation(cmdType, key, exp, value, transcoder, cas, delta,
+          initValue));
+      return this;
+    }
+
+    public MemcachedPipeline get(String key) {
+      return this.get(key, XMemcachedClient.this.transcoder);
+    }
+
+    public <T> MemcachedPipeline get(String key, Transcoder<T> transcoder) {
+      return this.queue(CommandType.GET_ONE, key, 0, null, transcoder, 0, 0, 0);
+    }
+
+    public MemcachedPipeline gets(String key) {
+      return this.gets(key, XMemcachedClient.this.transcoder);
+    }
+
+    public <T> MemcachedPipeline gets(String key, Transcoder<T> transcoder) {
+      return this.queue(CommandType.GETS_ONE, key, 0, null, transcoder, 0, 0, 0);
+    }
+
+    public MemcachedPipeline set(String key, int exp, Object value) {
+      return this.set(key, exp, value, XMemcachedClient.this.transcoder);
+    }
+
+    public <T> MemcachedPipeline set(String key, int exp, T value, Transcoder<T> transcoder) {
+      return this.queue(CommandType.SET, key, exp, value, transcoder, 0, 0, 0);
+    }
+
+    public MemcachedPipeline add(String key, int exp, Object value) {
+      return this.add(key, exp, value, XMemcachedClient.this.transcoder);
+    }
+
+    public <T> MemcachedPipeline add(String key, int exp, T value, Transcoder<T> transcoder) {
+      return this.queue(CommandType.ADD, key, exp, value, transcoder, 0, 0, 0);
+    }
+
+    public MemcachedPipeline replace(String key, int exp, Object value) {
+      return this.replace(key, exp, value, XMemcachedClient.this.transcoder);
+    }
+
+    public <T> MemcachedPipeline replace(String key, int exp, T value,
+        Transcoder<T> transcoder) {
+      return this.queue(CommandType.REPLACE, key, exp, value, transcoder, 0, 0, 0);
+    }
+
+    public MemcachedPipeline cas(String key, int exp, Object value, long cas) {
+      return this.cas(key, exp, value, XMemcachedClient.this.transcoder, cas);
+    }
+
+    public <T> MemcachedPipeline cas(String key, int exp, T value, Transcoder<T> transcoder,
+        long cas) {
+      return this.queue(CommandType.CAS, key, exp, value, transcoder, cas, 0, 0);
+    }
+
+    public MemcachedPipeline delete(String key) {
+      return this.queue(CommandType.DELETE, key, 0, null, null, 0, 0, 0);
+    }
+
+    public MemcachedPipeline touch(String key, int exp) {
+      return this.queue(CommandType.TOUCH, key, exp, null, null, 0, 0, 0);
+    }
+
+    public MemcachedPipeline incr(String key, long delta, long initValue) {
+      return this.queue(CommandType.INCR, key, 0, null, null, 0, delta, initValue);
+    }
+
+    public MemcachedPipeline decr(String key, long delta, long initValue) {
+      return this.queue(CommandType.DECR, key, 0, null, null, 0, delta, initValue);
+    }
+
+    public int size() {
+      return this.operations.size();
+    }
+
+    public List<Object> execute()
+        throws TimeoutException, InterruptedException, MemcachedException {
+      return this.execute(XMemcachedClient.this.opTimeout);
+    }
+
+    public List<Object> execute(long timeout)
+        throws TimeoutException, InterruptedException, MemcachedException {
+      final int size = this.operations.size();
+      final List<Object> results = new ArrayList<Object>(size);
+      if (size == 0) {
+        return results;
+      }
+      final List<Command> commands = new ArrayList<Command>(size);
+      for (PipelineOperation op : this.operations) {
+        commands.add(this.createCommand(op));
+      }
+      final List<PipelineOperation> ops = new ArrayList<PipelineOperation>(this.operations);
+      this.operations.clear();
+      XMemcachedClient.this.latchWait(commands,
+          XMemcachedClient.this.sendCommands(commands), timeout);
+      for (int i = 0; i < size; i++) {
+        results.add(this.getResult(ops.get(i), commands.get(i), timeout));
+      }
+      return results;
+    }
+
+    private Command createCommand(PipelineOperation op)
+        throws MemcachedException, InterruptedException {
+      final CommandFactory factory = XMemcachedClient.this.commandFactory;
+      final String key = XMemcachedClient.this.preProcessKey(op.key);
+      byte[] keyBytes;
+      switch (op.cmdType) {
+        case GET_ONE:
+        case GETS_ONE:
+          keyBytes = ByteUtils.getBytes(key);
+          ByteUtils.checkKey(keyBytes);
+          return factory.createGetCommand(key, keyBytes, op.cmdType,
+              XMemcachedClient.this.transcoder);
+        case SET:
+          keyBytes = XMemcachedClient.this.checkStoreArguments(key, op.exp, op.value);
+          return factory.createSetCommand(key, keyBytes, op.exp, op.value, false, op.transcoder);
+        case ADD:
+          keyBytes = XMemcachedClient.this.checkStoreArguments(key, op.exp, op.value);
+          return factory.createAddCommand(key, keyBytes, op.exp, op.value, false, op.transcoder);
+        case REPLACE:
+          keyBytes = XMemcachedClient.this.checkStoreArguments(key, op.exp, op.value);
+          return factory.createReplaceCommand(key, keyBytes, op.exp, op.value, false,
+              op.transcoder);
+        case CAS:
+          keyBytes = XMemcachedClient.this.checkStoreArguments(key, op.exp, op.value);
+          return factory.createCASCommand(key, keyBytes, op.exp, op.value, op.cas, false,
+              op.transcoder);
+        case DELETE:
+          keyBytes = ByteUtils.getBytes(key);
+          ByteUtils.checkKey(keyBytes);
+          return factory.createDeleteCommand(key, keyBytes, 0, 0, false);
+        case TOUCH:
+          keyBytes = ByteUtils.getBytes(key);
+          ByteUtils.checkKey(keyBytes);
+          return factory.createTouchCommand(key, keyBytes, null, op.exp, false);
+        default:
+          keyBytes = ByteUtils.getBytes(key);
+          ByteUtils.checkKey(keyBytes);
+          return factory.createIncrDecrCommand(key, keyBytes, op.delta, op.initValue, op.exp,
+              op.cmdType, false);
+      }
+    }
+
+    private Object getResult(PipelineOperation op, Command command, long timeout)
+        throws MemcachedException, InterruptedException, TimeoutException {
+      XMemcachedClient.this.checkException(command);
+      final Object result = command.getResult();
+      switch (op.cmdType) {
+        case GET_ONE:
+        case GETS_ONE:
+          if (result == null) {
+            return null;
+          }
+          CachedData data = (CachedData) result;
+          Object value = op.transcoder.decode(data);
+          return op.cmdType == CommandType.GETS_ONE ? new GetsResponse<Object>(data.getCas(), value)
+              : value;
+        case INCR:
+        case DECR:
+          if (result instanceof String) {
+            if (((String) result).equals("NOT_FOUND")) {
+              // text protocol,add the init value or retry as incr/decr does.
+              final String key = command.getKey();
+              if (XMemcachedClient.this.add0(key, op.exp, String.valueOf(op.initValue),
+                  XMemcachedClient.this.transcoder, timeout)) {
+                return op.initValue;
+              }
+              return XMemcachedClient.this.sendIncrOrDecrCommand(key, op.delta, op.initValue,
+                  op.cmdType, false, timeout, op.exp);
+            }
+            throw new MemcachedException(
+                "Unknown result type for incr/decr:" + result.getClass() + ",result=" + result);
+          }
+          if (result == null) {
+            throw new MemcachedException("Operation fail,may be caused by networking or timeout");
+          }
+          return result;
+        default:
+          if (result == null) {
+            throw new MemcachedException("Operation fail,may be caused by networking or timeout");
+          }
+          return result;
+      }
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#setAsync(java.lang.String, int, T,
+   * net.rubyeye.xmemcached.transcoders.Transcoder, long)
+   */
+  public final <T> MemcachedFuture<Boolean> setAsync(String key, final int exp, final T value,
+      final Transcoder<T> transcoder, final long timeout)
+      throws InterruptedException, MemcachedException {
+    key = this.preProcessKey(key);
+    byte[] keyBytes = this.checkStoreArguments(key, exp, value);
+    return this.sendAsyncBooleanCommand(
+        this.commandFactory.createSetCommand(key, keyBytes, exp, value, false, transcoder),
+        timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#setAsync(java.lang.String, int,
+   * java.lang.Object)
+   */
+  @SuppressWarnings("unchecked")
+  public final MemcachedFuture<Boolean> setAsync(final String key, final int exp,
+      final Object value) throws InterruptedException, MemcachedException {
+    return this.setAsync(key, exp, value, this.transcoder, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#addAsync(java.lang.String, int, T,
+   * net.rubyeye.xmemcached.transcoders.Transcoder, long)
+   */
+  public final <T> MemcachedFuture<Boolean> addAsync(String key, final int exp, final T value,
+      final Transcoder<T> transcoder, final long timeout)
+      throws InterruptedException, MemcachedException {
+    key = this.preProcessKey(key);
+    byte[] keyBytes = this.checkStoreArguments(key, exp, value);
+    return this.sendAsyncBooleanCommand(
+        this.commandFactory.createAddCommand(key, keyBytes, exp, value, false, transcoder),
+        timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#addAsync(java.lang.String, int,
+   * java.lang.Object)
+   */
+  @SuppressWarnings("unchecked")
+  public final MemcachedFuture<Boolean> addAsync(final String key, final int exp,
+      final Object value) throws InterruptedException, MemcachedException {
+    return this.addAsync(key, exp, value, this.transcoder, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#replaceAsync(java.lang.String, int, T,
+   * net.rubyeye.xmemcached.transcoders.Transcoder, long)
+   */
+  public final <T> MemcachedFuture<Boolean> replaceAsync(String key, final int exp,
+      final T value, final Transcoder<T> transcoder, final long timeout)
+      throws InterruptedException, MemcachedException {
+    key = this.preProcessKey(key);
+    byte[] keyBytes = this.checkStoreArguments(key, exp, value);
+    return this.sendAsyncBooleanCommand(
+        this.commandFactory.createReplaceCommand(key, keyBytes, exp, value, false, transcoder),
+        timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#replaceAsync(java.lang.String, int,
+   * java.lang.Object)
+   */
+  @SuppressWarnings("unchecked")
+  public final MemcachedFuture<Boolean> replaceAsync(final String key, final int exp,
+      final Object value) throws InterruptedException, MemcachedException {
+    return this.replaceAsync(key, exp, value, this.transcoder, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#casAsync(java.lang.String, int, T,
+   * net.rubyeye.xmemcached.transcoders.Transcoder, long, long)
+   */
+  public final <T> MemcachedFuture<Boolean> casAsync(String key, final int exp, final T value,
+      final Transcoder<T> transcoder, final long timeout, final long cas)
+      throws InterruptedException, MemcachedException {
+    key = this.preProcessKey(key);
+    byte[] keyBytes = this.checkStoreArguments(key, exp, value);
+    return this.sendAsyncBooleanCommand(
+        this.commandFactory.createCASCommand(key, keyBytes, exp, value, cas, false, transcoder),
+        timeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#casAsync(java.lang.String, int,
+   * java.lang.Object, long)
+   */
+  @SuppressWarnings("unchecked")
+  public final MemcachedFuture<Boolean> casAsync(final String key, final int exp,
+      final Object value, final long cas) throws InterruptedException, MemcachedException {
+    return this.casAsync(key, exp, value, this.transcoder, this.opTimeout, cas);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#deleteAsync(java.lang.String, long)
+   */
+  public final MemcachedFuture<Boolean> deleteAsync(String key, final long opTimeout)
+      throws InterruptedException, MemcachedException {
+    key = this.preProcessKey(key);
+    final byte[] keyBytes = ByteUtils.getBytes(key);
+    ByteUtils.checkKey(keyBytes);
+    return this.sendAsyncBooleanCommand(
+        this.commandFactory.createDeleteCommand(key, keyBytes, 0, 0, false), opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#deleteAsync(java.lang.String)
+   */
+  public final MemcachedFuture<Boolean> deleteAsync(final String key)
+      throws InterruptedException, MemcachedException {
+    return this.deleteAsync(key, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#touchAsync(java.lang.String, int, long)
+   */
+  public final MemcachedFuture<Boolean> touchAsync(String key, final int exp,
+      final long opTimeout) throws InterruptedException, MemcachedException {
+    key = this.preProcessKey(key);
+    final byte[] keyBytes = ByteUtils.getBytes(key);
+    ByteUtils.checkKey(keyBytes);
+    return this.sendAsyncBooleanCommand(
+        this.commandFactory.createTouchCommand(key, keyBytes, null, exp, false), opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#touchAsync(java.lang.String, int)
+   */
+  public final MemcachedFuture<Boolean> touchAsync(final String key, final int exp)
+      throws InterruptedException, MemcachedException {
+    return this.touchAsync(key, exp, this.opTimeout);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#incrAsync(java.lang.String, long, long, long,
+   * int)
+   */
+  public final MemcachedFuture<Long> incrAsync(String key, final long delta,
+      final long initValue, final long timeout, final int exp)
+      throws InterruptedException, MemcachedException {
+    key = this.preProcessKey(key);
+    return this.sendIncrOrDecrAsync(key, delta, initValue, CommandType.INCR, timeout, exp);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#incrAsync(java.lang.String, long, long)
+   */
+  public final MemcachedFuture<Long> incrAsync(final String key, final long delta,
+      final long initValue) throws InterruptedException, MemcachedException {
+    return this.incrAsync(key, delta, initValue, this.opTimeout, 0);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#decrAsync(java.lang.String, long, long, long,
+   * int)
+   */
+  public final MemcachedFuture<Long> decrAsync(String key, final long delta,
+      final long initValue, final long timeout, final int exp)
+      throws InterruptedException, MemcachedException {
+    key = this.preProcessKey(key);
+    return this.sendIncrOrDecrAsync(key, delta, initValue, CommandType.DECR, timeout, exp);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#decrAsync(java.lang.String, long, long)
+   */
+  public final MemcachedFuture<Long> decrAsync(final String key, final long delta,
+      final long initValue) throws InterruptedException, MemcachedException {
+    return this.decrAsync(key, delta, initValue, this.opTimeout, 0);
+  }
+
+  private MemcachedFuture<Long> sendIncrOrDecrAsync(final String key, final long delta,
+      final long initValue, final CommandType cmdType, final long timeout, final int exp) {
+    final byte[] keyBytes = ByteUtils.getBytes(key);
+    ByteUtils.checkKey(keyBytes);
+    final MemcachedFutureImpl<Long> future = new MemcachedFutureImpl<Long>();
+    Session session = this.sendIncrOrDecrAsync0(key, keyBytes, delta, initValue, cmdType, exp,
+        future);
+    if (session != null) {
+      this.scheduleAsyncTimeout(future, timeout, session);
+    }
+    return future;
+  }
+
+  /**
+   * Send incr/decr command for the future,if the key is not found on text protocol,add the init
+   * value and retry incr/decr when adding failed,just like the synchronous version.
+   */
+  private Session sendIncrOrDecrAsync0(final String key, final byte[] keyBytes, final long delta,
+      final long initValue, final CommandType cmdType, final int exp,
+      final MemcachedFutureImpl<Long> future) {
+    final Command command = this.commandFactory.createIncrDecrCommand(key, keyBytes, delta,
+        initValue, exp, cmdType, false);
+    return this.sendAsyncCommand(command, new AsyncOperationListener<Long>(future) {
+      @Override
+      protected void complete(Command cmd) throws MemcachedException {
+        final Object result = cmd.getResult();
+        if (result == null) {
+          throw new MemcachedException("Operation fail,may be caused by networking or timeout");
+        }
+        if (!(result instanceof String)) {
+          this.future.setResult((Long) result);
+        } else if (((String) result).equals("NOT_FOUND")) {
+          final Command addCommand = XMemcachedClient.this.commandFactory.createAddCommand(key,
+              keyBytes, exp, String.valueOf(initValue), false, XMemcachedClient.this.transcoder);
+          XMemcachedClient.this.sendAsyncCommand(addCommand,
+              new AsyncOperationListener<Long>(this.future) {
+                @Override
+                protected void complete(Command addCmd) {
+                  if (Boolean.TRUE.equals(addCmd.getResult())) {
+                    this.future.setResult(initValue);
+                  } else {
+                    XMemcachedClient.this.sendIncrOrDecrAsync0(key, keyBytes, delta, initValue,
+                        cmdType, exp, this.future);
+                  }
+                }
+              });
+        } else {
+          throw new MemcachedException(
+              "Unknown result type for incr/decr:" + result.getClass() + ",result=" + result);
+        }
+      }
+    });
+  }
+
+  private MemcachedFuture<Boolean> sendAsyncBooleanCommand(final Command command,
+      final long timeout) {
+    final MemcachedFutureImpl<Boolean> future = new MemcachedFutureImpl<Boolean>();
+    this.sendAsyncCommand(command, timeout, new AsyncOperationListener<Boolean>(future) {
+      @Override
+      protected void complete(Command cmd) throws MemcachedException {
+        if (cmd.getResult() == null) {
+          throw new MemcachedException("Operation fail,may be caused by networking or timeout");
+        }
+        this.future.setResult((Boolean) cmd.getResult());
+      }
+    });
+    return future;
+  }
+
+  private <T> void sendAsyncCommand(final Command command, final long timeout,
+      final AsyncOperationListener<T> listener) {
+    Session session = this.sendAsyncCommand(command, listener);
+    if (session != null) {
+      this.scheduleAsyncTimeout(listener.future, timeout, session);
+    }
+  }
+
+  /**
+   * Send the command without waiting,the listener's future is failed if the command could not be
+   * sent.
+   *
+   * @return the session which the command was sent to,null if sending failed.
+   */
+  private <T> Session sendAsyncCommand(final Command command,
+      final AsyncOperationListener<T> listener) {
+    listener.future.setCommand(command);
+    command.setOperationListener(listener, this.callbackExecutor);
+    try {
+      Session session = this.sendKeyCommand(command);
+      listener.session = session;
+      return session;
+    } catch (MemcachedException e) {
+      listener.future.setFailure(e);
+      return null;
+    }
+  }
+
+  /**
+   * Fail the future when it is not completed in timeout milliseconds.The timeout task runs on a
+   * shared scheduler thread,so no thread is blocked waiting for the response.
+   */
+  private void scheduleAsyncTimeout(final MemcachedFutureImpl<?> future, final long timeout,
+      final Session session) {
+    if (future.isDone()) {
+      return;
+    }
+    future.setTimeoutTask(this.getAsyncTimeoutScheduler().schedule(new Runnable() {
+      public void run() {
+        if (future.setFailure(new TimeoutException("Timed out(" + timeout
+            + " milliseconds) waiting for operation"
+            + (session != null ? " while connected to " + session : "")))) {
+          future.cancelCommands();
+          if (session != null) {
+            XMemcachedClient.this.onOperationTimeout(session);
+          }
+        }
+      }
+    }, timeout, TimeUnit.MILLISECONDS));
+  }
+
+  private ScheduledExecutorService getAsyncTimeoutScheduler() {
+    ScheduledExecutorService scheduler = this.asyncTimeoutScheduler;
+    if (scheduler == null) {
+      synchronized (this) {
+        scheduler = this.asyncTimeoutScheduler;
+        if (scheduler == null) {
+          scheduler = SystemUtils.createTimeoutScheduler("Xmemcached-AsyncTimeout");
+          this.asyncTimeoutScheduler = scheduler;
+        }
+      }
+    }
+    return scheduler;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#setCallbackExecutor(java.util.concurrent.Executor)
+   */
+  public void setCallbackExecutor(Executor callbackExecutor) {
+    this.callbackExecutor = callbackExecutor;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see net.rubyeye.xmemcached.MemcachedClient#getCallbackExecutor()
+   */
+  public Executor getCallbackExecutor() {
+    return this.callbackExecutor;
+  }
+
+  /**
+   * Use a dedicated thread pool to complete asynchronous operations,the pool is shutdown with the
+   * client.Zero means completing them inline on the reactor thread.
+   *
+   * @param threadCount
+   */
+  public synchronized void setCallbackThreadCount(int threadCount) {
+    if (threadCount < 0) {
+      throw new IllegalArgumentException("threadCount<0");
+    }
+    ExecutorService oldPool = this.callbackThreadPool;
+    if (threadCount > 0) {
+      // Abort policy,so the callback is run inline when the pool is saturated.
+      this.callbackThreadPool = new ThreadPoolExecutor(threadCount, threadCount, 60,
+          TimeUnit.SECONDS,
+          new ArrayBlockingQueue<Runnable>(
+              threadCount * PoolDispatcher.DEFAULT_POOL_QUEUE_SIZE_FACTOR),
+          new WorkerThreadFactory("xmemcached-callback-thread"));
+    } else {
+      this.callbackThreadPool = null;
+    }
+    this.callbackExecutor = this.callbackThreadPool;
+    if (oldPool != null) {
+      oldPool.shutdown();
+    }
+  }
+
+  /**
+   * Completes the future of an asynchronous operation when the command is done,it is called on the
+   * callback executor or inline on the reactor thread.
+   *
+   * @author dennis
+   *
+   * @param <T>
+   */
+  private abstract class AsyncOperationListener<T> implements OperationListener {
+    protected final MemcachedFutureImpl<T> future;
+    private volatile Session session;
+
+    public AsyncOperationListener(MemcachedFutureImpl<T> future) {
+      super();
+      this.future = future;
+    }
+
+    public final void onOperationComplete(Command command) {
+      if (this.future.isDone()) {
+        // timed out or cancelled
+        return;
+      }
+      try {
+        if (this.session != null) {
+          XMemcachedClient.this.resetContinuousTimeouts(this.session);
+        }
+        XMemcachedClient.this.checkException(command);
+        this.complete(command);
+      } catch (Throwable t) {
+        this.future.setFailure(t);
+      }
+    }
+
+    protected abstract void complete(Command command) throws Exception;
+  }
+
+  private static final String CONTINUOUS_TIMEOUT_COUNTER = "ContinuousTimeouts";
+
+  protected void latchWait(final Command cmd, final long timeout, final Session session)
+      throws InterruptedException, TimeoutException {
+    if (this.currentWaitStrategy().await(cmd, timeout, TimeUnit.MILLISECONDS)) {
+      this.resetContinuousTimeouts(session);
+    } else {
+      cmd.cancel();
+      this.onOperationTimeout(session);
+      throw new TimeoutException("Timed out(" + timeout
+          + " milliseconds) waiting for operation while connected to " + session);
+    }
+  }
+
+  /**
+   * Wait for a batch of commands within the timeout of the whole batch,cancel the pending commands
+   * when it is timeout.
+   */
+  private void latchWait(final List<Command> cmds, final List<Session> sessions,
+      final long timeout) throws InterruptedException, TimeoutException {
+    final WaitStrategy waitStrategy = this.currentWaitStrategy();
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    for (int i = 0; i < cmds.size(); i++) {
+      final Command cmd = cmds.get(i);
+      final Session session = sessions.get(i);
+      if (waitStrategy.await(cmd, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        this.resetContinuousTimeouts(session);
+      } else {
+        for (int j = i; j < cmds.size(); j++) {
+          if (!cmds.get(j).isCompleted()) {
+            cmds.get(j).cancel();
+          }
+        }
+        this.onOperationTimeout(session);
+        throw new TimeoutException("Timed out(" + timeout
+            + " milliseconds) waiting for operations while connected to " + session);
+      }
+    }
+  }
+
+  private void resetContinuousTimeouts(final Session session) {
+    AtomicInteger counter = this.getContinuousTimeoutCounter(session);
+    // reset counter.
+    if (counter.get() > 0) {
+      counter.set(0);
+    }
+  }
+
+  private void onOperationTimeout(final Session session) {
+    AtomicInteger counter = this.getContinuousTimeoutCounter(session);
+    if (counter.incrementAndGet() > this.timeoutExceptionThreshold) {
+      log.warn(session + " exceeded continuous timeout threshold,we will close it.");
+      try {
+        // reset counter.
+        counter.set(0);
+        session.close();
+      } catch (Exception e) {
+        // ignore it.
       }
-      throw new TimeoutException("Timed out(" + timeout
-          + " milliseconds) waiting for operation while connected to " + session);
     }
   }
 
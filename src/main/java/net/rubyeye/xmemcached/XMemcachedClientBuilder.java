@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import net.rubyeye.xmemcached.auth.AuthInfo;
 import net.rubyeye.xmemcached.buffer.BufferAllocator;
 import net.rubyeye.xmemcached.buffer.SimpleBufferAllocator;
@@ -23,6 +24,7 @@ import org.slf4j.LoggerFactory;
 import com.google.code.yanf4j.config.Configuration;
 import com.google.code.yanf4j.core.SocketOption;
 import com.google.code.yanf4j.core.impl.StandardSocketOption;
+import com.google.code.yanf4j.nio.impl.WriteBudget;
 
 /**
  * Builder pattern.Configure XmemcachedClient's options,then build it
@@ -71,6 +73,14 @@ public class XMemcachedClientBuilder implements MemcachedClientBuilder {
 
   protected long opTimeout = MemcachedClient.DEFAULT_OP_TIMEOUT;
 
+  protected Executor callbackExecutor;
+
+  protected int callbackThreadCount;
+
+  protected WaitStrategy waitStrategy = WaitStrategies.park();
+
+  protected boolean adaptiveMergeFactor;
+
   public long getOpTimeout() {
     return opTimeout;
   }
@@ -353,6 +363,45 @@ public class XMemcachedClientBuilder implements MemcachedClientBuilder {
     memcachedClient.setHealSessionInterval(this.healSessionInterval);
     memcachedClient.setEnableHealSession(this.enableHealSession);
     memcachedClient.setMaxQueuedNoReplyOperations(this.maxQueuedNoReplyOperations);
+    if (this.adaptiveMergeFactor) {
+      memcachedClient.getConnector().setAdaptiveMergeFactor(true);
+    }
+    if (this.callbackExecutor != null) {
+      memcachedClient.setCallbackExecutor(this.callbackExecutor);
+    } else if (this.callbackThreadCount > 0) {
+      memcachedClient.setCallbackThreadCount(this.callbackThreadCount);
+    }
+    memcachedClient.setWaitStrategy(this.waitStrategy);
+  }
+
+  public Executor getCallbackExecutor() {
+    return this.callbackExecutor;
+  }
+
+  public void setCallbackExecutor(Executor callbackExecutor) {
+    this.callbackExecutor = callbackExecutor;
+  }
+
+  public int getCallbackThreadCount() {
+    return this.callbackThreadCount;
+  }
+
+  public WaitStrategy getWaitStrategy() {
+    return this.waitStrategy;
+  }
+
+  public void setWaitStrategy(WaitStrategy waitStrategy) {
+    if (waitStrategy == null) {
+      throw new IllegalArgumentException("Null wait strategy");
+    }
+    this.waitStrategy = waitStrategy;
+  }
+
+  public void setCallbackThreadCount(int callbackThreadCount) {
+    if (callbackThreadCount < 0) {
+      throw new IllegalArgumentException("callbackThreadCount<0");
+    }
+    this.callbackThreadCount = callbackThreadCount;
   }
 
   @SuppressWarnings("rawtypes")
@@ -422,4 +471,64 @@ public class XMemcachedClientBuilder implements MemcachedClientBuilder {
     getConfiguration().setSelectorPoolSize(selectorPoolSize);
   }
 
+  /**
+   * Delay writes up to the given microseconds,or until the given bytes or commands are queued,so
+   * that commands written at about the same time are sent and merged together.It trades a little
+   * latency for fewer system calls and better merging under high load,disabled by default.The
+   * calling threads are not blocked,a delayed batch is flushed by a timer thread.
+   * 
+   * @param delay max delay of a write in microseconds,0 to disable batching
+   * @param maxBytes write the batch at once when it reaches the bytes
+   * @param maxCommands write the batch at once when it reaches the commands
+   * @param adaptive whether not to delay writes to a connection which was idle for the delay
+   * @since 2.4.3
+   */
+  public void setWriteBatch(long delay, int maxBytes, int maxCommands, boolean adaptive) {
+    getConfiguration().setWriteBatchDelay(delay);
+    getConfiguration().setWriteBatchMaxBytes(maxBytes);
+    getConfiguration().setWriteBatchMaxMessages(maxCommands);
+    getConfiguration().setWriteBatchAdaptive(adaptive);
+  }
+
+  /**
+   * Let the thread sending a command to an idle connection write it to the socket by itself,instead
+   * of waking up the reactor thread to write it.The reactor is woken up only if the socket can't
+   * accept all the bytes,disabled by default.
+   * 
+   * @param writeThrough
+   * @since 2.4.3
+   */
+  public void setWriteThrough(boolean writeThrough) {
+    getConfiguration().setWriteThrough(writeThrough);
+  }
+
+  /**
+   * Bound the commands and bytes queued for writing by a budget,every connection gets its own
+   * budget created by {@link WriteBudget#newSessionBudget()} which is counted by this client wide
+   * one too.Unbounded by default.
+   * 
+   * @param writeBudget
+   * @since 2.4.3
+   */
+  public void setWriteBudget(WriteBudget writeBudget) {
+    getConfiguration().setWriteBudget(writeBudget);
+  }
+
+  public boolean isAdaptiveMergeFactor() {
+    return this.adaptiveMergeFactor;
+  }
+
+  /**
+   * Adjust the merge factor and merge buffer limit of each connection by its write queue
+   * depth,bytes per write and response latency instead of using the static merge
+   * factor,disabled by default.The current values are exported by JMX.
+   * 
+   * @see net.rubyeye.xmemcached.impl.AdaptiveMergeController
+   * @param adaptiveMergeFactor
+   * @since 2.4.3
+   */
+  public void setAdaptiveMergeFactor(boolean adaptiveMergeFactor) {
+    this.adaptiveMergeFactor = adaptiveMergeFactor;
+  }
+
 }
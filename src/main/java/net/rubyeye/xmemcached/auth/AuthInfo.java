@@ -1,5 +1,6 @@
 package net.rubyeye.xmemcached.auth;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.security.auth.callback.CallbackHandler;
 
 /**
@@ -13,18 +14,18 @@ public class AuthInfo {
   private final String[] mechanisms;
   private final int maxAttempts =
       Integer.parseInt(System.getProperty("net.rubyeye.xmemcached.auth_max_attempts", "-1"));
-  private int attempts;
+  private final AtomicInteger attempts = new AtomicInteger();
 
-  public synchronized boolean isValid() {
-    return this.attempts <= this.maxAttempts || this.maxAttempts < 0;
+  public boolean isValid() {
+    return this.attempts.get() <= this.maxAttempts || this.maxAttempts < 0;
   }
 
-  public synchronized boolean isFirstTime() {
-    return this.attempts == 0;
+  public boolean isFirstTime() {
+    return this.attempts.get() == 0;
   }
 
-  public synchronized void increaseAttempts() {
-    this.attempts++;
+  public void increaseAttempts() {
+    this.attempts.incrementAndGet();
   }
 
   public AuthInfo(CallbackHandler callbackHandler, String[] mechanisms) {
@@ -253,7 +253,6 @@ public class AWSElasticCacheClient extends XMemcachedClient implements ConfigUpd
     Command cmd = this.commandFactory.createAWSElasticCacheConfigCommand("get", key);
     final Session session = this.sendCommand(cmd);
     this.latchWait(cmd, opTimeout, session);
-    cmd.getIoBuffer().free();
     this.checkException(cmd);
     String result = (String) cmd.getResult();
     if (result == null) {
@@ -17,7 +17,7 @@ import com.google.code.yanf4j.buffer.IoBuffer;
 import com.google.code.yanf4j.core.Session;
 import com.google.code.yanf4j.core.CodecFactory.Decoder;
 import com.google.code.yanf4j.util.ByteBufferMatcher;
-import com.google.code.yanf4j.util.ShiftAndByteBufferMatcher;
+import com.google.code.yanf4j.util.SwarByteBufferMatcher;
 
 /**
  * Memcached protocol decoder
@@ -37,14 +37,14 @@ public class MemcachedDecoder implements Decoder {
    * shift-and algorithm for ByteBuffer's match
    */
   public static final ByteBufferMatcher SPLIT_MATCHER =
-      new ShiftAndByteBufferMatcher(IoBuffer.wrap(ByteUtils.SPLIT));
+      new SwarByteBufferMatcher(IoBuffer.wrap(ByteUtils.SPLIT));
 
   public Object decode(IoBuffer buffer, Session origSession) {
     MemcachedTCPSession session = (MemcachedTCPSession) origSession;
     if (session.getCurrentCommand() != null) {
       return decode0(buffer, session);
     } else {
-      session.takeCurrentCommand();
+      session.takeCurrentCommand(buffer.buf());
       if (session.getCurrentCommand() == null)
         return null;
       return decode0(buffer, session);
@@ -55,6 +55,9 @@ public class MemcachedDecoder implements Decoder {
     if (session.getCurrentCommand().decode(session, buffer.buf())) {
       final Command command = session.getCurrentCommand();
       session.setCurrentCommand(null);
+      if (session.getMergeController() != null) {
+        session.getMergeController().onResponse(command);
+      }
       return command;
     }
     return null;
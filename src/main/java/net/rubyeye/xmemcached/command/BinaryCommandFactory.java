@@ -21,6 +21,8 @@ import net.rubyeye.xmemcached.command.binary.BinaryGetAndTouchCommand;
 import net.rubyeye.xmemcached.command.binary.BinaryGetCommand;
 import net.rubyeye.xmemcached.command.binary.BinaryGetMultiCommand;
 import net.rubyeye.xmemcached.command.binary.BinaryIncrDecrCommand;
+import net.rubyeye.xmemcached.command.binary.BinaryKeyMultiCommand;
+import net.rubyeye.xmemcached.command.binary.BinaryNoopCommand;
 import net.rubyeye.xmemcached.command.binary.BinaryQuitCommand;
 import net.rubyeye.xmemcached.command.binary.BinaryStatsCommand;
 import net.rubyeye.xmemcached.command.binary.BinaryStoreCommand;
@@ -43,7 +45,7 @@ import com.google.code.yanf4j.buffer.IoBuffer;
 public class BinaryCommandFactory implements CommandFactory {
 
   public Command createAWSElasticCacheConfigCommand(String subCommand, String key) {
-    return new BinaryAWSElasticCacheConfigCommand(new CountDownLatch(1), subCommand, key);
+    return new BinaryAWSElasticCacheConfigCommand(null, subCommand, key);
   }
 
   private BufferAllocator bufferAllocator = new SimpleBufferAllocator();
@@ -59,19 +61,19 @@ public class BinaryCommandFactory implements CommandFactory {
 
   public Command createAppendCommand(String key, byte[] keyBytes, Object value, boolean noreply,
       Transcoder transcoder) {
-    return new BinaryAppendPrependCommand(key, keyBytes, CommandType.APPEND, new CountDownLatch(1),
+    return new BinaryAppendPrependCommand(key, keyBytes, CommandType.APPEND, null,
         0, 0, value, noreply, transcoder);
   }
 
   public Command createCASCommand(String key, byte[] keyBytes, int exp, Object value, long cas,
       boolean noreply, Transcoder transcoder) {
-    return new BinaryCASCommand(key, keyBytes, CommandType.CAS, new CountDownLatch(1), exp, cas,
+    return new BinaryCASCommand(key, keyBytes, CommandType.CAS, null, exp, cas,
         value, noreply, transcoder);
   }
 
   public Command createDeleteCommand(String key, byte[] keyBytes, int time, long cas,
       boolean noreply) {
-    return new BinaryDeleteCommand(key, keyBytes, cas, CommandType.DELETE, new CountDownLatch(1),
+    return new BinaryDeleteCommand(key, keyBytes, cas, CommandType.DELETE, null,
         noreply);
   }
 
@@ -81,7 +83,7 @@ public class BinaryCommandFactory implements CommandFactory {
 
   public Command createGetCommand(String key, byte[] keyBytes, CommandType cmdType,
       Transcoder transcoder) {
-    return new BinaryGetCommand(key, keyBytes, cmdType, new CountDownLatch(1), OpCode.GET, false);
+    return new BinaryGetCommand(key, keyBytes, cmdType, null, OpCode.GET, false);
   }
 
   public <T> Command createGetMultiCommand(Collection<String> keys, CountDownLatch latch,
@@ -104,7 +106,7 @@ public class BinaryCommandFactory implements CommandFactory {
     }
     // last key,create a get command
     Command lastCommand = new BinaryGetCommand(key, ByteUtils.getBytes(key), cmdType,
-        new CountDownLatch(1), OpCode.GET_KEY, false);
+        null, OpCode.GET_KEY, false);
     lastCommand.encode();
     bufferList.add(lastCommand.getIoBuffer());
     totalLength += lastCommand.getIoBuffer().remaining();
@@ -112,6 +114,7 @@ public class BinaryCommandFactory implements CommandFactory {
     IoBuffer mergedBuffer = IoBuffer.allocate(totalLength);
     for (IoBuffer buffer : bufferList) {
       mergedBuffer.put(buffer.buf());
+      buffer.free();
     }
     mergedBuffer.flip();
     Command resultCommand = new BinaryGetMultiCommand(key, cmdType, latch);
@@ -119,6 +122,43 @@ public class BinaryCommandFactory implements CommandFactory {
     return resultCommand;
   }
 
+  public Command createKeyMultiCommand(List<String> keys, CountDownLatch latch,
+      CommandType cmdType, int exp) {
+    List<com.google.code.yanf4j.buffer.IoBuffer> bufferList =
+        new ArrayList<com.google.code.yanf4j.buffer.IoBuffer>(keys.size() + 1);
+    int totalLength = 0;
+    for (String key : keys) {
+      Command command;
+      if (cmdType == CommandType.DELETE_MANY) {
+        // deleteq,only responded when it fails
+        command = new BinaryDeleteCommand(key, ByteUtils.getBytes(key), 0, CommandType.DELETE,
+            null, true);
+      } else {
+        // there is no quiet touch,gatq would respond the values of all hits
+        command = new BinaryTouchCommand(key, ByteUtils.getBytes(key), CommandType.TOUCH, null,
+            exp, false);
+      }
+      command.encode();
+      totalLength += command.getIoBuffer().remaining();
+      bufferList.add(command.getIoBuffer());
+    }
+    // noop is responded after all of them
+    Command noopCommand = new BinaryNoopCommand(null);
+    noopCommand.encode();
+    bufferList.add(noopCommand.getIoBuffer());
+    totalLength += noopCommand.getIoBuffer().remaining();
+
+    IoBuffer mergedBuffer = IoBuffer.allocate(totalLength);
+    for (IoBuffer buffer : bufferList) {
+      mergedBuffer.put(buffer.buf());
+      buffer.free();
+    }
+    mergedBuffer.flip();
+    Command resultCommand = new BinaryKeyMultiCommand(keys, cmdType, latch);
+    resultCommand.setIoBuffer(mergedBuffer);
+    return resultCommand;
+  }
+
   public Command createIncrDecrCommand(String key, byte[] keyBytes, long amount, long initial,
       int expTime, CommandType cmdType, boolean noreply) {
     return new BinaryIncrDecrCommand(key, keyBytes, amount, initial, expTime, cmdType, noreply);
@@ -126,7 +166,7 @@ public class BinaryCommandFactory implements CommandFactory {
 
   public Command createPrependCommand(String key, byte[] keyBytes, Object value, boolean noreply,
       Transcoder transcoder) {
-    return new BinaryAppendPrependCommand(key, keyBytes, CommandType.PREPEND, new CountDownLatch(1),
+    return new BinaryAppendPrependCommand(key, keyBytes, CommandType.PREPEND, null,
         0, 0, value, noreply, transcoder);
   }
 
@@ -138,7 +178,7 @@ public class BinaryCommandFactory implements CommandFactory {
 
   final Command createStoreCommand(String key, byte[] keyBytes, int exp, Object value,
       CommandType cmdType, boolean noreply, Transcoder transcoder) {
-    return new BinaryStoreCommand(key, keyBytes, cmdType, new CountDownLatch(1), exp, -1, value,
+    return new BinaryStoreCommand(key, keyBytes, cmdType, null, exp, -1, value,
         noreply, transcoder);
   }
 
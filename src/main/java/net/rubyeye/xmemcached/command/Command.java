@@ -10,7 +10,14 @@ package net.rubyeye.xmemcached.command;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 import net.rubyeye.xmemcached.exception.MemcachedClientException;
 import net.rubyeye.xmemcached.exception.MemcachedDecodeException;
 import net.rubyeye.xmemcached.exception.MemcachedServerException;
@@ -18,6 +25,8 @@ import net.rubyeye.xmemcached.exception.UnknownCommandException;
 import net.rubyeye.xmemcached.impl.MemcachedTCPSession;
 import net.rubyeye.xmemcached.transcoders.Transcoder;
 import net.rubyeye.xmemcached.utils.ByteUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import com.google.code.yanf4j.buffer.IoBuffer;
 import com.google.code.yanf4j.core.Session;
 import com.google.code.yanf4j.core.WriteMessage;
@@ -31,6 +40,8 @@ import com.google.code.yanf4j.core.impl.FutureImpl;
  */
 public abstract class Command implements WriteMessage {
 
+  private static final Logger log = LoggerFactory.getLogger(Command.class);
+
   public static final byte REQUEST_MAGIC_NUMBER = (byte) (0x80 & 0xFF);
 
   public static final byte RESPONSE_MAGIC_NUMBER = (byte) (0x81 & 0xFF);
@@ -45,11 +56,26 @@ public abstract class Command implements WriteMessage {
     this.added = added;
   }
 
+  // bytes acquired from the write budget when queued,-1 if not acquired
+  private int writeBudgetBytes = -1;
+
+  public final int getWriteBudgetBytes() {
+    return this.writeBudgetBytes;
+  }
+
+  public final void setWriteBudgetBytes(int writeBudgetBytes) {
+    this.writeBudgetBytes = writeBudgetBytes;
+  }
+
   public final Object getMessage() {
     return this;
   }
 
-  public synchronized final com.google.code.yanf4j.buffer.IoBuffer getWriteBuffer() {
+  /*
+   * Not synchronized:the buffer is encoded before the command is offered to the session's write
+   * queue,which publishes it to the reactor thread,so callers never contend on the command monitor.
+   */
+  public final com.google.code.yanf4j.buffer.IoBuffer getWriteBuffer() {
     return getIoBuffer();
   }
 
@@ -57,13 +83,71 @@ public abstract class Command implements WriteMessage {
     // throw new UnsupportedOperationException();
   }
 
+  public final ByteBuffer[] getWriteBuffers() {
+    return writeBuffers;
+  }
+
+  /**
+   * Set buffers which are written by one gathering write instead of the io buffer,such as the
+   * buffers of merged commands,or the header and value buffers of a store command.
+   * 
+   * @since 2.4.3
+   */
+  public final void setWriteBuffers(ByteBuffer[] writeBuffers) {
+    this.writeBuffers = writeBuffers;
+  }
+
+  /**
+   * Add a buffer of the commands merged into this one,it is freed with this command's buffer after
+   * this command was sent.
+   * 
+   * @since 2.4.3
+   */
+  public final void addMergedIoBuffer(IoBuffer buffer) {
+    if (this.mergedIoBuffers == null) {
+      this.mergedIoBuffers = new ArrayList<IoBuffer>();
+    }
+    this.mergedIoBuffers.add(buffer);
+  }
+
+  public final List<IoBuffer> getMergedIoBuffers() {
+    return this.mergedIoBuffers;
+  }
+
+  /**
+   * Free the command buffer and the merged buffers after this command was sent,pooled buffers are
+   * returned to the allocator and reused by other commands.
+   * 
+   * @since 2.4.3
+   */
+  public final void freeIoBuffers() {
+    if (this.ioBuffer != null) {
+      this.ioBuffer.free();
+    }
+    if (this.mergedIoBuffers != null) {
+      for (IoBuffer buffer : this.mergedIoBuffers) {
+        buffer.free();
+      }
+      this.mergedIoBuffers = null;
+    }
+    this.writeBuffers = null;
+  }
+
   protected String key;
   protected byte[] keyBytes;
+  // hash of keyBytes by the session locator,-1 if it is not computed.
+  protected long keyHash = -1;
   protected Object result;
-  protected CountDownLatch latch;
+  /**
+   * Latch shared by a batch of commands,or created on demand by {@link #getLatch()},null if the
+   * command is only waited by {@link #await(long, TimeUnit)}.
+   */
+  protected volatile CountDownLatch latch;
   protected CommandType commandType;
   protected Exception exception;
   protected IoBuffer ioBuffer;
+  protected ByteBuffer[] writeBuffers;
+  protected List<IoBuffer> mergedIoBuffers;
   protected volatile boolean cancel;
   protected OperationStatus status;
   protected int mergeCount = -1;
@@ -72,6 +156,18 @@ public abstract class Command implements WriteMessage {
   protected Transcoder transcoder;
   protected boolean noreply;
   protected FutureImpl<Boolean> writeFuture;
+  private volatile OperationListener operationListener;
+  private volatile Executor operationListenerExecutor;
+  // completion of this command,the thread waiting for it is parked until it's completed.
+  private volatile boolean completed;
+  private volatile Thread waiter;
+
+  private static final AtomicReferenceFieldUpdater<Command, OperationListener> LISTENER_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(Command.class, OperationListener.class,
+          "operationListener");
+
+  private static final AtomicReferenceFieldUpdater<Command, CountDownLatch> LATCH_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(Command.class, CountDownLatch.class, "latch");
 
   public final byte[] getKeyBytes() {
     return keyBytes;
@@ -81,6 +177,20 @@ public abstract class Command implements WriteMessage {
     this.keyBytes = keyBytes;
   }
 
+  /**
+   * Returns the hash of the key computed by
+   * {@link net.rubyeye.xmemcached.KeyHashSessionLocator#hashKey(byte[])},-1 if it is not computed.
+   * 
+   * @since 2.4.3
+   */
+  public final long getKeyHash() {
+    return keyHash;
+  }
+
+  public final void setKeyHash(long keyHash) {
+    this.keyHash = keyHash;
+  }
+
   public void setCommandType(final CommandType commandType) {
     this.commandType = commandType;
   }
@@ -192,8 +302,15 @@ public abstract class Command implements WriteMessage {
   @Override
   public String toString() {
     try {
-      return new String(ioBuffer.buf().array(), "utf-8");
+      // The buffer may be a direct one without backing array.
+      ByteBuffer buf = ioBuffer.buf().duplicate();
+      buf.position(0);
+      byte[] bytes = new byte[buf.limit()];
+      buf.get(bytes);
+      return new String(bytes, "utf-8");
     } catch (UnsupportedEncodingException e) {
+    } catch (IllegalStateException e) {
+      // The buffer was freed.
     }
     return "[error]";
   }
@@ -203,23 +320,148 @@ public abstract class Command implements WriteMessage {
   }
 
   public final void cancel() {
+    // The buffer may be being written by the reactor,it is freed after sent or collected by GC.
     cancel = true;
-    if (ioBuffer != null) {
-      ioBuffer.free();
-    }
   }
 
+  /**
+   * Returns the latch of this command,it's created if the command has none,prefer
+   * {@link #await(long, TimeUnit)} to wait for a single command.
+   */
   public final CountDownLatch getLatch() {
-    return latch;
+    CountDownLatch result = this.latch;
+    if (result == null) {
+      result = new CountDownLatch(1);
+      if (!LATCH_UPDATER.compareAndSet(this, null, result)) {
+        return this.latch;
+      }
+      if (this.completed) {
+        // completed before the latch was set
+        result.countDown();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if this command is completed.
+   * 
+   * @since 2.4.3
+   */
+  public final boolean isCompleted() {
+    return this.completed;
+  }
+
+  /**
+   * Wait for this command to be completed,it's parked without allocating any lock.Only one thread
+   * may wait by this method,which is the one sending the command,other threads should wait for the
+   * latch.
+   * 
+   * @param timeout
+   * @param unit
+   * @return true if the command is completed,false if timeout
+   * @throws InterruptedException
+   * @since 2.4.3
+   */
+  public final boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+    if (this.completed) {
+      return true;
+    }
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    this.waiter = Thread.currentThread();
+    try {
+      while (!this.completed) {
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        final long nanos = deadline - System.nanoTime();
+        if (nanos <= 0) {
+          return false;
+        }
+        LockSupport.parkNanos(nanos);
+      }
+      return true;
+    } finally {
+      this.waiter = null;
+    }
   }
 
   public final void countDownLatch() {
+    final CountDownLatch latch = this.latch;
+    if (latch == null) {
+      status = OperationStatus.DONE;
+    }
+    // the result and exception are visible to the waiter after this volatile write.
+    this.completed = true;
     if (latch != null) {
       latch.countDown();
       if (latch.getCount() == 0) {
         status = OperationStatus.DONE;
       }
     }
+    final Thread waiter = this.waiter;
+    if (waiter != null) {
+      LockSupport.unpark(waiter);
+    }
+    if (this.operationListener != null) {
+      // make sure that the listener is notified only once
+      OperationListener listener = LISTENER_UPDATER.getAndSet(this, null);
+      if (listener != null) {
+        this.notifyOperationListener(listener);
+      }
+    }
+  }
+
+  private void notifyOperationListener(final OperationListener listener) {
+    Executor executor = this.operationListenerExecutor;
+    if (executor != null) {
+      try {
+        executor.execute(new Runnable() {
+          public void run() {
+            listener.onOperationComplete(Command.this);
+          }
+        });
+        return;
+      } catch (RejectedExecutionException e) {
+        // executor is saturated or shutdown,notify it in current thread.
+      }
+    }
+    try {
+      listener.onOperationComplete(this);
+    } catch (Throwable t) {
+      // never break the reactor's decoding
+      log.error("Notify operation listener error,key=" + this.key, t);
+    }
+  }
+
+  public final OperationListener getOperationListener() {
+    return this.operationListener;
+  }
+
+  /**
+   * Set a listener which will be notified when this command is completed.The listener is notified
+   * inline in the thread which completes the command,it is the reactor thread in most cases.
+   * 
+   * @param operationListener
+   */
+  public final void setOperationListener(OperationListener operationListener) {
+    this.setOperationListener(operationListener, null);
+  }
+
+  /**
+   * Set a listener which will be notified by the executor when this command is completed.If the
+   * executor is null or rejects the notification,the listener is notified inline.
+   * 
+   * @param operationListener
+   * @param executor
+   */
+  public final void setOperationListener(OperationListener operationListener, Executor executor) {
+    this.operationListenerExecutor = executor;
+    this.operationListener = operationListener;
+  }
+
+  public final Executor getOperationListenerExecutor() {
+    return this.operationListenerExecutor;
   }
 
   public final CommandType getCommandType() {
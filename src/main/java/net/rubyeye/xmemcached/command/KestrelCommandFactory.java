@@ -2,6 +2,7 @@ package net.rubyeye.xmemcached.command;
 
 import java.net.InetSocketAddress;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import net.rubyeye.xmemcached.CommandFactory;
 import net.rubyeye.xmemcached.buffer.BufferAllocator;
@@ -47,7 +48,7 @@ public class KestrelCommandFactory implements CommandFactory {
 
   public Command createDeleteCommand(String key, byte[] keyBytes, int time, long cas,
       boolean noreply) {
-    return new KestrelDeleteCommand(key, keyBytes, -1, new CountDownLatch(1), noreply);
+    return new KestrelDeleteCommand(key, keyBytes, -1, null, noreply);
   }
 
   public Command createFlushAllCommand(CountDownLatch latch, int delay, boolean noreply) {
@@ -56,7 +57,7 @@ public class KestrelCommandFactory implements CommandFactory {
 
   public Command createGetCommand(String key, byte[] keyBytes, CommandType cmdType,
       Transcoder transcoder) {
-    return new KestrelGetCommand(key, keyBytes, cmdType, new CountDownLatch(1), transcoder);
+    return new KestrelGetCommand(key, keyBytes, cmdType, null, transcoder);
   }
 
   public <T> Command createGetMultiCommand(Collection<String> keys, CountDownLatch latch,
@@ -64,6 +65,11 @@ public class KestrelCommandFactory implements CommandFactory {
     throw new UnsupportedOperationException("Kestrel doesn't support this operation");
   }
 
+  public Command createKeyMultiCommand(List<String> keys, CountDownLatch latch,
+      CommandType cmdType, int exp) {
+    throw new UnsupportedOperationException("Kestrel doesn't support this operation");
+  }
+
   public Command createIncrDecrCommand(String key, byte[] keyBytes, long amount, long initial,
       int expTime, CommandType cmdType, boolean noreply) {
     throw new UnsupportedOperationException("Kestrel doesn't support this operation");
@@ -81,7 +87,7 @@ public class KestrelCommandFactory implements CommandFactory {
 
   public Command createSetCommand(String key, byte[] keyBytes, int exp, Object value,
       boolean noreply, Transcoder transcoder) {
-    return new KestrelSetCommand(key, keyBytes, CommandType.SET, new CountDownLatch(1), exp, -1,
+    return new KestrelSetCommand(key, keyBytes, CommandType.SET, null, exp, -1,
         value, noreply, transcoder);
   }
 
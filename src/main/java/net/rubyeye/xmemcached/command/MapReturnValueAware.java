@@ -13,4 +13,14 @@ public interface MapReturnValueAware {
 
   public abstract Map<String, CachedData> getReturnValues();
 
+  /**
+   * Set a listener to receive values as soon as they were decoded,these values will not be kept in
+   * the returned map.
+   * 
+   * @param returnValueListener
+   */
+  public abstract void setReturnValueListener(ReturnValueListener returnValueListener);
+
+  public abstract ReturnValueListener getReturnValueListener();
+
 }
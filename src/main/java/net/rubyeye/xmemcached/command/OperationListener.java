@@ -0,0 +1,27 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.command;
+
+/**
+ * Callback for command completion.It is called once the response of the command was decoded,or the
+ * command failed because of session closing.It runs on the executor set with the listener,or inline
+ * on the reactor thread if there is no executor,so inline listeners must be cheap and must not
+ * block.
+ * 
+ * @author dennis
+ * 
+ */
+public interface OperationListener {
+  /**
+   * Command was completed,the result or exception could be retrieved from the command.
+   * 
+   * @param command
+   */
+  public void onOperationComplete(Command command);
+}
@@ -0,0 +1,28 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.command;
+
+import net.rubyeye.xmemcached.transcoders.CachedData;
+
+/**
+ * Listener of values returned by a bulk-get command.It is called on the reactor thread as soon as
+ * every value was decoded,so it must be cheap and must not block.
+ * 
+ * @author dennis
+ * 
+ */
+public interface ReturnValueListener {
+  /**
+   * A value was decoded.
+   * 
+   * @param key
+   * @param value
+   */
+  public void onReturnValue(String key, CachedData value);
+}
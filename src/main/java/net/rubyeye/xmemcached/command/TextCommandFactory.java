@@ -1,7 +1,9 @@
 package net.rubyeye.xmemcached.command;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import net.rubyeye.xmemcached.CommandFactory;
 import net.rubyeye.xmemcached.buffer.BufferAllocator;
@@ -12,6 +14,7 @@ import net.rubyeye.xmemcached.command.text.TextFlushAllCommand;
 import net.rubyeye.xmemcached.command.text.TextGetMultiCommand;
 import net.rubyeye.xmemcached.command.text.TextGetOneCommand;
 import net.rubyeye.xmemcached.command.text.TextIncrDecrCommand;
+import net.rubyeye.xmemcached.command.text.TextKeyMultiCommand;
 import net.rubyeye.xmemcached.command.text.TextQuitCommand;
 import net.rubyeye.xmemcached.command.text.TextStatsCommand;
 import net.rubyeye.xmemcached.command.text.TextStoreCommand;
@@ -21,6 +24,7 @@ import net.rubyeye.xmemcached.command.text.TextVersionCommand;
 import net.rubyeye.xmemcached.transcoders.Transcoder;
 import net.rubyeye.xmemcached.utils.ByteUtils;
 import net.rubyeye.xmemcached.utils.Protocol;
+import com.google.code.yanf4j.buffer.IoBuffer;
 
 /**
  * Command Factory for creating text protocol commands.
@@ -31,7 +35,7 @@ import net.rubyeye.xmemcached.utils.Protocol;
 public class TextCommandFactory implements CommandFactory {
 
   public Command createAWSElasticCacheConfigCommand(String subCommand, String key) {
-    return new TextAWSElasticCacheConfigCommand(new CountDownLatch(1), subCommand, key);
+    return new TextAWSElasticCacheConfigCommand(null, subCommand, key);
   }
 
   public void setBufferAllocator(BufferAllocator bufferAllocator) {
@@ -45,7 +49,7 @@ public class TextCommandFactory implements CommandFactory {
    */
   public final Command createDeleteCommand(final String key, final byte[] keyBytes, final int time,
       long cas, boolean noreply) {
-    return new TextDeleteCommand(key, keyBytes, time, new CountDownLatch(1), noreply);
+    return new TextDeleteCommand(key, keyBytes, time, null, noreply);
   }
 
   /*
@@ -100,7 +104,7 @@ public class TextCommandFactory implements CommandFactory {
   @SuppressWarnings("unchecked")
   public final Command createCASCommand(final String key, final byte[] keyBytes, final int exp,
       final Object value, long cas, boolean noreply, Transcoder transcoder) {
-    return new TextCASCommand(key, keyBytes, CommandType.CAS, new CountDownLatch(1), exp, cas,
+    return new TextCASCommand(key, keyBytes, CommandType.CAS, null, exp, cas,
         value, noreply, transcoder);
   }
 
@@ -140,7 +144,7 @@ public class TextCommandFactory implements CommandFactory {
   @SuppressWarnings("unchecked")
   final Command createStoreCommand(String key, byte[] keyBytes, int exp, Object value,
       CommandType cmdType, boolean noreply, Transcoder transcoder) {
-    return new TextStoreCommand(key, keyBytes, cmdType, new CountDownLatch(1), exp, -1, value,
+    return new TextStoreCommand(key, keyBytes, cmdType, null, exp, -1, value,
         noreply, transcoder);
   }
 
@@ -153,7 +157,7 @@ public class TextCommandFactory implements CommandFactory {
   @SuppressWarnings("unchecked")
   public final Command createGetCommand(final String key, final byte[] keyBytes,
       final CommandType cmdType, Transcoder transcoder) {
-    return new TextGetOneCommand(key, keyBytes, cmdType, new CountDownLatch(1));
+    return new TextGetOneCommand(key, keyBytes, cmdType, null);
   }
 
   /*
@@ -172,7 +176,47 @@ public class TextCommandFactory implements CommandFactory {
     }
     String gatherKey = sb.toString();
     byte[] keyBytes = ByteUtils.getBytes(gatherKey.substring(0, gatherKey.length() - 1));
-    return new TextGetMultiCommand(keys.iterator().next(), keyBytes, cmdType, latch, transcoder);
+    return new TextGetMultiCommand(keys.iterator().next(), keyBytes, cmdType, latch, transcoder,
+        keys);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see net.rubyeye.xmemcached.CommandFactory#createKeyMultiCommand(java.util.List,
+   * java.util.concurrent.CountDownLatch, net.rubyeye.xmemcached.command.CommandType, int)
+   */
+  public final Command createKeyMultiCommand(List<String> keys, CountDownLatch latch,
+      CommandType cmdType, int exp) {
+    List<IoBuffer> bufferList = new ArrayList<IoBuffer>(keys.size() + 1);
+    int totalLength = 0;
+    for (String key : keys) {
+      Command command;
+      if (cmdType == CommandType.DELETE_MANY) {
+        command = new TextDeleteCommand(key, ByteUtils.getBytes(key), 0, null, true);
+      } else {
+        command = new TextTouchCommand(key, ByteUtils.getBytes(key), CommandType.TOUCH, null, exp,
+            true);
+      }
+      command.encode();
+      totalLength += command.getIoBuffer().remaining();
+      bufferList.add(command.getIoBuffer());
+    }
+    // noreply requests are not responded,version is responded after all of them
+    Command versionCommand = new TextVersionCommand(null, null);
+    versionCommand.encode();
+    bufferList.add(versionCommand.getIoBuffer());
+    totalLength += versionCommand.getIoBuffer().remaining();
+
+    IoBuffer mergedBuffer = IoBuffer.allocate(totalLength);
+    for (IoBuffer buffer : bufferList) {
+      mergedBuffer.put(buffer.buf());
+      buffer.free();
+    }
+    mergedBuffer.flip();
+    Command resultCommand = new TextKeyMultiCommand(keys, cmdType, latch);
+    resultCommand.setIoBuffer(mergedBuffer);
+    return resultCommand;
   }
 
   /*
@@ -183,7 +227,7 @@ public class TextCommandFactory implements CommandFactory {
    */
   public final Command createIncrDecrCommand(final String key, final byte[] keyBytes,
       final long amount, long initial, int exptime, CommandType cmdType, boolean noreply) {
-    return new TextIncrDecrCommand(key, keyBytes, cmdType, new CountDownLatch(1), amount, initial,
+    return new TextIncrDecrCommand(key, keyBytes, cmdType, null, amount, initial,
         noreply);
   }
 
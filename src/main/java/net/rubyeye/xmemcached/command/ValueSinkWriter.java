@@ -0,0 +1,69 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.command;
+
+import java.nio.ByteBuffer;
+import net.rubyeye.xmemcached.ValueSink;
+import net.rubyeye.xmemcached.exception.MemcachedException;
+import net.rubyeye.xmemcached.transcoders.CachedData;
+
+/**
+ * Writes the value bytes of a get response to the command's value sink as they are decoded.If the
+ * sink failed,the exception is set to the command and the rest of the value is skipped,so is it
+ * after the command was cancelled.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public final class ValueSinkWriter {
+  private final Command command;
+  private final ValueSink sink;
+  private CachedData value;
+  private boolean failed;
+
+  public ValueSinkWriter(Command command, ValueSink sink) {
+    this.command = command;
+    this.sink = sink;
+  }
+
+  /**
+   * Write the next length bytes of buffer to the sink and skip them in buffer,the size of value is
+   * increased by length as if they were filled into it.
+   */
+  public void write(CachedData value, ByteBuffer buffer, int length) {
+    if (this.value != value) {
+      // begin a new value
+      this.value = value;
+      try {
+        this.sink.begin(value.getFlag(), value.getCas(), value.getCapacity());
+      } catch (Exception e) {
+        fail(e);
+      }
+    }
+    final int position = buffer.position();
+    if (length > 0 && !this.failed && !this.command.isCancel()) {
+      final int limit = buffer.limit();
+      buffer.limit(position + length);
+      try {
+        this.sink.write(buffer);
+      } catch (Exception e) {
+        fail(e);
+      } finally {
+        buffer.limit(limit);
+      }
+    }
+    buffer.position(position + length);
+    value.setSize(value.getSize() + length);
+  }
+
+  private void fail(Exception e) {
+    this.failed = true;
+    this.command.setException(new MemcachedException("Write value to sink failed", e));
+  }
+}
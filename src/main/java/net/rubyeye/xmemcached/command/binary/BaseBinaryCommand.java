@@ -25,10 +25,10 @@ import net.rubyeye.xmemcached.exception.MemcachedDecodeException;
 import net.rubyeye.xmemcached.exception.MemcachedServerException;
 import net.rubyeye.xmemcached.exception.UnknownCommandException;
 import net.rubyeye.xmemcached.impl.MemcachedTCPSession;
+import net.rubyeye.xmemcached.monitor.Constants;
 import net.rubyeye.xmemcached.transcoders.CachedData;
 import net.rubyeye.xmemcached.transcoders.Transcoder;
 import net.rubyeye.xmemcached.utils.ByteUtils;
-import net.rubyeye.xmemcached.utils.OpaqueGenerater;
 import com.google.code.yanf4j.buffer.IoBuffer;
 
 /**
@@ -48,6 +48,7 @@ public abstract class BaseBinaryCommand extends Command implements StoreCommand
   protected int responseKeyLength, responseExtrasLength, responseTotalBodyLength;
   protected ResponseStatus responseStatus;
   protected int opaque;
+  protected int opaqueCount = 1;
   protected short vbucketId = DEFAULT_VBUCKET_ID;
 
   @SuppressWarnings("unchecked")
@@ -81,6 +82,28 @@ public abstract class BaseBinaryCommand extends Command implements StoreCommand
     this.opaque = opaque;
   }
 
+  /**
+   * Called by the session when the request packets of this command are given opaques from the
+   * first one in order,before they are written.
+   * 
+   * @param first opaque of the first packet
+   * @param packets number of packets
+   * @since 2.4.3
+   */
+  public void onOpaquesAssigned(int first, int packets) {
+    this.opaque = first;
+    this.opaqueCount = packets;
+  }
+
+  /**
+   * Returns the number of opaques given to the request packets of this command.
+   * 
+   * @since 2.4.3
+   */
+  public int getOpaqueCount() {
+    return this.opaqueCount;
+  }
+
   public final void setCas(long cas) {
     this.cas = cas;
   }
@@ -324,8 +347,20 @@ public abstract class BaseBinaryCommand extends Command implements StoreCommand
     if (this.transcoder != null) {
       data = this.transcoder.encode(this.value);
     }
+    final int valueLength = this.getValueLength(data);
+    if (this.isValueWrittenSeparately()
+        && valueLength >= Constants.SEPARATE_VALUE_BUFFER_THRESHOLD) {
+      // header+key+extras,large value is written from its own buffer.
+      this.ioBuffer = IoBuffer.allocate(24 + this.getKeyLength() + this.getExtrasLength());
+      this.fillHeader(data);
+      this.fillExtras(data);
+      this.fillKey();
+      this.ioBuffer.flip();
+      this.writeBuffers = new ByteBuffer[] {this.ioBuffer.buf(), ByteBuffer.wrap(data.getData())};
+      return;
+    }
     // header+key+value+extras
-    int length = 24 + this.getKeyLength() + this.getValueLength(data) + this.getExtrasLength();
+    int length = 24 + this.getKeyLength() + valueLength + this.getExtrasLength();
 
     this.ioBuffer = IoBuffer.allocate(length);
     this.fillHeader(data);
@@ -334,7 +369,16 @@ public abstract class BaseBinaryCommand extends Command implements StoreCommand
     this.fillValue(data);
 
     this.ioBuffer.flip();
+    this.writeBuffers = null;
+  }
 
+  /**
+   * Whether the value is the transcoded data,so that it can be written from the data's own buffer.
+   * 
+   * @since 2.4.3
+   */
+  protected boolean isValueWrittenSeparately() {
+    return false;
   }
 
   protected void fillValue(final CachedData data) {
@@ -368,10 +412,7 @@ public abstract class BaseBinaryCommand extends Command implements StoreCommand
     bs[9] = ByteUtils.int2(bodyLen);
     bs[10] = ByteUtils.int1(bodyLen);
     bs[11] = ByteUtils.int0(bodyLen);
-    // Opaque
-    if (this.noreply) {
-      this.opaque = OpaqueGenerater.getInstance().getNextValue();
-    }
+    // Opaque,it's replaced by the session's one when written.
     bs[12] = ByteUtils.int3(this.opaque);
     bs[13] = ByteUtils.int2(this.opaque);
     bs[14] = ByteUtils.int1(this.opaque);
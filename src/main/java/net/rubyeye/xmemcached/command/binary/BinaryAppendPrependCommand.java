@@ -57,4 +57,9 @@ public class BinaryAppendPrependCommand extends BaseBinaryCommand {
     return 0;
   }
 
+  @Override
+  protected boolean isValueWrittenSeparately() {
+    return true;
+  }
+
 }
@@ -47,4 +47,9 @@ public class BinaryCASCommand extends BaseBinaryCommand {
     return this.cas;
   }
 
+  @Override
+  protected boolean isValueWrittenSeparately() {
+    return true;
+  }
+
 }
@@ -19,9 +19,12 @@ package net.rubyeye.xmemcached.command.binary;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import net.rubyeye.xmemcached.ValueSink;
 import net.rubyeye.xmemcached.command.AssocCommandAware;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.ValueSinkAware;
+import net.rubyeye.xmemcached.command.ValueSinkWriter;
 import net.rubyeye.xmemcached.transcoders.CachedData;
 import net.rubyeye.xmemcached.utils.ByteUtils;
 
@@ -31,10 +34,13 @@ import net.rubyeye.xmemcached.utils.ByteUtils;
  * @author dennis
  * 
  */
-public class BinaryGetCommand extends BaseBinaryCommand implements AssocCommandAware {
+public class BinaryGetCommand extends BaseBinaryCommand
+    implements AssocCommandAware, ValueSinkAware {
   private String responseKey;
   private CachedData responseValue;
   private List<Command> assocCommands;
+  private ValueSink valueSink;
+  private ValueSinkWriter valueSinkWriter;
 
   public final String getResponseKey() {
     return this.responseKey;
@@ -59,6 +65,15 @@ public class BinaryGetCommand extends BaseBinaryCommand implements AssocCommandA
     this.assocCommands = assocCommands;
   }
 
+  public final ValueSink getValueSink() {
+    return this.valueSink;
+  }
+
+  public final void setValueSink(ValueSink valueSink) {
+    this.valueSink = valueSink;
+    this.valueSinkWriter = valueSink != null ? new ValueSinkWriter(this, valueSink) : null;
+  }
+
   /**
    * Optimistic,if the value length is 0,then skip remaining buffer,set result as null
    */
@@ -97,16 +112,18 @@ public class BinaryGetCommand extends BaseBinaryCommand implements AssocCommandA
       int valueLength = bodyLength - keyLength - extrasLength;
       if (valueLength >= 0 && this.responseValue.getCapacity() < 0) {
         this.responseValue.setCapacity(valueLength);
-        this.responseValue.setData(new byte[valueLength]);
+        if (this.valueSinkWriter == null) {
+          this.responseValue.setData(new byte[valueLength]);
+        }
       }
       int remainingCapacity = this.responseValue.remainingCapacity();
       int remaining = buffer.remaining();
       if (remaining < remainingCapacity) {
         int length = remaining > remainingCapacity ? remainingCapacity : remaining;
-        this.responseValue.fillData(buffer, length);
+        fillData(buffer, length);
         return false;
-      } else if (remainingCapacity > 0) {
-        this.responseValue.fillData(buffer, remainingCapacity);
+      } else {
+        fillData(buffer, remainingCapacity);
       }
       setResult(this.responseValue);
       return true;
@@ -115,6 +132,14 @@ public class BinaryGetCommand extends BaseBinaryCommand implements AssocCommandA
     }
   }
 
+  private void fillData(ByteBuffer buffer, int length) {
+    if (this.valueSinkWriter != null) {
+      this.valueSinkWriter.write(this.responseValue, buffer, length);
+    } else if (length > 0) {
+      this.responseValue.fillData(buffer, length);
+    }
+  }
+
   @Override
   protected boolean readExtras(ByteBuffer buffer, int extrasLength) {
     if (buffer.remaining() < extrasLength) {
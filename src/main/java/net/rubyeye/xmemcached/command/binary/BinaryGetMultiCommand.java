@@ -25,6 +25,7 @@ import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.command.CommandType;
 import net.rubyeye.xmemcached.command.MapReturnValueAware;
 import net.rubyeye.xmemcached.command.MergeCommandsAware;
+import net.rubyeye.xmemcached.command.ReturnValueListener;
 import net.rubyeye.xmemcached.transcoders.CachedData;
 import net.rubyeye.xmemcached.utils.ByteUtils;
 
@@ -42,6 +43,7 @@ public class BinaryGetMultiCommand extends BaseBinaryCommand
   private long responseCAS;
   private int responseFlag;
   private Map<Object, Command> mergeCommands;
+  private ReturnValueListener returnValueListener;
 
   public BinaryGetMultiCommand(String key, CommandType cmdType, CountDownLatch latch) {
     super(key, null, cmdType, latch, 0, 0, null, false, null);
@@ -83,6 +85,10 @@ public class BinaryGetMultiCommand extends BaseBinaryCommand
   @Override
   protected boolean finish() {
     final CachedData cachedData = ((Map<String, CachedData>) this.result).get(this.responseKey);
+    if (this.returnValueListener != null && cachedData != null) {
+      ((Map<String, CachedData>) this.result).remove(this.responseKey);
+      this.returnValueListener.onReturnValue(this.responseKey, cachedData);
+    }
     Map<Object, Command> mergetCommands = getMergeCommands();
     if (mergetCommands != null) {
       final BinaryGetCommand command = (BinaryGetCommand) mergetCommands.remove(this.responseKey);
@@ -190,4 +196,12 @@ public class BinaryGetMultiCommand extends BaseBinaryCommand
     this.mergeCommands = mergeCommands;
   }
 
+  public ReturnValueListener getReturnValueListener() {
+    return this.returnValueListener;
+  }
+
+  public void setReturnValueListener(ReturnValueListener returnValueListener) {
+    this.returnValueListener = returnValueListener;
+  }
+
 }
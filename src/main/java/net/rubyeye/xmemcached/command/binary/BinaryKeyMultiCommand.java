@@ -0,0 +1,89 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.command.binary;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import net.rubyeye.xmemcached.command.CommandType;
+
+/**
+ * A command for holding the deleteq(touch) packets of many keys of one node followed by a noop
+ * packet.Quiet deletes are only responded when they fail,the noop is responded after all of
+ * them,so its response finishes the command.The result is the set of keys which were not deleted
+ * (touched).
+ *
+ * @author dennis
+ * @since 2.4.3
+ */
+@SuppressWarnings("unchecked")
+public class BinaryKeyMultiCommand extends BaseBinaryCommand {
+  private final List<String> keys;
+  private boolean finished;
+  private int responseIndex;
+
+  /**
+   * @param keys keys in the order of their packets
+   * @param cmdType DELETE_MANY or TOUCH_MANY
+   * @param latch
+   */
+  public BinaryKeyMultiCommand(List<String> keys, CommandType cmdType, CountDownLatch latch) {
+    super(keys.get(0), null, cmdType, latch, 0, 0, null, false, null);
+    this.keys = keys;
+    this.result = new HashSet<String>();
+  }
+
+  public final List<String> getKeys() {
+    return this.keys;
+  }
+
+  @Override
+  protected boolean readOpCode(ByteBuffer buffer) {
+    // the noop response is the last one
+    this.finished = buffer.get() == OpCode.NOOP.fieldValue();
+    return true;
+  }
+
+  /**
+   * Errors are of the keys,not of the command.
+   */
+  @Override
+  protected void readStatus(ByteBuffer buffer) {
+    this.responseStatus = ResponseStatus.parseShort(buffer.getShort());
+  }
+
+  /**
+   * Packets are given opaques in order from the command's opaque,so the opaque tells the key.
+   */
+  @Override
+  protected boolean readOpaque(ByteBuffer buffer) {
+    this.responseIndex = buffer.getInt() - this.opaque;
+    return true;
+  }
+
+  @Override
+  public void encode() {
+    // do nothing
+  }
+
+  @Override
+  protected boolean finish() {
+    if (this.finished) {
+      countDownLatch();
+      return true;
+    }
+    if (this.responseStatus != ResponseStatus.NO_ERROR && this.responseIndex >= 0
+        && this.responseIndex < this.keys.size()) {
+      ((Set<String>) this.result).add(this.keys.get(this.responseIndex));
+    }
+    return false;
+  }
+}
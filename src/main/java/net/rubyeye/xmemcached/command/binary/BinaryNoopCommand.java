@@ -18,6 +18,7 @@ package net.rubyeye.xmemcached.command.binary;
 
 import java.util.concurrent.CountDownLatch;
 import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.transcoders.CachedData;
 
 /**
  * Implement noop protocol
@@ -32,4 +33,34 @@ public class BinaryNoopCommand extends BaseBinaryCommand {
     this.opCode = OpCode.NOOP;
   }
 
+  @Override
+  protected void fillExtras(CachedData data) {
+    // must not have extras
+  }
+
+  @Override
+  protected void fillValue(CachedData data) {
+    // must not have value
+  }
+
+  @Override
+  protected byte getExtrasLength() {
+    return 0;
+  }
+
+  @Override
+  protected void fillKey() {
+    // must not have key
+  }
+
+  @Override
+  protected short getKeyLength() {
+    return 0;
+  }
+
+  @Override
+  protected int getValueLength(CachedData data) {
+    return 0;
+  }
+
 }
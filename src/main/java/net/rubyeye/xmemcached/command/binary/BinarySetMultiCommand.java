@@ -19,6 +19,7 @@ package net.rubyeye.xmemcached.command.binary;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import net.rubyeye.xmemcached.command.Command;
@@ -48,8 +49,9 @@ public class BinarySetMultiCommand extends BaseBinaryCommand implements MergeCom
   @Override
   protected boolean readOpCode(ByteBuffer buffer) {
     byte opCode = buffer.get();
-    // last response is SET,then finish decoding
-    if (opCode == OpCode.SET.fieldValue()) {
+    // last response is SET(ADD,REPLACE),then finish decoding
+    if (opCode == OpCode.SET.fieldValue() || opCode == OpCode.ADD.fieldValue()
+        || opCode == OpCode.REPLACE.fieldValue()) {
       this.finished = true;
     }
     return true;
@@ -76,6 +78,22 @@ public class BinarySetMultiCommand extends BaseBinaryCommand implements MergeCom
     this.mergeCommands = mergeCommands;
   }
 
+  /**
+   * Merged commands are in the order of their packets,key them by the opaques of the packets.
+   */
+  @Override
+  public void onOpaquesAssigned(int first, int packets) {
+    super.onOpaquesAssigned(first, packets);
+    if (this.mergeCommands != null) {
+      Map<Object, Command> commands = new LinkedHashMap<Object, Command>(this.mergeCommands.size());
+      int opaque = first;
+      for (Command command : this.mergeCommands.values()) {
+        commands.put(opaque++, command);
+      }
+      this.mergeCommands = commands;
+    }
+  }
+
   @Override
   public void encode() {
     // do nothing
@@ -64,4 +64,9 @@ public class BinaryStoreCommand extends BaseBinaryCommand {
     }
   }
 
+  @Override
+  protected boolean isValueWrittenSeparately() {
+    return true;
+  }
+
 }
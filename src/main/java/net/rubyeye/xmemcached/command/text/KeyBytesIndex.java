@@ -0,0 +1,118 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.command.text;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Open addressing index from key bytes to values,used for finding the requested key of a value
+ * line by the bytes in the read buffer,without decoding them to a string.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+final class KeyBytesIndex {
+  private final byte[][] keys;
+  private final int[] offsets;
+  private final int[] lengths;
+  private final Object[] values;
+  // entry index + 1,0 means empty
+  private final int[] table;
+  private final int mask;
+  private int size;
+
+  KeyBytesIndex(int capacity) {
+    if (capacity < 1) {
+      capacity = 1;
+    }
+    this.keys = new byte[capacity][];
+    this.offsets = new int[capacity];
+    this.lengths = new int[capacity];
+    this.values = new Object[capacity];
+    // Keep load factor under 0.5
+    int tableSize = Integer.highestOneBit(capacity) << 2;
+    this.table = new int[tableSize];
+    this.mask = tableSize - 1;
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Add a key,the first value is kept for duplicated keys.
+   */
+  void put(byte[] key, int offset, int length, Object value) {
+    if (this.size == this.values.length) {
+      throw new IllegalStateException("Index is full");
+    }
+    int h = 0;
+    for (int i = offset; i < offset + length; i++) {
+      h = 31 * h + key[i];
+    }
+    for (int i = spread(h) & this.mask;; i = i + 1 & this.mask) {
+      int entry = this.table[i] - 1;
+      if (entry < 0) {
+        this.keys[this.size] = key;
+        this.offsets[this.size] = offset;
+        this.lengths[this.size] = length;
+        this.values[this.size] = value;
+        this.table[i] = ++this.size;
+        return;
+      }
+      if (this.lengths[entry] == length
+          && equals(this.keys[entry], this.offsets[entry], key, offset, length)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns the value of the key in buffer's [from,to),null if not found.
+   */
+  Object get(ByteBuffer buffer, int from, int to) {
+    int h = 0;
+    for (int i = from; i < to; i++) {
+      h = 31 * h + buffer.get(i);
+    }
+    final int length = to - from;
+    for (int i = spread(h) & this.mask;; i = i + 1 & this.mask) {
+      int entry = this.table[i] - 1;
+      if (entry < 0) {
+        return null;
+      }
+      if (this.lengths[entry] == length
+          && equals(this.keys[entry], this.offsets[entry], buffer, from, length)) {
+        return this.values[entry];
+      }
+    }
+  }
+
+  static boolean equals(byte[] key, int offset, ByteBuffer buffer, int from, int length) {
+    for (int i = 0; i < length; i++) {
+      if (key[offset + i] != buffer.get(from + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean equals(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      if (a[aOffset + i] != b[bOffset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int spread(int h) {
+    return h ^ h >>> 16;
+  }
+}
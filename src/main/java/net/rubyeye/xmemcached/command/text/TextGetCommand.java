@@ -16,22 +16,26 @@
  */
 package net.rubyeye.xmemcached.command.text;
 
-import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import net.rubyeye.xmemcached.ValueSink;
 import net.rubyeye.xmemcached.command.AssocCommandAware;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.command.CommandType;
 import net.rubyeye.xmemcached.command.MapReturnValueAware;
 import net.rubyeye.xmemcached.command.MergeCommandsAware;
+import net.rubyeye.xmemcached.command.ReturnValueListener;
+import net.rubyeye.xmemcached.command.ValueSinkAware;
+import net.rubyeye.xmemcached.command.ValueSinkWriter;
 import net.rubyeye.xmemcached.impl.MemcachedTCPSession;
 import net.rubyeye.xmemcached.monitor.Constants;
 import net.rubyeye.xmemcached.transcoders.CachedData;
 import net.rubyeye.xmemcached.utils.ByteUtils;
 import com.google.code.yanf4j.buffer.IoBuffer;
+import com.google.code.yanf4j.util.ByteBufferScanner;
 
 /**
  * Abstract get command for text protocol
@@ -40,10 +44,13 @@ import com.google.code.yanf4j.buffer.IoBuffer;
  * 
  */
 public abstract class TextGetCommand extends Command
-    implements MergeCommandsAware, AssocCommandAware, MapReturnValueAware {
+    implements MergeCommandsAware, AssocCommandAware, MapReturnValueAware, ValueSinkAware {
   protected Map<String, CachedData> returnValues;
   private String currentReturnKey;
+  private CachedData currentValue;
   private int offset;
+  private KeyBytesIndex keyIndex;
+  private boolean keyIndexCreated;
   /**
    * When MemcachedClient merge get commands,those commans which have the same key will be merged
    * into one get command.The result command's assocCommands contains all these commands with the
@@ -53,6 +60,10 @@ public abstract class TextGetCommand extends Command
 
   protected Map<Object, Command> mergeCommands;
 
+  private ReturnValueListener returnValueListener;
+  private ValueSink valueSink;
+  private ValueSinkWriter valueSinkWriter;
+
   public final Map<Object, Command> getMergeCommands() {
     return this.mergeCommands;
   }
@@ -129,34 +140,39 @@ public abstract class TextGetCommand extends Command
             return false;
           }
         case KEY:
-          String item = getItem(buffer, ' ');
-          if (item == null) {
+          int end = scan(buffer, ' ', ' ');
+          if (end < 0) {
             return false;
           } else {
-            this.currentReturnKey = item;
-            this.returnValues.put(this.currentReturnKey, new CachedData());
+            this.currentReturnKey = findKey(buffer, buffer.position(), end);
+            this.currentValue = new CachedData();
+            this.returnValues.put(this.currentReturnKey, this.currentValue);
+            buffer.position(end + 1);
             this.parseStatus = ParseStatus.FLAG;
             continue;
           }
         case FLAG:
-          item = getItem(buffer, ' ');
-          if (item == null) {
+          end = scan(buffer, ' ', ' ');
+          if (end < 0) {
             return false;
           } else {
-            final CachedData cachedData = this.returnValues.get(this.currentReturnKey);
-            cachedData.setFlag(Integer.parseInt(item));
+            this.currentValue.setFlag(ByteUtils.parseInt(buffer, buffer.position(), end));
+            buffer.position(end + 1);
             this.parseStatus = ParseStatus.DATA_LEN;
             continue;
           }
         case DATA_LEN:
-          item = getItem(buffer, '\r', ' ');
-          if (item == null) {
+          end = scan(buffer, '\r', ' ');
+          if (end < 0) {
             return false;
           } else {
-            final CachedData cachedData = this.returnValues.get(this.currentReturnKey);
-            cachedData.setCapacity(Integer.parseInt(item));
+            final CachedData cachedData = this.currentValue;
+            cachedData.setCapacity(ByteUtils.parseInt(buffer, buffer.position(), end));
             assert (cachedData.getCapacity() >= 0);
-            cachedData.setData(new byte[cachedData.getCapacity()]);
+            if (this.valueSinkWriter == null) {
+              cachedData.setData(new byte[cachedData.getCapacity()]);
+            }
+            buffer.position(end + 1);
             this.parseStatus = ParseStatus.DATA_LEN_DONE;
             continue;
           }
@@ -179,12 +195,12 @@ public abstract class TextGetCommand extends Command
           }
         case CAS:
           // has cas value
-          item = getItem(buffer, '\r');
-          if (item == null) {
+          end = scan(buffer, '\r', '\r');
+          if (end < 0) {
             return false;
           } else {
-            final CachedData cachedData = this.returnValues.get(this.currentReturnKey);
-            cachedData.setCas(Long.parseLong(item));
+            this.currentValue.setCas(ByteUtils.parseLong(buffer, buffer.position(), end));
+            buffer.position(end + 1);
             this.parseStatus = ParseStatus.CAS_DONE;
             continue;
           }
@@ -198,17 +214,17 @@ public abstract class TextGetCommand extends Command
             continue;
           }
         case DATA:
-          final CachedData value = this.returnValues.get(this.currentReturnKey);
+          final CachedData value = this.currentValue;
           int remaining = buffer.remaining();
           int remainingCapacity = value.remainingCapacity();
           assert (remainingCapacity >= 0);
           // Data is not enough,return false
           if (remaining < remainingCapacity + 2) {
             int length = remaining > remainingCapacity ? remainingCapacity : remaining;
-            value.fillData(buffer, length);
+            fillData(value, buffer, length);
             return false;
-          } else if (remainingCapacity > 0) {
-            value.fillData(buffer, remainingCapacity);
+          } else {
+            fillData(value, buffer, remainingCapacity);
           }
           assert (value.remainingCapacity() == 0);
           buffer.position(buffer.position() + ByteUtils.SPLIT.remaining());
@@ -231,7 +247,12 @@ public abstract class TextGetCommand extends Command
 
             }
           }
+          if (this.returnValueListener != null) {
+            this.returnValues.remove(this.currentReturnKey);
+            this.returnValueListener.onReturnValue(this.currentReturnKey, value);
+          }
           this.currentReturnKey = null;
+          this.currentValue = null;
           this.parseStatus = ParseStatus.NULL;
           continue;
         default:
@@ -241,40 +262,68 @@ public abstract class TextGetCommand extends Command
     }
   }
 
-  private String getItem(ByteBuffer buffer, char token, char... others) {
-    int pos = buffer.position() + this.offset;
-    final int limit = buffer.limit();
-    for (; pos < limit; pos++) {
-      final byte b = buffer.get(pos);
-      if (b == token || isIn(b, others)) {
-        byte[] keyBytes = new byte[pos - buffer.position()];
-        buffer.get(keyBytes);
-        this.offset = 0;
-        assert (pos == buffer.position());
-        // skip token
-        buffer.position(pos + 1);
-        return getString(keyBytes);
-      }
+  private void fillData(CachedData value, ByteBuffer buffer, int length) {
+    if (this.valueSinkWriter != null) {
+      this.valueSinkWriter.write(value, buffer, length);
+    } else if (length > 0) {
+      value.fillData(buffer, length);
     }
-    this.offset = pos - buffer.position();
-    return null;
   }
 
-  private boolean isIn(byte b, char[] others) {
-    for (int i = 0; i < others.length; i++) {
-      if (b == others[i]) {
-        return true;
+  /**
+   * Scan the buffer for one of the tokens without consuming it,returns the index of the token or
+   * -1 if it's not arrived yet.The scanned bytes are skipped on next scan.
+   */
+  private int scan(ByteBuffer buffer, char token, char other) {
+    int pos = ByteBufferScanner.indexOfAny(buffer, buffer.position() + this.offset,
+        buffer.limit(), (byte) token, (byte) other);
+    if (pos >= 0) {
+      this.offset = 0;
+    } else {
+      this.offset = buffer.remaining();
+    }
+    return pos;
+  }
+
+  /**
+   * Find the requested key of a value line by the key bytes in buffer's [from,to),so that the key
+   * is not decoded to a new string.
+   */
+  private String findKey(ByteBuffer buffer, int from, int to) {
+    if (!this.keyIndexCreated) {
+      this.keyIndex = this.createKeyIndex();
+      this.keyIndexCreated = true;
+    }
+    if (this.keyIndex != null) {
+      String key = (String) this.keyIndex.get(buffer, from, to);
+      if (key != null) {
+        return key;
       }
+    } else if (this.key != null && this.keyBytes != null && this.keyBytes.length == to - from
+        && KeyBytesIndex.equals(this.keyBytes, 0, buffer, from, to - from)) {
+      return this.key;
     }
-    return false;
+    byte[] keyBytes = new byte[to - from];
+    for (int i = from; i < to; i++) {
+      keyBytes[i - from] = buffer.get(i);
+    }
+    return ByteUtils.getString(keyBytes);
   }
 
-  private String getString(byte[] keyBytes) {
-    try {
-      return new String(keyBytes, "utf-8");
-    } catch (UnsupportedEncodingException e) {
-      throw new RuntimeException(e);
+  /**
+   * Create the index of requested keys,null if the command requests only its own key.
+   */
+  KeyBytesIndex createKeyIndex() {
+    final Map<Object, Command> mergeCommands = this.mergeCommands;
+    if (mergeCommands == null) {
+      return null;
     }
+    KeyBytesIndex index = new KeyBytesIndex(mergeCommands.size());
+    for (Command command : mergeCommands.values()) {
+      final byte[] keyBytes = command.getKeyBytes();
+      index.put(keyBytes, 0, keyBytes.length, command.getKey());
+    }
+    return index;
   }
 
   /*
@@ -290,6 +339,23 @@ public abstract class TextGetCommand extends Command
     this.returnValues = returnValues;
   }
 
+  public final ReturnValueListener getReturnValueListener() {
+    return this.returnValueListener;
+  }
+
+  public final void setReturnValueListener(ReturnValueListener returnValueListener) {
+    this.returnValueListener = returnValueListener;
+  }
+
+  public final ValueSink getValueSink() {
+    return this.valueSink;
+  }
+
+  public final void setValueSink(ValueSink valueSink) {
+    this.valueSink = valueSink;
+    this.valueSinkWriter = valueSink != null ? new ValueSinkWriter(this, valueSink) : null;
+  }
+
   public abstract void dispatch();
 
   @Override
@@ -16,6 +16,7 @@
  */
 package net.rubyeye.xmemcached.command.text;
 
+import java.util.Collection;
 import java.util.concurrent.CountDownLatch;
 import net.rubyeye.xmemcached.command.CommandType;
 import net.rubyeye.xmemcached.transcoders.Transcoder;
@@ -27,6 +28,7 @@ import net.rubyeye.xmemcached.transcoders.Transcoder;
  * 
  */
 public class TextGetMultiCommand extends TextGetCommand {
+  private String[] keys;
 
   @SuppressWarnings("unchecked")
   public TextGetMultiCommand(String key, byte[] keyBytes, CommandType cmdType, CountDownLatch latch,
@@ -35,6 +37,42 @@ public class TextGetMultiCommand extends TextGetCommand {
     this.transcoder = transcoder;
   }
 
+  /**
+   * Create a bulk-get command with the requested keys,they are used as the keys of returned values
+   * instead of decoding them from the response.
+   * 
+   * @since 2.4.3
+   * @param keys requested keys,in the order of the key bytes
+   */
+  public TextGetMultiCommand(String key, byte[] keyBytes, CommandType cmdType, CountDownLatch latch,
+      Transcoder<?> transcoder, Collection<String> keys) {
+    this(key, keyBytes, cmdType, latch, transcoder);
+    this.keys = keys.toArray(new String[keys.size()]);
+  }
+
+  @Override
+  KeyBytesIndex createKeyIndex() {
+    final String[] keys = this.keys;
+    if (keys == null || keys.length < 2) {
+      return super.createKeyIndex();
+    }
+    // The key bytes are the requested keys joined by spaces
+    final KeyBytesIndex index = new KeyBytesIndex(keys.length);
+    final byte[] keyBytes = this.keyBytes;
+    int start = 0;
+    int count = 0;
+    for (int i = 0; i <= keyBytes.length; i++) {
+      if (i == keyBytes.length || keyBytes[i] == ' ') {
+        if (count == keys.length) {
+          return null;
+        }
+        index.put(keyBytes, start, i - start, keys[count++]);
+        start = i + 1;
+      }
+    }
+    return count == keys.length ? index : null;
+  }
+
   @Override
   public final void dispatch() {
     setResult(this.returnValues);
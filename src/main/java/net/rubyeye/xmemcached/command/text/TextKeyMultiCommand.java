@@ -0,0 +1,76 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.command.text;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.exception.MemcachedClientException;
+import net.rubyeye.xmemcached.exception.MemcachedDecodeException;
+import net.rubyeye.xmemcached.exception.MemcachedServerException;
+import net.rubyeye.xmemcached.exception.UnknownCommandException;
+import net.rubyeye.xmemcached.impl.MemcachedTCPSession;
+import net.rubyeye.xmemcached.utils.ByteUtils;
+
+/**
+ * A command for holding the noreply delete(touch) requests of many keys of one node followed by a
+ * version request as a barrier,the version response finishes the command.Noreply requests are not
+ * responded,so the result is always an empty set of keys;an error line responded before the
+ * version can't be told which key it is of,it's set as the command's exception.
+ *
+ * @author dennis
+ * @since 2.4.3
+ */
+public class TextKeyMultiCommand extends Command {
+  private final List<String> keys;
+
+  /**
+   * @param keys keys in the order of their requests
+   * @param cmdType DELETE_MANY or TOUCH_MANY
+   * @param latch
+   */
+  public TextKeyMultiCommand(List<String> keys, CommandType cmdType, CountDownLatch latch) {
+    super(keys.get(0), cmdType, latch);
+    this.keys = keys;
+    this.result = new HashSet<String>();
+  }
+
+  public final List<String> getKeys() {
+    return this.keys;
+  }
+
+  @Override
+  public boolean decode(MemcachedTCPSession session, ByteBuffer buffer) {
+    String line;
+    while ((line = ByteUtils.nextLine(buffer)) != null) {
+      if (line.startsWith("VERSION")) {
+        countDownLatch();
+        return true;
+      } else if (line.startsWith("ERROR")) {
+        setException(new UnknownCommandException("Response error,error message:" + line));
+      } else if (line.startsWith("CLIENT_ERROR")) {
+        setException(new MemcachedClientException(line));
+      } else if (line.startsWith("SERVER_ERROR")) {
+        setException(new MemcachedServerException(line));
+      } else {
+        throw new MemcachedDecodeException(
+            "Decode error,session will be closed,key=" + this.key + ",server returns=" + line);
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void encode() {
+    // do nothing
+  }
+}
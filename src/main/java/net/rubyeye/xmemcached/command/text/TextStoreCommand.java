@@ -152,13 +152,20 @@ public class TextStoreCommand extends Command implements StoreCommand {
     if (this.commandType == CommandType.CAS) {
       size += 1 + ByteUtils.stringSize(this.cas);
     }
-    byte[] buf;
+    // Large value is written from its own buffer,the command buffer only contains the command line.
+    final boolean separateValue =
+        encodedData.length >= Constants.SEPARATE_VALUE_BUFFER_THRESHOLD;
+    if (separateValue) {
+      size -= encodedData.length + Constants.CRLF.length;
+    }
     if (isNoreply()) {
-      buf = new byte[size + 8];
-    } else {
-      buf = new byte[size];
+      size += 8;
     }
-    int offset = 0;
+    // Encode into the pooled buffer's array directly.
+    this.ioBuffer = IoBuffer.allocate(size);
+    final boolean hasArray = this.ioBuffer.hasArray();
+    final byte[] buf = hasArray ? this.ioBuffer.array() : new byte[size];
+    int offset = hasArray ? this.ioBuffer.arrayOffset() : 0;
     if (this.commandType == CommandType.CAS) {
       if (isNoreply()) {
         offset = ByteUtils.setArguments(buf, offset, cmdStr, this.keyBytes, flag, this.expTime,
@@ -176,8 +183,19 @@ public class TextStoreCommand extends Command implements StoreCommand {
             encodedData.length);
       }
     }
-    ByteUtils.setArguments(buf, offset, encodedData);
-    this.ioBuffer = IoBuffer.wrap(buf);
+    if (!separateValue) {
+      ByteUtils.setArguments(buf, offset, encodedData);
+    }
+    if (!hasArray) {
+      this.ioBuffer.put(buf);
+      this.ioBuffer.flip();
+    }
+    if (separateValue) {
+      this.writeBuffers = new ByteBuffer[] {this.ioBuffer.buf(), ByteBuffer.wrap(encodedData),
+          ByteBuffer.wrap(Constants.CRLF)};
+    } else {
+      this.writeBuffers = null;
+    }
   }
 
   @SuppressWarnings("unchecked")
@@ -0,0 +1,177 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.impl;
+
+import net.rubyeye.xmemcached.command.Command;
+
+/**
+ * Adjusts the merge factor and merge buffer limit of a session by its write queue depth,bytes per
+ * write and response latency,instead of using a static merge factor for both idle and saturated
+ * servers.
+ * <p>
+ * The session reports every optimized write,and the controller samples the response latency of one
+ * written command at a time.Every {@link #WINDOW} writes it adjusts the values:
+ * <ul>
+ * <li>If the sampled latency is above the target latency,it halves both values,because merged
+ * commands delay the responses of each other.</li>
+ * <li>Otherwise,if the write queue still had commands after most writes,it increases the merge
+ * factor by a quarter,and the merge buffer limit too if most writes were bounded by it.</li>
+ * <li>Otherwise it keeps the values.</li>
+ * </ul>
+ * Adjustments are done by the thread writing to the session,the values are read without locking.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public final class AdaptiveMergeController implements AdaptiveMergeControllerMBean {
+  public static final int MIN_MERGE_FACTOR = 4;
+  public static final int MAX_MERGE_FACTOR = 1024;
+  public static final int MIN_MERGE_BUFFER_LIMIT = 1024;
+  /**
+   * Default target latency in microseconds
+   */
+  public static final long DEFAULT_TARGET_LATENCY = 1000;
+  /**
+   * Number of writes between adjustments
+   */
+  public static final int WINDOW = 64;
+
+  private final int maxMergeBufferLimit;
+
+  private volatile int mergeFactor;
+  private volatile int mergeBufferLimit;
+  private volatile long targetLatency = DEFAULT_TARGET_LATENCY * 1000;
+
+  private volatile long averageWriteBytes;
+  private volatile int backlogPercent;
+  private volatile long latency;
+
+  // Current window,updated by the writing thread only
+  private int writes;
+  private long writeBytes;
+  private int backlogWrites;
+  private int limitedWrites;
+  private int lastLatencySamples;
+
+  private volatile Command sampleCommand;
+  private volatile long sampleStart;
+  private volatile int latencySamples;
+
+  /**
+   * @param mergeFactor initial merge factor
+   * @param sendBufferSize socket's send buffer size,it is the initial merge buffer limit
+   */
+  public AdaptiveMergeController(int mergeFactor, int sendBufferSize) {
+    if (sendBufferSize < MIN_MERGE_BUFFER_LIMIT) {
+      sendBufferSize = MIN_MERGE_BUFFER_LIMIT;
+    }
+    this.mergeFactor = Math.min(MAX_MERGE_FACTOR, Math.max(MIN_MERGE_FACTOR, mergeFactor));
+    this.mergeBufferLimit = sendBufferSize;
+    // Send buffers are usually auto tuned beyond the initial size by os.
+    this.maxMergeBufferLimit = sendBufferSize * 4;
+  }
+
+  public int getMergeFactor() {
+    return this.mergeFactor;
+  }
+
+  public int getMergeBufferLimit() {
+    return this.mergeBufferLimit;
+  }
+
+  public long getAverageWriteBytes() {
+    return this.averageWriteBytes;
+  }
+
+  public int getBacklogPercent() {
+    return this.backlogPercent;
+  }
+
+  public long getLatency() {
+    return this.latency / 1000;
+  }
+
+  public long getTargetLatency() {
+    return this.targetLatency / 1000;
+  }
+
+  public void setTargetLatency(long targetLatency) {
+    if (targetLatency <= 0) {
+      throw new IllegalArgumentException("targetLatency<=0");
+    }
+    this.targetLatency = targetLatency * 1000;
+  }
+
+  /**
+   * Called after a command is optimized for writing.
+   * 
+   * @param command the optimized command
+   * @param bytes bytes of the command
+   * @param waitResponse whether the command would receive a response
+   * @param backlog whether the write queue still has commands
+   */
+  public void onWrite(Command command, int bytes, boolean waitResponse, boolean backlog) {
+    if (waitResponse && this.sampleCommand == null) {
+      this.sampleStart = System.nanoTime();
+      this.sampleCommand = command;
+    }
+    this.writes++;
+    this.writeBytes += bytes;
+    if (backlog) {
+      this.backlogWrites++;
+    }
+    if (bytes >= this.mergeBufferLimit - this.mergeBufferLimit / 8) {
+      this.limitedWrites++;
+    }
+    if (this.writes >= WINDOW) {
+      this.adjust();
+    }
+  }
+
+  /**
+   * Called when a command receives its response.
+   * 
+   * @param command
+   */
+  public void onResponse(Command command) {
+    if (command == this.sampleCommand) {
+      long elapsed = System.nanoTime() - this.sampleStart;
+      long lastLatency = this.latency;
+      this.latency = lastLatency == 0 ? elapsed : lastLatency + (elapsed - lastLatency) / 8;
+      this.latencySamples++;
+      this.sampleCommand = null;
+    }
+  }
+
+  private void adjust() {
+    int factor = this.mergeFactor;
+    int limit = this.mergeBufferLimit;
+    int samples = this.latencySamples;
+    // Only react to latency sampled in this window,the old one may be caused by the old values.
+    if (samples != this.lastLatencySamples && this.latency > this.targetLatency) {
+      factor = Math.max(MIN_MERGE_FACTOR, factor / 2);
+      limit = Math.max(MIN_MERGE_BUFFER_LIMIT, limit / 2);
+    } else if (this.backlogWrites * 2 >= this.writes) {
+      factor = Math.min(MAX_MERGE_FACTOR, factor + Math.max(1, factor / 4));
+      if (this.limitedWrites * 2 >= this.writes) {
+        limit = Math.min(this.maxMergeBufferLimit, limit + limit / 4);
+      }
+    }
+    this.lastLatencySamples = samples;
+    this.mergeFactor = factor;
+    this.mergeBufferLimit = limit;
+    this.averageWriteBytes = this.writeBytes / this.writes;
+    this.backlogPercent = this.backlogWrites * 100 / this.writes;
+    this.writes = 0;
+    this.writeBytes = 0;
+    this.backlogWrites = 0;
+    this.limitedWrites = 0;
+  }
+
+}
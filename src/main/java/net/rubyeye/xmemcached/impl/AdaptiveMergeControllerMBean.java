@@ -0,0 +1,44 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.impl;
+
+/**
+ * AdaptiveMergeControllerMBean,exports the merge factor and merge buffer limit of a session and
+ * the load they are adjusted by.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public interface AdaptiveMergeControllerMBean {
+  public int getMergeFactor();
+
+  public int getMergeBufferLimit();
+
+  /**
+   * Average bytes per write in the last window
+   */
+  public long getAverageWriteBytes();
+
+  /**
+   * Percent of writes in the last window after which the write queue still had commands
+   */
+  public int getBacklogPercent();
+
+  /**
+   * Average response latency of written commands in microseconds,0 if not sampled yet.
+   */
+  public long getLatency();
+
+  public long getTargetLatency();
+
+  /**
+   * Set the response latency in microseconds above which the merge factor is decreased
+   */
+  public void setTargetLatency(long targetLatency);
+}
@@ -14,6 +14,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import net.rubyeye.xmemcached.HashAlgorithm;
+import net.rubyeye.xmemcached.KeyHashSessionLocator;
 import net.rubyeye.xmemcached.networking.MemcachedSession;
 import com.google.code.yanf4j.core.Session;
 
@@ -23,7 +24,8 @@ import com.google.code.yanf4j.core.Session;
  * @author dennis
  * 
  */
-public class ArrayMemcachedSessionLocator extends AbstractMemcachedSessionLocator {
+public class ArrayMemcachedSessionLocator extends AbstractMemcachedSessionLocator
+    implements KeyHashSessionLocator {
 
   private HashAlgorithm hashAlgorighm;
   private transient volatile List<List<Session>> sessions;
@@ -47,7 +49,15 @@ public class ArrayMemcachedSessionLocator extends AbstractMemcachedSessionLocato
 
   final Random rand = new Random();
 
+  public final long hashKey(final byte[] keyBytes) {
+    return this.hashAlgorighm.hash(keyBytes);
+  }
+
   public final Session getSessionByKey(final String key) {
+    return this.getSessionByKey(key, this.hashAlgorighm.hash(key));
+  }
+
+  public final Session getSessionByKey(final String key, final long keyHash) {
     if (this.sessions == null || this.sessions.size() == 0) {
       return null;
     }
@@ -57,7 +67,7 @@ public class ArrayMemcachedSessionLocator extends AbstractMemcachedSessionLocato
     if (size == 0) {
       return null;
     }
-    long start = this.getHash(size, key);
+    long start = keyHash % size;
     List<Session> sessions = sessionList.get((int) start);
     Session session = getRandomSession(sessions);
 
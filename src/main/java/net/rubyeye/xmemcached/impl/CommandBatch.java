@@ -0,0 +1,79 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.OperationStatus;
+import com.google.code.yanf4j.buffer.IoBuffer;
+
+/**
+ * Encoded commands of one session queued as one write message,their buffers are written by one
+ * gathering write.The session adds the commands in order when the batch is written,the batch
+ * itself is never responded.It's queued as a writing command,so the optimizer never merges it.
+ *
+ * @author dennis
+ * @since 2.4.3
+ */
+public class CommandBatch extends Command {
+  private final List<Command> commands;
+
+  public CommandBatch(List<Command> commands) {
+    super(commands.get(0).getKey(), CommandType.BATCH, null);
+    this.commands = commands;
+    this.status = OperationStatus.WRITING;
+    final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(commands.size());
+    for (Command command : commands) {
+      final ByteBuffer[] writeBuffers = command.getWriteBuffers();
+      if (writeBuffers != null) {
+        for (ByteBuffer writeBuffer : writeBuffers) {
+          buffers.add(writeBuffer);
+        }
+      } else {
+        buffers.add(command.getIoBuffer().buf());
+      }
+    }
+    setWriteBuffers(buffers.toArray(new ByteBuffer[buffers.size()]));
+    this.ioBuffer = IoBuffer.wrap(buffers.get(buffers.size() - 1));
+  }
+
+  public final List<Command> getCommands() {
+    return this.commands;
+  }
+
+  /**
+   * Move the buffers of the commands to the batch after they were added,they are freed with the
+   * batch after it was sent.
+   */
+  final void moveIoBuffers() {
+    for (Command command : this.commands) {
+      addMergedIoBuffer(command.getIoBuffer());
+      if (command.getMergedIoBuffers() != null) {
+        for (IoBuffer buffer : command.getMergedIoBuffers()) {
+          addMergedIoBuffer(buffer);
+        }
+      }
+      command.setIoBuffer(MemcachedHandler.EMPTY_BUF);
+      command.setWriteBuffers(null);
+    }
+  }
+
+  @Override
+  public boolean decode(MemcachedTCPSession session, ByteBuffer buffer) {
+    throw new UnsupportedOperationException("A command batch is never responded");
+  }
+
+  @Override
+  public void encode() {
+    // do nothing
+  }
+}
@@ -6,10 +6,12 @@ import java.util.concurrent.TimeUnit;
 import net.rubyeye.xmemcached.FlowControl;
 import net.rubyeye.xmemcached.command.Command;
 import com.google.code.yanf4j.core.WriteMessage;
+import com.google.code.yanf4j.nio.impl.WriteBudget;
 import com.google.code.yanf4j.util.LinkedTransferQueue;
 
 public class FlowControlLinkedTransferQueue extends LinkedTransferQueue<WriteMessage> {
   private FlowControl flowControl;
+  private volatile WriteBudget writeBudget;
 
   public FlowControlLinkedTransferQueue(FlowControl flowControl) {
     super();
@@ -96,6 +98,16 @@ public class FlowControlLinkedTransferQueue extends LinkedTransferQueue<WriteMes
     return rt;
   }
 
+  /**
+   * Set the budget acquired by the session before queuing commands,it's released when they are
+   * taken from the queue.
+   * 
+   * @since 2.4.3
+   */
+  public void setWriteBudget(WriteBudget writeBudget) {
+    this.writeBudget = writeBudget;
+  }
+
   private void releasePermit(WriteMessage rt) {
     if (rt != null) {
       if (rt.getMessage() instanceof Command) {
@@ -103,6 +115,18 @@ public class FlowControlLinkedTransferQueue extends LinkedTransferQueue<WriteMes
         if (cmd.isNoreply()) {
           this.flowControl.release();
         }
+        if (cmd instanceof CommandBatch) {
+          for (Command batchCommand : ((CommandBatch) cmd).getCommands()) {
+            if (batchCommand.isNoreply()) {
+              this.flowControl.release();
+            }
+          }
+        }
+        final int budgetBytes = cmd.getWriteBudgetBytes();
+        if (budgetBytes >= 0) {
+          cmd.setWriteBudgetBytes(-1);
+          this.writeBudget.release(budgetBytes);
+        }
       }
 
     }
@@ -0,0 +1,44 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.impl;
+
+import net.rubyeye.xmemcached.command.Command;
+import com.google.code.yanf4j.nio.impl.WriteBudget;
+import com.google.code.yanf4j.util.SpscRingQueue;
+
+/**
+ * Queue of the commands waiting for responses,which counts them as in flight commands of the write
+ * budget.Commands are added by both the session and the optimizer,so they are counted by the queue.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public class InflightCommandQueue extends SpscRingQueue<Command> {
+  private final WriteBudget writeBudget;
+
+  public InflightCommandQueue(WriteBudget writeBudget) {
+    super();
+    this.writeBudget = writeBudget;
+  }
+
+  @Override
+  public boolean offer(Command e) {
+    this.writeBudget.incrementInflight();
+    return super.offer(e);
+  }
+
+  @Override
+  public Command poll() {
+    final Command command = super.poll();
+    if (command != null) {
+      this.writeBudget.decrementInflight();
+    }
+    return command;
+  }
+}
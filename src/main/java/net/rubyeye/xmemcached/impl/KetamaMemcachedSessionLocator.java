@@ -18,6 +18,7 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 import com.google.code.yanf4j.core.Session;
 import net.rubyeye.xmemcached.HashAlgorithm;
+import net.rubyeye.xmemcached.KeyHashSessionLocator;
 import net.rubyeye.xmemcached.networking.MemcachedSession;
 import net.rubyeye.xmemcached.utils.InetSocketAddressWrapper;
 
@@ -40,7 +41,8 @@ import net.rubyeye.xmemcached.utils.InetSocketAddressWrapper;
  * @author dennis
  * 
  */
-public class KetamaMemcachedSessionLocator extends AbstractMemcachedSessionLocator {
+public class KetamaMemcachedSessionLocator extends AbstractMemcachedSessionLocator
+    implements KeyHashSessionLocator {
 
   static final int NUM_REPS = 160;
   private transient volatile TreeMap<Long, List<Session>> ketamaSessions =
@@ -193,11 +195,22 @@ public class KetamaMemcachedSessionLocator extends AbstractMemcachedSessionLocat
     return sessionList;
   }
 
+  public final long hashKey(final byte[] keyBytes) {
+    return this.hashAlg.hash(keyBytes);
+  }
+
   public final Session getSessionByKey(final String key) {
     if (this.ketamaSessions == null || this.ketamaSessions.size() == 0) {
       return null;
     }
-    long hash = this.hashAlg.hash(key);
+    return this.getSessionByKey(key, this.hashAlg.hash(key));
+  }
+
+  public final Session getSessionByKey(final String key, final long keyHash) {
+    if (this.ketamaSessions == null || this.ketamaSessions.size() == 0) {
+      return null;
+    }
+    long hash = keyHash;
     Session rv = this.getSessionByHash(hash);
     int tries = 0;
     while (!this.failureMode && (rv == null || rv.isClosed()) && tries++ < this.maxTries) {
@@ -15,6 +15,7 @@ import java.util.Random;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import net.rubyeye.xmemcached.HashAlgorithm;
+import net.rubyeye.xmemcached.KeyHashSessionLocator;
 import net.rubyeye.xmemcached.impl.AbstractMemcachedSessionLocator;
 import com.google.code.yanf4j.core.Session;
 
@@ -24,7 +25,8 @@ import com.google.code.yanf4j.core.Session;
  * @author dennis
  * 
  */
-public class LibmemcachedMemcachedSessionLocator extends AbstractMemcachedSessionLocator {
+public class LibmemcachedMemcachedSessionLocator extends AbstractMemcachedSessionLocator
+    implements KeyHashSessionLocator {
 
   static final int DEFAULT_NUM_REPS = 100;
   private transient volatile TreeMap<Long, List<Session>> ketamaSessions =
@@ -71,11 +73,22 @@ public class LibmemcachedMemcachedSessionLocator extends AbstractMemcachedSessio
     return sessionList;
   }
 
+  public final long hashKey(final byte[] keyBytes) {
+    return hashAlgorithm.hash(keyBytes);
+  }
+
   public final Session getSessionByKey(final String key) {
     if (this.ketamaSessions == null || this.ketamaSessions.size() == 0) {
       return null;
     }
-    long hash = hashAlgorithm.hash(key);
+    return this.getSessionByKey(key, hashAlgorithm.hash(key));
+  }
+
+  public final Session getSessionByKey(final String key, final long keyHash) {
+    if (this.ketamaSessions == null || this.ketamaSessions.size() == 0) {
+      return null;
+    }
+    long hash = keyHash;
     Session rv = this.getSessionByHash(hash);
     int tries = 0;
     while (!this.failureMode && (rv == null || rv.isClosed()) && tries++ < this.maxTries) {
@@ -18,7 +18,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
@@ -30,14 +32,19 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import net.rubyeye.xmemcached.CommandFactory;
 import net.rubyeye.xmemcached.FlowControl;
+import net.rubyeye.xmemcached.KeyHashSessionLocator;
 import net.rubyeye.xmemcached.MemcachedClient;
 import net.rubyeye.xmemcached.MemcachedOptimizer;
 import net.rubyeye.xmemcached.MemcachedSessionLocator;
 import net.rubyeye.xmemcached.buffer.BufferAllocator;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.exception.MemcachedException;
+import net.rubyeye.xmemcached.monitor.MemcachedClientNameHolder;
+import net.rubyeye.xmemcached.monitor.XMemcachedMbeanServer;
 import net.rubyeye.xmemcached.networking.Connector;
 import net.rubyeye.xmemcached.networking.MemcachedSession;
 import net.rubyeye.xmemcached.utils.InetSocketAddressWrapper;
@@ -48,9 +55,12 @@ import com.google.code.yanf4j.core.ControllerStateListener;
 import com.google.code.yanf4j.core.EventType;
 import com.google.code.yanf4j.core.Session;
 import com.google.code.yanf4j.core.WriteMessage;
+import com.google.code.yanf4j.core.impl.AbstractSession;
 import com.google.code.yanf4j.nio.NioSession;
 import com.google.code.yanf4j.nio.NioSessionConfig;
 import com.google.code.yanf4j.nio.impl.SocketChannelController;
+import com.google.code.yanf4j.nio.impl.WriteBatcher;
+import com.google.code.yanf4j.nio.impl.WriteBudget;
 import com.google.code.yanf4j.util.ConcurrentHashSet;
 import com.google.code.yanf4j.util.SystemUtils;
 
@@ -209,7 +219,27 @@ public class MemcachedConnector extends SocketChannelController implements Conne
   protected final ConcurrentHashMap<InetSocketAddress, Queue<Session>> sessionMap =
       new ConcurrentHashMap<InetSocketAddress, Queue<Session>>();
 
-  public synchronized void addSession(Session session) {
+  /**
+   * Guards session adding and removing.It is a ReentrantLock instead of the connector's monitor,so
+   * threads blocked on it are parked rather than pinned to their carrier thread.
+   */
+  private final ReentrantLock sessionLock = new ReentrantLock();
+
+  /**
+   * Signalled when all sessions were closed.
+   */
+  private final Condition allSessionsClosed = this.sessionLock.newCondition();
+
+  public void addSession(Session session) {
+    this.sessionLock.lock();
+    try {
+      this.addSession0(session);
+    } finally {
+      this.sessionLock.unlock();
+    }
+  }
+
+  private void addSession0(Session session) {
     MemcachedSession tcpSession = (MemcachedSession) session;
 
     InetSocketAddressWrapper addrWrapper = tcpSession.getInetSocketAddressWrapper();
@@ -344,7 +374,16 @@ public class MemcachedConnector extends SocketChannelController implements Conne
     this.sessionLocator.updateSessions(sessionList);
   }
 
-  public synchronized void removeSession(Session session) {
+  public void removeSession(Session session) {
+    this.sessionLock.lock();
+    try {
+      this.removeSession0(session);
+    } finally {
+      this.sessionLock.unlock();
+    }
+  }
+
+  private void removeSession0(Session session) {
     MemcachedTCPSession tcpSession = (MemcachedTCPSession) session;
     InetSocketAddressWrapper addrWrapper = tcpSession.getInetSocketAddressWrapper();
     InetSocketAddress mainNodeAddr = addrWrapper.getMainNodeAddress();
@@ -481,7 +520,46 @@ public class MemcachedConnector extends SocketChannelController implements Conne
   private final Random random = new Random();
 
   public Session send(final Command msg) throws MemcachedException {
-    MemcachedSession session = (MemcachedSession) this.findSessionByKey(msg.getKey());
+    MemcachedSession session = this.findAvailableSession(msg);
+    session.write(msg);
+    return session;
+  }
+
+  public List<Session> send(final List<Command> msgs) throws MemcachedException {
+    final List<Session> sessions = new ArrayList<Session>(msgs.size());
+    final Map<Session, List<Command>> batches = new LinkedHashMap<Session, List<Command>>();
+    for (Command msg : msgs) {
+      MemcachedSession session = this.findAvailableSession(msg);
+      sessions.add(session);
+      List<Command> batch = batches.get(session);
+      if (batch == null) {
+        batch = new ArrayList<Command>();
+        batches.put(session, batch);
+      }
+      batch.add(msg);
+    }
+    for (Map.Entry<Session, List<Command>> entry : batches.entrySet()) {
+      Session session = entry.getKey();
+      if (session instanceof AbstractSession) {
+        ((AbstractSession) session).writeAll(entry.getValue());
+      } else {
+        for (Command msg : entry.getValue()) {
+          session.write(msg);
+        }
+      }
+    }
+    return sessions;
+  }
+
+  private MemcachedSession findAvailableSession(final Command msg) throws MemcachedException {
+    MemcachedSession session;
+    final long keyHash = msg.getKeyHash();
+    if (keyHash >= 0 && this.sessionLocator instanceof KeyHashSessionLocator) {
+      session = (MemcachedSession) ((KeyHashSessionLocator) this.sessionLocator)
+          .getSessionByKey(msg.getKey(), keyHash);
+    } else {
+      session = (MemcachedSession) this.findSessionByKey(msg.getKey());
+    }
     if (session == null) {
       throw new MemcachedException("There is no available connection at this moment");
     }
@@ -497,7 +575,6 @@ public class MemcachedConnector extends SocketChannelController implements Conne
     if (session.isAuthFailed()) {
       throw new MemcachedException("Auth failed to connection " + session.getRemoteSocketAddress());
     }
-    session.write(msg);
     return session;
   }
 
@@ -533,7 +610,12 @@ public class MemcachedConnector extends SocketChannelController implements Conne
   class InnerControllerStateListener implements ControllerStateListener {
 
     public void onAllSessionClosed(Controller controller) {
-
+      MemcachedConnector.this.sessionLock.lock();
+      try {
+        MemcachedConnector.this.allSessionsClosed.signalAll();
+      } finally {
+        MemcachedConnector.this.sessionLock.unlock();
+      }
     }
 
     public void onException(Controller controller, Throwable t) {
@@ -561,6 +643,21 @@ public class MemcachedConnector extends SocketChannelController implements Conne
     return this.sessionLocator.getSessionByKey(key);
   }
 
+  /**
+   * Returns the hash of the key's bytes by the session locator,-1 if the locator doesn't locate
+   * sessions by precomputed hashes.
+   * 
+   * @param keyBytes
+   * @return
+   */
+  public final long hashKey(byte[] keyBytes) {
+    MemcachedSessionLocator locator = this.sessionLocator;
+    if (locator instanceof KeyHashSessionLocator) {
+      return ((KeyHashSessionLocator) locator).hashKey(keyBytes);
+    }
+    return -1;
+  }
+
   /**
    * Get session by InetSocketAddress
    * 
@@ -586,6 +683,11 @@ public class MemcachedConnector extends SocketChannelController implements Conne
     this.soLingerOn = true;
     this.commandFactory = commandFactory;
     this.flowControl = new FlowControl(maxQueuedNoReplyOperations);
+    if (configuration.getWriteBudget() != null) {
+      XMemcachedMbeanServer.getInstance().registMBean(configuration.getWriteBudget(),
+          this.getClass().getPackage().getName() + ":type=WriteBudget-"
+              + MemcachedClientNameHolder.getName());
+    }
     this.setSelectorPoolSize(configuration.getSelectorPoolSize());
     // setDispatchMessageThreadPoolSize(Runtime.getRuntime().
     // availableProcessors());
@@ -599,6 +701,10 @@ public class MemcachedConnector extends SocketChannelController implements Conne
     ((OptimizerMBean) this.optimiezer).setMergeFactor(mergeFactor);
   }
 
+  public void setAdaptiveMergeFactor(boolean adaptiveMergeFactor) {
+    ((OptimizerMBean) this.optimiezer).setAdaptiveMergeFactor(adaptiveMergeFactor);
+  }
+
   public FlowControl getNoReplyOpsFlowControl() {
     return this.flowControl;
   }
@@ -611,6 +717,17 @@ public class MemcachedConnector extends SocketChannelController implements Conne
         new MemcachedTCPSession(sessionCofig, this.configuration.getSessionReadBufferSize(),
             this.optimiezer, this.getReadThreadCount(), this.commandFactory);
     session.setBufferAllocator(this.bufferAllocator);
+    session.setWriteThrough(this.configuration.isWriteThrough());
+    if (this.configuration.getWriteBatchDelay() > 0) {
+      session.setWriteBatcher(new WriteBatcher(this.configuration.getWriteBatchDelay(),
+          this.configuration.getWriteBatchMaxBytes(), this.configuration.getWriteBatchMaxMessages(),
+          this.configuration.isWriteBatchAdaptive()));
+    }
+    if (this.configuration.getWriteBudget() != null) {
+      WriteBudget sessionBudget = this.configuration.getWriteBudget().newSessionBudget();
+      ((FlowControlLinkedTransferQueue) queue).setWriteBudget(sessionBudget);
+      session.setWriteBudget(sessionBudget);
+    }
     return session;
   }
 
@@ -628,19 +745,24 @@ public class MemcachedConnector extends SocketChannelController implements Conne
     return this.bufferAllocator;
   }
 
-  public synchronized void quitAllSessions() {
+  public void quitAllSessions() {
     for (Session session : this.sessionSet) {
       ((MemcachedSession) session).quit();
     }
-    int sleepCount = 0;
-    while (sleepCount++ < 5 && this.sessionSet.size() > 0) {
-      try {
-        this.wait(1000);
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
+    this.sessionLock.lock();
+    try {
+      long nanos = TimeUnit.SECONDS.toNanos(5);
+      while (nanos > 0 && this.sessionSet.size() > 0) {
+        try {
+          nanos = this.allSessionsClosed.awaitNanos(nanos);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
       }
+    } finally {
+      this.sessionLock.unlock();
     }
-
   }
 
   public void setFailureMode(boolean failureMode) {
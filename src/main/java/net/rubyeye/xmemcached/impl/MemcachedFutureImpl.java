@@ -0,0 +1,204 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.rubyeye.xmemcached.MemcachedFuture;
+import net.rubyeye.xmemcached.MemcachedFutureListener;
+import net.rubyeye.xmemcached.command.Command;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default MemcachedFuture implementation,it is completed by the command completion callback on the
+ * reactor thread,or by the timeout task.
+ * 
+ * @author dennis
+ * 
+ * @param <T>
+ */
+public class MemcachedFutureImpl<T> implements MemcachedFuture<T> {
+
+  private static final Logger log = LoggerFactory.getLogger(MemcachedFutureImpl.class);
+
+  private static final int PENDING = 0;
+  private static final int SUCCESS = 1;
+  private static final int FAILURE = 2;
+  private static final int CANCELLED = 3;
+
+  private final AtomicInteger state = new AtomicInteger(PENDING);
+  private final CountDownLatch doneLatch = new CountDownLatch(1);
+  private final Queue<MemcachedFutureListener<T>> listeners =
+      new ConcurrentLinkedQueue<MemcachedFutureListener<T>>();
+
+  private volatile T result;
+  private volatile Throwable cause;
+  private volatile Collection<Command> commands;
+  private volatile Future<?> timeoutTask;
+
+  /**
+   * Set the commands of this operation,they will be cancelled when the future is cancelled or timed
+   * out.
+   * 
+   * @param commands
+   */
+  public void setCommands(Collection<Command> commands) {
+    this.commands = commands;
+  }
+
+  public void setCommand(Command command) {
+    Collection<Command> list = new ArrayList<Command>(1);
+    list.add(command);
+    this.commands = list;
+  }
+
+  public Collection<Command> getCommands() {
+    return this.commands;
+  }
+
+  /**
+   * Set the task which will fail this future when timeout,it is cancelled once the future is done.
+   * 
+   * @param timeoutTask
+   */
+  public void setTimeoutTask(Future<?> timeoutTask) {
+    this.timeoutTask = timeoutTask;
+    if (this.isDone()) {
+      timeoutTask.cancel(false);
+    }
+  }
+
+  public boolean setResult(T result) {
+    if (this.state.compareAndSet(PENDING, SUCCESS)) {
+      this.result = result;
+      this.complete();
+      return true;
+    }
+    return false;
+  }
+
+  public boolean setFailure(Throwable cause) {
+    if (this.state.compareAndSet(PENDING, FAILURE)) {
+      this.cause = cause;
+      this.complete();
+      return true;
+    }
+    return false;
+  }
+
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    if (this.state.compareAndSet(PENDING, CANCELLED)) {
+      this.cause = new CancellationException("Operation was cancelled");
+      this.cancelCommands();
+      this.complete();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Cancel all commands which are not sent yet.
+   */
+  public void cancelCommands() {
+    Collection<Command> cmds = this.commands;
+    if (cmds != null) {
+      for (Command cmd : cmds) {
+        cmd.cancel();
+      }
+    }
+  }
+
+  private void complete() {
+    // make the result visible before waking up waiters
+    this.doneLatch.countDown();
+    Future<?> task = this.timeoutTask;
+    if (task != null) {
+      task.cancel(false);
+    }
+    this.notifyListeners();
+  }
+
+  private void notifyListeners() {
+    MemcachedFutureListener<T> listener;
+    // poll is atomic,so every listener is notified exactly once even if addListener races with
+    // completion.
+    while ((listener = this.listeners.poll()) != null) {
+      try {
+        listener.onComplete(this);
+      } catch (Throwable t) {
+        log.error("Notify MemcachedFutureListener error", t);
+      }
+    }
+  }
+
+  public void addListener(MemcachedFutureListener<T> listener) {
+    if (listener == null) {
+      throw new NullPointerException("Null listener");
+    }
+    this.listeners.offer(listener);
+    if (this.isDone()) {
+      this.notifyListeners();
+    }
+  }
+
+  public boolean isCancelled() {
+    return this.state.get() == CANCELLED;
+  }
+
+  public boolean isDone() {
+    return this.state.get() != PENDING && this.doneLatch.getCount() == 0;
+  }
+
+  public boolean isSuccess() {
+    return this.isDone() && this.state.get() == SUCCESS;
+  }
+
+  public Throwable getCause() {
+    return this.isDone() ? this.cause : null;
+  }
+
+  public T getNow() {
+    return this.isDone() ? this.result : null;
+  }
+
+  public T get() throws InterruptedException, ExecutionException {
+    this.doneLatch.await();
+    return this.getResult();
+  }
+
+  public T get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    if (!this.doneLatch.await(timeout, unit)) {
+      throw new TimeoutException("Timed out waiting for operation");
+    }
+    return this.getResult();
+  }
+
+  private T getResult() throws ExecutionException {
+    switch (this.state.get()) {
+      case SUCCESS:
+        return this.result;
+      case CANCELLED:
+        throw (CancellationException) this.cause;
+      default:
+        throw new ExecutionException(this.cause);
+    }
+  }
+
+}
@@ -98,7 +98,7 @@ public class MemcachedHandler extends HandlerAdapter {
     this.enableHeartBeat = enableHeartBeat;
   }
 
-  public static final IoBuffer EMPTY_BUF = IoBuffer.allocate(0);
+  public static final IoBuffer EMPTY_BUF = IoBuffer.wrap(new byte[0]);
 
   /**
    * put command which have been sent to queue
@@ -106,9 +106,19 @@ public class MemcachedHandler extends HandlerAdapter {
   @Override
   public final void onMessageSent(Session session, Object msg) {
     Command command = (Command) msg;
-    command.setStatus(OperationStatus.SENT);
-    // After message sent,we can set the buffer to be null for gc friendly.
+    // After message sent,return the pooled buffers and set the buffer to be empty for gc friendly.
+    command.freeIoBuffers();
     command.setIoBuffer(EMPTY_BUF);
+    if (command instanceof CommandBatch) {
+      for (Command batchCommand : ((CommandBatch) command).getCommands()) {
+        this.onCommandSent(batchCommand);
+      }
+    }
+    this.onCommandSent(command);
+  }
+
+  private void onCommandSent(Command command) {
+    command.setStatus(OperationStatus.SENT);
     switch (command.getCommandType()) {
       case ADD:
       case APPEND:
@@ -11,10 +11,14 @@ package net.rubyeye.xmemcached.impl;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CountDownLatch;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import net.rubyeye.xmemcached.CommandFactory;
 import net.rubyeye.xmemcached.MemcachedOptimizer;
@@ -22,6 +26,7 @@ import net.rubyeye.xmemcached.buffer.BufferAllocator;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.command.OperationStatus;
 import net.rubyeye.xmemcached.exception.MemcachedException;
+import net.rubyeye.xmemcached.monitor.XMemcachedMbeanServer;
 import net.rubyeye.xmemcached.networking.MemcachedSession;
 import net.rubyeye.xmemcached.utils.InetSocketAddressWrapper;
 import net.rubyeye.xmemcached.utils.Protocol;
@@ -29,7 +34,9 @@ import com.google.code.yanf4j.core.WriteMessage;
 import com.google.code.yanf4j.core.impl.FutureImpl;
 import com.google.code.yanf4j.nio.NioSessionConfig;
 import com.google.code.yanf4j.nio.impl.NioTCPSession;
+import com.google.code.yanf4j.nio.impl.WriteBudget;
 import com.google.code.yanf4j.util.LinkedTransferQueue;
+import com.google.code.yanf4j.util.SpscRingQueue;
 import com.google.code.yanf4j.util.SystemUtils;
 
 /**
@@ -40,9 +47,20 @@ import com.google.code.yanf4j.util.SystemUtils;
 public class MemcachedTCPSession extends NioTCPSession implements MemcachedSession {
 
   /**
-   * Command which are already sent
+   * Command which are already sent,indexed by opaque for binary protocol.It's added by the writer
+   * holding write lock and taken by the decoder,or by destroy when the decoder is not taking.
    */
-  protected BlockingQueue<Command> commandAlreadySent;
+  protected Queue<Command> commandAlreadySent;
+
+  private static final int TAKE_IDLE = 0;
+  private static final int TAKE_TAKING = 1;
+  private static final int TAKE_CLOSED = 2;
+
+  /**
+   * Who may consume commandAlreadySent,the decoder while taking,destroy when idle.If the session is
+   * closed while the decoder is taking,the decoder fails the commands left instead.
+   */
+  private final AtomicInteger takeState = new AtomicInteger(TAKE_IDLE);
 
   private final AtomicReference<Command> currentCommand =
       new LinkedTransferQueue.PaddedAtomicReference<Command>(null);
@@ -58,6 +76,16 @@ public class MemcachedTCPSession extends NioTCPSession implements MemcachedSessi
 
   private InetSocketAddressWrapper inetSocketAddressWrapper;
 
+  private final AdaptiveMergeController mergeController;
+
+  private String mergeControllerName;
+
+  private WriteBudget writeBudget;
+
+  private String writeBudgetName;
+
+  private static final AtomicInteger SESSION_COUNTER = new AtomicInteger();
+
   public MemcachedTCPSession(NioSessionConfig sessionConfig, int readRecvBufferSize,
       MemcachedOptimizer optimiezer, int readThreadCount, CommandFactory commandFactory) {
     super(sessionConfig, readRecvBufferSize);
@@ -72,8 +100,167 @@ public class MemcachedTCPSession extends NioTCPSession implements MemcachedSessi
         this.sendBufferSize = 8 * 1024;
       }
     }
-    this.commandAlreadySent = (BlockingQueue<Command>) SystemUtils.createTransferQueue();
     this.commandFactory = commandFactory;
+    if (this.isBinary()) {
+      this.commandAlreadySent = new OpaqueCommandTable();
+    } else {
+      this.commandAlreadySent = new SpscRingQueue<Command>();
+    }
+    if (optimiezer instanceof Optimizer) {
+      this.mergeController = new AdaptiveMergeController(
+          ((Optimizer) optimiezer).getMergeFactor(), this.sendBufferSize);
+    } else {
+      this.mergeController = null;
+    }
+  }
+
+  /**
+   * Returns the controller adjusting merge factor of this session,null if the optimizer doesn't
+   * support it.
+   * 
+   * @since 2.4.3
+   * @return
+   */
+  public AdaptiveMergeController getMergeController() {
+    return this.mergeController;
+  }
+
+  /**
+   * Returns the write budget of this session,null if it's unlimited.
+   * 
+   * @since 2.4.3
+   */
+  public WriteBudget getWriteBudget() {
+    return this.writeBudget;
+  }
+
+  /**
+   * Set the write budget of this session before it's started,commands waiting for responses are
+   * counted by it too.
+   * 
+   * @since 2.4.3
+   */
+  public void setWriteBudget(WriteBudget writeBudget) {
+    this.writeBudget = writeBudget;
+    if (writeBudget != null) {
+      if (this.isBinary()) {
+        this.commandAlreadySent = new OpaqueCommandTable(writeBudget);
+      } else {
+        this.commandAlreadySent = new InflightCommandQueue(writeBudget);
+      }
+    }
+  }
+
+  @Override
+  protected void onStarted() {
+    if (this.getRemoteSocketAddress() != null
+        && (this.mergeController != null || this.writeBudget != null)) {
+      String session = ",session="
+          + SystemUtils.getRawAddress(this.getRemoteSocketAddress()).replace(':', '.') + "_"
+          + this.getRemoteSocketAddress().getPort() + "_" + SESSION_COUNTER.incrementAndGet();
+      String clientName = this.optimiezer instanceof Optimizer
+          ? ((Optimizer) this.optimiezer).getClientName() : null;
+      if (this.mergeController != null) {
+        this.mergeControllerName = this.getClass().getPackage().getName()
+            + ":type=AdaptiveMergeController-" + clientName + session;
+        XMemcachedMbeanServer.getInstance().registMBean(this.mergeController,
+            this.mergeControllerName);
+      }
+      if (this.writeBudget != null) {
+        this.writeBudgetName =
+            this.getClass().getPackage().getName() + ":type=WriteBudget-" + clientName + session;
+        XMemcachedMbeanServer.getInstance().registMBean(this.writeBudget, this.writeBudgetName);
+      }
+    }
+    super.onStarted();
+  }
+
+  @Override
+  protected void onClosed() {
+    if (this.mergeControllerName != null) {
+      XMemcachedMbeanServer.getInstance().unregistMBean(this.mergeControllerName);
+    }
+    if (this.writeBudgetName != null) {
+      XMemcachedMbeanServer.getInstance().unregistMBean(this.writeBudgetName);
+    }
+    super.onClosed();
+  }
+
+  /**
+   * Write the commands as one message,their buffers are written by one gathering write.
+   */
+  @Override
+  public void writeAll(Collection<?> packets) {
+    if (packets.size() <= 1) {
+      super.writeAll(packets);
+      return;
+    }
+    if (this.isClosed()) {
+      return;
+    }
+    final List<Command> commands = new ArrayList<Command>(packets.size());
+    for (Object packet : packets) {
+      commands.add((Command) this.wrapMessage(packet, null));
+    }
+    this.write(new CommandBatch(commands));
+  }
+
+  @Override
+  public void writeFromUserCode(WriteMessage message) {
+    if (this.acquireWriteBudget((Command) message)) {
+      super.writeFromUserCode(message);
+    }
+  }
+
+  @Override
+  protected void writeFromUserCode(List<WriteMessage> messages) {
+    if (this.writeBudget == null) {
+      super.writeFromUserCode(messages);
+      return;
+    }
+    List<WriteMessage> acquired = new ArrayList<WriteMessage>(messages.size());
+    try {
+      for (WriteMessage message : messages) {
+        if (this.acquireWriteBudget((Command) message)) {
+          acquired.add(message);
+        }
+      }
+    } catch (RuntimeException e) {
+      for (WriteMessage message : acquired) {
+        Command command = (Command) message;
+        this.writeBudget.release(command.getWriteBudgetBytes());
+        command.setWriteBudgetBytes(-1);
+      }
+      throw e;
+    }
+    super.writeFromUserCode(acquired);
+  }
+
+  /**
+   * Acquire the write budget for the command,returns false if it's dropped.
+   */
+  private boolean acquireWriteBudget(Command command) {
+    final WriteBudget budget = this.writeBudget;
+    if (budget == null) {
+      return true;
+    }
+    final int bytes = (int) remaining(command);
+    // Never block the reactor,it's the one releasing the budget.
+    boolean acquired;
+    try {
+      acquired = budget.acquire(bytes, command.isNoreply(), !this.isReactorThread());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for write budget", e);
+    }
+    if (acquired) {
+      command.setWriteBudgetBytes(bytes);
+      return true;
+    }
+    command.cancel();
+    command.freeIoBuffers();
+    command.countDownLatch();
+    return false;
   }
 
   public InetSocketAddressWrapper getInetSocketAddressWrapper() {
@@ -102,19 +289,29 @@ public class MemcachedTCPSession extends NioTCPSession implements MemcachedSessi
     Command command = this.currentCommand.get();
     if (command != null) {
       command.setException(new MemcachedException("Session has been closed"));
-      CountDownLatch latch = command.getLatch();
-      if (latch != null) {
-        latch.countDown();
+      command.countDownLatch();
+    }
+    for (;;) {
+      final int state = this.takeState.get();
+      if (state == TAKE_CLOSED) {
+        return;
+      }
+      if (this.takeState.compareAndSet(state, TAKE_CLOSED)) {
+        if (state == TAKE_IDLE) {
+          this.failCommandsAlreadySent();
+        }
+        // else the decoder fails them when it's done taking
+        return;
       }
     }
+  }
+
+  private void failCommandsAlreadySent() {
+    Command command;
     while ((command = this.commandAlreadySent.poll()) != null) {
       command.setException(new MemcachedException("Session has been closed"));
-      CountDownLatch latch = command.getLatch();
-      if (latch != null) {
-        latch.countDown();
-      }
+      command.countDownLatch();
     }
-
   }
 
   @Override
@@ -129,16 +326,27 @@ public class MemcachedTCPSession extends NioTCPSession implements MemcachedSessi
   @Override
   protected WriteMessage preprocessWriteMessage(WriteMessage writeMessage) {
     Command currentCommand = (Command) writeMessage;
+    if (currentCommand instanceof CommandBatch) {
+      return this.preprocessCommandBatch((CommandBatch) currentCommand);
+    }
     // Check if IoBuffer is null
     if (currentCommand.getIoBuffer() == null) {
       currentCommand.encode();
     }
+    boolean adaptive = false;
     if (currentCommand.getStatus() == OperationStatus.SENDING) {
       /**
        * optimize commands
        */
-      currentCommand = this.optimiezer.optimize(currentCommand, this.writeQueue,
-          this.commandAlreadySent, this.sendBufferSize);
+      if (this.mergeController != null && ((Optimizer) this.optimiezer).isAdaptiveMergeFactor()) {
+        adaptive = true;
+        currentCommand = ((Optimizer) this.optimiezer).optimize(currentCommand, this.writeQueue,
+            this.commandAlreadySent, this.mergeController.getMergeFactor(),
+            this.mergeController.getMergeBufferLimit());
+      } else {
+        currentCommand = this.optimiezer.optimize(currentCommand, this.writeQueue,
+            this.commandAlreadySent, this.sendBufferSize);
+      }
     }
 
     currentCommand.setStatus(OperationStatus.WRITING);
@@ -147,10 +355,31 @@ public class MemcachedTCPSession extends NioTCPSession implements MemcachedSessi
       currentCommand.setAdded(true);
       this.addCommand(currentCommand);
     }
+    if (adaptive) {
+      this.mergeController.onWrite(currentCommand, Optimizer.remaining(currentCommand),
+          currentCommand.isAdded() && !currentCommand.isNoreply(), this.writeQueue.peek() != null);
+    }
 
     return currentCommand;
   }
 
+  /**
+   * Add the commands of the batch in order,the batch is neither optimized nor added.
+   */
+  private WriteMessage preprocessCommandBatch(CommandBatch batch) {
+    for (Command command : batch.getCommands()) {
+      command.setStatus(OperationStatus.WRITING);
+      // a binary command's opaques are assigned in its buffers when it's added.
+      if (!command.isAdded()
+          && (!command.isNoreply() || this.commandFactory.getProtocol() == Protocol.Binary)) {
+        command.setAdded(true);
+        this.addCommand(command);
+      }
+    }
+    batch.moveIoBuffers();
+    return batch;
+  }
+
   public boolean isAuthFailed() {
     return this.authFailed;
   }
@@ -179,16 +408,35 @@ public class MemcachedTCPSession extends NioTCPSession implements MemcachedSessi
     return (WriteMessage) msg;
   }
 
+  private boolean isBinary() {
+    return this.commandFactory != null && this.commandFactory.getProtocol() == Protocol.Binary;
+  }
+
   /**
-   * get current command from queue
+   * get the command of the next response from queue without blocking,binary responses are matched
+   * by opaque and unknown ones are skipped.
    * 
    * @return
    */
-  private Command takeExecutingCommand() {
-    try {
-      return this.commandAlreadySent.take();
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
+  private Command takeExecutingCommand(ByteBuffer buffer) {
+    if (!(this.commandAlreadySent instanceof OpaqueCommandTable)) {
+      return this.commandAlreadySent.poll();
+    }
+    final OpaqueCommandTable table = (OpaqueCommandTable) this.commandAlreadySent;
+    while (buffer.remaining() >= 24) {
+      final int position = buffer.position();
+      final int opaque = buffer.getInt(position + 12);
+      final Command command = table.take(opaque);
+      if (command != null) {
+        return command;
+      }
+      final long length = 24 + (buffer.getInt(position + 8) & 0xFFFFFFFFL);
+      if (buffer.remaining() < length) {
+        break;
+      }
+      log.warn("Skip a response with unknown opaque " + opaque + " from "
+          + this.remoteSocketAddress);
+      buffer.position(position + (int) length);
     }
     return null;
   }
@@ -218,8 +466,26 @@ public class MemcachedTCPSession extends NioTCPSession implements MemcachedSessi
     return this.currentCommand.get();
   }
 
-  public void takeCurrentCommand() {
-    this.setCurrentCommand(this.takeExecutingCommand());
+  /**
+   * Take the command to decode the response in buffer as the current command.
+   * 
+   * @param buffer
+   * @since 2.4.3
+   */
+  public void takeCurrentCommand(ByteBuffer buffer) {
+    if (!this.takeState.compareAndSet(TAKE_IDLE, TAKE_TAKING)) {
+      // closed,the commands were failed by destroy
+      this.setCurrentCommand(null);
+      return;
+    }
+    try {
+      this.setCurrentCommand(this.takeExecutingCommand(buffer));
+    } finally {
+      if (!this.takeState.compareAndSet(TAKE_TAKING, TAKE_IDLE)) {
+        // closed while taking
+        this.failCommandsAlreadySent();
+      }
+    }
   }
 
   public void quit() {
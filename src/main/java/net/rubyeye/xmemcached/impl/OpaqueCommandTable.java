@@ -0,0 +1,256 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.impl;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.binary.BaseBinaryCommand;
+import com.google.code.yanf4j.nio.impl.WriteBudget;
+import com.google.code.yanf4j.util.SpscRingQueue;
+
+/**
+ * Commands of a binary protocol session waiting for responses,indexed by opaque.Every request
+ * packet of a command gets an opaque from the session's own sequence when the command is added,in
+ * the order they are written,so a response is matched to its command by opaque instead of by the
+ * order of the commands.A command with many packets,such as a merged get,is found by the opaque of
+ * any of them.
+ * <p>
+ * Quiet commands sent before a response's command are done when the response arrives,they are
+ * taken before that command,so that they are finished the way they were in the sent order.
+ * <p>
+ * Like {@link SpscRingQueue},commands are added by one thread at a time,the writer holding the
+ * session's write lock,and taken by one thread at a time,the decoder.Added commands are passed to
+ * the decoder by a {@link SpscRingQueue} and indexed by it when it takes,so neither side locks.
+ *
+ * @author dennis
+ * @since 2.4.3
+ */
+public class OpaqueCommandTable extends AbstractQueue<Command> {
+
+  private static final int HEADER_LENGTH = 24;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final WriteBudget writeBudget;
+
+  // writer
+  private int nextOpaque;
+  private final SpscRingQueue<Command> added = new SpscRingQueue<Command>(INITIAL_CAPACITY);
+
+  // decoder,slot of opaque is opaque&(slots.length-1),from head(inclusive) to tail(exclusive)
+  private Command[] slots = new Command[INITIAL_CAPACITY];
+  private int head;
+  private int tail;
+  private int size;
+
+  public OpaqueCommandTable() {
+    this(null);
+  }
+
+  /**
+   * @param writeBudget the budget counting commands in the table as in flight,null if there is none
+   */
+  public OpaqueCommandTable(WriteBudget writeBudget) {
+    super();
+    this.writeBudget = writeBudget;
+  }
+
+  /**
+   * Assign opaques to the request packets of the command and add it.
+   */
+  public boolean offer(Command command) {
+    if (command == null) {
+      throw new NullPointerException();
+    }
+    final int first = this.nextOpaque;
+    this.nextOpaque = first + assignOpaques(command, first);
+    if (this.writeBudget != null) {
+      this.writeBudget.incrementInflight();
+    }
+    return this.added.offer(command);
+  }
+
+  /**
+   * Take the command which should decode the response with the opaque:the oldest quiet command sent
+   * before it if there is one,else its own command.
+   *
+   * @param opaque
+   * @return null if no command is waiting for the response
+   */
+  public Command take(int opaque) {
+    this.drainAdded();
+    final int offset = opaque - this.head;
+    if (offset < 0 || offset >= this.tail - this.head) {
+      return null;
+    }
+    final int mask = this.slots.length - 1;
+    final Command command = this.slots[opaque & mask];
+    if (command == null) {
+      return null;
+    }
+    for (int o = this.head; o != opaque; o++) {
+      final Command sent = this.slots[o & mask];
+      if (sent != null && sent != command && sent.isNoreply()) {
+        this.remove(sent, o);
+        return sent;
+      }
+    }
+    this.remove(command, opaque);
+    return command;
+  }
+
+  public Command poll() {
+    this.drainAdded();
+    if (this.size == 0) {
+      return null;
+    }
+    final Command command = this.slots[this.head & (this.slots.length - 1)];
+    this.remove(command, this.head);
+    return command;
+  }
+
+  public Command peek() {
+    this.drainAdded();
+    if (this.size == 0) {
+      return null;
+    }
+    return this.slots[this.head & (this.slots.length - 1)];
+  }
+
+  /**
+   * Returns the number of commands,it's an estimate if called by neither the writer nor the
+   * decoder.
+   */
+  @Override
+  public int size() {
+    return this.size + this.added.size();
+  }
+
+  @Override
+  public Iterator<Command> iterator() {
+    this.drainAdded();
+    final List<Command> commands = new ArrayList<Command>(this.size);
+    final int mask = this.slots.length - 1;
+    Command last = null;
+    for (int o = this.head; o != this.tail; o++) {
+      final Command command = this.slots[o & mask];
+      if (command != null && command != last) {
+        commands.add(command);
+        last = command;
+      }
+    }
+    return commands.iterator();
+  }
+
+  /**
+   * Index the commands added since the last call by their opaques,which are assigned in the same
+   * order.
+   */
+  private void drainAdded() {
+    Command command;
+    while ((command = this.added.poll()) != null) {
+      final int packets = command instanceof BaseBinaryCommand
+          ? ((BaseBinaryCommand) command).getOpaqueCount() : 1;
+      final int first = this.tail;
+      this.ensureCapacity(first - this.head + packets);
+      final int mask = this.slots.length - 1;
+      for (int i = 0; i < packets; i++) {
+        this.slots[(first + i) & mask] = command;
+      }
+      this.tail = first + packets;
+      this.size++;
+    }
+  }
+
+  private void remove(Command command, int opaque) {
+    final int mask = this.slots.length - 1;
+    for (int o = opaque; o != this.head - 1 && this.slots[o & mask] == command; o--) {
+      this.slots[o & mask] = null;
+    }
+    for (int o = opaque + 1; o != this.tail && this.slots[o & mask] == command; o++) {
+      this.slots[o & mask] = null;
+    }
+    while (this.head != this.tail && this.slots[this.head & mask] == null) {
+      this.head++;
+    }
+    this.size--;
+    if (this.writeBudget != null) {
+      this.writeBudget.decrementInflight();
+    }
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= this.slots.length) {
+      return;
+    }
+    int newCapacity = this.slots.length;
+    while (newCapacity < capacity) {
+      newCapacity <<= 1;
+    }
+    final Command[] newSlots = new Command[newCapacity];
+    final int mask = this.slots.length - 1;
+    final int newMask = newCapacity - 1;
+    for (int o = this.head; o != this.tail; o++) {
+      newSlots[o & newMask] = this.slots[o & mask];
+    }
+    this.slots = newSlots;
+  }
+
+  /**
+   * Set opaques of the request packets in the command's buffers from the first one,returns the
+   * number of packets.
+   */
+  static int assignOpaques(Command command, int first) {
+    ByteBuffer[] buffers = command.getWriteBuffers();
+    if (buffers == null) {
+      buffers = new ByteBuffer[] {command.getIoBuffer().buf()};
+    }
+    int packets = 0;
+    int index = 0;
+    int position = buffers.length > 0 ? buffers[0].position() : 0;
+    while (index < buffers.length) {
+      final ByteBuffer buffer = buffers[index];
+      if (position >= buffer.limit()) {
+        if (++index < buffers.length) {
+          position = buffers[index].position();
+        }
+        continue;
+      }
+      if (buffer.limit() - position < HEADER_LENGTH) {
+        // Not a binary request
+        break;
+      }
+      buffer.putInt(position + 12, first + packets);
+      packets++;
+      // skip the packet,its value may be in the next buffers.
+      long skip = HEADER_LENGTH + (buffer.getInt(position + 8) & 0xFFFFFFFFL);
+      while (index < buffers.length && skip >= buffers[index].limit() - position) {
+        skip -= buffers[index].limit() - position;
+        if (++index < buffers.length) {
+          position = buffers[index].position();
+        }
+      }
+      position += (int) skip;
+    }
+    if (!(command instanceof BaseBinaryCommand)) {
+      // The decoder doesn't know its packets,it's found by the first one only.
+      return 1;
+    }
+    if (packets == 0) {
+      // Reserve an opaque for the command anyway.
+      packets = 1;
+    }
+    ((BaseBinaryCommand) command).onOpaquesAssigned(first, packets);
+    return packets;
+  }
+}
@@ -19,6 +19,7 @@ package net.rubyeye.xmemcached.impl;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +31,7 @@ import net.rubyeye.xmemcached.command.AssocCommandAware;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.command.CommandType;
 import net.rubyeye.xmemcached.command.OperationStatus;
+import net.rubyeye.xmemcached.command.ValueSinkAware;
 import net.rubyeye.xmemcached.command.binary.BaseBinaryCommand;
 import net.rubyeye.xmemcached.command.binary.BinaryGetCommand;
 import net.rubyeye.xmemcached.command.binary.BinaryGetMultiCommand;
@@ -41,12 +43,11 @@ import net.rubyeye.xmemcached.monitor.Constants;
 import net.rubyeye.xmemcached.monitor.MemcachedClientNameHolder;
 import net.rubyeye.xmemcached.monitor.XMemcachedMbeanServer;
 import net.rubyeye.xmemcached.utils.ByteUtils;
-import net.rubyeye.xmemcached.utils.OpaqueGenerater;
 import net.rubyeye.xmemcached.utils.Protocol;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.google.code.yanf4j.buffer.IoBuffer;
-import com.google.code.yanf4j.core.impl.FutureImpl;
+import com.google.code.yanf4j.util.ByteBufferUtils;
 
 /**
  * Memcached command optimizer,merge single-get comands to multi-get command,merge ByteBuffers to
@@ -61,8 +62,11 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
   private boolean optimiezeGet = true;
   private final boolean optimiezeSet = true;
   private boolean optimiezeMergeBuffer = true;
+  private volatile boolean adaptiveMergeFactor =
+      Boolean.getBoolean(Constants.XMEMCACHED_ADAPTIVE_MERGE_FACTOR_ENABLE);
   private static final Logger log = LoggerFactory.getLogger(Optimizer.class);
   private Protocol protocol = Protocol.Binary;
+  private final String clientName = MemcachedClientNameHolder.getName();
 
   public Optimizer(Protocol protocol) {
     XMemcachedMbeanServer.getInstance().registMBean(this, this.getClass().getPackage().getName()
@@ -74,6 +78,15 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
 
   }
 
+  /**
+   * Name of the client this optimizer belongs to,used for naming MBeans of its sessions.
+   * 
+   * @since 2.4.3
+   */
+  public String getClientName() {
+    return this.clientName;
+  }
+
   public int getMergeFactor() {
     return this.mergeFactor;
   }
@@ -86,6 +99,16 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
 
   }
 
+  public boolean isAdaptiveMergeFactor() {
+    return this.adaptiveMergeFactor;
+  }
+
+  public void setAdaptiveMergeFactor(boolean adaptiveMergeFactor) {
+    log.warn(
+        adaptiveMergeFactor ? "Enable adaptive merge factor" : "Disable adaptive merge factor");
+    this.adaptiveMergeFactor = adaptiveMergeFactor;
+  }
+
   public boolean isOptimizeGet() {
     return this.optimiezeGet;
   }
@@ -107,12 +130,30 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
   @SuppressWarnings("unchecked")
   public Command optimize(final Command currentCommand, final Queue writeQueue,
       final Queue<Command> executingCmds, int sendBufferSize) {
+    return this.optimize(currentCommand, writeQueue, executingCmds, this.mergeFactor,
+        sendBufferSize);
+  }
+
+  /**
+   * Optimize commands with the given merge factor and merge buffer limit instead of the global
+   * ones,used by sessions which adjust them by an {@link AdaptiveMergeController}.
+   * 
+   * @since 2.4.3
+   * @param currentCommand
+   * @param writeQueue
+   * @param executingCmds
+   * @param mergeFactor max number of commands merged to one
+   * @param mergeBufferLimit max bytes merged to one write
+   * @return
+   */
+  public Command optimize(final Command currentCommand, final Queue<?> writeQueue,
+      final Queue<Command> executingCmds, int mergeFactor, int mergeBufferLimit) {
     Command optimiezeCommand = currentCommand;
-    optimiezeCommand = this.optimiezeGet(writeQueue, executingCmds, optimiezeCommand);
-    optimiezeCommand =
-        this.optimiezeSet(writeQueue, executingCmds, optimiezeCommand, sendBufferSize);
-    optimiezeCommand =
-        this.optimiezeMergeBuffer(optimiezeCommand, writeQueue, executingCmds, sendBufferSize);
+    optimiezeCommand = this.optimiezeGet(writeQueue, executingCmds, optimiezeCommand, mergeFactor);
+    optimiezeCommand = this.optimiezeSet(writeQueue, executingCmds, optimiezeCommand,
+        mergeBufferLimit, mergeFactor);
+    optimiezeCommand = this.optimiezeMergeBuffer(optimiezeCommand, writeQueue, executingCmds,
+        mergeBufferLimit, mergeFactor);
     return optimiezeCommand;
   }
 
@@ -126,13 +167,20 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
   @SuppressWarnings("unchecked")
   public final Command optimiezeMergeBuffer(Command optimiezeCommand, final Queue writeQueue,
       final Queue<Command> executingCmds, int sendBufferSize) {
+    return this.optimiezeMergeBuffer(optimiezeCommand, writeQueue, executingCmds, sendBufferSize,
+        this.mergeFactor);
+  }
+
+  private Command optimiezeMergeBuffer(Command optimiezeCommand, final Queue<?> writeQueue,
+      final Queue<Command> executingCmds, int sendBufferSize, int mergeFactor) {
     if (log.isDebugEnabled()) {
       log.debug("Optimieze merge buffer:" + optimiezeCommand.toString());
     }
     if (this.optimiezeMergeBuffer
-        && optimiezeCommand.getIoBuffer().remaining() < sendBufferSize - 24) {
+        && remaining(optimiezeCommand) < sendBufferSize - 24) {
       optimiezeCommand =
-          this.mergeBuffer(optimiezeCommand, writeQueue, executingCmds, sendBufferSize);
+          this.mergeBuffer(optimiezeCommand, writeQueue, executingCmds, sendBufferSize,
+              mergeFactor);
     }
     return optimiezeCommand;
   }
@@ -148,29 +196,49 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
   @SuppressWarnings("unchecked")
   public final Command optimiezeGet(final Queue writeQueue, final Queue<Command> executingCmds,
       Command optimiezeCommand) {
+    return this.optimiezeGet(writeQueue, executingCmds, optimiezeCommand, this.mergeFactor);
+  }
+
+  private Command optimiezeGet(final Queue<?> writeQueue, final Queue<Command> executingCmds,
+      Command optimiezeCommand, int mergeFactor) {
     if (optimiezeCommand.getCommandType() == CommandType.GET_ONE
         || optimiezeCommand.getCommandType() == CommandType.GETS_ONE) {
       if (this.optimiezeGet) {
         optimiezeCommand = this.mergeGetCommands(optimiezeCommand, writeQueue, executingCmds,
-            optimiezeCommand.getCommandType());
+            optimiezeCommand.getCommandType(), mergeFactor);
       }
     }
     return optimiezeCommand;
   }
 
+  /**
+   * Merge consecutive binary set/add/replace commands of the same type to quiet commands followed
+   * by a normal one.
+   */
   public final Command optimiezeSet(final Queue writeQueue, final Queue<Command> executingCmds,
       Command optimiezeCommand, int sendBufferSize) {
-    if (this.optimiezeSet && optimiezeCommand.getCommandType() == CommandType.SET
+    return this.optimiezeSet(writeQueue, executingCmds, optimiezeCommand, sendBufferSize,
+        this.mergeFactor);
+  }
+
+  private Command optimiezeSet(final Queue<?> writeQueue, final Queue<Command> executingCmds,
+      Command optimiezeCommand, int sendBufferSize, int mergeFactor) {
+    if (this.optimiezeSet && isMergeableStoreCommand(optimiezeCommand.getCommandType())
         && !optimiezeCommand.isNoreply() && this.protocol == Protocol.Binary) {
       optimiezeCommand = this.mergeSetCommands(optimiezeCommand, writeQueue, executingCmds,
-          optimiezeCommand.getCommandType(), sendBufferSize);
+          optimiezeCommand.getCommandType(), sendBufferSize, mergeFactor);
     }
     return optimiezeCommand;
   }
 
+  private static boolean isMergeableStoreCommand(CommandType cmdType) {
+    return cmdType == CommandType.SET || cmdType == CommandType.ADD
+        || cmdType == CommandType.REPLACE;
+  }
+
   @SuppressWarnings("unchecked")
-  private final Command mergeBuffer(final Command firstCommand, final Queue writeQueue,
-      final Queue<Command> executingCmds, final int sendBufferSize) {
+  private final Command mergeBuffer(final Command firstCommand, final Queue<?> writeQueue,
+      final Queue<Command> executingCmds, final int sendBufferSize, final int mergeFactor) {
     Command lastCommand = firstCommand;
     Command nextCmd = (Command) writeQueue.peek();
     if (nextCmd == null) {
@@ -178,11 +246,10 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
     }
 
     final List<Command> commands = this.getLocalList();
-    final ByteBuffer firstBuffer = firstCommand.getIoBuffer().buf();
-    int totalBytes = firstBuffer.remaining();
+    int totalBytes = remaining(firstCommand);
     commands.add(firstCommand);
     boolean wasFirst = true;
-    while (totalBytes + nextCmd.getIoBuffer().remaining() <= sendBufferSize
+    while (totalBytes + remaining(nextCmd) <= sendBufferSize
         && (nextCmd = (Command) writeQueue.peek()) != null) {
       if (nextCmd.getStatus() == OperationStatus.WRITING) {
         break;
@@ -202,34 +269,82 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
       if ((nextCmd.getCommandType() == CommandType.GET_ONE
           || nextCmd.getCommandType() == CommandType.GETS_ONE) && this.optimiezeGet) {
         nextCmd =
-            this.mergeGetCommands(nextCmd, writeQueue, executingCmds, nextCmd.getCommandType());
+            this.mergeGetCommands(nextCmd, writeQueue, executingCmds, nextCmd.getCommandType(),
+                mergeFactor);
       }
 
       commands.add(nextCmd);
       lastCommand = nextCmd;
-      totalBytes += nextCmd.getIoBuffer().remaining();
+      totalBytes += remaining(nextCmd);
       if (totalBytes > sendBufferSize) {
         break;
       }
 
     }
     if (commands.size() > 1) {
-      byte[] buf = new byte[totalBytes];
-      int offset = 0;
+      // Write the buffers by one gathering write instead of copying them into a merged buffer.
+      final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(commands.size());
       for (Command command : commands) {
-        byte[] ba = command.getIoBuffer().array();
-        System.arraycopy(ba, 0, buf, offset, ba.length);
-        offset += ba.length;
-        if (command != lastCommand
-            && (!command.isNoreply() || command instanceof BaseBinaryCommand)) {
+        // Add all commands in the sent order before moving their buffers,a binary command's
+        // opaques are assigned when it's added.
+        if (!command.isAdded() && (!command.isNoreply() || command instanceof BaseBinaryCommand)) {
+          command.setAdded(true);
           executingCmds.add(command);
         }
+        addWriteBuffers(buffers, command);
+        if (command != lastCommand) {
+          // The last command is the one sent,it frees the buffers of the others after written.
+          moveIoBuffers(command, lastCommand);
+        }
       }
-      lastCommand.setIoBuffer(IoBuffer.wrap(buf));
+      lastCommand.setWriteBuffers(buffers.toArray(new ByteBuffer[buffers.size()]));
     }
     return lastCommand;
   }
 
+  private static void addWriteBuffers(final List<ByteBuffer> buffers, final Command command) {
+    final ByteBuffer[] writeBuffers = command.getWriteBuffers();
+    if (writeBuffers != null) {
+      for (ByteBuffer writeBuffer : writeBuffers) {
+        buffers.add(writeBuffer);
+      }
+    } else {
+      buffers.add(command.getIoBuffer().buf());
+    }
+  }
+
+  private static void moveIoBuffers(final Command from, final Command to) {
+    to.addMergedIoBuffer(from.getIoBuffer());
+    if (from.getMergedIoBuffers() != null) {
+      for (IoBuffer buffer : from.getMergedIoBuffers()) {
+        to.addMergedIoBuffer(buffer);
+      }
+    }
+    from.setIoBuffer(MemcachedHandler.EMPTY_BUF);
+    from.setWriteBuffers(null);
+  }
+
+  static int remaining(final Command command) {
+    final ByteBuffer[] writeBuffers = command.getWriteBuffers();
+    if (writeBuffers == null) {
+      return command.getIoBuffer().remaining();
+    }
+    return ByteBufferUtils.remaining(writeBuffers);
+  }
+
+  /**
+   * Set collected buffers to the merged command for gathering write.
+   */
+  private static void setWriteBuffers(final List<ByteBuffer> bufferList,
+      final List<IoBuffer> ioBufferList, final Command mergedCommand) {
+    final ByteBuffer[] buffers = bufferList.toArray(new ByteBuffer[bufferList.size()]);
+    mergedCommand.setIoBuffer(IoBuffer.wrap(buffers[buffers.length - 1]));
+    mergedCommand.setWriteBuffers(buffers);
+    for (IoBuffer ioBuffer : ioBufferList) {
+      mergedCommand.addMergedIoBuffer(ioBuffer);
+    }
+  }
+
   private final ThreadLocal<List<Command>> threadLocal = new ThreadLocal<List<Command>>() {
 
     @Override
@@ -312,30 +427,23 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
   }
 
   private static class BinarySetQCollector implements CommandCollector {
-    ArrayList<IoBuffer> bufferList = new ArrayList<IoBuffer>();
-    int totalBytes;
+    ArrayList<ByteBuffer> bufferList = new ArrayList<ByteBuffer>();
+    ArrayList<IoBuffer> ioBufferList = new ArrayList<IoBuffer>();
     BinaryStoreCommand prevCommand;
     Map<Object, Command> mergeCommands;
 
     public CommandCollector reset() {
       this.bufferList.clear();
-      this.totalBytes = 0;
+      this.ioBufferList.clear();
       this.prevCommand = null;
       this.mergeCommands = null;
       return this;
     }
 
     public Object getResult() {
-      byte[] buf = new byte[this.totalBytes];
-      int offset = 0;
-      for (IoBuffer buffer : this.bufferList) {
-        byte[] ba = buffer.array();
-        System.arraycopy(ba, 0, buf, offset, ba.length);
-        offset += ba.length;
-      }
       BinarySetMultiCommand resultCommand =
           new BinarySetMultiCommand(null, CommandType.SET_MANY, new CountDownLatch(1));
-      resultCommand.setIoBuffer(IoBuffer.wrap(buf));
+      setWriteBuffers(this.bufferList, this.ioBufferList, resultCommand);
       resultCommand.setMergeCommands(this.mergeCommands);
       resultCommand.setMergeCount(this.mergeCommands.size());
       return resultCommand;
@@ -345,26 +453,27 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
 
       // Encode prev command
       if (this.prevCommand != null) {
-        // first n-1 send setq command
-        BinaryStoreCommand setqCmd =
-            new BinaryStoreCommand(this.prevCommand.getKey(), this.prevCommand.getKeyBytes(),
-                CommandType.SET, null, this.prevCommand.getExpTime(), this.prevCommand.getCas(),
-                // set noreply to be true
-                this.prevCommand.getValue(), true, this.prevCommand.getTranscoder());
-        // We must set the opaque to get error message.
-        int opaque = OpaqueGenerater.getInstance().getNextValue();
+        // first n-1 send setq(addq,replaceq) command
+        BinaryStoreCommand setqCmd = this.copyPrevCommand(true);
+        // We must remember the opaque to get error message,packets are numbered in order and
+        // renumbered by the session when written.
+        int opaque = this.mergeCommands == null ? 0 : this.mergeCommands.size();
         setqCmd.setOpaque(opaque);
         setqCmd.encode();
-        this.totalBytes += setqCmd.getIoBuffer().remaining();
 
-        this.bufferList.add(setqCmd.getIoBuffer());
+        addWriteBuffers(this.bufferList, setqCmd);
+        this.ioBufferList.add(setqCmd.getIoBuffer());
         // GC friendly
         setqCmd.setIoBuffer(MemcachedHandler.EMPTY_BUF);
+        setqCmd.setWriteBuffers(null);
         setqCmd.setValue(null);
         this.prevCommand.setValue(null);
+        // The buffer of the previous command is never written.
+        this.prevCommand.getIoBuffer().free();
         this.prevCommand.setIoBuffer(MemcachedHandler.EMPTY_BUF);
+        this.prevCommand.setWriteBuffers(null);
         if (this.mergeCommands == null) {
-          this.mergeCommands = new HashMap<Object, Command>();
+          this.mergeCommands = new LinkedHashMap<Object, Command>();
         }
         this.mergeCommands.put(opaque, this.prevCommand);
       }
@@ -375,50 +484,46 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
       if (this.mergeCommands == null) {
         return;
       }
-      // prevCommand is the last command,last command must be a SET
+      // prevCommand is the last command,last command must be a SET(ADD,REPLACE)
       // command,ensure
-      // previous SETQ commands sending response back
-      BinaryStoreCommand setqCmd =
-          new BinaryStoreCommand(this.prevCommand.getKey(), this.prevCommand.getKeyBytes(),
-              CommandType.SET, null, this.prevCommand.getExpTime(), this.prevCommand.getCas(),
-              // set noreply to be false.
-              this.prevCommand.getValue(), false, this.prevCommand.getTranscoder());
+      // previous quiet commands sending response back
+      BinaryStoreCommand setqCmd = this.copyPrevCommand(false);
       // We must set the opaque to get error message.
-      int opaque = OpaqueGenerater.getInstance().getNextValue();
+      int opaque = this.mergeCommands.size();
       setqCmd.setOpaque(opaque);
       setqCmd.encode();
-      this.bufferList.add(setqCmd.getIoBuffer());
-      this.totalBytes += setqCmd.getIoBuffer().remaining();
+      addWriteBuffers(this.bufferList, setqCmd);
+      this.ioBufferList.add(setqCmd.getIoBuffer());
       if (this.mergeCommands != null) {
         this.mergeCommands.put(opaque, this.prevCommand);
       }
     }
 
+    private BinaryStoreCommand copyPrevCommand(boolean noreply) {
+      return new BinaryStoreCommand(this.prevCommand.getKey(), this.prevCommand.getKeyBytes(),
+          this.prevCommand.getCommandType(), null, this.prevCommand.getExpTime(),
+          this.prevCommand.getCas(), this.prevCommand.getValue(), noreply,
+          this.prevCommand.getTranscoder());
+    }
+
   }
 
   private static class BinaryGetQCollector implements CommandCollector {
-    ArrayList<IoBuffer> bufferList = new ArrayList<IoBuffer>(50);
-    int totalBytes;
+    ArrayList<ByteBuffer> bufferList = new ArrayList<ByteBuffer>(50);
+    ArrayList<IoBuffer> ioBufferList = new ArrayList<IoBuffer>(50);
     Command prevCommand;
 
     public CommandCollector reset() {
       this.bufferList.clear();
-      this.totalBytes = 0;
+      this.ioBufferList.clear();
       this.prevCommand = null;
       return this;
     }
 
     public Object getResult() {
-      byte[] buf = new byte[this.totalBytes];
-      int offset = 0;
-      for (IoBuffer buffer : this.bufferList) {
-        byte[] ba = buffer.array();
-        System.arraycopy(ba, 0, buf, offset, ba.length);
-        offset += ba.length;
-      }
       BinaryGetMultiCommand resultCommand =
           new BinaryGetMultiCommand(null, CommandType.GET_MANY, new CountDownLatch(1));
-      resultCommand.setIoBuffer(IoBuffer.wrap(buf));
+      setWriteBuffers(this.bufferList, this.ioBufferList, resultCommand);
       return resultCommand;
     }
 
@@ -429,8 +534,8 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
         Command getqCommand = new BinaryGetCommand(this.prevCommand.getKey(),
             this.prevCommand.getKeyBytes(), null, null, OpCode.GET_KEY_QUIETLY, true);
         getqCommand.encode();
-        this.totalBytes += getqCommand.getIoBuffer().remaining();
-        this.bufferList.add(getqCommand.getIoBuffer());
+        addWriteBuffers(this.bufferList, getqCommand);
+        this.ioBufferList.add(getqCommand.getIoBuffer());
       }
       this.prevCommand = command;
     }
@@ -442,22 +547,26 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
           new BinaryGetCommand(this.prevCommand.getKey(), this.prevCommand.getKeyBytes(),
               CommandType.GET_ONE, new CountDownLatch(1), OpCode.GET_KEY, false);
       lastGetKCommand.encode();
-      this.bufferList.add(lastGetKCommand.getIoBuffer());
-      this.totalBytes += lastGetKCommand.getIoBuffer().remaining();
+      addWriteBuffers(this.bufferList, lastGetKCommand);
+      this.ioBufferList.add(lastGetKCommand.getIoBuffer());
     }
 
   }
 
   @SuppressWarnings("unchecked")
   private final Command mergeGetCommands(final Command currentCmd, final Queue writeQueue,
-      final Queue<Command> executingCmds, CommandType expectedCommandType) {
+      final Queue<Command> executingCmds, CommandType expectedCommandType, int mergeFactor) {
     Map<Object, Command> mergeCommands = null;
     int mergeCount = 1;
+    if (hasValueSink(currentCmd)) {
+      currentCmd.setStatus(OperationStatus.WRITING);
+      return currentCmd;
+    }
     final CommandCollector commandCollector = this.createGetCommandCollector();
     currentCmd.setStatus(OperationStatus.WRITING);
 
     commandCollector.visit(currentCmd);
-    while (mergeCount < this.mergeFactor) {
+    while (mergeCount < mergeFactor) {
       Command nextCmd = (Command) writeQueue.peek();
       if (nextCmd == null) {
         break;
@@ -466,9 +575,9 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
         writeQueue.remove();
         continue;
       }
-      if (nextCmd.getCommandType() == expectedCommandType) {
+      if (nextCmd.getCommandType() == expectedCommandType && !hasValueSink(nextCmd)) {
         if (mergeCommands == null) { // lazy initialize
-          mergeCommands = new HashMap<Object, Command>(this.mergeFactor / 2);
+          mergeCommands = new HashMap<Object, Command>(mergeFactor / 2);
           mergeCommands.put(currentCmd.getKey(), currentCmd);
         }
         if (log.isDebugEnabled()) {
@@ -505,6 +614,13 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
     }
   }
 
+  /**
+   * Gets streaming to a value sink are sent alone,their values must not be copied by a merged get.
+   */
+  private static boolean hasValueSink(Command command) {
+    return command instanceof ValueSinkAware && ((ValueSinkAware) command).getValueSink() != null;
+  }
+
   private static final ThreadLocal<BinarySetQCollector> BIN_SET_CMD_COLLECTOR_THREAD_LOCAL =
       new ThreadLocal<Optimizer.BinarySetQCollector>() {
 
@@ -516,13 +632,14 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
       };
 
   private final Command mergeSetCommands(final Command currentCmd, final Queue writeQueue,
-      final Queue<Command> executingCmds, CommandType expectedCommandType, int sendBufferSize) {
+      final Queue<Command> executingCmds, CommandType expectedCommandType, int sendBufferSize,
+      int mergeFactor) {
     int mergeCount = 1;
     final CommandCollector commandCollector = BIN_SET_CMD_COLLECTOR_THREAD_LOCAL.get().reset();
     currentCmd.setStatus(OperationStatus.WRITING);
-    int totalBytes = currentCmd.getIoBuffer().remaining();
+    int totalBytes = remaining(currentCmd);
     commandCollector.visit(currentCmd);
-    while (mergeCount < this.mergeFactor && totalBytes <= sendBufferSize) {
+    while (mergeCount < mergeFactor && totalBytes <= sendBufferSize) {
       Command nextCmd = (Command) writeQueue.peek();
       if (nextCmd == null) {
         break;
@@ -544,7 +661,7 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
       } else {
         break;
       }
-      totalBytes += nextCmd.getIoBuffer().remaining();
+      totalBytes += remaining(nextCmd);
     }
     if (mergeCount == 1) {
       return currentCmd;
@@ -593,7 +710,6 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
       ByteUtils.setArguments(buf, 0, cmdBytes, keyBytes);
       TextGetOneCommand cmd = new TextGetOneCommand(resultKey, keyBytes, commandType, null);
       cmd.setMergeCommands(mergeCommands);
-      cmd.setWriteFuture(new FutureImpl<Boolean>());
       cmd.setMergeCount(mergeCount);
       cmd.setIoBuffer(IoBuffer.wrap(buf));
       return cmd;
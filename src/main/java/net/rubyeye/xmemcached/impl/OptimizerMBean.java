@@ -35,4 +35,18 @@ public interface OptimizerMBean {
 
   public void setOptimizeMergeBuffer(boolean optimiezeMergeBuffer);
 
+  /**
+   * Whether each session adjusts its own merge factor and merge buffer limit
+   * 
+   * @since 2.4.3
+   */
+  public boolean isAdaptiveMergeFactor();
+
+  /**
+   * Enable or disable adaptive merge factor,see {@link AdaptiveMergeController}
+   * 
+   * @since 2.4.3
+   */
+  public void setAdaptiveMergeFactor(boolean adaptiveMergeFactor);
+
 }
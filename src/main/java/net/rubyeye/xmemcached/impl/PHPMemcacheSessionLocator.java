@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import net.rubyeye.xmemcached.HashAlgorithm;
+import net.rubyeye.xmemcached.KeyHashSessionLocator;
 import net.rubyeye.xmemcached.networking.MemcachedSession;
 import com.google.code.yanf4j.core.Session;
 
@@ -22,7 +23,8 @@ import com.google.code.yanf4j.core.Session;
  * @author aravind
  * 
  */
-public class PHPMemcacheSessionLocator extends AbstractMemcachedSessionLocator {
+public class PHPMemcacheSessionLocator extends AbstractMemcachedSessionLocator
+    implements KeyHashSessionLocator {
 
   private HashAlgorithm hashAlgorithm;
   private transient volatile List<Session> sessions;
@@ -40,12 +42,23 @@ public class PHPMemcacheSessionLocator extends AbstractMemcachedSessionLocator {
   }
 
   public final long getHash(int size, String key) {
-    long hash = this.hashAlgorithm.hash(key);
+    return this.getIndex(size, this.hashAlgorithm.hash(key));
+  }
+
+  private long getIndex(int size, long hash) {
     hash = (hash >> 16) & 0x7fff;
     return hash % size;
   }
 
+  public final long hashKey(final byte[] keyBytes) {
+    return this.hashAlgorithm.hash(keyBytes);
+  }
+
   public final Session getSessionByKey(final String key) {
+    return this.getSessionByKey(key, this.hashAlgorithm.hash(key));
+  }
+
+  public final Session getSessionByKey(final String key, final long keyHash) {
     if (this.sessions == null || this.sessions.size() == 0) {
       return null;
     }
@@ -55,7 +68,7 @@ public class PHPMemcacheSessionLocator extends AbstractMemcachedSessionLocator {
     if (size == 0) {
       return null;
     }
-    long start = this.getHash(size, key);
+    long start = this.getIndex(size, keyHash);
     Session session = sessionList.get((int) start);
     // If it is not failure mode,get next available session
     if (!this.failureMode && (session == null || session.isClosed())) {
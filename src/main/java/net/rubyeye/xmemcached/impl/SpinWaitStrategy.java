@@ -0,0 +1,110 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import net.rubyeye.xmemcached.WaitStrategies;
+import net.rubyeye.xmemcached.WaitStrategy;
+import net.rubyeye.xmemcached.command.Command;
+
+/**
+ * Wait strategy spinning or yielding for a while before parking,see
+ * {@link WaitStrategies#spinThenPark(long, TimeUnit)} and
+ * {@link WaitStrategies#yieldThenPark(long, TimeUnit)}.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public final class SpinWaitStrategy implements WaitStrategy, SpinWaitStrategyMBean {
+  private volatile long spinNanos;
+  private final boolean yield;
+
+  private final AtomicLong waitCount = new AtomicLong();
+  private final AtomicLong spinCompletedCount = new AtomicLong();
+  private final AtomicLong parkCount = new AtomicLong();
+
+  public SpinWaitStrategy(long spinNanos, boolean yield) {
+    if (spinNanos < 0) {
+      throw new IllegalArgumentException("spinNanos<0");
+    }
+    this.spinNanos = spinNanos;
+    this.yield = yield;
+  }
+
+  public boolean await(Command command, long timeout, TimeUnit unit) throws InterruptedException {
+    this.waitCount.incrementAndGet();
+    if (command.isCompleted()) {
+      this.spinCompletedCount.incrementAndGet();
+      return true;
+    }
+    final long timeoutNanos = unit.toNanos(timeout);
+    final long spinNanos = Math.min(this.spinNanos, timeoutNanos);
+    final long start = System.nanoTime();
+    long elapsed = 0;
+    while (elapsed < spinNanos) {
+      if (this.yield) {
+        Thread.yield();
+      }
+      if (command.isCompleted()) {
+        this.spinCompletedCount.incrementAndGet();
+        return true;
+      }
+      elapsed = System.nanoTime() - start;
+    }
+    this.parkCount.incrementAndGet();
+    return command.await(timeoutNanos - elapsed, TimeUnit.NANOSECONDS);
+  }
+
+  public long getSpinTime() {
+    return TimeUnit.NANOSECONDS.toMicros(this.spinNanos);
+  }
+
+  public void setSpinTime(long spinTime) {
+    if (spinTime < 0) {
+      throw new IllegalArgumentException("spinTime<0");
+    }
+    this.spinNanos = TimeUnit.MICROSECONDS.toNanos(spinTime);
+  }
+
+  public boolean isYield() {
+    return this.yield;
+  }
+
+  public long getWaitCount() {
+    return this.waitCount.get();
+  }
+
+  public long getSpinCompletedCount() {
+    return this.spinCompletedCount.get();
+  }
+
+  public long getParkCount() {
+    return this.parkCount.get();
+  }
+
+  public int getSpinCompletedPercent() {
+    long waits = this.waitCount.get();
+    if (waits == 0) {
+      return 0;
+    }
+    return (int) (this.spinCompletedCount.get() * 100 / waits);
+  }
+
+  public void resetStatistics() {
+    this.waitCount.set(0);
+    this.spinCompletedCount.set(0);
+    this.parkCount.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "SpinWaitStrategy [spinTime=" + this.getSpinTime() + "us, yield=" + this.yield + "]";
+  }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright [2009-2010] [dennis zhuang(killme2008@gmail.com)] Licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License
+ */
+package net.rubyeye.xmemcached.impl;
+
+/**
+ * SpinWaitStrategyMBean,exports how often the spin phase of a wait succeeds.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public interface SpinWaitStrategyMBean {
+  /**
+   * Spin time in microseconds before parking
+   */
+  public long getSpinTime();
+
+  public void setSpinTime(long spinTime);
+
+  public boolean isYield();
+
+  /**
+   * Number of waits,including the ones completed before waiting
+   */
+  public long getWaitCount();
+
+  /**
+   * Number of waits completed while spinning or before waiting
+   */
+  public long getSpinCompletedCount();
+
+  /**
+   * Number of waits which parked after spinning
+   */
+  public long getParkCount();
+
+  /**
+   * Percent of waits completed without parking
+   */
+  public int getSpinCompletedPercent();
+
+  public void resetStatistics();
+}
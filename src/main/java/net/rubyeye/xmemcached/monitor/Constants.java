@@ -44,6 +44,24 @@ public class Constants {
    * Whether to enable jmx supports
    */
   public static final String XMEMCACHED_JMX_ENABLE = "xmemcached.jmx.enable";
+  /**
+   * Whether to allocate command buffers from a thread-safe pool,they are returned after sent.It's
+   * read once when XMemcachedClient is loaded and installs the pool by
+   * IoBuffer.setAllocator,which is JVM-global:every IoBuffer of the JVM,including the ones of other
+   * yanf4j users,is allocated from the pool.
+   */
+  public static final String XMEMCACHED_BUFFER_POOL_ENABLE = "xmemcached.buffer_pool.enable";
+  /**
+   * Whether to allocate command and read buffers as pooled direct buffers.Like
+   * {@link #XMEMCACHED_BUFFER_POOL_ENABLE},it's read once when XMemcachedClient is loaded and is
+   * JVM-global,it installs the pool and makes IoBuffer allocate direct buffers by default.
+   */
+  public static final String XMEMCACHED_DIRECT_BUFFER_ENABLE = "xmemcached.direct_buffer.enable";
+  /**
+   * Whether to adjust merge factor and merge buffer limit per session by observed load
+   */
+  public static final String XMEMCACHED_ADAPTIVE_MERGE_FACTOR_ENABLE =
+      "xmemcached.adaptive_merge_factor.enable";
   public static final byte[] CRLF = {'\r', '\n'};
   public static final byte[] GET = {'g', 'e', 't'};
   public static final byte[] GETS = {'g', 'e', 't', 's'};
@@ -57,6 +75,12 @@ public class Constants {
    */
   public static final int MAX_SESSION_READ_BUFFER_SIZE = 768 * 1024;
   public static final byte[] NO_REPLY = {'n', 'o', 'r', 'e', 'p', 'l', 'y'};
+  /**
+   * Store commands write values at least this size from the values' own buffers by gathering
+   * write,instead of copying them into the command buffer,4k by default.
+   */
+  public static final int SEPARATE_VALUE_BUFFER_THRESHOLD =
+      Integer.getInteger("xmemcached.separate_value_buffer.threshold", 4 * 1024);
   /**
    * Client instance counter
    */
@@ -175,4 +175,22 @@ public final class XMemcachedMbeanServer {
       }
     }
   }
+
+  /**
+   * Unregister the MBean if it is registered
+   * 
+   * @since 2.4.3
+   * @param name
+   */
+  public void unregistMBean(String name) {
+    if (mbserver != null) {
+      try {
+        if (mbserver.isRegistered(new ObjectName(name))) {
+          mbserver.unregisterMBean(new ObjectName(name));
+        }
+      } catch (Exception e) {
+        log.warn("Unregister MBean " + name + " error", e);
+      }
+    }
+  }
 }
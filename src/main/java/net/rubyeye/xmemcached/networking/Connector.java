@@ -45,6 +45,13 @@ public interface Connector extends Controller {
 
   public void setMergeFactor(int factor);
 
+  /**
+   * Whether to adjust merge factor of each session by its load
+   * 
+   * @since 2.4.3
+   */
+  public void setAdaptiveMergeFactor(boolean adaptiveMergeFactor);
+
   public void setOptimizeGet(boolean optimizeGet);
 
   public void removeSession(Session session);
@@ -61,6 +68,17 @@ public interface Connector extends Controller {
 
   public Session send(Command packet) throws MemcachedException;
 
+  /**
+   * Send a batch of commands,commands to the same session are queued as one write message and
+   * written by one gathering write.
+   * 
+   * @since 2.4.3
+   * @param packets
+   * @return the sessions which the commands were sent to,in the same order as the commands.
+   * @throws MemcachedException if any command has no available session,then nothing is sent.
+   */
+  public List<Session> send(List<Command> packets) throws MemcachedException;
+
   public void setConnectionPoolSize(int connectionPoolSize);
 
   public void setBufferAllocator(BufferAllocator bufferAllocator);
@@ -0,0 +1,46 @@
+package net.rubyeye.xmemcached.transcoders;
+
+/**
+ * Transcoder passing CachedData through as it is,for applications managing the encoding of values
+ * by themselves.The flags and bytes of CachedData are stored and returned without compression or
+ * serialization,so the setters have no effect.
+ * 
+ * @author dennis
+ * @since 2.4.3
+ */
+public final class CachedDataTranscoder implements Transcoder<CachedData> {
+
+  public static final CachedDataTranscoder INSTANCE = new CachedDataTranscoder();
+
+  public CachedData encode(CachedData o) {
+    return o;
+  }
+
+  public CachedData decode(CachedData d) {
+    return d;
+  }
+
+  public void setPrimitiveAsString(boolean primitiveAsString) {
+
+  }
+
+  public void setPackZeros(boolean packZeros) {
+
+  }
+
+  public void setCompressionThreshold(int to) {
+
+  }
+
+  public boolean isPrimitiveAsString() {
+    return false;
+  }
+
+  public boolean isPackZeros() {
+    return false;
+  }
+
+  public void setCompressionMode(CompressionMode compressMode) {
+
+  }
+}
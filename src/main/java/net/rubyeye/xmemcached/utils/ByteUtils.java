@@ -14,7 +14,7 @@ import java.nio.charset.Charset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.google.code.yanf4j.buffer.IoBuffer;
-import net.rubyeye.xmemcached.codec.MemcachedDecoder;
+import com.google.code.yanf4j.util.ByteBufferScanner;
 import net.rubyeye.xmemcached.monitor.Constants;
 
 /**
@@ -259,8 +259,7 @@ public final class ByteUtils {
       return null;
     }
 
-    int index = MemcachedDecoder.SPLIT_MATCHER
-        .matchFirst(com.google.code.yanf4j.buffer.IoBuffer.wrap(buffer));
+    int index = ByteBufferScanner.indexOfCRLF(buffer, buffer.position(), buffer.limit());
     if (index >= 0) {
       int limit = buffer.limit();
       buffer.limit(index);
@@ -274,6 +273,63 @@ public final class ByteUtils {
     return null;
   }
 
+  /**
+   * Parse a decimal long from the buffer's bytes in [from,to) without decoding them to a string,it
+   * accepts what Long.parseLong accepts for ascii digits.
+   * 
+   * @since 2.4.3
+   * @throws NumberFormatException if the bytes are not a valid long
+   */
+  public static final long parseLong(ByteBuffer buffer, int from, int to) {
+    int i = from;
+    boolean negative = false;
+    if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+      negative = buffer.get(i) == '-';
+      i++;
+    }
+    if (i >= to) {
+      throw numberFormatException(buffer, from, to);
+    }
+    // Accumulate negatively to be able to parse Long.MIN_VALUE
+    final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    final long multmin = limit / 10;
+    long result = 0;
+    for (; i < to; i++) {
+      final int digit = buffer.get(i) - '0';
+      if (digit < 0 || digit > 9 || result < multmin) {
+        throw numberFormatException(buffer, from, to);
+      }
+      result *= 10;
+      if (result < limit + digit) {
+        throw numberFormatException(buffer, from, to);
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+
+  /**
+   * Parse a decimal int from the buffer's bytes in [from,to) without decoding them to a string.
+   * 
+   * @since 2.4.3
+   * @throws NumberFormatException if the bytes are not a valid int
+   */
+  public static final int parseInt(ByteBuffer buffer, int from, int to) {
+    final long result = parseLong(buffer, from, to);
+    if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE) {
+      throw numberFormatException(buffer, from, to);
+    }
+    return (int) result;
+  }
+
+  private static NumberFormatException numberFormatException(ByteBuffer buffer, int from, int to) {
+    byte[] bytes = new byte[to - from];
+    for (int i = from; i < to; i++) {
+      bytes[i - from] = buffer.get(i);
+    }
+    return new NumberFormatException("For input string: \"" + getString(bytes) + "\"");
+  }
+
   public static String getString(byte[] bytes) {
     try {
       return new String(bytes, DEFAULT_CHARSET_NAME);
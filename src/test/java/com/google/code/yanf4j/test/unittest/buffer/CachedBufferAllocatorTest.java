@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.code.yanf4j.test.unittest.buffer;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import com.google.code.yanf4j.buffer.CachedBufferAllocator;
+import com.google.code.yanf4j.buffer.IoBuffer;
+import com.google.code.yanf4j.buffer.IoBufferAllocator;
+
+/**
+ * Tests {@link CachedBufferAllocator}.
+ */
+public class CachedBufferAllocatorTest {
+
+  @Test
+  public void testRecycleDirectBuffer() throws Exception {
+    CachedBufferAllocator allocator = new CachedBufferAllocator();
+    IoBuffer buf = allocator.allocate(100, true);
+    assertTrue(buf.isDirect());
+    assertEquals(100, buf.limit());
+    assertEquals(128, buf.capacity());
+    ByteBuffer nioBuffer = buf.buf();
+    buf.free();
+
+    IoBuffer recycled = allocator.allocate(120, true);
+    assertSame(nioBuffer, recycled.buf());
+    assertEquals(0, recycled.position());
+    assertEquals(120, recycled.limit());
+    // heap and direct buffers are pooled separately
+    assertNotSame(nioBuffer, allocator.allocate(120, false).buf());
+  }
+
+  @Test
+  public void testWrappedBufferIsNotRecycled() throws Exception {
+    CachedBufferAllocator allocator = new CachedBufferAllocator();
+    ByteBuffer shared = ByteBuffer.allocateDirect(128);
+    IoBuffer buf = allocator.wrap(shared);
+    buf.free();
+    // still usable after free
+    assertSame(shared, buf.buf());
+    buf.free();
+    assertNotSame(shared, allocator.allocate(128, true).buf());
+  }
+
+  @Test
+  public void testAllocateKeepsDefaultAllocator() throws Exception {
+    IoBufferAllocator defaultAllocator = IoBuffer.getAllocator();
+    CachedBufferAllocator allocator = new CachedBufferAllocator();
+    IoBuffer buf = allocator.allocate(100, true);
+    allocator.allocate(10, false).duplicate();
+    assertSame(defaultAllocator, IoBuffer.getAllocator());
+    // expanding reallocates from the buffer's own allocator
+    buf.setAutoExpand(true);
+    buf.position(100);
+    buf.put(new byte[100]);
+    assertTrue(buf.capacity() >= 200);
+    assertSame(defaultAllocator, IoBuffer.getAllocator());
+  }
+}
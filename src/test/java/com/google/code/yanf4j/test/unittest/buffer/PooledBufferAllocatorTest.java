@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.code.yanf4j.test.unittest.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import com.google.code.yanf4j.buffer.IoBuffer;
+import com.google.code.yanf4j.buffer.IoBufferAllocator;
+import com.google.code.yanf4j.buffer.PooledBufferAllocator;
+
+/**
+ * Tests {@link PooledBufferAllocator}.
+ */
+public class PooledBufferAllocatorTest {
+
+  @Test
+  public void testAllocate() throws Exception {
+    PooledBufferAllocator allocator = new PooledBufferAllocator();
+    IoBuffer buf = allocator.allocate(100, false);
+    assertFalse(buf.isDirect());
+    assertEquals(0, buf.position());
+    assertEquals(100, buf.limit());
+    assertEquals(128, buf.capacity());
+    assertTrue(allocator.allocate(100, true).isDirect());
+  }
+
+  @Test
+  public void testAllocateKeepsDefaultAllocator() throws Exception {
+    IoBufferAllocator defaultAllocator = IoBuffer.getAllocator();
+    PooledBufferAllocator allocator = new PooledBufferAllocator();
+    IoBuffer buf = allocator.allocate(100, false);
+    allocator.wrap(ByteBuffer.allocate(10)).slice();
+    assertSame(defaultAllocator, IoBuffer.getAllocator());
+    buf.setAutoExpand(true);
+    buf.position(100);
+    buf.put(new byte[100]);
+    assertEquals(256, buf.capacity());
+    assertSame(defaultAllocator, IoBuffer.getAllocator());
+  }
+
+  @Test
+  public void testRecycleBufferFreedByOtherThread() throws Exception {
+    final PooledBufferAllocator allocator = new PooledBufferAllocator();
+    final IoBuffer buf = allocator.allocate(100, false);
+    ByteBuffer nioBuffer = buf.buf();
+    buf.put((byte) 1);
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        buf.free();
+      }
+    };
+    thread.start();
+    thread.join();
+
+    IoBuffer recycled = allocator.allocate(120, false);
+    assertSame(nioBuffer, recycled.buf());
+    assertEquals(0, recycled.position());
+    assertEquals(120, recycled.limit());
+    // heap and direct buffers are pooled separately
+    allocator.allocate(120, false).free();
+    recycled.free();
+    assertNotSame(nioBuffer, allocator.allocate(120, true).buf());
+  }
+
+  @Test
+  public void testFreeTwice() throws Exception {
+    PooledBufferAllocator allocator = new PooledBufferAllocator();
+    IoBuffer buf = allocator.allocate(64, false);
+    ByteBuffer nioBuffer = buf.buf();
+    buf.free();
+    buf.free();
+    assertSame(nioBuffer, allocator.allocate(64, false).buf());
+    assertNotSame(nioBuffer, allocator.allocate(64, false).buf());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUseAfterFree() throws Exception {
+    IoBuffer buf = new PooledBufferAllocator().allocate(64, false);
+    buf.free();
+    buf.put((byte) 1);
+  }
+
+  @Test
+  public void testNotRecycled() throws Exception {
+    PooledBufferAllocator allocator = new PooledBufferAllocator(1024, 16);
+    // wrapped buffers may be shared
+    ByteBuffer shared = ByteBuffer.allocate(64);
+    IoBuffer wrapped = allocator.wrap(shared);
+    wrapped.free();
+    assertSame(shared, wrapped.buf());
+    assertNotSame(shared, allocator.allocate(64, false).buf());
+    // larger than max cached buffer size
+    IoBuffer large = allocator.allocate(2048, false);
+    ByteBuffer nioBuffer = large.buf();
+    large.free();
+    assertNotSame(nioBuffer, allocator.allocate(2048, false).buf());
+  }
+
+  @Test
+  public void testConcurrentAllocateAndFree() throws Exception {
+    final PooledBufferAllocator allocator = new PooledBufferAllocator(1024, 4);
+    final int threadCount = 8;
+    final CountDownLatch latch = new CountDownLatch(threadCount);
+    final AtomicInteger errors = new AtomicInteger();
+    for (int i = 0; i < threadCount; i++) {
+      final byte id = (byte) i;
+      new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0; j < 10000; j++) {
+              IoBuffer buf = allocator.allocate(16 + j % 200, false);
+              while (buf.hasRemaining()) {
+                buf.put(id);
+              }
+              Thread.yield();
+              buf.flip();
+              while (buf.hasRemaining()) {
+                if (buf.get() != id) {
+                  // the buffer is owned by two threads
+                  errors.incrementAndGet();
+                  break;
+                }
+              }
+              buf.free();
+            }
+          } finally {
+            latch.countDown();
+          }
+        }
+      }.start();
+    }
+    latch.await();
+    assertEquals(0, errors.get());
+  }
+}
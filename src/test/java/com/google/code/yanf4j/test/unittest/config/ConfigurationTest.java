@@ -53,4 +53,23 @@ public class ConfigurationTest extends TestCase {
 
   }
 
+  public void testWriteBatch() {
+    assertEquals(0, this.configuration.getWriteBatchDelay());
+    assertTrue(this.configuration.isWriteBatchAdaptive());
+    this.configuration.setWriteBatchDelay(50);
+    assertEquals(50, this.configuration.getWriteBatchDelay());
+    try {
+      this.configuration.setWriteBatchMaxMessages(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+
+    }
+  }
+
+  public void testWriteThrough() {
+    assertFalse(this.configuration.isWriteThrough());
+    this.configuration.setWriteThrough(true);
+    assertTrue(this.configuration.isWriteThrough());
+  }
+
 }
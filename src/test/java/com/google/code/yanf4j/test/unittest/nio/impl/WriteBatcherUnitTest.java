@@ -0,0 +1,75 @@
+package com.google.code.yanf4j.test.unittest.nio.impl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import com.google.code.yanf4j.nio.impl.WriteBatcher;
+
+/**
+ * Tests {@link WriteBatcher}.
+ */
+public class WriteBatcherUnitTest {
+
+  private static final class Flush implements Runnable {
+    final CountDownLatch latch = new CountDownLatch(1);
+    volatile long flushTime;
+
+    public void run() {
+      this.flushTime = System.nanoTime();
+      this.latch.countDown();
+    }
+  }
+
+  @Test
+  public void testDelay() throws Exception {
+    WriteBatcher batcher = new WriteBatcher(500 * 1000, 1024, 16, false);
+    Flush flush = new Flush();
+    long start = System.nanoTime();
+    // starts a batch without blocking the caller
+    assertFalse(batcher.batch(10, flush));
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(250));
+    assertTrue(flush.latch.await(5, TimeUnit.SECONDS));
+    assertTrue(flush.flushTime - start >= TimeUnit.MILLISECONDS.toNanos(500));
+  }
+
+  @Test
+  public void testAdaptiveNotDelayIdleSession() throws Exception {
+    WriteBatcher batcher = new WriteBatcher(20 * 1000, 1024, 16, true);
+    Thread.sleep(100);
+    Flush flush = new Flush();
+    assertTrue(batcher.batch(10, flush));
+    Thread.sleep(100);
+    assertEquals(1, flush.latch.getCount());
+  }
+
+  @Test
+  public void testLargeMessageNotDelayed() throws Exception {
+    WriteBatcher batcher = new WriteBatcher(1000 * 1000, 1024, 16, false);
+    assertTrue(batcher.batch(1024, new Flush()));
+  }
+
+  @Test
+  public void testWriteBatchReachingMaxMessages() throws Exception {
+    final WriteBatcher batcher = new WriteBatcher(100 * 1000, 1024, 3, false);
+    Flush flush = new Flush();
+    // starts the batch
+    assertFalse(batcher.batch(10, flush));
+    // joins the batch
+    assertFalse(batcher.batch(10, new Flush()));
+    // reaches the max messages,the caller schedules the write
+    assertTrue(batcher.batch(10, new Flush()));
+    // the timer doesn't flush it again
+    assertFalse(flush.latch.await(300, TimeUnit.MILLISECONDS));
+    // a new batch
+    assertFalse(batcher.batch(10, flush));
+    assertTrue(flush.latch.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidDelay() {
+    new WriteBatcher(0, 1024, 16, true);
+  }
+}
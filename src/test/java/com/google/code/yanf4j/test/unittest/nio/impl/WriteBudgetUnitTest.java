@@ -0,0 +1,166 @@
+package com.google.code.yanf4j.test.unittest.nio.impl;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import com.google.code.yanf4j.nio.impl.WriteBudget;
+
+/**
+ * Tests {@link WriteBudget}.
+ */
+public class WriteBudgetUnitTest {
+
+  private static WriteBudget newSessionBudget(WriteBudget.Policy policy, int maxCount,
+      long maxBytes) {
+    WriteBudget budget = new WriteBudget(policy, 50);
+    budget.setSessionMaxCount(maxCount);
+    budget.setSessionMaxBytes(maxBytes);
+    return budget.newSessionBudget();
+  }
+
+  @Test
+  public void testUnlimited() throws Exception {
+    WriteBudget budget = newSessionBudget(WriteBudget.Policy.FAIL_FAST, 0, 0);
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(budget.acquire(1024, false, true));
+    }
+    assertEquals(1000, budget.getQueuedCount());
+    assertEquals(1000 * 1024L, budget.getQueuedBytes());
+    for (int i = 0; i < 1000; i++) {
+      budget.release(1024);
+    }
+    assertEquals(0, budget.getQueuedCount());
+    assertEquals(0, budget.getQueuedBytes());
+  }
+
+  @Test
+  public void testFailFast() throws Exception {
+    WriteBudget budget = newSessionBudget(WriteBudget.Policy.FAIL_FAST, 2, 0);
+    assertTrue(budget.acquire(10, false, true));
+    assertTrue(budget.acquire(10, true, true));
+    try {
+      budget.acquire(10, false, true);
+      fail();
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage().startsWith("Write budget is exhausted"));
+    }
+    assertEquals(1, budget.getRejectedCount());
+    assertEquals(0, budget.getBlockedCount());
+    budget.release(10);
+    assertTrue(budget.acquire(10, false, true));
+  }
+
+  @Test
+  public void testMaxBytes() throws Exception {
+    WriteBudget budget = newSessionBudget(WriteBudget.Policy.FAIL_FAST, 0, 100);
+    assertTrue(budget.acquire(60, false, true));
+    try {
+      budget.acquire(60, false, true);
+      fail();
+    } catch (IllegalStateException e) {
+    }
+    budget.release(60);
+    // a command larger than the limit is accepted when nothing is queued
+    assertTrue(budget.acquire(1000, false, true));
+    assertEquals(1000, budget.getQueuedBytes());
+  }
+
+  @Test
+  public void testShedNoreply() throws Exception {
+    WriteBudget budget = newSessionBudget(WriteBudget.Policy.SHED, 1, 0);
+    assertTrue(budget.acquire(10, true, true));
+    assertFalse(budget.acquire(10, true, true));
+    assertEquals(1, budget.getShedCount());
+    assertEquals(1, budget.getQueuedCount());
+    // commands waiting for responses are blocked then rejected
+    long start = System.nanoTime();
+    try {
+      budget.acquire(10, false, true);
+      fail();
+    } catch (IllegalStateException e) {
+    }
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+    assertEquals(1, budget.getBlockedCount());
+    assertEquals(1, budget.getRejectedCount());
+  }
+
+  @Test
+  public void testBlockUntilReleased() throws Exception {
+    WriteBudget client = new WriteBudget(WriteBudget.Policy.BLOCK, 5000);
+    client.setSessionMaxCount(1);
+    final WriteBudget budget = client.newSessionBudget();
+    assertTrue(budget.acquire(10, false, true));
+    new Thread() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(50);
+        } catch (InterruptedException e) {
+        }
+        budget.release(10);
+      }
+    }.start();
+    long start = System.nanoTime();
+    assertTrue(budget.acquire(10, false, true));
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(4000));
+    assertEquals(1, budget.getBlockedCount());
+    assertEquals(0, budget.getRejectedCount());
+  }
+
+  @Test
+  public void testNotBlockReactor() throws Exception {
+    WriteBudget budget = newSessionBudget(WriteBudget.Policy.BLOCK, 1, 0);
+    assertTrue(budget.acquire(10, false, true));
+    long start = System.nanoTime();
+    assertTrue(budget.acquire(10, true, false));
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(40));
+    assertEquals(2, budget.getQueuedCount());
+    assertEquals(0, budget.getBlockedCount());
+  }
+
+  @Test
+  public void testInflightCounted() throws Exception {
+    WriteBudget budget = newSessionBudget(WriteBudget.Policy.FAIL_FAST, 2, 0);
+    assertTrue(budget.acquire(10, false, true));
+    budget.release(10);
+    budget.incrementInflight();
+    budget.incrementInflight();
+    assertEquals(2, budget.getInflightCount());
+    try {
+      budget.acquire(10, false, true);
+      fail();
+    } catch (IllegalStateException e) {
+    }
+    budget.decrementInflight();
+    assertTrue(budget.acquire(10, false, true));
+  }
+
+  @Test
+  public void testClientWideLimit() throws Exception {
+    WriteBudget client = new WriteBudget(WriteBudget.Policy.FAIL_FAST, 50);
+    client.setMaxCount(3);
+    client.setSessionMaxCount(2);
+    WriteBudget session1 = client.newSessionBudget();
+    WriteBudget session2 = client.newSessionBudget();
+    assertTrue(session1.acquire(10, false, true));
+    assertTrue(session1.acquire(10, false, true));
+    assertTrue(session2.acquire(10, false, true));
+    assertEquals(3, client.getQueuedCount());
+    assertEquals(30, client.getQueuedBytes());
+    try {
+      session2.acquire(10, false, true);
+      fail();
+    } catch (IllegalStateException e) {
+    }
+    // the session's own budget is not leaked by the client wide rejection
+    assertEquals(1, session2.getQueuedCount());
+    assertEquals(1, client.getRejectedCount());
+    session1.release(10);
+    assertTrue(session2.acquire(10, false, true));
+    assertEquals(2, session2.getQueuedCount());
+    assertEquals(3, client.getQueuedCount());
+  }
+}
@@ -0,0 +1,99 @@
+package com.google.code.yanf4j.test.unittest.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReference;
+import com.google.code.yanf4j.util.SpscRingQueue;
+import junit.framework.TestCase;
+
+public class SpscRingQueueTest extends TestCase {
+
+  public void testOfferPoll() {
+    SpscRingQueue<Integer> queue = new SpscRingQueue<Integer>(4);
+    assertTrue(queue.isEmpty());
+    assertNull(queue.poll());
+    assertNull(queue.peek());
+    for (int i = 0; i < 3; i++) {
+      queue.offer(i);
+    }
+    assertEquals(3, queue.size());
+    assertEquals(Integer.valueOf(0), queue.peek());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Integer.valueOf(i), queue.poll());
+    }
+    assertTrue(queue.isEmpty());
+    assertNull(queue.poll());
+    try {
+      queue.offer(null);
+      fail();
+    } catch (NullPointerException e) {
+    }
+  }
+
+  public void testGrowAcrossRings() {
+    // rounded up to 4
+    SpscRingQueue<Integer> queue = new SpscRingQueue<Integer>(3);
+    for (int i = 0; i < 10; i++) {
+      queue.offer(i);
+    }
+    assertEquals(10, queue.size());
+    Iterator<Integer> it = queue.iterator();
+    for (int i = 0; i < 10; i++) {
+      assertEquals(Integer.valueOf(i), it.next());
+    }
+    assertFalse(it.hasNext());
+    for (int i = 0; i < 10; i++) {
+      if (i % 4 == 0) {
+        assertEquals(Integer.valueOf(i), queue.peek());
+      }
+      assertEquals(Integer.valueOf(i), queue.poll());
+    }
+    assertTrue(queue.isEmpty());
+  }
+
+  public void testRecycleRings() {
+    SpscRingQueue<Integer> queue = new SpscRingQueue<Integer>(2);
+    for (int i = 0; i < 1000; i++) {
+      queue.offer(i);
+      queue.offer(-i);
+      assertEquals(Integer.valueOf(i), queue.poll());
+      assertEquals(Integer.valueOf(-i), queue.poll());
+      assertNull(queue.poll());
+    }
+    assertEquals(0, queue.size());
+  }
+
+  public void testProducerConsumer() throws Exception {
+    final SpscRingQueue<Integer> queue = new SpscRingQueue<Integer>(16);
+    final int count = 1000000;
+    final AtomicReference<String> error = new AtomicReference<String>();
+    Thread consumer = new Thread() {
+      @Override
+      public void run() {
+        int expected = 0;
+        while (expected < count) {
+          Integer i = queue.poll();
+          if (i == null) {
+            Thread.yield();
+            continue;
+          }
+          if (i.intValue() != expected) {
+            error.set("expected " + expected + " but was " + i);
+            return;
+          }
+          expected++;
+        }
+      }
+    };
+    consumer.start();
+    for (int i = 0; i < count; i++) {
+      queue.offer(i);
+      if (queue.size() > 1000) {
+        Thread.yield();
+      }
+    }
+    consumer.join(30000);
+    assertFalse(consumer.isAlive());
+    assertNull(error.get());
+    assertTrue(queue.isEmpty());
+  }
+}
@@ -0,0 +1,83 @@
+package com.google.code.yanf4j.test.unittest.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+import com.google.code.yanf4j.buffer.IoBuffer;
+import com.google.code.yanf4j.util.ByteBufferMatcher;
+import com.google.code.yanf4j.util.ByteBufferScanner;
+import com.google.code.yanf4j.util.SwarByteBufferMatcher;
+
+public class SwarByteBufferMatcherTest extends ByteBufferMatcherTest {
+
+  @Override
+  public ByteBufferMatcher createByteBufferMatcher(String hello) {
+    ByteBufferMatcher m = new SwarByteBufferMatcher(IoBuffer.wrap(hello.getBytes()));
+    return m;
+  }
+
+  public void testMatchAllOverlapping() {
+    ByteBufferMatcher m = new SwarByteBufferMatcher(IoBuffer.wrap("aa".getBytes()));
+    assertEquals(Arrays.asList(0, 1, 2, 9),
+        m.matchAll(IoBuffer.wrap("aaaabbbbbaa".getBytes())));
+    assertTrue(m.matchAll(IoBuffer.wrap("ababab".getBytes())).isEmpty());
+  }
+
+  public void testScanCRLF() {
+    byte[] bytes = "STAT pid 1\rSTAT uptime 2\nSTAT time 3\r\nEND\r\n".getBytes();
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    assertEquals(36, ByteBufferScanner.indexOfCRLF(buffer, 0, bytes.length));
+    assertEquals(41, ByteBufferScanner.indexOfCRLF(buffer, 37, bytes.length));
+    assertEquals(-1, ByteBufferScanner.indexOfCRLF(buffer, 0, 37));
+    assertEquals(-1, ByteBufferScanner.indexOfCRLF(buffer, 42, bytes.length));
+    assertEquals(0, buffer.position());
+  }
+
+  public void testScanAgainstNaive() {
+    Random rand = new Random(7);
+    ByteOrder[] orders = {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN};
+    // small alphabet with high bytes to hit matches and sign bits
+    byte[] alphabet = {' ', '\r', '\n', (byte) 0xff, (byte) 0x80, 'a'};
+    for (int round = 0; round < 2000; round++) {
+      byte[] bytes = new byte[rand.nextInt(40)];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = alphabet[rand.nextInt(alphabet.length)];
+      }
+      int from = bytes.length == 0 ? 0 : rand.nextInt(bytes.length);
+      ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+      direct.put(bytes).flip();
+      for (ByteOrder order : orders) {
+        for (ByteBuffer buffer : new ByteBuffer[] {ByteBuffer.wrap(bytes), direct}) {
+          buffer.order(order);
+          for (byte b : new byte[] {' ', '\r', (byte) 0xff, (byte) 0x80}) {
+            assertEquals(naiveIndexOf(bytes, from, b, b),
+                ByteBufferScanner.indexOf(buffer, from, bytes.length, b));
+          }
+          assertEquals(naiveIndexOf(bytes, from, (byte) ' ', (byte) '\r'),
+              ByteBufferScanner.indexOfAny(buffer, from, bytes.length, (byte) ' ', (byte) '\r'));
+          assertEquals(naiveIndexOfCRLF(bytes, from),
+              ByteBufferScanner.indexOfCRLF(buffer, from, bytes.length));
+        }
+      }
+    }
+  }
+
+  private static int naiveIndexOfCRLF(byte[] bytes, int from) {
+    for (int i = from; i < bytes.length - 1; i++) {
+      if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int naiveIndexOf(byte[] bytes, int from, byte a, byte b) {
+    for (int i = from; i < bytes.length; i++) {
+      if (bytes[i] == a || bytes[i] == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
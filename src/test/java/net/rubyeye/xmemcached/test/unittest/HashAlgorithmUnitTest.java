@@ -0,0 +1,59 @@
+package net.rubyeye.xmemcached.test.unittest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.zip.CRC32;
+import net.rubyeye.xmemcached.HashAlgorithm;
+import net.rubyeye.xmemcached.utils.ByteUtils;
+import org.junit.Test;
+
+public class HashAlgorithmUnitTest {
+
+  private static final String[] KEYS =
+      {"a", "hello", "user:10086:profile", "中文key", "café",
+          "0123456789012345678901234567890123456789abcdefghijk"};
+
+  @Test
+  public void testHashBytesSameAsString() {
+    for (HashAlgorithm alg : HashAlgorithm.values()) {
+      for (String key : KEYS) {
+        long hash = alg.hash(key);
+        assertTrue(hash >= 0 && hash <= 0xffffffffL);
+        assertEquals(alg + " " + key, hash, alg.hash(ByteUtils.getBytes(key)));
+      }
+    }
+  }
+
+  @Test
+  public void testNativeHash() {
+    for (String key : KEYS) {
+      assertEquals(key.hashCode() & 0xffffffffL, HashAlgorithm.NATIVE_HASH.hash(key));
+    }
+  }
+
+  @Test
+  public void testCrc32() {
+    for (String key : KEYS) {
+      CRC32 crc32 = new CRC32();
+      crc32.update(ByteUtils.getBytes(key));
+      assertEquals(crc32.getValue() >> 16 & 0x7fff, HashAlgorithm.CRC32_HASH.hash(key));
+    }
+  }
+
+  @Test
+  public void testMurmur3() {
+    assertEquals(0x248bfa47L, HashAlgorithm.MURMUR3_HASH.hash("hello"));
+    assertEquals(0x2e4ff723L,
+        HashAlgorithm.MURMUR3_HASH.hash("The quick brown fox jumps over the lazy dog"));
+  }
+
+  @Test
+  public void testXXHash64() {
+    // lower 32 bits of 0xd24ec4f1a98c6e5b and 0x44bc2cf5ad770999
+    assertEquals(0xa98c6e5bL, HashAlgorithm.XXHASH64_HASH.hash("a"));
+    assertEquals(0xad770999L, HashAlgorithm.XXHASH64_HASH.hash("abc"));
+    // 0xfbcea83c8a378bf1
+    assertEquals(0x8a378bf1L,
+        HashAlgorithm.XXHASH64_HASH.hash("Nobody inspects the spammish repetition"));
+  }
+}
@@ -1,17 +1,25 @@
 package net.rubyeye.xmemcached.test.unittest;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -24,6 +32,7 @@ import net.rubyeye.xmemcached.KeyIterator;
 import net.rubyeye.xmemcached.MemcachedClient;
 import net.rubyeye.xmemcached.MemcachedClientBuilder;
 import net.rubyeye.xmemcached.MemcachedClientCallable;
+import net.rubyeye.xmemcached.MemcachedPipeline;
 import net.rubyeye.xmemcached.XMemcachedClient;
 import net.rubyeye.xmemcached.XMemcachedClientBuilder;
 import net.rubyeye.xmemcached.command.Command;
@@ -1259,4 +1268,161 @@ public abstract class XMemcachedClientIT extends TestCase {
     assertFalse(memcachedClient.touch("not_exists", 0));
   }
 
+  public void testPipeline() throws Exception {
+    this.memcachedClient.set("cas", 0, "old");
+    long cas = this.memcachedClient.gets("cas").getCas();
+    MemcachedPipeline pipeline = this.memcachedClient.pipeline();
+    for (int i = 0; i < 10; i++) {
+      pipeline.set("pipeline" + i, 0, i);
+    }
+    pipeline.add("pipeline1", 0, 100).replace("not_exists", 0, 100).cas("cas", 0, "new", cas)
+        .incr("counter", 2, 10).incr("counter", 2, 10).decr("counter", 1, 0);
+    for (int i = 0; i < 10; i++) {
+      pipeline.get("pipeline" + i);
+    }
+    pipeline.gets("pipeline3").get("not_exists").touch("pipeline4", 10).touch("not_exists", 10)
+        .delete("pipeline5").delete("not_exists");
+    assertEquals(32, pipeline.size());
+
+    List<Object> results = pipeline.execute();
+    assertEquals(0, pipeline.size());
+    assertEquals(32, results.size());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(Boolean.TRUE, results.get(i));
+      assertEquals(i, results.get(16 + i));
+    }
+    assertEquals(Boolean.FALSE, results.get(10));
+    assertEquals(Boolean.FALSE, results.get(11));
+    assertEquals(Boolean.TRUE, results.get(12));
+    assertEquals(10L, results.get(13));
+    assertEquals(12L, results.get(14));
+    assertEquals(11L, results.get(15));
+    assertEquals(3, ((GetsResponse<Integer>) results.get(26)).getValue().intValue());
+    assertNull(results.get(27));
+    assertEquals(Boolean.TRUE, results.get(28));
+    assertEquals(Boolean.FALSE, results.get(29));
+    assertEquals(Boolean.TRUE, results.get(30));
+    assertEquals(Boolean.FALSE, results.get(31));
+
+    assertEquals("new", this.memcachedClient.get("cas"));
+    assertNull(this.memcachedClient.get("pipeline5"));
+    // empty pipeline
+    assertTrue(pipeline.execute().isEmpty());
+  }
+
+  public void testSetAddReplaceMulti() throws Exception {
+    Map<String, Integer> items = new HashMap<String, Integer>();
+    for (int i = 0; i < 100; i++) {
+      items.put("multi" + i, i);
+    }
+    assertTrue(this.memcachedClient.setMulti(items, 0).isEmpty());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, this.memcachedClient.get("multi" + i));
+    }
+
+    Map<String, Integer> addItems = new HashMap<String, Integer>();
+    addItems.put("multi1", 100);
+    addItems.put("multi2", 100);
+    addItems.put("multi_new", 100);
+    assertEquals(new HashSet<String>(Arrays.asList("multi1", "multi2")),
+        this.memcachedClient.addMulti(addItems, 0));
+    assertEquals(1, this.memcachedClient.get("multi1"));
+    assertEquals(100, this.memcachedClient.get("multi_new"));
+
+    addItems.put("not_exists", 100);
+    assertEquals(new HashSet<String>(Arrays.asList("not_exists")),
+        this.memcachedClient.replaceMulti(addItems, 0));
+    assertEquals(100, this.memcachedClient.get("multi1"));
+    assertNull(this.memcachedClient.get("not_exists"));
+
+    assertTrue(this.memcachedClient.setMulti(new HashMap<String, Integer>(), 0).isEmpty());
+  }
+
+  public void testDeleteTouchMulti() throws Exception {
+    Map<String, Integer> items = new HashMap<String, Integer>();
+    List<String> keys = new ArrayList<String>();
+    for (int i = 0; i < 100; i++) {
+      items.put("multi" + i, i);
+      keys.add("multi" + i);
+    }
+    assertTrue(this.memcachedClient.setMulti(items, 0).isEmpty());
+    keys.add("not_exists");
+    // Misses of noreply commands are not responded on text protocol.
+    Set<String> notExists = this.memcachedClient.getProtocol() == Protocol.Text
+        ? new HashSet<String>() : new HashSet<String>(Arrays.asList("not_exists"));
+    assertEquals(notExists, this.memcachedClient.touchMulti(keys, 100));
+    assertEquals(notExists, this.memcachedClient.deleteMulti(keys));
+    for (int i = 0; i < 100; i++) {
+      assertNull(this.memcachedClient.get("multi" + i));
+    }
+    assertEquals(this.memcachedClient.getProtocol() == Protocol.Text ? new HashSet<String>()
+        : new HashSet<String>(keys), this.memcachedClient.deleteMulti(keys));
+    assertTrue(this.memcachedClient.deleteMulti(new ArrayList<String>()).isEmpty());
+  }
+
+  public void testIncrDecrMulti() throws Exception {
+    Map<String, Long> deltas = new LinkedHashMap<String, Long>();
+    for (int i = 0; i < 50; i++) {
+      deltas.put("counter" + i, (long) i);
+    }
+    long[] values = this.memcachedClient.incrMulti(deltas, 10);
+    assertEquals(50, values.length);
+    for (int i = 0; i < 50; i++) {
+      assertEquals(10, values[i]);
+    }
+    values = this.memcachedClient.incrMulti(deltas, 10);
+    for (int i = 0; i < 50; i++) {
+      assertEquals(10 + i, values[i]);
+      assertEquals(10 + i, this.memcachedClient.incr("counter" + i, 0));
+    }
+    values = this.memcachedClient.decrMulti(deltas, 10, 0, 5000);
+    for (int i = 0; i < 50; i++) {
+      assertEquals(10, values[i]);
+    }
+    assertEquals(0, this.memcachedClient.incrMulti(new HashMap<String, Long>(), 0).length);
+  }
+
+  public void testIncrMultiTimeoutOnAbsentCounters() throws Exception {
+    // a text server that has no counters and never answers add
+    final ServerSocket serverSocket = new ServerSocket(0);
+    Thread server = new Thread() {
+      @Override
+      public void run() {
+        try {
+          Socket socket = serverSocket.accept();
+          BufferedReader reader =
+              new BufferedReader(new InputStreamReader(socket.getInputStream()));
+          OutputStream out = socket.getOutputStream();
+          String line;
+          while ((line = reader.readLine()) != null) {
+            if (line.startsWith("incr")) {
+              out.write("NOT_FOUND\r\n".getBytes());
+              out.flush();
+            }
+          }
+        } catch (IOException e) {
+          // closed
+        }
+      }
+    };
+    server.setDaemon(true);
+    server.start();
+    XMemcachedClient client = new XMemcachedClient();
+    client.setEnableHeartBeat(false);
+    client.setOpTimeout(60000);
+    try {
+      client.addServer(new InetSocketAddress("localhost", serverSocket.getLocalPort()));
+      long start = System.currentTimeMillis();
+      try {
+        client.incrMulti(Collections.singletonMap("counter", 1L), 0, 0, 500);
+        fail();
+      } catch (TimeoutException e) {
+        assertTrue(System.currentTimeMillis() - start < 10000);
+      }
+    } finally {
+      client.shutdown();
+      serverSocket.close();
+    }
+  }
+
 }
@@ -3,10 +3,14 @@ package net.rubyeye.xmemcached.test.unittest.codec;
 import java.nio.ByteBuffer;
 import java.util.concurrent.CountDownLatch;
 import junit.framework.TestCase;
+import net.rubyeye.xmemcached.CommandFactory;
 import net.rubyeye.xmemcached.codec.MemcachedCodecFactory;
+import net.rubyeye.xmemcached.command.BinaryCommandFactory;
 import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.CommandType;
 import net.rubyeye.xmemcached.command.TextCommandFactory;
 import net.rubyeye.xmemcached.impl.MemcachedTCPSession;
+import net.rubyeye.xmemcached.transcoders.CachedData;
 import com.google.code.yanf4j.buffer.IoBuffer;
 import com.google.code.yanf4j.core.CodecFactory.Decoder;
 import com.google.code.yanf4j.core.impl.ByteBufferCodecFactory;
@@ -28,9 +32,62 @@ public class MemcachedDecoderUnitTest extends TestCase {
     assertEquals("1.28", decodedCommand.getResult());
   }
 
+  public void testDecodeBinaryOutOfOrder() {
+    decoder = new MemcachedCodecFactory().getDecoder();
+    BinaryCommandFactory commandFactory = new BinaryCommandFactory();
+    MemcachedTCPSession session = buildSession(commandFactory);
+    Command a = commandFactory.createGetCommand("a", "a".getBytes(), CommandType.GET_ONE, null);
+    Command b = commandFactory.createGetCommand("b", "b".getBytes(), CommandType.GET_ONE, null);
+    a.encode();
+    b.encode();
+    session.addCommand(a);
+    session.addCommand(b);
+    int opaqueA = a.getIoBuffer().buf().getInt(12);
+    int opaqueB = b.getIoBuffer().buf().getInt(12);
+    assertTrue(opaqueA != opaqueB);
+
+    ByteBuffer responses = ByteBuffer.allocate(3 * (24 + 4) + 1 + 1 + 7);
+    // A response nobody is waiting for is skipped.
+    putGetResponse(responses, opaqueB + 100, "unknown");
+    putGetResponse(responses, opaqueB, "b");
+    putGetResponse(responses, opaqueA, "a");
+    responses.flip();
+    IoBuffer buffer = IoBuffer.wrap(responses);
+    assertSame(b, decoder.decode(buffer, session));
+    assertEquals("b", new String(((CachedData) b.getResult()).getData()));
+    assertSame(a, decoder.decode(buffer, session));
+    assertEquals("a", new String(((CachedData) a.getResult()).getData()));
+    assertFalse(buffer.hasRemaining());
+  }
+
+  public void testDecodeAfterDestroy() {
+    decoder = new MemcachedCodecFactory().getDecoder();
+    MemcachedTCPSession session = buildSession();
+    TextCommandFactory commandFactory = new TextCommandFactory();
+    Command versionCommand = commandFactory.createVersionCommand(new CountDownLatch(1), null);
+    session.addCommand(versionCommand);
+    session.destroy();
+    assertTrue(versionCommand.isCompleted());
+    assertNotNull(versionCommand.getException());
+    // commands added after destroy are never taken
+    session.addCommand(commandFactory.createVersionCommand(new CountDownLatch(1), null));
+    assertNull(decoder
+        .decode(IoBuffer.wrap(ByteBuffer.wrap("VERSION 1.28\r\n".getBytes())), session));
+  }
+
+  private static void putGetResponse(ByteBuffer buffer, int opaque, String value) {
+    buffer.put((byte) 0x81).put((byte) 0x00).putShort((short) 0).put((byte) 4).put((byte) 0)
+        .putShort((short) 0).putInt(4 + value.length()).putInt(opaque).putLong(0);
+    buffer.putInt(0).put(value.getBytes());
+  }
+
   public MemcachedTCPSession buildSession() {
+    return buildSession(new TextCommandFactory());
+  }
+
+  private MemcachedTCPSession buildSession(CommandFactory commandFactory) {
     NioSessionConfig sessionConfig = new NioSessionConfig(null, new HandlerAdapter(), null,
         new ByteBufferCodecFactory(), null, null, null, true, 0, 0);
-    return new MemcachedTCPSession(sessionConfig, 16 * 1024, null, 0, new TextCommandFactory());
+    return new MemcachedTCPSession(sessionConfig, 16 * 1024, null, 0, commandFactory);
   }
 }
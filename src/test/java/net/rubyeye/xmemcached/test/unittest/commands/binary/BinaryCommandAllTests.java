@@ -17,6 +17,7 @@ public class BinaryCommandAllTests {
     suite.addTestSuite(BinaryStatsCommandUnitTest.class);
     suite.addTestSuite(BinaryGetMultiCommandUnitTest.class);
     suite.addTestSuite(BinaryCASCommandUnitTest.class);
+    suite.addTestSuite(BinaryKeyMultiCommandUnitTest.class);
     // $JUnit-END$
     return suite;
   }
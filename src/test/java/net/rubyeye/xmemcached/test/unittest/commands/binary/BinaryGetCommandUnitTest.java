@@ -1,8 +1,11 @@
 package net.rubyeye.xmemcached.test.unittest.commands.binary;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import net.rubyeye.xmemcached.ValueSinks;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.ValueSinkAware;
 import net.rubyeye.xmemcached.command.binary.OpCode;
 import net.rubyeye.xmemcached.transcoders.CachedData;
 import net.rubyeye.xmemcached.utils.ByteUtils;
@@ -42,4 +45,24 @@ public class BinaryGetCommandUnitTest extends BaseBinaryCommandUnitTest {
     assertEquals(0, buffer.remaining());
   }
 
+  public void testGetDecodeToValueSink() {
+    Command command = this.commandFactory.createGetCommand(this.key, this.keyBytes,
+        CommandType.GET_ONE, this.transcoder);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((ValueSinkAware) command).setValueSink(ValueSinks.fromOutputStream(out));
+    ByteBuffer buffer = constructResponse(OpCode.GET.fieldValue(), (short) 0, (byte) 0x04, (byte) 0,
+        (short) 0, 0x00000009, 0, 5L, this.transcoderUtils.encodeInt(2), null, "world".getBytes());
+    buffer.limit(30);
+    assertFalse(command.decode(null, buffer));
+    assertEquals("wo", out.toString());
+    buffer.limit(buffer.capacity());
+    assertTrue(command.decode(null, buffer));
+    assertEquals("world", out.toString());
+    CachedData data = (CachedData) command.getResult();
+    assertNull(data.getData());
+    assertEquals(2, data.getFlag());
+    assertEquals(5L, data.getCas());
+    assertEquals(0, buffer.remaining());
+  }
+
 }
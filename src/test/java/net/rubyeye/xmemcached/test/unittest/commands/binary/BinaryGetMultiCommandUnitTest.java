@@ -7,6 +7,8 @@ import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.MapReturnValueAware;
+import net.rubyeye.xmemcached.command.ReturnValueListener;
 import net.rubyeye.xmemcached.command.binary.OpCode;
 import net.rubyeye.xmemcached.transcoders.CachedData;
 import net.rubyeye.xmemcached.utils.ByteUtils;
@@ -87,4 +89,35 @@ public class BinaryGetMultiCommandUnitTest extends BaseBinaryCommandUnitTest {
 
   }
 
+  public void testDecodeWithReturnValueListener() {
+    List<String> keys = new ArrayList<String>();
+    keys.add("a");
+    keys.add("b");
+    keys.add("c");
+    Command command = this.commandFactory.createGetMultiCommand(keys, new CountDownLatch(1),
+        CommandType.GET_MANY, this.transcoder);
+    final List<String> received = new ArrayList<String>();
+    ((MapReturnValueAware) command).setReturnValueListener(new ReturnValueListener() {
+      public void onReturnValue(String key, CachedData value) {
+        received.add(key + "=" + BinaryGetMultiCommandUnitTest.this.transcoder.decode(value));
+      }
+    });
+    byte[] flagBytes = this.transcoderUtils.encodeInt(0);
+    byte[] a = ByteUtils.getBytes("a");
+    byte[] c = ByteUtils.getBytes("c");
+    ByteBuffer first = constructResponse(OpCode.GET_KEY_QUIETLY.fieldValue(), (short) 1,
+        (byte) 0x04, (byte) 0, (short) 0, 6, 0, 1L, flagBytes, a, a);
+    assertFalse(command.decode(null, first));
+    // emitted before the last response
+    assertEquals(1, received.size());
+    assertEquals("a=a", received.get(0));
+    ByteBuffer last = constructResponse(OpCode.GET_KEY.fieldValue(), (short) 1, (byte) 0x04,
+        (byte) 0, (short) 0, 6, 0, 1L, flagBytes, c, c);
+    assertTrue(command.decode(null, last));
+    assertEquals(2, received.size());
+    assertEquals("c=c", received.get(1));
+    assertEquals(0, ((Map<String, CachedData>) command.getResult()).size());
+    assertEquals(0, command.getLatch().getCount());
+  }
+
 }
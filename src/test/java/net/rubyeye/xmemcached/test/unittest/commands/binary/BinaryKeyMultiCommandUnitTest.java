@@ -0,0 +1,84 @@
+package net.rubyeye.xmemcached.test.unittest.commands.binary;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.binary.BaseBinaryCommand;
+import net.rubyeye.xmemcached.command.binary.OpCode;
+
+public class BinaryKeyMultiCommandUnitTest extends BaseBinaryCommandUnitTest {
+
+  public void testEncodeDecodeDeleteMulti() {
+    List<String> keys = Arrays.asList("a", "b", "c");
+    Command command =
+        this.commandFactory.createKeyMultiCommand(keys, null, CommandType.DELETE_MANY, 0);
+    command.encode();
+    ByteBuffer encodeBuffer = command.getIoBuffer().buf();
+    // deleteq x 3 and a noop
+    assertEquals((24 + 1) * 3 + 24, encodeBuffer.remaining());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(OpCode.DELETE_QUIETLY.fieldValue(), encodeBuffer.get(25 * i + 1));
+    }
+    assertEquals(OpCode.NOOP.fieldValue(), encodeBuffer.get(25 * 3 + 1));
+
+    // opaques are given from 100 in order,"b" is not found
+    ((BaseBinaryCommand) command).onOpaquesAssigned(100, 4);
+    ByteBuffer notFound = constructResponse(OpCode.DELETE_QUIETLY.fieldValue(), (short) 0,
+        (byte) 0, (byte) 0, (short) 0x0001, 9, 101, 0L, null, null, "Not found".getBytes());
+    assertFalse(command.decode(null, notFound));
+    assertFalse(command.isCompleted());
+    ByteBuffer noop = constructResponse(OpCode.NOOP.fieldValue(), (short) 0, (byte) 0, (byte) 0,
+        (short) 0, 0, 103, 0L, null, null, null);
+    assertTrue(command.decode(null, noop));
+    assertTrue(command.isCompleted());
+    assertNull(command.getException());
+    assertEquals(new HashSet<String>(Arrays.asList("b")), command.getResult());
+  }
+
+  public void testEncodeDecodeTouchMulti() {
+    List<String> keys = Arrays.asList("a", "b");
+    Command command =
+        this.commandFactory.createKeyMultiCommand(keys, null, CommandType.TOUCH_MANY, 10);
+    command.encode();
+    ByteBuffer encodeBuffer = command.getIoBuffer().buf();
+    // touch with 4 bytes extras x 2 and a noop
+    assertEquals((24 + 4 + 1) * 2 + 24, encodeBuffer.remaining());
+    assertEquals(OpCode.TOUCH.fieldValue(), encodeBuffer.get(1));
+    assertEquals(10, encodeBuffer.getInt(24));
+    assertEquals(OpCode.TOUCH.fieldValue(), encodeBuffer.get(29 + 1));
+    assertEquals(OpCode.NOOP.fieldValue(), encodeBuffer.get(29 * 2 + 1));
+
+    // every touch is responded,"a" is not found,an error of "b" is not the command's
+    ((BaseBinaryCommand) command).onOpaquesAssigned(0, 3);
+    ByteBuffer responses = ByteBuffer.allocate(24 + 9 + 24 + 24);
+    responses.put(constructResponse(OpCode.TOUCH.fieldValue(), (short) 0, (byte) 0, (byte) 0,
+        (short) 0x0001, 9, 0, 0L, null, null, "Not found".getBytes()));
+    responses.put(constructResponse(OpCode.TOUCH.fieldValue(), (short) 0, (byte) 0, (byte) 0,
+        (short) 0x0085, 0, 1, 0L, null, null, null));
+    responses.put(constructResponse(OpCode.NOOP.fieldValue(), (short) 0, (byte) 0, (byte) 0,
+        (short) 0, 0, 2, 0L, null, null, null));
+    responses.flip();
+    assertTrue(command.decode(null, responses));
+    assertEquals(0, responses.remaining());
+    assertNull(command.getException());
+    Set<String> expected = new HashSet<String>(keys);
+    assertEquals(expected, command.getResult());
+  }
+
+  public void testDecodeAllDeleted() {
+    List<String> keys = Arrays.asList("a", "b");
+    Command command =
+        this.commandFactory.createKeyMultiCommand(keys, null, CommandType.DELETE_MANY, 0);
+    ((BaseBinaryCommand) command).onOpaquesAssigned(7, 3);
+    // only the noop is responded
+    ByteBuffer noop = constructResponse(OpCode.NOOP.fieldValue(), (short) 0, (byte) 0, (byte) 0,
+        (short) 0, 0, 9, 0L, null, null, null);
+    assertTrue(command.decode(null, noop));
+    assertTrue(((Set<?>) command.getResult()).isEmpty());
+  }
+
+}
@@ -1,6 +1,7 @@
 package net.rubyeye.xmemcached.test.unittest.commands.binary;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.command.binary.OpCode;
 import net.rubyeye.xmemcached.utils.ByteUtils;
@@ -98,4 +99,22 @@ public class BinaryStoreCommandUnitTest extends BaseBinaryCommandUnitTest {
     assertEquals(0, buffer.remaining());
   }
 
+  public void testSetEncodeLargeValue() {
+    char[] chars = new char[5000];
+    Arrays.fill(chars, 'a');
+    Command command = this.commandFactory.createSetCommand(this.key, this.keyBytes, 0,
+        new String(chars), this.noreply, this.transcoder);
+
+    command.encode();
+    // header+extras+key,the value is not copied into the command buffer
+    ByteBuffer encodeBuffer = command.getIoBuffer().buf();
+    assertEquals(37, encodeBuffer.remaining());
+    assertEquals(OpCode.SET.fieldValue(), encodeBuffer.get(1));
+    assertEquals(8 + 5 + 5000, encodeBuffer.getInt(8));
+    ByteBuffer[] writeBuffers = command.getWriteBuffers();
+    assertEquals(2, writeBuffers.length);
+    assertSame(encodeBuffer, writeBuffers[0]);
+    assertEquals(5000, writeBuffers[1].remaining());
+  }
+
 }
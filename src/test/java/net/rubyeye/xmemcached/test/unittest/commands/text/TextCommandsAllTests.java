@@ -16,6 +16,7 @@ public class TextCommandsAllTests {
     suite.addTestSuite(TextDeleteCommandUnitTest.class);
     suite.addTestSuite(TextGetOneCommandUnitTest.class);
     suite.addTestSuite(TextGetMultiCommandUnitTest.class);
+    suite.addTestSuite(TextKeyMultiCommandUnitTest.class);
     // $JUnit-END$
     return suite;
   }
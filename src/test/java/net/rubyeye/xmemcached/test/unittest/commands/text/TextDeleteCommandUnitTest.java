@@ -1,6 +1,10 @@
 package net.rubyeye.xmemcached.test.unittest.commands.text;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.OperationStatus;
 
 public class TextDeleteCommandUnitTest extends BaseTextCommandUnitTest {
   public void testEncode() {
@@ -29,4 +33,46 @@ public class TextDeleteCommandUnitTest extends BaseTextCommandUnitTest {
     this.checkDecodeValidLine(command, "DELETED\r\n");
     assertTrue((Boolean) command.getResult());
   }
+
+  public void testAwait() throws Exception {
+    final Command command =
+        this.commandFactory.createDeleteCommand("test", "test".getBytes(), 10, 0, false);
+    assertFalse(command.isCompleted());
+    assertFalse(command.await(10, TimeUnit.MILLISECONDS));
+    new Thread() {
+      @Override
+      public void run() {
+        command.decode(null, ByteBuffer.wrap("DELETED\r\n".getBytes()));
+      }
+    }.start();
+    assertTrue(command.await(5000, TimeUnit.MILLISECONDS));
+    assertTrue(command.isCompleted());
+    assertTrue((Boolean) command.getResult());
+    // latch created after completion is already counted down
+    assertEquals(0, command.getLatch().getCount());
+  }
+
+  public void testSharedLatchStatus() {
+    final CountDownLatch latch = new CountDownLatch(2);
+    final Command first =
+        this.commandFactory.createDeleteCommand("test1", "test1".getBytes(), 10, 0, false);
+    final Command second =
+        this.commandFactory.createDeleteCommand("test2", "test2".getBytes(), 10, 0, false);
+    first.setLatch(latch);
+    second.setLatch(latch);
+    first.decode(null, ByteBuffer.wrap("DELETED\r\n".getBytes()));
+    assertTrue(first.isCompleted());
+    // the shared latch is not counted down to zero yet
+    assertFalse(first.getStatus() == OperationStatus.DONE);
+    second.decode(null, ByteBuffer.wrap("DELETED\r\n".getBytes()));
+    assertEquals(0, latch.getCount());
+    assertEquals(OperationStatus.DONE, second.getStatus());
+  }
+
+  public void testStatusWithoutLatch() {
+    final Command command =
+        this.commandFactory.createDeleteCommand("test", "test".getBytes(), 10, 0, false);
+    command.decode(null, ByteBuffer.wrap("DELETED\r\n".getBytes()));
+    assertEquals(OperationStatus.DONE, command.getStatus());
+  }
 }
@@ -2,11 +2,13 @@ package net.rubyeye.xmemcached.test.unittest.commands.text;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.ReturnValueListener;
 import net.rubyeye.xmemcached.command.text.TextGetCommand;
 import net.rubyeye.xmemcached.transcoders.CachedData;
 import net.rubyeye.xmemcached.transcoders.SerializingTranscoder;
@@ -68,6 +70,29 @@ public class TextGetMultiCommandUnitTest extends BaseTextCommandUnitTest {
         transcoder.decode(((Map<String, CachedData>) command.getResult()).get("test2")));
   }
 
+  public void testGetManyDecodeWithReturnValueListener() {
+    TextGetCommand command = (TextGetCommand) this.commandFactory.createGetMultiCommand(keys,
+        new CountDownLatch(1), CommandType.GET_MANY, transcoder);
+    final Map<String, CachedData> received = new HashMap<String, CachedData>();
+    command.setReturnValueListener(new ReturnValueListener() {
+      public void onReturnValue(String key, CachedData value) {
+        received.put(key, value);
+      }
+    });
+    assertFalse(command.decode(null,
+        ByteBuffer.wrap("VALUE test1 0 2\r\n10\r\nVALUE test2 0 4\r\n10".getBytes())));
+    // emitted before END
+    assertEquals(1, received.size());
+    assertEquals("10", transcoder.decode(received.get("test1")));
+    assertFalse(command.decode(null, ByteBuffer.wrap("00\r\n".getBytes())));
+    assertEquals(2, received.size());
+    assertEquals("1000", transcoder.decode(received.get("test2")));
+    checkDecodeValidLine(command, "END\r\n");
+    // values are not kept in result
+    assertEquals(0, ((Map) command.getResult()).size());
+    assertEquals(0, command.getLatch().getCount());
+  }
+
   public void testGetsManyDecode() {
     TextGetCommand command = (TextGetCommand) this.commandFactory.createGetMultiCommand(keys,
         new CountDownLatch(1), CommandType.GETS_MANY, transcoder);
@@ -95,4 +120,55 @@ public class TextGetMultiCommandUnitTest extends BaseTextCommandUnitTest {
     assertEquals("1000",
         transcoder.decode(((Map<String, CachedData>) command.getResult()).get("test2")));
   }
+
+  public void testGetsManyDecodeIncrementally() {
+    TextGetCommand command = (TextGetCommand) this.commandFactory.createGetMultiCommand(keys,
+        new CountDownLatch(1), CommandType.GETS_MANY, transcoder);
+    byte[] response =
+        "VALUE test3 12 2 999\r\n10\r\nVALUE test1 0 4 1000\r\n1000\r\nEND\r\n".getBytes();
+    // unconsumed bytes are kept in buffer,as the session does
+    ByteBuffer buffer = ByteBuffer.wrap(response);
+    for (int i = 1; i < response.length; i++) {
+      buffer.limit(i);
+      assertFalse(command.decode(null, buffer));
+    }
+    buffer.limit(response.length);
+    assertTrue(command.decode(null, buffer));
+
+    Map<String, CachedData> result = (Map<String, CachedData>) command.getResult();
+    assertEquals(2, result.size());
+    assertEquals(12, result.get("test3").getFlag());
+    assertEquals(999, result.get("test3").getCas());
+    assertEquals("10", transcoder.decode(result.get("test3")));
+    assertEquals(1000, result.get("test1").getCas());
+    assertEquals("1000", transcoder.decode(result.get("test1")));
+  }
+
+  public void testGetManyDecodeReturnsRequestedKeys() {
+    TextGetCommand command = (TextGetCommand) this.commandFactory.createGetMultiCommand(keys,
+        new CountDownLatch(1), CommandType.GET_MANY, transcoder);
+    assertTrue(command.decode(null, ByteBuffer.wrap(
+        "VALUE test2 0 1\r\n1\r\nVALUE test4 0 1\r\n4\r\nVALUE test5 0 1\r\n5\r\nEND\r\n"
+            .getBytes())));
+    Map<String, CachedData> result = (Map<String, CachedData>) command.getResult();
+    assertEquals(3, result.size());
+    for (String key : result.keySet()) {
+      // requested keys are reused,others are decoded from response
+      if (keys.contains(key)) {
+        assertSame(keys.get(keys.indexOf(key)), key);
+      }
+    }
+    assertEquals("5", transcoder.decode(result.get("test5")));
+  }
+
+  public void testGetManyDecodeInvalidNumber() {
+    TextGetCommand command = (TextGetCommand) this.commandFactory.createGetMultiCommand(keys,
+        new CountDownLatch(1), CommandType.GET_MANY, transcoder);
+    try {
+      command.decode(null, ByteBuffer.wrap("VALUE test1 0 1a\r\n1\r\nEND\r\n".getBytes()));
+      fail();
+    } catch (NumberFormatException e) {
+      assertEquals("For input string: \"1a\"", e.getMessage());
+    }
+  }
 }
@@ -1,8 +1,12 @@
 package net.rubyeye.xmemcached.test.unittest.commands.text;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import net.rubyeye.xmemcached.ValueSinks;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.ValueSinkAware;
+import net.rubyeye.xmemcached.exception.MemcachedException;
 import net.rubyeye.xmemcached.transcoders.CachedData;
 
 public class TextGetOneCommandUnitTest extends BaseTextCommandUnitTest {
@@ -71,4 +75,34 @@ public class TextGetOneCommandUnitTest extends BaseTextCommandUnitTest {
     assertEquals("10", new String(((CachedData) command.getResult()).getData()));
     assertEquals(999, ((CachedData) command.getResult()).getCas());
   }
+
+  public void testGetOneDecodeToValueSink() {
+    Command command =
+        this.commandFactory.createGetCommand("test", "test".getBytes(), CommandType.GETS_ONE, null);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((ValueSinkAware) command).setValueSink(ValueSinks.fromOutputStream(out));
+    assertFalse(command.decode(null, ByteBuffer.wrap("VALUE test 3 4 7\r\n10".getBytes())));
+    assertEquals("10", out.toString());
+    checkDecodeValidLine(command, "00\r\nEND\r\n");
+
+    assertEquals("1000", out.toString());
+    CachedData data = (CachedData) command.getResult();
+    assertNull(data.getData());
+    assertEquals(4, data.getSize());
+    assertEquals(3, data.getFlag());
+    assertEquals(7, data.getCas());
+    assertNull(command.getException());
+  }
+
+  public void testGetOneDecodeToFailedValueSink() {
+    Command command =
+        this.commandFactory.createGetCommand("test", "test".getBytes(), CommandType.GET_ONE, null);
+    ByteBuffer sinkBuffer = ByteBuffer.allocate(2);
+    ((ValueSinkAware) command).setValueSink(ValueSinks.fromByteBuffer(sinkBuffer));
+    // the value is skipped
+    checkDecodeValidLine(command, "VALUE test 0 4\r\n1000\r\nEND\r\n");
+    assertEquals(0, sinkBuffer.position());
+    assertNotNull(command.getResult());
+    assertTrue(command.getException() instanceof MemcachedException);
+  }
 }
@@ -0,0 +1,45 @@
+package net.rubyeye.xmemcached.test.unittest.commands.text;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.exception.MemcachedServerException;
+
+public class TextKeyMultiCommandUnitTest extends BaseTextCommandUnitTest {
+  public void testEncode() {
+    Command command = this.commandFactory.createKeyMultiCommand(Arrays.asList("a", "b"), null,
+        CommandType.DELETE_MANY, 0);
+    command.encode();
+    this.checkByteBufferEquals(command, "delete a noreply\r\ndelete b noreply\r\nversion\r\n");
+
+    command = this.commandFactory.createKeyMultiCommand(Arrays.asList("a", "b"), null,
+        CommandType.TOUCH_MANY, 10);
+    command.encode();
+    this.checkByteBufferEquals(command,
+        "touch a 10 noreply\r\ntouch b 10 noreply\r\nversion\r\n");
+  }
+
+  public void testDecode() {
+    Command command = this.commandFactory.createKeyMultiCommand(Arrays.asList("a", "b"), null,
+        CommandType.DELETE_MANY, 0);
+    this.checkDecodeNullAndNotLineByteBuffer(command);
+    this.checkDecodeInvalidLine(command, "a", "DELETED\r\n");
+    this.checkDecodeValidLine(command, "VERSION 1.6.21\r\n");
+    assertTrue(command.isCompleted());
+    assertNull(command.getException());
+    assertTrue(((Set<?>) command.getResult()).isEmpty());
+  }
+
+  public void testDecodeErrorBeforeVersion() {
+    Command command = this.commandFactory.createKeyMultiCommand(Arrays.asList("a", "b"), null,
+        CommandType.TOUCH_MANY, 10);
+    ByteBuffer buffer = ByteBuffer.wrap("SERVER_ERROR out of memory\r\nVERS".getBytes());
+    assertFalse(command.decode(null, buffer));
+    assertFalse(command.isCompleted());
+    assertTrue(command.getException() instanceof MemcachedServerException);
+    this.checkDecodeValidLine(command, "VERSION 1.6.21\r\n");
+    assertTrue(command.isCompleted());
+  }
+}
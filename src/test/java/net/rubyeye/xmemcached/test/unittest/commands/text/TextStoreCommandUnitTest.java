@@ -1,6 +1,7 @@
 package net.rubyeye.xmemcached.test.unittest.commands.text;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import net.rubyeye.xmemcached.command.Command;
 import net.rubyeye.xmemcached.transcoders.StringTranscoder;
 import net.rubyeye.xmemcached.transcoders.Transcoder;
@@ -37,6 +38,22 @@ public class TextStoreCommandUnitTest extends BaseTextCommandUnitTest {
     checkByteBufferEquals(command, "set test 0 0 2 noreply\r\n10\r\n");
   }
 
+  public void testSetEncodeLargeValue() {
+    char[] chars = new char[5000];
+    Arrays.fill(chars, 'a');
+    String largeValue = new String(chars);
+    Command command = this.commandFactory.createSetCommand(key, key.getBytes(), exp, largeValue,
+        false, transcoder);
+    command.encode();
+    // the value is not copied into the command buffer
+    checkByteBufferEquals(command, "set test 0 0 5000\r\n");
+    ByteBuffer[] writeBuffers = command.getWriteBuffers();
+    assertEquals(3, writeBuffers.length);
+    assertSame(command.getIoBuffer().buf(), writeBuffers[0]);
+    assertEquals(ByteBuffer.wrap(largeValue.getBytes()), writeBuffers[1]);
+    assertEquals(ByteBuffer.wrap("\r\n".getBytes()), writeBuffers[2]);
+  }
+
   public void testAddEncode() {
     Command command =
         this.commandFactory.createAddCommand(key, key.getBytes(), exp, value, false, transcoder);
@@ -3,8 +3,10 @@ package net.rubyeye.xmemcached.test.unittest.impl;
 import static org.junit.Assert.*;
 import java.util.ArrayList;
 import java.util.List;
+import net.rubyeye.xmemcached.KeyHashSessionLocator;
 import net.rubyeye.xmemcached.MemcachedSessionLocator;
 import net.rubyeye.xmemcached.test.unittest.MockSession;
+import net.rubyeye.xmemcached.utils.ByteUtils;
 import org.junit.Test;
 import com.google.code.yanf4j.core.Session;
 
@@ -28,4 +30,28 @@ public abstract class AbstractMemcachedSessionLocatorUnitTest {
     assertSame(session, this.locator.getSessionByKey("c"));
 
   }
+
+  @Test
+  public void testGetSessionByKeyHash() {
+    if (!(this.locator instanceof KeyHashSessionLocator)) {
+      return;
+    }
+    KeyHashSessionLocator hashLocator = (KeyHashSessionLocator) this.locator;
+    MockSession session1 = new MockSession(8080);
+    MockSession session2 = new MockSession(8081);
+    session2.close();
+    MockSession session3 = new MockSession(8082);
+    List<Session> list = new ArrayList<Session>();
+    list.add(session1);
+    list.add(session2);
+    list.add(session3);
+    this.locator.updateSessions(list);
+
+    for (int i = 0; i < 100; i++) {
+      String key = "key" + i;
+      long hash = hashLocator.hashKey(ByteUtils.getBytes(key));
+      assertTrue(hash >= 0);
+      assertSame(this.locator.getSessionByKey(key), hashLocator.getSessionByKey(key, hash));
+    }
+  }
 }
@@ -0,0 +1,95 @@
+package net.rubyeye.xmemcached.test.unittest.impl;
+
+import junit.framework.TestCase;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.TextCommandFactory;
+import net.rubyeye.xmemcached.impl.AdaptiveMergeController;
+
+public class AdaptiveMergeControllerUnitTest extends TestCase {
+
+  private Command newCommand() {
+    return new TextCommandFactory().createGetCommand("a", "a".getBytes(), CommandType.GET_ONE,
+        null);
+  }
+
+  private void writeWindow(AdaptiveMergeController controller, int bytes, boolean backlog) {
+    for (int i = 0; i < AdaptiveMergeController.WINDOW; i++) {
+      controller.onWrite(newCommand(), bytes, false, backlog);
+    }
+  }
+
+  public void testKeepValuesWithoutBacklog() {
+    AdaptiveMergeController controller = new AdaptiveMergeController(50, 8192);
+    writeWindow(controller, 100, false);
+    assertEquals(50, controller.getMergeFactor());
+    assertEquals(8192, controller.getMergeBufferLimit());
+    assertEquals(100, controller.getAverageWriteBytes());
+    assertEquals(0, controller.getBacklogPercent());
+  }
+
+  public void testIncreaseWithBacklog() {
+    AdaptiveMergeController controller = new AdaptiveMergeController(50, 8192);
+    writeWindow(controller, 100, true);
+    assertEquals(62, controller.getMergeFactor());
+    // Writes are not bounded by the merge buffer limit
+    assertEquals(8192, controller.getMergeBufferLimit());
+    assertEquals(100, controller.getBacklogPercent());
+
+    writeWindow(controller, 8192, true);
+    assertEquals(77, controller.getMergeFactor());
+    assertEquals(10240, controller.getMergeBufferLimit());
+
+    for (int i = 0; i < 100; i++) {
+      writeWindow(controller, 1024 * 1024, true);
+    }
+    assertEquals(AdaptiveMergeController.MAX_MERGE_FACTOR, controller.getMergeFactor());
+    assertEquals(8192 * 4, controller.getMergeBufferLimit());
+  }
+
+  public void testDecreaseOnHighLatency() throws Exception {
+    AdaptiveMergeController controller = new AdaptiveMergeController(50, 8192);
+    controller.setTargetLatency(1);
+    Command command = newCommand();
+    controller.onWrite(command, 100, true, true);
+    Thread.sleep(5);
+    controller.onResponse(command);
+    assertTrue(controller.getLatency() >= 5000);
+    writeWindow(controller, 100, true);
+    assertEquals(25, controller.getMergeFactor());
+    assertEquals(4096, controller.getMergeBufferLimit());
+
+    // No new latency sample,backlog increases it again
+    writeWindow(controller, 100, true);
+    assertEquals(31, controller.getMergeFactor());
+
+    for (int i = 0; i < 20; i++) {
+      command = newCommand();
+      controller.onWrite(command, 100, true, true);
+      controller.onResponse(command);
+      writeWindow(controller, 100, true);
+    }
+    assertEquals(AdaptiveMergeController.MIN_MERGE_FACTOR, controller.getMergeFactor());
+    assertEquals(AdaptiveMergeController.MIN_MERGE_BUFFER_LIMIT,
+        controller.getMergeBufferLimit());
+  }
+
+  public void testIgnoreResponseOfNotSampledCommand() {
+    AdaptiveMergeController controller = new AdaptiveMergeController(50, 8192);
+    Command command = newCommand();
+    controller.onWrite(command, 100, true, false);
+    controller.onResponse(newCommand());
+    assertEquals(0, controller.getLatency());
+  }
+
+  public void testInvalidTargetLatency() {
+    AdaptiveMergeController controller = new AdaptiveMergeController(50, 8192);
+    assertEquals(AdaptiveMergeController.DEFAULT_TARGET_LATENCY, controller.getTargetLatency());
+    try {
+      controller.setTargetLatency(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("targetLatency<=0", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package net.rubyeye.xmemcached.test.unittest.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import junit.framework.TestCase;
+import net.rubyeye.xmemcached.codec.MemcachedCodecFactory;
+import net.rubyeye.xmemcached.command.BinaryCommandFactory;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.OperationStatus;
+import net.rubyeye.xmemcached.impl.CommandBatch;
+import net.rubyeye.xmemcached.impl.MemcachedHandler;
+import net.rubyeye.xmemcached.impl.MemcachedTCPSession;
+import com.google.code.yanf4j.buffer.IoBuffer;
+import com.google.code.yanf4j.core.CodecFactory.Decoder;
+import com.google.code.yanf4j.core.WriteMessage;
+import com.google.code.yanf4j.core.impl.ByteBufferCodecFactory;
+import com.google.code.yanf4j.core.impl.HandlerAdapter;
+import com.google.code.yanf4j.nio.NioSessionConfig;
+
+public class CommandBatchUnitTest extends TestCase {
+
+  static class BatchSession extends MemcachedTCPSession {
+    BatchSession() {
+      super(new NioSessionConfig(null, new HandlerAdapter(), null, new ByteBufferCodecFactory(),
+          null, null, null, true, 0, 0), 16 * 1024, null, 0, new BinaryCommandFactory());
+    }
+
+    WriteMessage preprocess(WriteMessage message) {
+      return this.preprocessWriteMessage(message);
+    }
+  }
+
+  public void testWriteBinaryCommandsAsOneMessage() {
+    BinaryCommandFactory commandFactory = new BinaryCommandFactory();
+    Command a = commandFactory.createGetCommand("a", "a".getBytes(), CommandType.GET_ONE, null);
+    Command b = commandFactory.createGetCommand("b", "b".getBytes(), CommandType.GET_ONE, null);
+    a.encode();
+    b.encode();
+    CommandBatch batch = new CommandBatch(Arrays.asList(a, b));
+    assertEquals(OperationStatus.WRITING, batch.getStatus());
+    ByteBuffer[] buffers = batch.getWriteBuffers();
+    assertEquals(2, buffers.length);
+
+    BatchSession session = new BatchSession();
+    assertSame(batch, session.preprocess(batch));
+    // commands are added in order,opaques are assigned in the gathered buffers
+    assertTrue(a.isAdded());
+    assertTrue(b.isAdded());
+    assertFalse(batch.isAdded());
+    int opaqueA = buffers[0].getInt(12);
+    int opaqueB = buffers[1].getInt(12);
+    assertEquals(opaqueA + 1, opaqueB);
+    // buffers are freed with the batch
+    assertSame(MemcachedHandler.EMPTY_BUF, a.getIoBuffer());
+    assertSame(MemcachedHandler.EMPTY_BUF, b.getIoBuffer());
+    assertEquals(2, batch.getMergedIoBuffers().size());
+
+    Decoder decoder = new MemcachedCodecFactory().getDecoder();
+    ByteBuffer responses = ByteBuffer.allocate(2 * (24 + 4 + 1));
+    putGetResponse(responses, opaqueA, "a");
+    putGetResponse(responses, opaqueB, "b");
+    responses.flip();
+    IoBuffer buffer = IoBuffer.wrap(responses);
+    assertSame(a, decoder.decode(buffer, session));
+    assertSame(b, decoder.decode(buffer, session));
+    assertFalse(buffer.hasRemaining());
+  }
+
+  private static void putGetResponse(ByteBuffer buffer, int opaque, String value) {
+    buffer.put((byte) 0x81).put((byte) 0x00).putShort((short) 0).put((byte) 4).put((byte) 0)
+        .putShort((short) 0).putInt(4 + value.length()).putInt(opaque).putLong(0);
+    buffer.putInt(0).put(value.getBytes());
+  }
+}
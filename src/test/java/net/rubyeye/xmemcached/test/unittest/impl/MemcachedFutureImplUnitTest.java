@@ -0,0 +1,153 @@
+package net.rubyeye.xmemcached.test.unittest.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+import net.rubyeye.xmemcached.MemcachedFuture;
+import net.rubyeye.xmemcached.MemcachedFutureListener;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.OperationListener;
+import net.rubyeye.xmemcached.command.TextCommandFactory;
+import net.rubyeye.xmemcached.impl.MemcachedFutureImpl;
+
+public class MemcachedFutureImplUnitTest extends TestCase {
+
+  public void testSetResult() throws Exception {
+    MemcachedFutureImpl<String> future = new MemcachedFutureImpl<String>();
+    assertFalse(future.isDone());
+    assertNull(future.getNow());
+    assertTrue(future.setResult("hello"));
+    assertFalse(future.setResult("world"));
+    assertFalse(future.setFailure(new RuntimeException()));
+    assertTrue(future.isDone());
+    assertTrue(future.isSuccess());
+    assertNull(future.getCause());
+    assertEquals("hello", future.get());
+    assertEquals("hello", future.get(1, TimeUnit.SECONDS));
+    assertEquals("hello", future.getNow());
+  }
+
+  public void testSetFailure() throws Exception {
+    MemcachedFutureImpl<String> future = new MemcachedFutureImpl<String>();
+    RuntimeException e = new RuntimeException("test");
+    assertTrue(future.setFailure(e));
+    assertTrue(future.isDone());
+    assertFalse(future.isSuccess());
+    assertSame(e, future.getCause());
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException ex) {
+      assertSame(e, ex.getCause());
+    }
+  }
+
+  public void testCancel() throws Exception {
+    MemcachedFutureImpl<String> future = new MemcachedFutureImpl<String>();
+    Command command = new TextCommandFactory().createGetCommand("a", "a".getBytes(),
+        CommandType.GET_ONE, null);
+    command.encode();
+    future.setCommand(command);
+    assertTrue(future.cancel(true));
+    assertTrue(future.isCancelled());
+    assertTrue(command.isCancel());
+    assertFalse(future.setResult("a"));
+    try {
+      future.get();
+      fail();
+    } catch (CancellationException e) {
+    }
+  }
+
+  public void testGetTimeout() throws Exception {
+    MemcachedFutureImpl<String> future = new MemcachedFutureImpl<String>();
+    try {
+      future.get(10, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (TimeoutException e) {
+    }
+  }
+
+  public void testListeners() throws Exception {
+    final AtomicInteger counter = new AtomicInteger();
+    MemcachedFutureListener<String> listener = new MemcachedFutureListener<String>() {
+      public void onComplete(MemcachedFuture<String> future) {
+        assertTrue(future.isDone());
+        counter.incrementAndGet();
+      }
+    };
+    MemcachedFutureImpl<String> future = new MemcachedFutureImpl<String>();
+    future.addListener(listener);
+    future.addListener(listener);
+    assertEquals(0, counter.get());
+    future.setResult("a");
+    assertEquals(2, counter.get());
+    // notified immediately if completed
+    future.addListener(listener);
+    assertEquals(3, counter.get());
+  }
+
+  public void testCommandOperationListener() {
+    final AtomicInteger counter = new AtomicInteger();
+    Command command = new TextCommandFactory().createGetCommand("a", "a".getBytes(),
+        CommandType.GET_ONE, null);
+    command.setOperationListener(new OperationListener() {
+      public void onOperationComplete(Command cmd) {
+        counter.incrementAndGet();
+      }
+    });
+    command.countDownLatch();
+    assertEquals(1, counter.get());
+    assertEquals(0, command.getLatch().getCount());
+    // notified only once
+    command.countDownLatch();
+    assertEquals(1, counter.get());
+  }
+
+  public void testCommandOperationListenerWithExecutor() throws Exception {
+    final AtomicInteger counter = new AtomicInteger();
+    final List<Runnable> tasks = new ArrayList<Runnable>();
+    Command command = new TextCommandFactory().createGetCommand("a", "a".getBytes(),
+        CommandType.GET_ONE, null);
+    command.setOperationListener(new OperationListener() {
+      public void onOperationComplete(Command cmd) {
+        counter.incrementAndGet();
+      }
+    }, new Executor() {
+      public void execute(Runnable command) {
+        tasks.add(command);
+      }
+    });
+    command.countDownLatch();
+    assertEquals(0, counter.get());
+    assertEquals(1, tasks.size());
+    tasks.get(0).run();
+    assertEquals(1, counter.get());
+  }
+
+  public void testCommandOperationListenerRejected() throws Exception {
+    final AtomicInteger counter = new AtomicInteger();
+    Command command = new TextCommandFactory().createGetCommand("a", "a".getBytes(),
+        CommandType.GET_ONE, null);
+    command.setOperationListener(new OperationListener() {
+      public void onOperationComplete(Command cmd) {
+        counter.incrementAndGet();
+      }
+    }, new Executor() {
+      public void execute(Runnable command) {
+        throw new RejectedExecutionException();
+      }
+    });
+    // notified inline
+    command.countDownLatch();
+    assertEquals(1, counter.get());
+  }
+}
@@ -0,0 +1,196 @@
+package net.rubyeye.xmemcached.test.unittest.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import junit.framework.TestCase;
+import net.rubyeye.xmemcached.command.BinaryCommandFactory;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.binary.BaseBinaryCommand;
+import net.rubyeye.xmemcached.command.binary.BinarySetMultiCommand;
+import net.rubyeye.xmemcached.impl.OpaqueCommandTable;
+import net.rubyeye.xmemcached.impl.Optimizer;
+import net.rubyeye.xmemcached.transcoders.SerializingTranscoder;
+import net.rubyeye.xmemcached.utils.Protocol;
+import com.google.code.yanf4j.util.LinkedTransferQueue;
+
+public class OpaqueCommandTableUnitTest extends TestCase {
+
+  private final BinaryCommandFactory commandFactory = new BinaryCommandFactory();
+
+  private Command newGetCommand(String key) {
+    Command command =
+        this.commandFactory.createGetCommand(key, key.getBytes(), CommandType.GET_ONE, null);
+    command.encode();
+    return command;
+  }
+
+  private Command newSetCommand(String key, boolean noreply) {
+    Command command = this.commandFactory.createSetCommand(key, key.getBytes(), 0, "v", noreply,
+        new SerializingTranscoder());
+    command.encode();
+    return command;
+  }
+
+  private static int opaqueOf(Command command) {
+    return command.getIoBuffer().buf().getInt(12);
+  }
+
+  public void testAssignOpaquesInOrder() {
+    OpaqueCommandTable table = new OpaqueCommandTable();
+    Command a = this.newGetCommand("a");
+    Command b = this.newSetCommand("b", true);
+    table.add(a);
+    table.add(b);
+    assertEquals(0, opaqueOf(a));
+    assertEquals(1, opaqueOf(b));
+    assertEquals(0, ((BaseBinaryCommand) a).getOpaque());
+    assertEquals(1, ((BaseBinaryCommand) b).getOpaque());
+    assertEquals(2, table.size());
+    assertSame(a, table.peek());
+  }
+
+  public void testTakeOutOfOrder() {
+    OpaqueCommandTable table = new OpaqueCommandTable();
+    Command a = this.newGetCommand("a");
+    Command b = this.newGetCommand("b");
+    Command c = this.newGetCommand("c");
+    table.add(a);
+    table.add(b);
+    table.add(c);
+    assertSame(c, table.take(2));
+    assertNull(table.take(2));
+    assertSame(a, table.take(0));
+    assertEquals(1, table.size());
+    assertSame(b, table.poll());
+    assertTrue(table.isEmpty());
+    assertNull(table.take(5));
+  }
+
+  public void testQuietCommandsTakenFirst() {
+    OpaqueCommandTable table = new OpaqueCommandTable();
+    Command get = this.newGetCommand("a");
+    Command quiet1 = this.newSetCommand("b", true);
+    Command quiet2 = this.newSetCommand("c", true);
+    Command set = this.newSetCommand("d", false);
+    Command after = this.newSetCommand("e", true);
+    table.add(get);
+    table.add(quiet1);
+    table.add(quiet2);
+    table.add(set);
+    table.add(after);
+    // The pending get is not a quiet command,it's responded later.
+    assertSame(quiet1, table.take(3));
+    assertSame(quiet2, table.take(3));
+    assertSame(set, table.take(3));
+    assertSame(get, table.take(0));
+    assertEquals(1, table.size());
+    assertSame(after, table.peek());
+  }
+
+  public void testMultiPacketsCommand() {
+    OpaqueCommandTable table = new OpaqueCommandTable();
+    Command first = this.newGetCommand("first");
+    table.add(first);
+    Command getMulti = this.commandFactory.createGetMultiCommand(Arrays.asList("a", "b", "c"),
+        null, CommandType.GET_MANY, null);
+    table.add(getMulti);
+    Command last = this.newGetCommand("last");
+    table.add(last);
+    ByteBuffer buffer = getMulti.getIoBuffer().buf();
+    int position = 0;
+    for (int i = 1; i <= 3; i++) {
+      assertEquals(i, buffer.getInt(position + 12));
+      position += 24 + buffer.getInt(position + 8);
+    }
+    assertEquals(buffer.limit(), position);
+    assertEquals(4, opaqueOf(last));
+    assertEquals(3, table.size());
+    // Matched by any of its packets
+    assertSame(getMulti, table.take(2));
+    assertNull(table.take(1));
+    assertNull(table.take(3));
+    assertSame(first, table.take(0));
+    assertSame(last, table.take(4));
+  }
+
+  public void testSeparateValueBuffer() {
+    OpaqueCommandTable table = new OpaqueCommandTable();
+    table.add(this.newGetCommand("a"));
+    // Random bytes are not compressed,the value is written from its own buffer.
+    byte[] value = new byte[8 * 1024];
+    new Random().nextBytes(value);
+    Command set = this.commandFactory.createSetCommand("b", "b".getBytes(), 0, value, false,
+        new SerializingTranscoder());
+    set.encode();
+    assertNotNull(set.getWriteBuffers());
+    table.add(set);
+    Command next = this.newGetCommand("c");
+    table.add(next);
+    assertEquals(1, set.getWriteBuffers()[0].getInt(12));
+    assertEquals(2, opaqueOf(next));
+  }
+
+  public void testGrow() {
+    OpaqueCommandTable table = new OpaqueCommandTable();
+    Command[] commands = new Command[1000];
+    for (int i = 0; i < commands.length; i++) {
+      commands[i] = this.newGetCommand(String.valueOf(i));
+      table.add(commands[i]);
+      if (i % 3 == 0) {
+        assertSame(commands[i], table.take(i));
+      }
+    }
+    Iterator<Command> it = table.iterator();
+    for (int i = 0; i < commands.length; i++) {
+      if (i % 3 != 0) {
+        assertSame(commands[i], it.next());
+      }
+    }
+    assertFalse(it.hasNext());
+    for (int i = commands.length - 1; i >= 0; i--) {
+      if (i % 3 != 0) {
+        assertSame(commands[i], table.take(i));
+      }
+    }
+    assertTrue(table.isEmpty());
+  }
+
+  public void testMergedSetCommandsKeyedBySessionOpaques() {
+    Optimizer optimizer = new Optimizer(Protocol.Binary);
+    LinkedTransferQueue<Command> writeQueue = new LinkedTransferQueue<Command>();
+    Command[] cmds = new Command[3];
+    for (int i = 0; i < 3; i++) {
+      cmds[i] = this.newSetCommand(String.valueOf(i), false);
+      writeQueue.add(cmds[i]);
+    }
+    OpaqueCommandTable table = new OpaqueCommandTable();
+    table.add(this.newGetCommand("a"));
+    Command current = writeQueue.poll();
+    BinarySetMultiCommand merged = (BinarySetMultiCommand) optimizer.optimiezeSet(writeQueue,
+        table, current, Integer.MAX_VALUE);
+    table.add(merged);
+    assertEquals(3, merged.getMergeCommands().size());
+    Iterator<Object> opaques = merged.getMergeCommands().keySet().iterator();
+    for (int i = 0; i < 3; i++) {
+      Object opaque = opaques.next();
+      assertEquals(i + 1, opaque);
+      assertSame(cmds[i], merged.getMergeCommands().get(opaque));
+    }
+
+    // The second SETQ fails,then the last SET responds.
+    ByteBuffer responses = ByteBuffer.allocate(48);
+    responses.put((byte) 0x81).put((byte) 0x11).putShort((short) 0).put((byte) 0).put((byte) 0)
+        .putShort((short) 0x02).putInt(0).putInt(2).putLong(0);
+    responses.put((byte) 0x81).put((byte) 0x01).putShort((short) 0).put((byte) 0).put((byte) 0)
+        .putShort((short) 0).putInt(0).putInt(3).putLong(0);
+    responses.flip();
+    assertSame(merged, table.take(2));
+    assertTrue(merged.decode(null, responses));
+    assertEquals(Boolean.TRUE, cmds[0].getResult());
+    assertEquals(Boolean.FALSE, cmds[1].getResult());
+    assertEquals(Boolean.TRUE, cmds[2].getResult());
+  }
+}
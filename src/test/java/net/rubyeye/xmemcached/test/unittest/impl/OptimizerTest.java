@@ -12,11 +12,13 @@ import net.rubyeye.xmemcached.command.CommandType;
 import net.rubyeye.xmemcached.command.TextCommandFactory;
 import net.rubyeye.xmemcached.command.binary.BinarySetMultiCommand;
 import net.rubyeye.xmemcached.command.text.TextGetOneCommand;
+import net.rubyeye.xmemcached.impl.MemcachedHandler;
 import net.rubyeye.xmemcached.impl.Optimizer;
 import net.rubyeye.xmemcached.transcoders.CachedData;
 import net.rubyeye.xmemcached.transcoders.SerializingTranscoder;
 import net.rubyeye.xmemcached.transcoders.Transcoder;
 import net.rubyeye.xmemcached.utils.Protocol;
+import com.google.code.yanf4j.buffer.IoBuffer;
 import com.google.code.yanf4j.core.impl.FutureImpl;
 import com.google.code.yanf4j.util.LinkedTransferQueue;
 import com.google.code.yanf4j.util.SimpleQueue;
@@ -95,6 +97,43 @@ public class OptimizerTest extends TestCase {
     assertEquals(optimiezedCommand.getMergeCount(), 10);
   }
 
+  public void testOptimiezeAddCommandsWithFailure() {
+    this.optimiezer = new Optimizer(Protocol.Binary);
+    this.commandFactory = new BinaryCommandFactory();
+    this.writeQueue = new LinkedTransferQueue<Command>();
+    this.executingCmds = new LinkedTransferQueue<Command>();
+    SerializingTranscoder transcoder = new SerializingTranscoder();
+    Command[] cmds = new Command[3];
+    for (int i = 0; i < 3; i++) {
+      cmds[i] = this.commandFactory.createAddCommand(String.valueOf(i),
+          String.valueOf(i).getBytes(), 0, i, false, transcoder);
+      cmds[i].encode();
+      this.writeQueue.add(cmds[i]);
+    }
+    this.currentCmd = (Command) this.writeQueue.poll();
+
+    BinarySetMultiCommand optimiezedCommand = (BinarySetMultiCommand) this.optimiezer
+        .optimiezeSet(this.writeQueue, this.executingCmds, this.currentCmd, Integer.MAX_VALUE);
+    assertEquals(3, optimiezedCommand.getMergeCount());
+
+    // The first ADDQ fails,then the last ADD responds.
+    ByteBuffer requests = gather(optimiezedCommand);
+    int firstOpaque = requests.getInt(12);
+    int lastOffset = requests.limit() - cmds[2].getIoBuffer().remaining();
+    assertEquals(0x02, requests.get(lastOffset + 1));
+    int lastOpaque = requests.getInt(lastOffset + 12);
+    ByteBuffer responses = ByteBuffer.allocate(48);
+    responses.put((byte) 0x81).put((byte) 0x12).putShort((short) 0).put((byte) 0).put((byte) 0)
+        .putShort((short) 0x02).putInt(0).putInt(firstOpaque).putLong(0);
+    responses.put((byte) 0x81).put((byte) 0x02).putShort((short) 0).put((byte) 0).put((byte) 0)
+        .putShort((short) 0).putInt(0).putInt(lastOpaque).putLong(0);
+    responses.flip();
+    assertTrue(optimiezedCommand.decode(null, responses));
+    assertEquals(Boolean.FALSE, cmds[0].getResult());
+    assertEquals(Boolean.TRUE, cmds[1].getResult());
+    assertEquals(Boolean.TRUE, cmds[2].getResult());
+  }
+
   public void testOptimiezeGet() {
 
     TextGetOneCommand optimiezeCommand = (TextGetOneCommand) this.optimiezer
@@ -155,6 +194,17 @@ public class OptimizerTest extends TestCase {
     assertEquals(5, this.writeQueue.size()); // remain five commands
   }
 
+  public void testOptimizeWithGivenMergeFactor() {
+    Command optimiezeCommand = this.optimiezer.optimize(this.currentCmd, this.writeQueue,
+        this.executingCmds, 3, 16 * 1024);
+    ByteBuffer mergeBuffer = gather(optimiezeCommand);
+    // Merge three get commands at most,then merge the remaining ones as buffers.
+    assertEquals("get 0 1 2\r\nget 3 4 5\r\nget 6 7 8\r\nget 9\r\n",
+        new String(mergeBuffer.array()));
+    assertEquals(Optimizer.DEFAULT_MERGE_FACTOR, this.optimiezer.getMergeFactor());
+    assertEquals(0, this.writeQueue.size());
+  }
+
   public void testMergeFactorEqualsZero() {
     this.optimiezer.setMergeFactor(0);
     TextGetOneCommand optimiezeCommand = (TextGetOneCommand) this.optimiezer
@@ -232,7 +282,7 @@ public class OptimizerTest extends TestCase {
     Command optimiezeCommand = this.optimiezer.optimiezeMergeBuffer(this.currentCmd,
         this.writeQueue, this.executingCmds, 54);
     assertNotSame(this.currentCmd, optimiezeCommand);
-    ByteBuffer mergeBuffer = optimiezeCommand.getIoBuffer().buf();
+    ByteBuffer mergeBuffer = gather(optimiezeCommand);
     assertEquals(0, this.writeQueue.size());
     assertSame(CommandType.GET_ONE, optimiezeCommand.getCommandType());
     assertEquals("get 0\r\nget 1 2 3 4 5 6 7 8 9\r\n", new String(mergeBuffer.array())); // current
@@ -243,10 +293,19 @@ public class OptimizerTest extends TestCase {
   public void testMergeAllBuffer() {
     // merge 10 buffers
     this.optimiezer.setOptimizeMergeBuffer(true);
+    IoBuffer currentBuffer = this.currentCmd.getIoBuffer();
     Command optimiezeCommand = this.optimiezer.optimiezeMergeBuffer(this.currentCmd,
         this.writeQueue, this.executingCmds, 100);
-    ByteBuffer mergeBuffer = optimiezeCommand.getIoBuffer().buf();
+    ByteBuffer mergeBuffer = gather(optimiezeCommand);
     assertNotSame(this.currentCmd, optimiezeCommand);
+    // buffers are not copied
+    assertSame(currentBuffer.buf(), optimiezeCommand.getWriteBuffers()[0]);
+    // the merged command frees the buffer after sent
+    assertSame(MemcachedHandler.EMPTY_BUF, this.currentCmd.getIoBuffer());
+    assertEquals(1, optimiezeCommand.getMergedIoBuffers().size());
+    assertSame(currentBuffer, optimiezeCommand.getMergedIoBuffers().get(0));
+    assertSame(optimiezeCommand.getIoBuffer().buf(),
+        optimiezeCommand.getWriteBuffers()[optimiezeCommand.getWriteBuffers().length - 1]);
     assertTrue(mergeBuffer.remaining() < 100);
     assertEquals(0, this.writeQueue.size());
     assertEquals("get 0\r\nget 1 2 3 4 5 6 7 8 9\r\n", new String(mergeBuffer.array())); // current
@@ -278,7 +337,7 @@ public class OptimizerTest extends TestCase {
     }
     Command optimiezeCommand =
         this.optimiezer.optimize(this.currentCmd, this.writeQueue, this.executingCmds, 16 * 1024);
-    ByteBuffer mergeBuffer = optimiezeCommand.getIoBuffer().buf();
+    ByteBuffer mergeBuffer = gather(optimiezeCommand);
     StringBuilder sb = new StringBuilder("get ");
     for (int i = 0; i < 10; i++) {
       if (i != 9) {
@@ -295,4 +354,24 @@ public class OptimizerTest extends TestCase {
     assertEquals(0, this.writeQueue.size());
     assertNull(this.writeQueue.peek());
   }
+
+  /**
+   * Copy the buffers of a merged command,which are written by one gathering write.
+   */
+  private static ByteBuffer gather(Command command) {
+    ByteBuffer[] buffers = command.getWriteBuffers();
+    if (buffers == null) {
+      return command.getIoBuffer().buf();
+    }
+    int size = 0;
+    for (ByteBuffer buffer : buffers) {
+      size += buffer.remaining();
+    }
+    ByteBuffer result = ByteBuffer.allocate(size);
+    for (ByteBuffer buffer : buffers) {
+      result.put(buffer.duplicate());
+    }
+    result.flip();
+    return result;
+  }
 }
@@ -0,0 +1,75 @@
+package net.rubyeye.xmemcached.test.unittest.impl;
+
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import net.rubyeye.xmemcached.WaitStrategies;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.command.TextCommandFactory;
+import net.rubyeye.xmemcached.impl.SpinWaitStrategy;
+
+public class SpinWaitStrategyUnitTest extends TestCase {
+
+  private Command newCommand() {
+    return new TextCommandFactory().createGetCommand("a", "a".getBytes(), CommandType.GET_ONE,
+        null);
+  }
+
+  private Thread completeLater(final Command command, final long millis) {
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(millis);
+        } catch (InterruptedException e) {
+          return;
+        }
+        command.countDownLatch();
+      }
+    };
+    thread.start();
+    return thread;
+  }
+
+  public void testCompletedBeforeWait() throws Exception {
+    SpinWaitStrategy strategy = WaitStrategies.spinThenPark(100, TimeUnit.MICROSECONDS);
+    Command command = newCommand();
+    command.countDownLatch();
+    assertTrue(strategy.await(command, 1000, TimeUnit.MILLISECONDS));
+    assertEquals(1, strategy.getWaitCount());
+    assertEquals(1, strategy.getSpinCompletedCount());
+    assertEquals(0, strategy.getParkCount());
+    assertEquals(100, strategy.getSpinCompletedPercent());
+  }
+
+  public void testCompletedWhileSpinning() throws Exception {
+    SpinWaitStrategy strategy = WaitStrategies.yieldThenPark(5, TimeUnit.SECONDS);
+    Command command = newCommand();
+    completeLater(command, 10);
+    assertTrue(strategy.await(command, 10, TimeUnit.SECONDS));
+    assertEquals(1, strategy.getSpinCompletedCount());
+    assertEquals(0, strategy.getParkCount());
+  }
+
+  public void testParkAfterSpinning() throws Exception {
+    SpinWaitStrategy strategy = WaitStrategies.spinThenPark(0, TimeUnit.MICROSECONDS);
+    Command command = newCommand();
+    completeLater(command, 10);
+    assertTrue(strategy.await(command, 10, TimeUnit.SECONDS));
+    assertEquals(0, strategy.getSpinCompletedCount());
+    assertEquals(1, strategy.getParkCount());
+    assertEquals(0, strategy.getSpinCompletedPercent());
+
+    strategy.resetStatistics();
+    assertEquals(0, strategy.getWaitCount());
+  }
+
+  public void testTimeout() throws Exception {
+    SpinWaitStrategy strategy = WaitStrategies.spinThenPark(100, TimeUnit.MILLISECONDS);
+    Command command = newCommand();
+    long start = System.nanoTime();
+    assertFalse(strategy.await(command, 20, TimeUnit.MILLISECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    assertFalse(WaitStrategies.park().await(command, 10, TimeUnit.MILLISECONDS));
+  }
+}